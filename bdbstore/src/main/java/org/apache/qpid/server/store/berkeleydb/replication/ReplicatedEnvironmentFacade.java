@@ -40,9 +40,11 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -69,6 +71,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.configuration.IllegalConfigurationException;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.store.StoreException;
 import org.apache.qpid.server.store.berkeleydb.BDBUtils;
 import org.apache.qpid.server.store.berkeleydb.CoalescingCommiter;
@@ -87,6 +90,8 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
     public static final String REMOTE_NODE_MONITOR_TIMEOUT_PROPERTY_NAME = "qpid.bdb.ha.remote_node_monitor_timeout";
     public static final String ENVIRONMENT_RESTART_RETRY_LIMIT_PROPERTY_NAME = "qpid.bdb.ha.environment_restart_retry_limit";
     public static final String EXECUTOR_SHUTDOWN_TIMEOUT_PROPERTY_NAME = "qpid.bdb.ha.executor_shutdown_timeout";
+    public static final String COMMIT_STAGE_THREADS_PROPERTY_NAME = "qpid.bdb.ha.commit_stage_threads";
+    public static final String COMMIT_STAGE_MAX_PENDING_PROPERTY_NAME = "qpid.bdb.ha.commit_stage_max_pending";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ReplicatedEnvironmentFacade.class);
 
@@ -96,6 +101,8 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
     private static final int DEFAULT_REMOTE_NODE_MONITOR_TIMEOUT = 1000;
     private static final int DEFAULT_ENVIRONMENT_RESTART_RETRY_LIMIT = 3;
     private static final int DEFAULT_EXECUTOR_SHUTDOWN_TIMEOUT = 5000;
+    private static final int DEFAULT_COMMIT_STAGE_THREADS = 4;
+    private static final int DEFAULT_COMMIT_STAGE_MAX_PENDING = 256;
 
     /** Length of time allowed for a master transfer to complete before the operation will timeout */
     private final int _masterTransferTimeout;
@@ -130,6 +137,19 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
      */
     private final int _executorShutdownTimeout;
 
+    /**
+     * Number of threads committing transactions that must be acknowledged by replicas.  Asynchronous commits
+     * are handed to these threads so that the callers (typically IO threads) do not wait for the replica
+     * acknowledgements.  Zero commits on the caller's thread.
+     */
+    private final int _commitStageThreads;
+
+    /**
+     * Maximum number of commits awaiting the commit stage.  Each holds its transaction's locks until it completes,
+     * so once this many are pending further commits are performed on the caller's thread, throttling the caller.
+     */
+    private final int _commitStageMaxPending;
+
     private final int _logHandlerCleanerProtectedFilesLimit;
 
     static final SyncPolicy LOCAL_TRANSACTION_SYNCHRONIZATION_POLICY = SyncPolicy.SYNC;
@@ -204,6 +224,7 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
 
     private final ExecutorService _environmentJobExecutor;
     private final ListeningExecutorService _stateChangeExecutor;
+    private final ListeningExecutorService _commitExecutor;
 
     /**
      * Executor used to learn about changes in the group.  Number of threads in the pool is maintained dynammically
@@ -220,6 +241,8 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
     private final ConcurrentMap<String, Database> _cachedDatabases = new ConcurrentHashMap<>();
     private final ConcurrentMap<DatabaseEntry, Sequence> _cachedSequences = new ConcurrentHashMap<>();
     private final AtomicReference<ReplicatedEnvironment> _environment = new AtomicReference<>();
+    private final LatencyHistogram _commitLatency = new LatencyHistogram();
+    private final AtomicInteger _pendingCommits = new AtomicInteger();
 
     private final Set<String> _permittedNodes = new CopyOnWriteArraySet<String>();
     private volatile Durability _realMessageStoreDurability = null;
@@ -261,6 +284,8 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
         _remoteNodeMonitorTimeout = configuration.getFacadeParameter(REMOTE_NODE_MONITOR_TIMEOUT_PROPERTY_NAME, DEFAULT_REMOTE_NODE_MONITOR_TIMEOUT);
         _environmentRestartRetryLimit = configuration.getFacadeParameter(ENVIRONMENT_RESTART_RETRY_LIMIT_PROPERTY_NAME, DEFAULT_ENVIRONMENT_RESTART_RETRY_LIMIT);
         _executorShutdownTimeout = configuration.getFacadeParameter(EXECUTOR_SHUTDOWN_TIMEOUT_PROPERTY_NAME, DEFAULT_EXECUTOR_SHUTDOWN_TIMEOUT);
+        _commitStageThreads = configuration.getFacadeParameter(COMMIT_STAGE_THREADS_PROPERTY_NAME, DEFAULT_COMMIT_STAGE_THREADS);
+        _commitStageMaxPending = configuration.getFacadeParameter(COMMIT_STAGE_MAX_PENDING_PROPERTY_NAME, DEFAULT_COMMIT_STAGE_MAX_PENDING);
         _logHandlerCleanerProtectedFilesLimit = _configuration.getFacadeParameter(LOG_HANDLER_CLEANER_PROTECTED_FILES_LIMIT_PROPERTY_NAME,
                                                                                   DEFAULT_LOG_HANDLER_CLEANER_PROTECTED_FILES_LIMIT);
 
@@ -271,6 +296,10 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
         _environmentJobExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("Environment-" + _prettyGroupNodeName));
         _stateChangeExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(new DaemonThreadFactory("StateChange-" + _prettyGroupNodeName)));
         _groupChangeExecutor = new ScheduledThreadPoolExecutor(2, new DaemonThreadFactory("Group-Change-Learner:" + _prettyGroupNodeName));
+        _commitExecutor = _commitStageThreads > 0
+                ? MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(_commitStageThreads,
+                                                                                new DaemonThreadFactory("Commit-Stage-" + _prettyGroupNodeName)))
+                : null;
 
         // create environment in a separate thread to avoid renaming of the current thread by JE
         EnvHomeRegistry.getInstance().registerHome(_environmentDirectory);
@@ -314,6 +343,7 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
     @Override
     public void commit(final Transaction tx, boolean syncCommit)
     {
+        final long startTime = System.nanoTime();
         try
         {
             // Using commit() instead of commitNoSync() for the HA store to allow
@@ -324,6 +354,10 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
         {
             throw handleDatabaseException("Got DatabaseException on commit, closing environment", de);
         }
+        finally
+        {
+            recordCommitLatency(startTime);
+        }
 
         if (_coalescingCommiter != null && _realMessageStoreDurability.getLocalSync() == SyncPolicy.NO_SYNC
                 && _messageStoreDurability.getLocalSync() == SyncPolicy.SYNC)
@@ -336,25 +370,108 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
     @Override
     public <X> ListenableFuture<X> commitAsync(final Transaction tx, final X val)
     {
+        final Durability durability = _realMessageStoreDurability;
+        if (_commitExecutor != null && durability.getReplicaAck() != ReplicaAckPolicy.NONE)
+        {
+            // awaiting the replica acknowledgements takes at least a network round trip, so the commit is
+            // handed to the commit stage and the caller is notified through the returned future
+            if (_pendingCommits.incrementAndGet() > _commitStageMaxPending)
+            {
+                _pendingCommits.decrementAndGet();
+                return commitAsync(tx, val, durability);
+            }
+            try
+            {
+                return Futures.dereference(_commitExecutor.submit(new Callable<ListenableFuture<X>>()
+                {
+                    @Override
+                    public ListenableFuture<X> call()
+                    {
+                        try
+                        {
+                            return commitAsync(tx, val, durability);
+                        }
+                        catch (ServerScopedRuntimeException e)
+                        {
+                            handleUncaughtExceptionInExecutorService(e);
+                            throw e;
+                        }
+                        finally
+                        {
+                            _pendingCommits.decrementAndGet();
+                        }
+                    }
+                }));
+            }
+            catch (RejectedExecutionException e)
+            {
+                _pendingCommits.decrementAndGet();
+                throw new ConnectionScopedRuntimeException(String.format("Environment '%s' is closing", getNodeName()), e);
+            }
+        }
+        return commitAsync(tx, val, durability);
+    }
+
+    private <X> ListenableFuture<X> commitAsync(final Transaction tx, final X val, final Durability durability)
+    {
+        final long startTime = System.nanoTime();
         try
         {
             // Using commit() instead of commitNoSync() for the HA store to allow
             // the HA durability configuration to influence resulting behaviour.
-            tx.commit(_realMessageStoreDurability);
+            tx.commit(durability);
         }
         catch (DatabaseException de)
         {
             throw handleDatabaseException("Got DatabaseException on commit, closing environment", de);
         }
+        finally
+        {
+            recordCommitLatency(startTime);
+        }
 
-        if (_coalescingCommiter != null && _realMessageStoreDurability.getLocalSync() == SyncPolicy.NO_SYNC
+        final CoalescingCommiter coalescingCommiter = _coalescingCommiter;
+        if (coalescingCommiter != null && durability.getLocalSync() == SyncPolicy.NO_SYNC
             && _messageStoreDurability.getLocalSync() == SyncPolicy.SYNC)
         {
-            return _coalescingCommiter.commitAsync(tx, val);
+            return coalescingCommiter.commitAsync(tx, val);
         }
         return Futures.immediateFuture(val);
     }
 
+    private void recordCommitLatency(final long startTime)
+    {
+        _commitLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+    }
+
+    public long getCommitCount()
+    {
+        return _commitLatency.getTotalCount();
+    }
+
+    /**
+     * @return the given percentile of the time taken by the commits of this node, in microseconds
+     */
+    public long getCommitLatency(final double percentile)
+    {
+        return _commitLatency.getValueAtPercentile(percentile);
+    }
+
+    public long getCommitLatencyMax()
+    {
+        return _commitLatency.getMaxValue();
+    }
+
+    public int getPendingCommitCount()
+    {
+        return _pendingCommits.get();
+    }
+
+    public void resetCommitStatistics()
+    {
+        _commitLatency.reset();
+    }
+
     @Override
     public void close()
     {
@@ -369,6 +486,11 @@ public class ReplicatedEnvironmentFacade implements EnvironmentFacade, StateChan
                     LOGGER.debug("Closing replicated environment facade for " + _prettyGroupNodeName + " current state is " + _state.get());
                 }
 
+                if (_commitExecutor != null)
+                {
+                    shutdownAndAwaitExecutorService(_commitExecutor, _executorShutdownTimeout, TimeUnit.MILLISECONDS);
+                }
+
                 long timeout = Math.max(_executorShutdownTimeout, _envSetupTimeoutMillis);
                 shutdownAndAwaitExecutorService(_environmentJobExecutor,
                                                 timeout,
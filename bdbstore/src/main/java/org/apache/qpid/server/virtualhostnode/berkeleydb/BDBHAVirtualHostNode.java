@@ -24,6 +24,10 @@ import java.util.List;
 
 import org.apache.qpid.server.model.DerivedAttribute;
 import org.apache.qpid.server.model.ManagedAttribute;
+import org.apache.qpid.server.model.ManagedOperation;
+import org.apache.qpid.server.model.ManagedStatistic;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
 import org.apache.qpid.server.store.berkeleydb.HASettings;
 import org.apache.qpid.server.store.preferences.PreferenceStoreProvider;
 
@@ -76,4 +80,27 @@ public interface BDBHAVirtualHostNode<X extends BDBHAVirtualHostNode<X>> extends
 
     @ManagedAttribute(persist = true)
     List<String> getPermittedNodes();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Commits",
+                      description = "Number of transactions committed by this node")
+    long getCommitCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Pending Commits",
+                      description = "Number of transactions handed to the commit stage that have not yet been committed")
+    int getPendingCommitCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Commit latency (50th percentile)",
+                      description = "Median time in microseconds taken to commit a transaction, including awaiting the replica acknowledgements")
+    long getCommitLatencyP50();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Commit latency (99th percentile)",
+                      description = "99th percentile of the time in microseconds taken to commit a transaction, including awaiting the replica acknowledgements")
+    long getCommitLatencyP99();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Commit latency (maximum)",
+                      description = "Maximum time in microseconds taken to commit a transaction, including awaiting the replica acknowledgements")
+    long getCommitLatencyMax();
+
+    @ManagedOperation(description = "Resets the commit latency statistics")
+    void resetCommitStatistics();
 }
@@ -257,6 +257,51 @@ public class BDBHAVirtualHostNodeImpl extends AbstractVirtualHostNode<BDBHAVirtu
         return -1L;
     }
 
+    @Override
+    public long getCommitCount()
+    {
+        ReplicatedEnvironmentFacade environmentFacade = getReplicatedEnvironmentFacade();
+        return environmentFacade == null ? 0L : environmentFacade.getCommitCount();
+    }
+
+    @Override
+    public int getPendingCommitCount()
+    {
+        ReplicatedEnvironmentFacade environmentFacade = getReplicatedEnvironmentFacade();
+        return environmentFacade == null ? 0 : environmentFacade.getPendingCommitCount();
+    }
+
+    @Override
+    public long getCommitLatencyP50()
+    {
+        ReplicatedEnvironmentFacade environmentFacade = getReplicatedEnvironmentFacade();
+        return environmentFacade == null ? 0L : environmentFacade.getCommitLatency(50d);
+    }
+
+    @Override
+    public long getCommitLatencyP99()
+    {
+        ReplicatedEnvironmentFacade environmentFacade = getReplicatedEnvironmentFacade();
+        return environmentFacade == null ? 0L : environmentFacade.getCommitLatency(99d);
+    }
+
+    @Override
+    public long getCommitLatencyMax()
+    {
+        ReplicatedEnvironmentFacade environmentFacade = getReplicatedEnvironmentFacade();
+        return environmentFacade == null ? 0L : environmentFacade.getCommitLatencyMax();
+    }
+
+    @Override
+    public void resetCommitStatistics()
+    {
+        ReplicatedEnvironmentFacade environmentFacade = getReplicatedEnvironmentFacade();
+        if (environmentFacade != null)
+        {
+            environmentFacade.resetCommitStatistics();
+        }
+    }
+
     @Override
     public String getHelperNodeName()
     {
@@ -20,8 +20,10 @@
  */
 package org.apache.qpid.server.store.berkeleydb.replication;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -43,6 +45,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.sleepycat.bind.tuple.IntegerBinding;
 import com.sleepycat.bind.tuple.StringBinding;
 import com.sleepycat.je.Database;
@@ -61,6 +64,8 @@ import com.sleepycat.je.rep.ReplicationConfig;
 import com.sleepycat.je.rep.ReplicationNode;
 import com.sleepycat.je.rep.StateChangeEvent;
 import com.sleepycat.je.rep.StateChangeListener;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -730,6 +735,79 @@ public class ReplicatedEnvironmentFacadeTest extends QpidTestCase
         }
     }
 
+    public void testCommitAsyncCompletesFromCommitStage() throws Exception
+    {
+        ReplicatedEnvironmentFacade facade = createMaster();
+        assertEquals("Unexpected commit count", 0, facade.getCommitCount());
+
+        TransactionConfig transactionConfig = new TransactionConfig();
+        transactionConfig.setDurability(facade.getRealMessageStoreDurability());
+        Transaction txn = facade.beginTransaction(transactionConfig);
+
+        ListenableFuture<String> future = facade.commitAsync(txn, "committed");
+        assertEquals("Unexpected future value", "committed", future.get(10, TimeUnit.SECONDS));
+        assertEquals("Unexpected commit count", 1, facade.getCommitCount());
+        assertEquals("Unexpected pending commit count", 0, facade.getPendingCommitCount());
+        assertTrue("Unexpected commit latency", facade.getCommitLatencyMax() >= facade.getCommitLatency(50d));
+    }
+
+    public void testCommitAsyncOnCallerThreadWhenCommitStageFull() throws Exception
+    {
+        ReplicatedEnvironmentConfiguration config = createReplicatedEnvironmentConfiguration(TEST_NODE_NAME, TEST_NODE_HOST_PORT, TEST_DESIGNATED_PRIMARY);
+        when(config.getFacadeParameter(eq(ReplicatedEnvironmentFacade.COMMIT_STAGE_THREADS_PROPERTY_NAME), anyInt())).thenReturn(1);
+        when(config.getFacadeParameter(eq(ReplicatedEnvironmentFacade.COMMIT_STAGE_MAX_PENDING_PROPERTY_NAME), anyInt())).thenReturn(1);
+        TestStateChangeListener stateChangeListener = new TestStateChangeListener(State.MASTER);
+        ReplicatedEnvironmentFacade facade = createReplicatedEnvironmentFacade(TEST_NODE_NAME, stateChangeListener, new NoopReplicationGroupListener(), config);
+        assertTrue("Environment was not created", stateChangeListener.awaitForStateChange(LISTENER_TIMEOUT, TimeUnit.SECONDS));
+
+        final CountDownLatch commitStarted = new CountDownLatch(1);
+        final CountDownLatch commitReleased = new CountDownLatch(1);
+        Transaction blockedTxn = mock(Transaction.class);
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable
+            {
+                commitStarted.countDown();
+                commitReleased.await(LISTENER_TIMEOUT, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(blockedTxn).commit(any(Durability.class));
+
+        final AtomicReference<Thread> committingThread = new AtomicReference<Thread>();
+        Transaction txn = mock(Transaction.class);
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable
+            {
+                committingThread.set(Thread.currentThread());
+                return null;
+            }
+        }).when(txn).commit(any(Durability.class));
+
+        try
+        {
+            ListenableFuture<String> blockedFuture = facade.commitAsync(blockedTxn, "blocked");
+            assertTrue("Commit stage did not start the commit", commitStarted.await(LISTENER_TIMEOUT, TimeUnit.SECONDS));
+            assertEquals("Unexpected pending commit count", 1, facade.getPendingCommitCount());
+
+            ListenableFuture<String> future = facade.commitAsync(txn, "committed");
+            assertEquals("Commit beyond the limit was not performed by the caller",
+                         Thread.currentThread(), committingThread.get());
+            assertEquals("Unexpected pending commit count", 1, facade.getPendingCommitCount());
+            assertFalse("Blocked commit completed unexpectedly", blockedFuture.isDone());
+
+            commitReleased.countDown();
+            assertEquals("Unexpected future value", "blocked", blockedFuture.get(10, TimeUnit.SECONDS));
+            assertEquals("Unexpected future value", "committed", future.get(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            commitReleased.countDown();
+        }
+    }
+
     public void testSetPermittedNodes() throws Exception
     {
         ReplicatedEnvironmentFacade firstNode = createMaster();
@@ -0,0 +1,210 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.model;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.apache.qpid.server.License;
+
+/**
+ * Generates, for each managed interface declaring {@link ManagedStatistic} getters, a class providing
+ * non-reflective accessors for those statistics.
+ */
+public class ConfiguredObjectStatisticAccessorGenerator extends AbstractProcessor
+{
+    public static final String MANAGED_STATISTIC_CANONICAL_NAME = "org.apache.qpid.server.model.ManagedStatistic";
+    private static final String CLASS_NAME_SUFFIX = "StatisticAccessors";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latest();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes()
+    {
+        return Collections.singleton(MANAGED_STATISTIC_CANONICAL_NAME);
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv)
+    {
+        if(roundEnv.processingOver())
+        {
+            return false;
+        }
+
+        TypeElement annotationElement = processingEnv.getElementUtils().getTypeElement(MANAGED_STATISTIC_CANONICAL_NAME);
+        if (annotationElement == null)
+        {
+            return false;
+        }
+
+        try
+        {
+            Map<TypeElement, List<ExecutableElement>> statisticsByInterface = new LinkedHashMap<>();
+            for (Element e : roundEnv.getElementsAnnotatedWith(annotationElement))
+            {
+                Element enclosingElement = e.getEnclosingElement();
+                if (e.getKind() == ElementKind.METHOD
+                    && enclosingElement.getKind() == ElementKind.INTERFACE
+                    && enclosingElement.getEnclosingElement().getKind() == ElementKind.PACKAGE
+                    && ((ExecutableElement) e).getParameters().isEmpty())
+                {
+                    List<ExecutableElement> methods = statisticsByInterface.get(enclosingElement);
+                    if (methods == null)
+                    {
+                        methods = new ArrayList<>();
+                        statisticsByInterface.put((TypeElement) enclosingElement, methods);
+                    }
+                    methods.add((ExecutableElement) e);
+                }
+            }
+
+            Filer filer = processingEnv.getFiler();
+            for (Map.Entry<TypeElement, List<ExecutableElement>> entry : statisticsByInterface.entrySet())
+            {
+                generateAccessors(filer, entry.getKey(), entry.getValue());
+            }
+        }
+        catch (Exception e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error: " + e.getLocalizedMessage());
+        }
+
+        return false;
+    }
+
+    private void generateAccessors(final Filer filer,
+                                   final TypeElement interfaceElement,
+                                   final List<ExecutableElement> methods)
+    {
+        PackageElement packageElement = (PackageElement) interfaceElement.getEnclosingElement();
+        String interfaceSimpleName = interfaceElement.getSimpleName().toString();
+        String accessorsSimpleName = interfaceSimpleName + CLASS_NAME_SUFFIX;
+        String accessorsClassName = interfaceElement.getQualifiedName().toString() + CLASS_NAME_SUFFIX;
+        try
+        {
+            JavaFileObject accessorsFile = filer.createSourceFile(accessorsClassName, interfaceElement);
+            PrintWriter pw = new PrintWriter(new OutputStreamWriter(accessorsFile.openOutputStream(), "UTF-8"));
+            pw.println("/*");
+            for (String headerLine : License.LICENSE)
+            {
+                pw.println(" *" + headerLine);
+            }
+            pw.println(" */");
+            pw.println();
+            pw.print("package ");
+            pw.print(packageElement.getQualifiedName());
+            pw.println(";");
+            pw.println();
+            pw.println("import java.util.Collections;");
+            pw.println("import java.util.HashMap;");
+            pw.println("import java.util.Map;");
+            pw.println();
+            pw.println("import org.apache.qpid.server.model.ConfiguredObject;");
+            pw.println("import org.apache.qpid.server.model.ConfiguredObjectStatisticAccessor;");
+            pw.println("import org.apache.qpid.server.plugin.ConfiguredObjectStatisticAccessors;");
+            pw.println("import org.apache.qpid.server.plugin.PluggableService;");
+            pw.println();
+            pw.println("@PluggableService");
+            pw.println("@SuppressWarnings(\"rawtypes\")");
+            pw.println("public final class " + accessorsSimpleName + " implements ConfiguredObjectStatisticAccessors");
+            pw.println("{");
+            pw.println("    private final Map<String, ConfiguredObjectStatisticAccessor> _accessors;");
+            pw.println();
+            pw.println("    public " + accessorsSimpleName + "()");
+            pw.println("    {");
+            pw.println("        Map<String, ConfiguredObjectStatisticAccessor> accessors = new HashMap<>();");
+            for (ExecutableElement method : methods)
+            {
+                String methodName = method.getSimpleName().toString();
+                pw.println("        accessors.put(\"" + methodName + "\", new ConfiguredObjectStatisticAccessor()");
+                pw.println("        {");
+                pw.println("            @Override");
+                pw.println("            public Object getValue(final ConfiguredObject<?> configuredObject)");
+                pw.println("            {");
+                pw.println("                return ((" + interfaceSimpleName + ") configuredObject)." + methodName + "();");
+                pw.println("            }");
+                pw.println("        });");
+                if (method.getReturnType().getKind() == TypeKind.VOID)
+                {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                             "ManagedStatistic getter must not be void",
+                                                             method);
+                }
+            }
+            pw.println("        _accessors = Collections.unmodifiableMap(accessors);");
+            pw.println("    }");
+            pw.println();
+            pw.println("    @Override");
+            pw.println("    public String getType()");
+            pw.println("    {");
+            pw.println("        return \"" + interfaceElement.getQualifiedName() + "\";");
+            pw.println("    }");
+            pw.println();
+            pw.println("    @Override");
+            pw.println("    public Class<? extends ConfiguredObject> getConfiguredObjectClass()");
+            pw.println("    {");
+            pw.println("        return " + interfaceSimpleName + ".class;");
+            pw.println("    }");
+            pw.println();
+            pw.println("    @Override");
+            pw.println("    public Map<String, ConfiguredObjectStatisticAccessor> getAccessors()");
+            pw.println("    {");
+            pw.println("        return _accessors;");
+            pw.println("    }");
+            pw.println("}");
+
+            pw.close();
+        }
+        catch (IOException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                     "Failed to write file: "
+                                                     + accessorsClassName
+                                                     + " - "
+                                                     + e.getLocalizedMessage());
+        }
+    }
+}
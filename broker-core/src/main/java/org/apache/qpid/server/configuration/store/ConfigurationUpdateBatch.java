@@ -0,0 +1,259 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.configuration.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.qpid.server.store.ConfiguredObjectRecord;
+import org.apache.qpid.server.store.DurableConfigurationStore;
+
+/**
+ * Collects the durable configuration store changes made on the current thread so that they can be applied
+ * to the store(s) with as few store operations as possible.
+ * <p>
+ * A batch is bound to the thread which began it, which is expected to be the configuration thread of the
+ * objects being changed. Consecutive operations of the same kind against the same store are coalesced into
+ * a single {@link DurableConfigurationStore#update(boolean, ConfiguredObjectRecord...)} or
+ * {@link DurableConfigurationStore#remove(ConfiguredObjectRecord...)} call when the batch is committed.
+ * Changes made on the thread are not applied to the store if the batch is closed without being committed.
+ */
+public final class ConfigurationUpdateBatch implements AutoCloseable
+{
+    private static final ThreadLocal<ConfigurationUpdateBatch> CURRENT = new ThreadLocal<>();
+
+    private enum OperationType
+    {
+        CREATE_OR_UPDATE,
+        UPDATE,
+        REMOVE
+    }
+
+    private final List<PendingOperation> _operations = new ArrayList<>();
+    private boolean _closed;
+
+    private ConfigurationUpdateBatch()
+    {
+    }
+
+    public static ConfigurationUpdateBatch begin()
+    {
+        if (CURRENT.get() != null)
+        {
+            throw new IllegalStateException("A configuration update batch is already in progress on thread "
+                                            + Thread.currentThread().getName());
+        }
+        ConfigurationUpdateBatch batch = new ConfigurationUpdateBatch();
+        CURRENT.set(batch);
+        return batch;
+    }
+
+    static ConfigurationUpdateBatch current()
+    {
+        return CURRENT.get();
+    }
+
+    void update(final DurableConfigurationStore store,
+                final boolean createIfNecessary,
+                final ConfiguredObjectRecord record)
+    {
+        addOperation(store, createIfNecessary ? OperationType.CREATE_OR_UPDATE : OperationType.UPDATE, record);
+    }
+
+    void remove(final DurableConfigurationStore store, final ConfiguredObjectRecord record)
+    {
+        addOperation(store, OperationType.REMOVE, record);
+    }
+
+    public int getPendingRecordCount()
+    {
+        int count = 0;
+        for (PendingOperation operation : _operations)
+        {
+            count += operation.getRecords().size();
+        }
+        return count;
+    }
+
+    /**
+     * Applies the pending changes to the store(s) in the order they were made and ends the batch.
+     */
+    public void commit()
+    {
+        checkNotClosed();
+        try
+        {
+            for (PendingOperation operation : _operations)
+            {
+                operation.apply();
+            }
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    /**
+     * Applies the pending changes to the store(s) like {@link #commit()}, except that if a coalesced store
+     * operation fails, its records are applied one at a time so that a single failing record does not prevent
+     * the others from being stored.
+     *
+     * @return the failures of the records which could not be applied, keyed by object id
+     */
+    public Map<UUID, RuntimeException> commitPartially()
+    {
+        checkNotClosed();
+        Map<UUID, RuntimeException> failures = new LinkedHashMap<>();
+        try
+        {
+            for (PendingOperation operation : _operations)
+            {
+                try
+                {
+                    operation.apply();
+                }
+                catch (RuntimeException e)
+                {
+                    operation.applyIndividually(failures);
+                }
+            }
+        }
+        finally
+        {
+            close();
+        }
+        return failures;
+    }
+
+    @Override
+    public void close()
+    {
+        if (!_closed)
+        {
+            _closed = true;
+            _operations.clear();
+            if (CURRENT.get() == this)
+            {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    private void addOperation(final DurableConfigurationStore store,
+                              final OperationType type,
+                              final ConfiguredObjectRecord record)
+    {
+        checkNotClosed();
+        PendingOperation last = _operations.isEmpty() ? null : _operations.get(_operations.size() - 1);
+        if (last == null || last.getStore() != store || last.getType() != type)
+        {
+            last = new PendingOperation(store, type);
+            _operations.add(last);
+        }
+        last.add(record);
+    }
+
+    private void checkNotClosed()
+    {
+        if (_closed)
+        {
+            throw new IllegalStateException("Configuration update batch is already closed");
+        }
+    }
+
+    private static final class PendingOperation
+    {
+        private final DurableConfigurationStore _store;
+        private final OperationType _type;
+        private final Map<UUID, ConfiguredObjectRecord> _records = new LinkedHashMap<>();
+
+        private PendingOperation(final DurableConfigurationStore store, final OperationType type)
+        {
+            _store = store;
+            _type = type;
+        }
+
+        DurableConfigurationStore getStore()
+        {
+            return _store;
+        }
+
+        OperationType getType()
+        {
+            return _type;
+        }
+
+        Collection<ConfiguredObjectRecord> getRecords()
+        {
+            return _records.values();
+        }
+
+        void add(final ConfiguredObjectRecord record)
+        {
+            // a later record for the same object supersedes the earlier one
+            _records.remove(record.getId());
+            _records.put(record.getId(), record);
+        }
+
+        void apply()
+        {
+            apply(_records.values().toArray(new ConfiguredObjectRecord[_records.size()]));
+        }
+
+        void applyIndividually(final Map<UUID, RuntimeException> failures)
+        {
+            for (ConfiguredObjectRecord record : _records.values())
+            {
+                try
+                {
+                    apply(record);
+                }
+                catch (RuntimeException e)
+                {
+                    failures.put(record.getId(), e);
+                }
+            }
+        }
+
+        private void apply(final ConfiguredObjectRecord... records)
+        {
+            switch (_type)
+            {
+                case CREATE_OR_UPDATE:
+                    _store.update(true, records);
+                    break;
+                case UPDATE:
+                    _store.update(false, records);
+                    break;
+                case REMOVE:
+                    _store.remove(records);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected operation type " + _type);
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Collection;
 import org.apache.qpid.server.model.ConfigurationChangeListener;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.State;
+import org.apache.qpid.server.store.ConfiguredObjectRecord;
 import org.apache.qpid.server.store.DurableConfigurationStore;
 
 public class StoreConfigurationChangeListener implements ConfigurationChangeListener
@@ -45,7 +46,7 @@ public class StoreConfigurationChangeListener implements ConfigurationChangeList
         {
             if(object.isDurable())
             {
-                _store.remove(object.asObjectRecord());
+                remove(object.asObjectRecord());
             }
             object.removeChangeListener(this);
         }
@@ -59,7 +60,7 @@ public class StoreConfigurationChangeListener implements ConfigurationChangeList
             if(object.isDurable() && child.isDurable())
             {
                 child.addChangeListener(this);
-                _store.update(true, child.asObjectRecord());
+                update(true, child.asObjectRecord());
 
                 Class<? extends ConfiguredObject> categoryClass = child.getCategoryClass();
                 Collection<Class<? extends ConfiguredObject>> childTypes =
@@ -88,7 +89,7 @@ public class StoreConfigurationChangeListener implements ConfigurationChangeList
     {
         if (object.isDurable() && _bulkChanges)
         {
-            _store.update(false, object.asObjectRecord());
+            update(false, object.asObjectRecord());
         }
         _bulkChanges = false;
     }
@@ -100,7 +101,7 @@ public class StoreConfigurationChangeListener implements ConfigurationChangeList
         {
             if (child.isDurable())
             {
-                _store.remove(child.asObjectRecord());
+                remove(child.asObjectRecord());
             }
             child.removeChangeListener(this);
         }
@@ -111,7 +112,33 @@ public class StoreConfigurationChangeListener implements ConfigurationChangeList
     {
         if (object.isDurable() && !_bulkChanges)
         {
-            _store.update(false, object.asObjectRecord());
+            update(false, object.asObjectRecord());
+        }
+    }
+
+    private void update(final boolean createIfNecessary, final ConfiguredObjectRecord record)
+    {
+        ConfigurationUpdateBatch batch = ConfigurationUpdateBatch.current();
+        if (batch == null)
+        {
+            _store.update(createIfNecessary, record);
+        }
+        else
+        {
+            batch.update(_store, createIfNecessary, record);
+        }
+    }
+
+    private void remove(final ConfiguredObjectRecord record)
+    {
+        ConfigurationUpdateBatch batch = ConfigurationUpdateBatch.current();
+        if (batch == null)
+        {
+            _store.remove(record);
+        }
+        else
+        {
+            batch.remove(_store, record);
         }
     }
 
@@ -401,31 +401,40 @@ public abstract class AbstractExchange<T extends AbstractExchange<T>>
     final List<? extends BaseQueue> route(final ServerMessage message,
                                           final String routingAddress,
                                           final InstanceProperties instanceProperties)
+    {
+        final RoutingBuffer destinations = new RoutingBuffer();
+        route(message, routingAddress, instanceProperties, destinations);
+        return destinations.asList();
+    }
+
+    /**
+     * Routes the message, writing the queues to which it should be enqueued into the given buffer. The buffer is
+     * cleared before routing and queues which have been deleted are omitted.
+     *
+     * @return the number of queues to which the message was routed
+     */
+    public final int route(final ServerMessage message,
+                           final String routingAddress,
+                           final InstanceProperties instanceProperties,
+                           final RoutingBuffer destinations)
     {
         _receivedMessageCount.incrementAndGet();
         _receivedMessageSize.addAndGet(message.getSize());
-        List<? extends BaseQueue> queues = doRoute(message, routingAddress, instanceProperties);
-        List<? extends BaseQueue> allQueues = queues;
 
-        boolean deletedQueues = false;
+        destinations.clear();
+        doRoute(message, routingAddress, instanceProperties, destinations);
 
-        for(BaseQueue q : allQueues)
+        for(int i = destinations.size() - 1; i >= 0; i--)
         {
+            BaseQueue q = destinations.get(i);
             if(q.isDeleted())
             {
-                if(!deletedQueues)
-                {
-                    deletedQueues = true;
-                    queues = new ArrayList<>(allQueues);
-                }
                 _logger.debug("Exchange: {} - attempt to enqueue message onto deleted queue {}", getName(), q.getName());
-
-                queues.remove(q);
+                destinations.remove(i);
             }
         }
 
-
-        if(!queues.isEmpty())
+        if(!destinations.isEmpty())
         {
             _routedMessageCount.incrementAndGet();
             _routedMessageSize.addAndGet(message.getSize());
@@ -435,7 +444,7 @@ public abstract class AbstractExchange<T extends AbstractExchange<T>>
             _droppedMessageCount.incrementAndGet();
             _droppedMessageSize.addAndGet(message.getSize());
         }
-        return queues;
+        return destinations.size();
     }
 
     public final  <M extends ServerMessage<? extends StorableMessageMetaData>> int send(final M message,
@@ -449,65 +458,90 @@ public abstract class AbstractExchange<T extends AbstractExchange<T>>
             throw new VirtualHostUnavailableException(this._virtualHost);
         }
 
-        List<? extends BaseQueue> queues = route(message, routingAddress, instanceProperties);
-        if(queues == null || queues.isEmpty())
+        final RoutingBuffer destinations = RoutingBuffer.acquire();
+        try
         {
-            Exchange altExchange = getAlternateExchange();
-            if(altExchange != null)
+            route(message, routingAddress, instanceProperties, destinations);
+            if(destinations.isEmpty())
             {
-                return altExchange.send(message, routingAddress, instanceProperties, txn, postEnqueueAction);
+                Exchange altExchange = getAlternateExchange();
+                if(altExchange != null)
+                {
+                    return altExchange.send(message, routingAddress, instanceProperties, txn, postEnqueueAction);
+                }
+                else
+                {
+                    return 0;
+                }
             }
             else
             {
-                return 0;
-            }
-        }
-        else
-        {
-            final BaseQueue[] baseQueues;
+                final BaseQueue[] baseQueues;
 
-            if(message.isReferenced())
-            {
-                ArrayList<BaseQueue> uniqueQueues = new ArrayList<>(queues.size());
-                for(BaseQueue q : queues)
+                if(message.isReferenced())
                 {
-                    if(!message.isReferenced(q))
+                    ArrayList<BaseQueue> uniqueQueues = new ArrayList<>(destinations.size());
+                    for(int i = 0; i < destinations.size(); i++)
                     {
-                        uniqueQueues.add(q);
+                        BaseQueue q = destinations.get(i);
+                        if(!message.isReferenced(q))
+                        {
+                            uniqueQueues.add(q);
+                        }
                     }
+                    baseQueues = uniqueQueues.toArray(new BaseQueue[uniqueQueues.size()]);
+                }
+                else
+                {
+                    baseQueues = destinations.toArray();
                 }
-                baseQueues = uniqueQueues.toArray(new BaseQueue[uniqueQueues.size()]);
-            }
-            else
-            {
-                baseQueues = queues.toArray(new BaseQueue[queues.size()]);
-            }
-
-            txn.enqueue(queues,message, new ServerTransaction.EnqueueAction()
-            {
-                MessageReference _reference = message.newReference();
 
-                public void postCommit(MessageEnqueueRecord... records)
+                txn.enqueue(destinations.asList(), message, new ServerTransaction.EnqueueAction()
                 {
-                    try
+                    MessageReference _reference = message.newReference();
+
+                    public void postCommit(MessageEnqueueRecord... records)
                     {
-                        for(int i = 0; i < baseQueues.length; i++)
+                        try
+                        {
+                            for(int i = 0; i < baseQueues.length; i++)
+                            {
+                                baseQueues[i].enqueue(message, postEnqueueAction, records[i]);
+                            }
+                        }
+                        finally
                         {
-                            baseQueues[i].enqueue(message, postEnqueueAction, records[i]);
+                            _reference.release();
                         }
                     }
-                    finally
+
+                    public void onRollback()
                     {
                         _reference.release();
                     }
-                }
+                });
+                return destinations.size();
+            }
+        }
+        finally
+        {
+            destinations.release();
+        }
+    }
 
-                public void onRollback()
-                {
-                    _reference.release();
-                }
-            });
-            return queues.size();
+    /**
+     * Writes the queues to which the message should be routed into the given buffer. Exchanges which can route
+     * without allocating a result should override this; by default the queues returned by
+     * {@link #doRoute(ServerMessage, String, InstanceProperties)} are copied into the buffer.
+     */
+    protected void doRoute(final ServerMessage message,
+                           final String routingAddress,
+                           final InstanceProperties instanceProperties,
+                           final RoutingBuffer destinations)
+    {
+        for(BaseQueue queue : doRoute(message, routingAddress, instanceProperties))
+        {
+            destinations.add(queue);
         }
     }
 
@@ -22,11 +22,9 @@ package org.apache.qpid.server.exchange;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -54,11 +52,14 @@ public class DirectExchange extends AbstractExchange<DirectExchange>
 
     private static final Logger _logger = LoggerFactory.getLogger(DirectExchange.class);
 
+    /**
+     * The queues bound with a given key. The queues to route to are held as an immutable snapshot which is replaced
+     * whenever the bindings change, so that routing reads a single consistent set of arrays without locking.
+     */
     private static final class BindingSet
     {
         private CopyOnWriteArraySet<Binding<?>> _bindings = new CopyOnWriteArraySet<>();
-        private List<BaseQueue> _unfilteredQueues = new ArrayList<BaseQueue>();
-        private Map<BaseQueue, FilterManager> _filteredQueues = new HashMap<>();
+        private volatile Routes _routes = Routes.EMPTY;
 
         public synchronized void addBinding(Binding<?> binding)
         {
@@ -80,7 +81,7 @@ public class DirectExchange extends AbstractExchange<DirectExchange>
         private void recalculateQueues()
         {
             List<BaseQueue> queues = new ArrayList<BaseQueue>(_bindings.size());
-            Map<BaseQueue, FilterManager> filteredQueues = new HashMap<>();
+            Map<BaseQueue, FilterManager> filteredQueues = new LinkedHashMap<>();
 
             for(Binding<?> b : _bindings)
             {
@@ -109,29 +110,63 @@ public class DirectExchange extends AbstractExchange<DirectExchange>
                     }
                 }
             }
-            _unfilteredQueues = queues;
-            _filteredQueues = filteredQueues;
-        }
 
+            // a queue bound both with and without a filter always receives the message
+            filteredQueues.keySet().removeAll(queues);
+            _routes = new Routes(queues, filteredQueues);
+        }
 
-        public List<BaseQueue> getUnfilteredQueues()
+        public Routes getRoutes()
         {
-            return _unfilteredQueues;
+            return _routes;
         }
 
         public CopyOnWriteArraySet<Binding<?>> getBindings()
         {
             return _bindings;
         }
+    }
+
+    private static final class Routes
+    {
+        private static final Routes EMPTY =
+                new Routes(Collections.<BaseQueue>emptyList(), Collections.<BaseQueue, FilterManager>emptyMap());
 
-        public boolean hasFilteredQueues()
+        private final BaseQueue[] _unfilteredQueues;
+        private final BaseQueue[] _filteredQueues;
+        private final FilterManager[] _filters;
+
+        private Routes(final List<BaseQueue> unfilteredQueues, final Map<BaseQueue, FilterManager> filteredQueues)
         {
-            return !_filteredQueues.isEmpty();
+            _unfilteredQueues = unfilteredQueues.toArray(new BaseQueue[unfilteredQueues.size()]);
+            _filteredQueues = new BaseQueue[filteredQueues.size()];
+            _filters = new FilterManager[filteredQueues.size()];
+            int i = 0;
+            for(Map.Entry<BaseQueue, FilterManager> entry : filteredQueues.entrySet())
+            {
+                _filteredQueues[i] = entry.getKey();
+                _filters[i] = entry.getValue();
+                i++;
+            }
         }
 
-        public Map<BaseQueue,FilterManager> getFilteredQueues()
+        private void route(final ServerMessage payload,
+                           final InstanceProperties instanceProperties,
+                           final RoutingBuffer destinations)
         {
-            return _filteredQueues;
+            destinations.addAll(_unfilteredQueues);
+
+            if(_filteredQueues.length != 0)
+            {
+                Filterable filterable = Filterable.Factory.newInstance(payload, instanceProperties);
+                for(int i = 0; i < _filteredQueues.length; i++)
+                {
+                    if(_filters[i].allAllow(filterable))
+                    {
+                        destinations.addIfAbsent(_filteredQueues[i]);
+                    }
+                }
+            }
         }
     }
 
@@ -149,43 +184,23 @@ public class DirectExchange extends AbstractExchange<DirectExchange>
                                              final String routingKey,
                                              final InstanceProperties instanceProperties)
     {
+        final RoutingBuffer destinations = new RoutingBuffer();
+        doRoute(payload, routingKey, instanceProperties, destinations);
+        return destinations.isEmpty() ? Collections.<BaseQueue>emptyList() : destinations.asList();
+    }
 
+    @Override
+    protected void doRoute(final ServerMessage payload,
+                           final String routingKey,
+                           final InstanceProperties instanceProperties,
+                           final RoutingBuffer destinations)
+    {
         BindingSet bindings = _bindingsByKey.get(routingKey == null ? "" : routingKey);
 
         if(bindings != null)
         {
-            List<BaseQueue> queues = bindings.getUnfilteredQueues();
-
-            if(bindings.hasFilteredQueues())
-            {
-                Set<BaseQueue> queuesSet = new HashSet<BaseQueue>(queues);
-                Filterable filterable = Filterable.Factory.newInstance(payload, instanceProperties);
-
-                Map<BaseQueue, FilterManager> filteredQueues = bindings.getFilteredQueues();
-                for(Map.Entry<BaseQueue, FilterManager> entry : filteredQueues.entrySet())
-                {
-                    if(!queuesSet.contains(entry.getKey()))
-                    {
-                        FilterManager filter = entry.getValue();
-                        if(filter.allAllow(filterable))
-                        {
-                            queuesSet.add(entry.getKey());
-                        }
-                    }
-                }
-                if(queues.size() != queuesSet.size())
-                {
-                    queues = new ArrayList<>(queuesSet);
-                }
-            }
-            return queues;
+            bindings.getRoutes().route(payload, instanceProperties, destinations);
         }
-        else
-        {
-            return Collections.emptyList();
-        }
-
-
     }
 
     @Override
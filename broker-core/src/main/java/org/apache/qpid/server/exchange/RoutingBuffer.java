@@ -0,0 +1,196 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.apache.qpid.server.queue.BaseQueue;
+
+/**
+ * A reusable buffer into which an exchange writes the queues a message is routed to.
+ * <p>
+ * A buffer is not thread safe. Buffers obtained from {@link #acquire()} are held per thread and must be handed back
+ * with {@link #release()} once the routing result is no longer required; a thread which routes a second message while
+ * its buffer is still in use is given a new buffer instead.
+ */
+public final class RoutingBuffer
+{
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final ThreadLocal<RoutingBuffer> THREAD_BUFFER = new ThreadLocal<>();
+
+    private final List<BaseQueue> _view = new View();
+    private BaseQueue[] _queues;
+    private int _size;
+    private boolean _inUse;
+
+    public RoutingBuffer()
+    {
+        _queues = new BaseQueue[DEFAULT_CAPACITY];
+    }
+
+    public static RoutingBuffer acquire()
+    {
+        RoutingBuffer buffer = THREAD_BUFFER.get();
+        if (buffer == null)
+        {
+            buffer = new RoutingBuffer();
+            THREAD_BUFFER.set(buffer);
+        }
+        else if (buffer._inUse)
+        {
+            return new RoutingBuffer();
+        }
+        buffer._inUse = true;
+        return buffer;
+    }
+
+    public void release()
+    {
+        clear();
+        _inUse = false;
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    public BaseQueue get(final int index)
+    {
+        if (index >= _size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + _size);
+        }
+        return _queues[index];
+    }
+
+    public boolean contains(final BaseQueue queue)
+    {
+        for (int i = 0; i < _size; i++)
+        {
+            if (_queues[i] == queue)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void add(final BaseQueue queue)
+    {
+        ensureCapacity(_size + 1);
+        _queues[_size++] = queue;
+    }
+
+    /**
+     * Adds the queue unless the buffer already holds it.
+     */
+    public void addIfAbsent(final BaseQueue queue)
+    {
+        if (!contains(queue))
+        {
+            add(queue);
+        }
+    }
+
+    /**
+     * Adds queues which are known to be distinct from one another. Any already held by the buffer are not added
+     * again.
+     */
+    public void addAll(final BaseQueue[] queues)
+    {
+        if (_size == 0)
+        {
+            ensureCapacity(queues.length);
+            System.arraycopy(queues, 0, _queues, 0, queues.length);
+            _size = queues.length;
+        }
+        else
+        {
+            for (BaseQueue queue : queues)
+            {
+                addIfAbsent(queue);
+            }
+        }
+    }
+
+    void remove(final int index)
+    {
+        System.arraycopy(_queues, index + 1, _queues, index, _size - index - 1);
+        _queues[--_size] = null;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(_queues, 0, _size, null);
+        _size = 0;
+    }
+
+    public BaseQueue[] toArray()
+    {
+        return Arrays.copyOf(_queues, _size);
+    }
+
+    /**
+     * @return an unmodifiable view of the queues held, which reflects later changes to the buffer
+     */
+    public List<BaseQueue> asList()
+    {
+        return _view;
+    }
+
+    private void ensureCapacity(final int capacity)
+    {
+        if (capacity > _queues.length)
+        {
+            _queues = Arrays.copyOf(_queues, Math.max(capacity, _queues.length * 2));
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RoutingBuffer" + _view;
+    }
+
+    private final class View extends AbstractList<BaseQueue> implements RandomAccess
+    {
+        @Override
+        public BaseQueue get(final int index)
+        {
+            return RoutingBuffer.this.get(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return _size;
+        }
+    }
+}
@@ -27,11 +27,21 @@ public final class ConfiguredObjectMethodStatistic<C extends ConfiguredObject, T
         extends ConfiguredObjectMethodAttributeOrStatistic<C,T> implements ConfiguredObjectStatistic<C, T>
 {
     private final ManagedStatistic _annotation;
+    private final ConfiguredObjectStatisticAccessor _accessor;
 
     ConfiguredObjectMethodStatistic(Class<C> clazz, final Method getter, final ManagedStatistic annotation)
+    {
+        this(clazz, getter, annotation, null);
+    }
+
+    ConfiguredObjectMethodStatistic(Class<C> clazz,
+                                    final Method getter,
+                                    final ManagedStatistic annotation,
+                                    final ConfiguredObjectStatisticAccessor accessor)
     {
         super(getter);
         _annotation = annotation;
+        _accessor = accessor;
         if(getter.getParameterTypes().length != 0)
         {
             throw new IllegalArgumentException("ManagedStatistic annotation should only be added to no-arg getters");
@@ -43,6 +53,16 @@ public final class ConfiguredObjectMethodStatistic<C extends ConfiguredObject, T
         }
     }
 
+    @Override
+    public T getValue(final C configuredObject)
+    {
+        if (_accessor == null)
+        {
+            return super.getValue(configuredObject);
+        }
+        return (T) _accessor.getValue(configuredObject);
+    }
+
     @Override
     public String getDescription()
     {
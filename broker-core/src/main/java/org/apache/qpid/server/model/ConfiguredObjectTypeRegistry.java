@@ -52,7 +52,9 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.plugin.ConfiguredObjectAttributeInjector;
 import org.apache.qpid.server.plugin.ConfiguredObjectRegistration;
+import org.apache.qpid.server.plugin.ConfiguredObjectStatisticAccessors;
 import org.apache.qpid.server.plugin.ConfiguredObjectTypeFactory;
+import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.server.util.Action;
 import org.apache.qpid.server.util.ServerScopedRuntimeException;
 import org.apache.qpid.util.Strings;
@@ -209,6 +211,9 @@ public class ConfiguredObjectTypeRegistry
     private final Map<Class<? extends ConfiguredObject>, Map<String, Collection<String>>> _validChildTypes =
             Collections.synchronizedMap(new HashMap<Class<? extends ConfiguredObject>, Map<String, Collection<String>>>());
 
+    private final Map<Class<? extends ConfiguredObject>, Map<String, ConfiguredObjectStatisticAccessor>> _statisticAccessors =
+            new HashMap<>();
+
     private final ConfiguredObjectFactory _objectFactory;
     private final Iterable<ConfiguredObjectAttributeInjector> _attributeInjectors;
 
@@ -219,6 +224,11 @@ public class ConfiguredObjectTypeRegistry
     {
         _objectFactory = objectFactory;
         _attributeInjectors = attributeInjectors;
+        for (ConfiguredObjectStatisticAccessors accessors : new QpidServiceLoader().instancesOf(
+                ConfiguredObjectStatisticAccessors.class))
+        {
+            _statisticAccessors.put(accessors.getConfiguredObjectClass(), accessors.getAccessors());
+        }
         Set<Class<? extends ConfiguredObject>> categories = new HashSet<>();
         Set<Class<? extends ConfiguredObject>> types = new HashSet<>();
 
@@ -804,7 +814,9 @@ public class ConfiguredObjectTypeRegistry
                                                    + clazz.getSimpleName()
                                                    + " does not meet these criteria.");
         }
-        ConfiguredObjectStatistic statistic = new ConfiguredObjectMethodStatistic(clazz, m, statAnnotation);
+        Map<String, ConfiguredObjectStatisticAccessor> accessors = _statisticAccessors.get(m.getDeclaringClass());
+        ConfiguredObjectStatisticAccessor accessor = accessors == null ? null : accessors.get(m.getName());
+        ConfiguredObjectStatistic statistic = new ConfiguredObjectMethodStatistic(clazz, m, statAnnotation, accessor);
         if (statisticSet.contains(statistic))
         {
             statisticSet.remove(statistic);
@@ -90,6 +90,18 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
     @ManagedContextDefault( name = QUEUE_ESTIMATED_MESSAGE_MEMORY_OVERHEAD)
     long DEFAULT_ESTIMATED_MESSAGE_MEMORY_OVERHEAD = 1024l;
 
+    String HOUSEKEEPING_SLICE_SIZE = "queue.housekeepingSliceSize";
+    @ManagedContextDefault( name = HOUSEKEEPING_SLICE_SIZE)
+    int DEFAULT_HOUSEKEEPING_SLICE_SIZE = 10000;
+
+    String READ_AHEAD_ENTRIES = "queue.readAheadEntries";
+    @ManagedContextDefault( name = READ_AHEAD_ENTRIES)
+    int DEFAULT_READ_AHEAD_ENTRIES = 16;
+
+    String READ_AHEAD_BYTES = "queue.readAheadBytes";
+    @ManagedContextDefault( name = READ_AHEAD_BYTES)
+    long DEFAULT_READ_AHEAD_BYTES = 4l * 1024l * 1024l;
+
     String MAX_ASYNCHRONOUS_DELIVERIES = "queue.maxAsynchronousDeliveries";
     @ManagedContextDefault(name = MAX_ASYNCHRONOUS_DELIVERIES )
     int DEFAULT_MAX_ASYNCHRONOUS_DELIVERIES = 80;
@@ -271,6 +283,57 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.ABSOLUTE_TIME, label = "Oldest Message")
     long getOldestMessageAge();
 
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Time to first delivery (50th percentile)",
+                      description = "Median time in microseconds between a message arriving and its first delivery to a consumer")
+    long getTimeToFirstDeliveryP50();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Time to first delivery (99th percentile)",
+                      description = "99th percentile of the time in microseconds between a message arriving and its first delivery to a consumer")
+    long getTimeToFirstDeliveryP99();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Time to first delivery (maximum)",
+                      description = "Maximum time in microseconds between a message arriving and its first delivery to a consumer")
+    long getTimeToFirstDeliveryMax();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Time to acknowledge (50th percentile)",
+                      description = "Median time in microseconds between a message being delivered to a consumer and it being acknowledged")
+    long getTimeToAcknowledgeP50();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Time to acknowledge (99th percentile)",
+                      description = "99th percentile of the time in microseconds between a message being delivered to a consumer and it being acknowledged")
+    long getTimeToAcknowledgeP99();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Time to acknowledge (maximum)",
+                      description = "Maximum time in microseconds between a message being delivered to a consumer and it being acknowledged")
+    long getTimeToAcknowledgeMax();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Housekeeping runs",
+                      description = "Number of completed housekeeping checks of the messages on the queue")
+    long getHousekeepingRunCount();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION, label = "Housekeeping time (total)",
+                      description = "Total time in microseconds spent checking the messages on the queue during housekeeping")
+    long getHousekeepingTimeTotal();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Housekeeping time (last)",
+                      description = "Time in microseconds spent on the most recently completed housekeeping check of the queue")
+    long getHousekeepingTimeLast();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Housekeeping time (maximum)",
+                      description = "Maximum time in microseconds spent on a single housekeeping check of the queue")
+    long getHousekeepingTimeMax();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Read ahead hits",
+                      description = "Number of flowed to disk messages whose content had been read back into memory before they were delivered")
+    long getReadAheadHits();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Read ahead stalls",
+                      description = "Number of flowed to disk messages whose content had not been read back into memory when they were delivered")
+    long getReadAheadStalls();
+
+    @ManagedOperation(description = "Resets the time to first delivery and time to acknowledge statistics")
+    void resetLatencyStatistics();
+
     @ManagedOperation
     List<Long> moveMessages(@Param(name = "destination", description = "The queue to which the messages should be moved") Queue<?> destination,
                             @Param(name = "messageIds", description = "If provided, only messages in the queue whose (internal) message-id is supplied will be considered for moving") List<Long> messageIds,
@@ -332,6 +395,10 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
 
     void incrementUnackedMsgCount(QueueEntry entry);
 
+    void registerFirstDelivery(QueueEntry entry);
+
+    void registerAcknowledgement(QueueEntry entry, long deliveryTime);
+
     boolean resend(QueueEntry entry, QueueConsumer<?> consumer);
 
     List<? extends QueueEntry> getMessagesOnTheQueue();
@@ -358,6 +425,15 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
      */
     void checkMessageStatus();
 
+    /**
+     * Performs the checks of {@link #checkMessageStatus()} on at most the given number of entries, continuing from
+     * the entry at which the previous call stopped.
+     *
+     * @param maximumEntries the maximum number of entries to check
+     * @return true if the check of the whole queue has been completed, false if entries remain to be checked
+     */
+    boolean checkMessageStatus(int maximumEntries);
+
     Set<NotificationCheck> getNotificationChecks();
 
     void deliverAsync();
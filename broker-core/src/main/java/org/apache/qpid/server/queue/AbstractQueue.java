@@ -45,7 +45,9 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -93,6 +95,7 @@ import org.apache.qpid.server.protocol.AMQSessionModel;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.security.access.Operation;
 import org.apache.qpid.server.security.auth.AuthenticatedPrincipal;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.store.MessageDurability;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.StorableMessageMetaData;
@@ -164,6 +167,14 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private final AtomicLong _dequeueCount = new AtomicLong();
     private final AtomicLong _dequeueSize = new AtomicLong();
     private final AtomicLong _enqueueCount = new AtomicLong();
+    private final LatencyHistogram _timeToFirstDelivery = new LatencyHistogram();
+    private final LatencyHistogram _timeToAcknowledge = new LatencyHistogram();
+    private final AtomicLong _housekeepingRunCount = new AtomicLong();
+    private final AtomicLong _housekeepingTimeTotal = new AtomicLong();
+    private final AtomicLong _housekeepingTimeMax = new AtomicLong();
+    private volatile long _housekeepingTimeLast;
+    private final Object _housekeepingLock = new Object();
+    private MessageStatusCheck _housekeepingCheck;
     private final AtomicLong _enqueueSize = new AtomicLong();
     private final AtomicLong _persistentMessageEnqueueSize = new AtomicLong();
     private final AtomicLong _persistentMessageDequeueSize = new AtomicLong();
@@ -239,6 +250,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     private final AtomicBoolean _overfull = new AtomicBoolean(false);
     private final FlowToDiskChecker _flowToDiskChecker = new FlowToDiskChecker();
+    private volatile ContentReadAhead _contentReadAhead;
     private final CopyOnWriteArrayList<Binding<?>> _bindings = new CopyOnWriteArrayList<>();
     private Map<String, Object> _arguments;
 
@@ -488,6 +500,22 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         _estimatedAverageMessageHeaderSize = getContextValue(Long.class, QUEUE_ESTIMATED_MESSAGE_MEMORY_OVERHEAD);
         _maxAsyncDeliveries = getContextValue(Integer.class, Queue.MAX_ASYNCHRONOUS_DELIVERIES);
 
+        final AccessControlContext readAheadContext =
+                getSystemTaskControllerContext("Content Read Ahead", _virtualHost.getPrincipal());
+        _contentReadAhead = new ContentReadAhead(this,
+                                                 new Executor()
+                                                 {
+                                                     @Override
+                                                     public void execute(final Runnable command)
+                                                     {
+                                                         AbstractQueue.this.execute("Read ahead " + getName(),
+                                                                                    command,
+                                                                                    readAheadContext);
+                                                     }
+                                                 },
+                                                 getContextValue(Integer.class, Queue.READ_AHEAD_ENTRIES),
+                                                 getContextValue(Long.class, Queue.READ_AHEAD_BYTES));
+
         if(_defaultFilters != null)
         {
             QpidServiceLoader qpidServiceLoader = new QpidServiceLoader();
@@ -1458,7 +1486,16 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
         _deliveredMessages.incrementAndGet();
 
+        final boolean contentReadIn = _contentReadAhead.beforeDelivery(entry);
+
         sub.send(entry, batch);
+
+        if(contentReadIn)
+        {
+            long estimatedQueueSize = _atomicQueueSize.get() + _atomicQueueCount.get() * _estimatedAverageMessageHeaderSize;
+            _flowToDiskChecker.flowToDiskIfNecessary(entry.getMessage().getStoredMessage(), estimatedQueueSize,
+                                                     _targetQueueSize.get());
+        }
     }
 
 
@@ -1517,6 +1554,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public void dequeue(QueueEntry entry)
     {
+        _contentReadAhead.entryDequeued(entry);
         decrementQueueCount();
         decrementQueueSize(entry);
         if (entry.acquiredByConsumer())
@@ -2407,9 +2445,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         boolean lastLoop = false;
         int iterations = getMaxAsyncDeliveries();
 
-        final int numSubs = _consumerList.size();
-
-        final int perSub = Math.max(iterations / Math.max(numSubs,1), 1);
+        final DeliveryBatchPolicy batchPolicy = new DeliveryBatchPolicy(_consumerList.size());
 
         // For every message enqueue/requeue the we fire deliveryAsync() which
         // increases _stateChangeCount. If _sCC changes whilst we are in our loop
@@ -2434,6 +2470,8 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             boolean allConsumersDone = true;
             boolean consumerDone;
 
+            batchPolicy.startRound(iterations);
+
             ConsumerNodeIterator consumerNodeIterator = _consumerList.iterator();
             //iterate over the subscribers and try to advance their pointer
             while (consumerNodeIterator.advance())
@@ -2445,13 +2483,22 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
                 try
                 {
-                    for(int i = 0 ; i < perSub; i++)
+                    final QueueContext context = sub.getQueueContext();
+                    final int batchSize = batchPolicy.getBatchSize(context);
+                    final long messagesOut = sub.getMessagesOut();
+                    boolean tookWholeBatch = true;
+
+                    for(int i = 0 ; i < batchSize; i++)
                     {
                         //attempt delivery. returns true if no further delivery currently possible to this sub
                         consumerDone = attemptDelivery(sub, true);
                         if (consumerDone)
                         {
-                            sub.flushBatched();
+                            tookWholeBatch = false;
+                            if (sub.getMessagesOut() != messagesOut)
+                            {
+                                sub.flushBatched();
+                            }
                             boolean noMore = getNextAvailableEntry(sub) == null;
                             if (lastLoop && noMore)
                             {
@@ -2467,14 +2514,20 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                             lastLoop = false;
                             if(--iterations == 0)
                             {
-                                sub.flushBatched();
                                 break;
                             }
                         }
 
                     }
 
-                    sub.flushBatched();
+                    // nothing can have been batched for a consumer to which nothing was sent
+                    if (tookWholeBatch && sub.getMessagesOut() != messagesOut)
+                    {
+                        sub.flushBatched();
+                    }
+
+                    // a consumer without credit, or whose connection cannot take more outbound messages, is suspended
+                    batchPolicy.consumerServed(context, tookWholeBatch, !tookWholeBatch && sub.isSuspended());
                 }
                 finally
                 {
@@ -2520,33 +2573,100 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     public void checkMessageStatus()
     {
-        QueueEntryIterator queueListIterator = getEntries().iterator();
+        new MessageStatusCheck().checkEntries(Integer.MAX_VALUE);
+    }
 
-        final long estimatedQueueSize = _atomicQueueSize.get() + _atomicQueueCount.get() * _estimatedAverageMessageHeaderSize;
-        _flowToDiskChecker.reportFlowToDiskStatusIfNecessary(estimatedQueueSize, _targetQueueSize.get());
+    @Override
+    public boolean checkMessageStatus(final int maximumEntries)
+    {
+        synchronized (_housekeepingLock)
+        {
+            if(_housekeepingCheck == null)
+            {
+                _housekeepingCheck = new MessageStatusCheck();
+            }
+            final boolean complete = _housekeepingCheck.checkEntries(maximumEntries);
+            if(complete)
+            {
+                _housekeepingCheck = null;
+            }
+            return complete;
+        }
+    }
 
-        final Set<NotificationCheck> perMessageChecks = new HashSet<>();
-        final Set<NotificationCheck> queueLevelChecks = new HashSet<>();
+    /**
+     * A single pass over the entries of the queue, which may be performed in several slices. The position reached
+     * and the cumulative size of the entries seen so far are carried from one slice to the next.
+     */
+    private final class MessageStatusCheck
+    {
+        private final QueueEntryIterator _queueListIterator = getEntries().iterator();
+        private long _cumulativeQueueSize;
+        private long _elapsedTime;
 
-        for(NotificationCheck check : getNotificationChecks())
+        private MessageStatusCheck()
         {
-            if(check.isMessageSpecific())
+            final long estimatedQueueSize = _atomicQueueSize.get() + _atomicQueueCount.get() * _estimatedAverageMessageHeaderSize;
+            _flowToDiskChecker.reportFlowToDiskStatusIfNecessary(estimatedQueueSize, _targetQueueSize.get());
+        }
+
+        boolean checkEntries(final int maximumEntries)
+        {
+            final long startTime = System.nanoTime();
+
+            final Set<NotificationCheck> perMessageChecks = new HashSet<>();
+            final Set<NotificationCheck> queueLevelChecks = new HashSet<>();
+
+            for(NotificationCheck check : getNotificationChecks())
             {
-                perMessageChecks.add(check);
+                if(check.isMessageSpecific())
+                {
+                    perMessageChecks.add(check);
+                }
+                else
+                {
+                    queueLevelChecks.add(check);
+                }
             }
-            else
+            QueueNotificationListener listener = _notificationListener;
+            final long currentTime = System.currentTimeMillis();
+            final long thresholdTime = currentTime - getAlertRepeatGap();
+
+            boolean complete = false;
+            int checked = 0;
+            while (checked < maximumEntries)
+            {
+                if (_stopped.get() || !_queueListIterator.advance())
+                {
+                    complete = true;
+                    break;
+                }
+                checkEntry(_queueListIterator.getNode(), listener, currentTime, thresholdTime, perMessageChecks);
+                checked++;
+            }
+
+            if (complete)
+            {
+                for(NotificationCheck check : queueLevelChecks)
+                {
+                    checkForNotification(null, listener, currentTime, thresholdTime, check);
+                }
+            }
+
+            _elapsedTime += System.nanoTime() - startTime;
+            if (complete)
             {
-                queueLevelChecks.add(check);
+                registerHousekeepingRun(_elapsedTime);
             }
+            return complete;
         }
-        QueueNotificationListener listener = _notificationListener;
-        final long currentTime = System.currentTimeMillis();
-        final long thresholdTime = currentTime - getAlertRepeatGap();
 
-        long cumulativeQueueSize = 0;
-        while (!_stopped.get() && queueListIterator.advance())
+        private void checkEntry(final QueueEntry node,
+                                final QueueNotificationListener listener,
+                                final long currentTime,
+                                final long thresholdTime,
+                                final Set<NotificationCheck> perMessageChecks)
         {
-            final QueueEntry node = queueListIterator.getNode();
             // Only process nodes that are not currently deleted and not dequeued
             if (!node.isDeleted())
             {
@@ -2580,8 +2700,8 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
                     if (msg != null)
                     {
-                        cumulativeQueueSize += msg.getSize() + _estimatedAverageMessageHeaderSize;
-                        _flowToDiskChecker.flowToDiskIfNecessary(msg.getStoredMessage(), cumulativeQueueSize,
+                        _cumulativeQueueSize += msg.getSize() + _estimatedAverageMessageHeaderSize;
+                        _flowToDiskChecker.flowToDiskIfNecessary(msg.getStoredMessage(), _cumulativeQueueSize,
                                                                  _targetQueueSize.get());
 
                         for(NotificationCheck check : perMessageChecks)
@@ -2592,12 +2712,17 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                 }
             }
         }
+    }
 
-        for(NotificationCheck check : queueLevelChecks)
+    private void registerHousekeepingRun(final long duration)
+    {
+        _housekeepingRunCount.incrementAndGet();
+        _housekeepingTimeTotal.addAndGet(duration);
+        _housekeepingTimeLast = duration;
+        long max;
+        while((max = _housekeepingTimeMax.get()) < duration && !_housekeepingTimeMax.compareAndSet(max, duration))
         {
-            checkForNotification(null, listener, currentTime, thresholdTime, check);
         }
-
     }
 
     @Override
@@ -2933,6 +3058,102 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         _unackedMsgBytes.addAndGet(entry.getSize());
     }
 
+    @Override
+    public void registerFirstDelivery(final QueueEntry entry)
+    {
+        final ServerMessage message = entry.getMessage();
+        final long arrivalTime = message == null ? 0L : message.getArrivalTime();
+        if (arrivalTime > 0L)
+        {
+            _timeToFirstDelivery.recordValue(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - arrivalTime));
+        }
+    }
+
+    @Override
+    public void registerAcknowledgement(final QueueEntry entry, final long deliveryTime)
+    {
+        _timeToAcknowledge.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - deliveryTime));
+    }
+
+    @Override
+    public long getTimeToFirstDeliveryP50()
+    {
+        return _timeToFirstDelivery.getValueAtPercentile(50d);
+    }
+
+    @Override
+    public long getTimeToFirstDeliveryP99()
+    {
+        return _timeToFirstDelivery.getValueAtPercentile(99d);
+    }
+
+    @Override
+    public long getTimeToFirstDeliveryMax()
+    {
+        return _timeToFirstDelivery.getMaxValue();
+    }
+
+    @Override
+    public long getTimeToAcknowledgeP50()
+    {
+        return _timeToAcknowledge.getValueAtPercentile(50d);
+    }
+
+    @Override
+    public long getTimeToAcknowledgeP99()
+    {
+        return _timeToAcknowledge.getValueAtPercentile(99d);
+    }
+
+    @Override
+    public long getTimeToAcknowledgeMax()
+    {
+        return _timeToAcknowledge.getMaxValue();
+    }
+
+    @Override
+    public void resetLatencyStatistics()
+    {
+        _timeToFirstDelivery.reset();
+        _timeToAcknowledge.reset();
+    }
+
+    @Override
+    public long getHousekeepingRunCount()
+    {
+        return _housekeepingRunCount.get();
+    }
+
+    @Override
+    public long getHousekeepingTimeTotal()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_housekeepingTimeTotal.get());
+    }
+
+    @Override
+    public long getHousekeepingTimeLast()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_housekeepingTimeLast);
+    }
+
+    @Override
+    public long getHousekeepingTimeMax()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_housekeepingTimeMax.get());
+    }
+
+    @Override
+    public long getReadAheadHits()
+    {
+        return _contentReadAhead.getHits();
+    }
+
+    @Override
+    public long getReadAheadStalls()
+    {
+        return _contentReadAhead.getStalls();
+    }
+
     @Override
     public int getMaximumDeliveryAttempts()
     {
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+
+/**
+ * An implementation of QueueEntryImpl to be used in ConcurrentSortedQueueEntryList.
+ */
+public class ConcurrentSortedQueueEntry extends QueueEntryImpl
+{
+    private final String _key;
+
+    public ConcurrentSortedQueueEntry(final ConcurrentSortedQueueEntryList queueEntryList)
+    {
+        super(queueEntryList);
+        _key = null;
+    }
+
+    public ConcurrentSortedQueueEntry(final ConcurrentSortedQueueEntryList queueEntryList,
+                                      final ServerMessage message,
+                                      final long entryId,
+                                      final MessageEnqueueRecord messageEnqueueRecord,
+                                      final String key)
+    {
+        super(queueEntryList, message, entryId, messageEnqueueRecord);
+        _key = key;
+    }
+
+    @Override
+    public int compareTo(final QueueEntry other)
+    {
+        ConcurrentSortedQueueEntry o = (ConcurrentSortedQueueEntry)other;
+        final String otherKey = o._key;
+        final int compare = _key == null ? (otherKey == null ? 0 : -1) : otherKey == null ? 1 : _key.compareTo(otherKey);
+        return compare == 0 ? super.compareTo(o) : compare;
+    }
+
+    public String getKey()
+    {
+        return _key;
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntryList getQueueEntryList()
+    {
+        return (ConcurrentSortedQueueEntryList) super.getQueueEntryList();
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntry getNextNode()
+    {
+        return getQueueEntryList().higher(this);
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntry getNextValidEntry()
+    {
+        return getQueueEntryList().next(this);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "(" + _key + "," + getEntryId() + ")";
+    }
+}
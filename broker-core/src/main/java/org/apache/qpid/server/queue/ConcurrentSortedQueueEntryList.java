@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+
+/**
+ * A sorted implementation of QueueEntryList which does not serialise producers and consumers on a single lock.
+ * <p>
+ * Entries are held in a concurrent skip list ordered by sort key and then by entry id, so entries with equal
+ * keys remain in arrival order, as they do in {@link SortedQueueEntryList}. Insertion is lock free and consumers
+ * find the successor of their last position by searching the skip list, which remains possible after that
+ * entry has itself been removed. The head entry sorts before every other entry and is never removed.
+ */
+public class ConcurrentSortedQueueEntryList implements QueueEntryList
+{
+    private final ConcurrentSortedQueueEntry _head;
+    private final ConcurrentSkipListSet<ConcurrentSortedQueueEntry> _entries = new ConcurrentSkipListSet<>();
+    private final AtomicLong _entryId = new AtomicLong(Long.MIN_VALUE);
+    private final SortedQueueImpl _queue;
+    private final String _propertyName;
+
+    public ConcurrentSortedQueueEntryList(final SortedQueueImpl queue)
+    {
+        _queue = queue;
+        _head = new ConcurrentSortedQueueEntry(this);
+        _entries.add(_head);
+        _propertyName = queue.getSortKey();
+    }
+
+    @Override
+    public SortedQueueImpl getQueue()
+    {
+        return _queue;
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntry add(final ServerMessage message, final MessageEnqueueRecord enqueueRecord)
+    {
+        String key = null;
+        final Object val = message.getMessageHeader().getHeader(_propertyName);
+        if(val != null)
+        {
+            key = val.toString();
+        }
+
+        final ConcurrentSortedQueueEntry entry =
+                new ConcurrentSortedQueueEntry(this, message, _entryId.incrementAndGet(), enqueueRecord, key);
+        _entries.add(entry);
+        return entry;
+    }
+
+    ConcurrentSortedQueueEntry higher(final ConcurrentSortedQueueEntry entry)
+    {
+        return _entries.higher(entry);
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntry next(final QueueEntry entry)
+    {
+        ConcurrentSortedQueueEntry next = _entries.higher((ConcurrentSortedQueueEntry) entry);
+        // an entry may be marked deleted shortly before it is removed from the list
+        while(next != null && next.isDeleted())
+        {
+            next = _entries.higher(next);
+        }
+        return next;
+    }
+
+    @Override
+    public QueueEntryIterator iterator()
+    {
+        return new QueueEntryIteratorImpl(_head);
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntry getHead()
+    {
+        return _head;
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntry getTail()
+    {
+        Iterator<ConcurrentSortedQueueEntry> iter = _entries.descendingIterator();
+        while(iter.hasNext())
+        {
+            ConcurrentSortedQueueEntry entry = iter.next();
+            if(entry == _head || !entry.isDeleted())
+            {
+                return entry;
+            }
+        }
+        return _head;
+    }
+
+    @Override
+    public QueueEntry getOldestEntry()
+    {
+        QueueEntry oldestEntry = null;
+        QueueEntryIterator iter = iterator();
+        while (iter.advance())
+        {
+            QueueEntry node = iter.getNode();
+            if (node != null && !node.isDeleted())
+            {
+                ServerMessage msg = node.getMessage();
+                if(msg != null && (oldestEntry == null || oldestEntry.getMessage().getMessageNumber() > msg.getMessageNumber()))
+                {
+                    oldestEntry = node;
+                }
+            }
+        }
+        return oldestEntry;
+    }
+
+    @Override
+    public void entryDeleted(final QueueEntry entry)
+    {
+        if(entry != _head)
+        {
+            _entries.remove(entry);
+        }
+    }
+
+    @Override
+    public int getPriorities()
+    {
+        return 0;
+    }
+
+    public class QueueEntryIteratorImpl implements QueueEntryIterator
+    {
+        private ConcurrentSortedQueueEntry _lastNode;
+
+        public QueueEntryIteratorImpl(final ConcurrentSortedQueueEntry startNode)
+        {
+            _lastNode = startNode;
+        }
+
+        @Override
+        public boolean atTail()
+        {
+            return next(_lastNode) == null;
+        }
+
+        @Override
+        public ConcurrentSortedQueueEntry getNode()
+        {
+            return _lastNode;
+        }
+
+        @Override
+        public boolean advance()
+        {
+            ConcurrentSortedQueueEntry nextNode = next(_lastNode);
+            if(nextNode != null)
+            {
+                _lastNode = nextNode;
+                return true;
+            }
+            else
+            {
+                return false;
+            }
+        }
+    }
+}
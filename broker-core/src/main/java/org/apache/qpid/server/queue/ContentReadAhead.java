@@ -0,0 +1,232 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.store.StoredMessage;
+
+/**
+ * Reloads the content of flowed-to-disk messages ahead of the consumers which will deliver them, so that the
+ * delivering thread does not have to wait for the store.
+ * <p>
+ * Read-ahead is driven by deliveries: whenever an entry is delivered whose content had been flowed to disk, or
+ * whose content was read ahead, the next entries after it in the queue are examined and those whose content is not
+ * in memory are reloaded asynchronously. At most {@code maximumEntries} entries beyond the delivered one are
+ * examined, and the content read ahead but not yet delivered never exceeds {@code maximumBytes}; messages larger
+ * than that are never read ahead. Queues whose messages are all held in memory therefore never read ahead.
+ * <p>
+ * A delivered entry whose content was not read ahead is only counted as a stall. Its content is left for the
+ * protocol layer to read chunk by chunk as it is sent, so that a large message is not brought into memory whole on
+ * the delivering thread.
+ */
+final class ContentReadAhead
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentReadAhead.class);
+
+    private final AbstractQueue<?> _queue;
+    private final Executor _executor;
+    private final int _maximumEntries;
+    private final long _maximumBytes;
+    private final ConcurrentMap<QueueEntry, Long> _pending = new ConcurrentHashMap<>();
+    private final AtomicLong _pendingBytes = new AtomicLong();
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _stalls = new AtomicLong();
+
+    /**
+     * The entry list is looked up from the queue each time it is needed, as queue implementations create their
+     * entry lists only after the queue itself has been opened.
+     */
+    ContentReadAhead(final AbstractQueue<?> queue,
+                     final Executor executor,
+                     final int maximumEntries,
+                     final long maximumBytes)
+    {
+        _queue = queue;
+        _executor = executor;
+        _maximumEntries = maximumEntries;
+        _maximumBytes = maximumBytes;
+    }
+
+    /**
+     * Called on the delivering thread immediately before the entry is sent to a consumer. If the content of the
+     * entry is not in memory a stall is recorded, and the following entries are read ahead.
+     *
+     * @return true if the content of the entry was brought into memory by read-ahead, in which case the caller
+     * should allow it to be flowed to disk again once sent
+     */
+    boolean beforeDelivery(final QueueEntry entry)
+    {
+        final Long reserved = _pending.isEmpty() ? null : _pending.remove(entry);
+        if (reserved != null)
+        {
+            _pendingBytes.addAndGet(-reserved);
+        }
+
+        final StoredMessage<?> storedMessage = entry.getMessage().getStoredMessage();
+        if (storedMessage == null || storedMessage.isInMemory())
+        {
+            if (reserved == null)
+            {
+                return false;
+            }
+            _hits.incrementAndGet();
+            readAheadFrom(entry);
+            return true;
+        }
+        else
+        {
+            _stalls.incrementAndGet();
+            readAheadFrom(entry);
+            return false;
+        }
+    }
+
+    /**
+     * Called when an entry is removed from the queue, so that any content budget reserved for it is returned.
+     */
+    void entryDequeued(final QueueEntry entry)
+    {
+        if (!_pending.isEmpty())
+        {
+            final Long reserved = _pending.remove(entry);
+            if (reserved != null)
+            {
+                _pendingBytes.addAndGet(-reserved);
+            }
+        }
+    }
+
+    long getHits()
+    {
+        return _hits.get();
+    }
+
+    long getStalls()
+    {
+        return _stalls.get();
+    }
+
+    long getPendingBytes()
+    {
+        return _pendingBytes.get();
+    }
+
+    private void readAheadFrom(final QueueEntry entry)
+    {
+        if (_maximumEntries <= 0 || _maximumBytes <= 0)
+        {
+            return;
+        }
+
+        final QueueEntryList entries = _queue.getEntries();
+        QueueEntry next = entry;
+        for (int i = 0; i < _maximumEntries && (next = entries.next(next)) != null; i++)
+        {
+            if (next.isAvailable() && !_pending.containsKey(next))
+            {
+                final ServerMessage message = next.getMessage();
+                final StoredMessage<?> storedMessage = message == null ? null : message.getStoredMessage();
+                if (storedMessage != null && !storedMessage.isInMemory())
+                {
+                    final long size = message.getSize();
+                    if (size > _maximumBytes || size > Integer.MAX_VALUE)
+                    {
+                        continue;
+                    }
+                    if (!reserve(size))
+                    {
+                        break;
+                    }
+                    if (_pending.putIfAbsent(next, size) == null)
+                    {
+                        _executor.execute(new ReadAheadTask(next));
+                    }
+                    else
+                    {
+                        _pendingBytes.addAndGet(-size);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean reserve(final long size)
+    {
+        long current;
+        do
+        {
+            current = _pendingBytes.get();
+            if (current + size > _maximumBytes)
+            {
+                return false;
+            }
+        }
+        while (!_pendingBytes.compareAndSet(current, current + size));
+        return true;
+    }
+
+    private static void load(final ServerMessage message)
+    {
+        // reading the content from the stored message leaves it held in memory
+        final StoredMessage<?> storedMessage = message.getStoredMessage();
+        for (QpidByteBuffer buf : storedMessage.getContent(0, (int) message.getSize()))
+        {
+            buf.dispose();
+        }
+    }
+
+    private final class ReadAheadTask implements Runnable
+    {
+        private final QueueEntry _entry;
+
+        private ReadAheadTask(final QueueEntry entry)
+        {
+            _entry = entry;
+        }
+
+        @Override
+        public void run()
+        {
+            if (_pending.containsKey(_entry) && _entry.isAvailable())
+            {
+                try
+                {
+                    load(_entry.getMessage());
+                }
+                catch (RuntimeException e)
+                {
+                    // the message may have been removed from the store since the entry was examined
+                    LOGGER.debug("Failed to read ahead content for entry {}", _entry, e);
+                    entryDequeued(_entry);
+                }
+            }
+        }
+    }
+}
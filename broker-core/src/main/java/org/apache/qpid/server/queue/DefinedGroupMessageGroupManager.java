@@ -20,101 +20,141 @@
  */
 package org.apache.qpid.server.queue;
 
-import org.apache.qpid.server.consumer.ConsumerImpl;
-import org.apache.qpid.server.message.MessageInstance;
-import org.apache.qpid.server.message.MessageInstance.ConsumerAcquiredState;
-import org.apache.qpid.server.message.MessageInstance.EntryState;
-import org.apache.qpid.server.util.StateChangeListener;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageInstance;
+import org.apache.qpid.server.message.MessageInstance.ConsumerAcquiredState;
+import org.apache.qpid.server.message.MessageInstance.EntryState;
 import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.util.StateChangeListener;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
-
+/**
+ * Assigns each message group to a single consumer for as long as that consumer holds messages from the group.
+ * <p>
+ * Consumers scanning the queue do not serialize on the manager: groups are held in a concurrent map, ownership of
+ * a group is taken by installing a new {@link Group} with a compare-and-set on the map, and the number of messages
+ * of the group acquired by its consumer is maintained with compare-and-set on the group itself. A group is released
+ * by moving its count directly from one to {@link Group#RELEASED}, after which it can never be reused, so
+ * any consumer finding it in the map will replace it. Groups are compared by identity so that a released group is
+ * never confused with its replacement in the map.
+ * <p>
+ * A consumer accepting a message reserves its place in the group's count before acquiring the entry, so the group
+ * cannot be released and taken by another consumer in between; the reservation is given back if the acquisition
+ * fails.
+ */
 public class DefinedGroupMessageGroupManager implements MessageGroupManager
 {
     private static final Logger _logger = LoggerFactory.getLogger(DefinedGroupMessageGroupManager.class);
 
     private final String _groupId;
     private final String _defaultGroup;
-    private final Map<Object, Group> _groupMap = new HashMap<Object, Group>();
+    private final ConcurrentMap<Object, Group> _groupMap = new ConcurrentHashMap<>();
     private final ConsumerResetHelper _resetHelper;
 
     private final class Group
     {
+        private static final int RELEASED = -1;
+
         private final Object _group;
-        private final SortedSet<QueueEntry> _skippedEntries = new TreeSet<>();
-        private QueueConsumer<?> _consumer;
-        private int _activeCount;
+        private final NavigableSet<QueueEntry> _skippedEntries = new ConcurrentSkipListSet<>();
+        private final QueueConsumer<?> _consumer;
+        private final AtomicInteger _activeCount = new AtomicInteger();
 
         private Group(final Object key, final QueueConsumer<?> consumer)
         {
             _group = key;
             _consumer = consumer;
         }
-        
+
         public boolean add()
         {
-            if(_consumer != null)
-            {
-                _activeCount++;
-                return true;
-            }
-            else
+            int count;
+            do
             {
-                return false;
+                count = _activeCount.get();
+                if(count == RELEASED)
+                {
+                    return false;
+                }
             }
+            while(!_activeCount.compareAndSet(count, count + 1));
+            return true;
         }
-        
+
         public void subtract(final QueueEntry entry, final boolean released)
         {
             if(!released)
             {
                 _skippedEntries.remove(entry);
             }
-            if(--_activeCount == 0)
+            int count;
+            int newCount;
+            do
             {
-                if(!_skippedEntries.isEmpty())
+                count = _activeCount.get();
+                if(count <= 0)
                 {
-                    _resetHelper.resetSubPointersForGroups(_skippedEntries.first());
-                    _skippedEntries.clear();
+                    return;
                 }
-                _consumer = null;
-                _groupMap.remove(_group);
+                newCount = count == 1 ? RELEASED : count - 1;
+            }
+            while(!_activeCount.compareAndSet(count, newCount));
+
+            if(newCount == RELEASED)
+            {
+                release();
             }
         }
 
-        @Override
-        public boolean equals(final Object o)
+        /**
+         * Releases a group which has no acquired messages but whose consumer has since closed.
+         *
+         * @return true if the group was released by this call
+         */
+        public boolean releaseIfStale()
         {
-            if (this == o)
+            if(_activeCount.get() == 0 && _consumer.isClosed() && _activeCount.compareAndSet(0, RELEASED))
             {
+                _groupMap.remove(_group, this);
                 return true;
             }
-            if (o == null || getClass() != o.getClass())
-            {
-                return false;
-            }
-
-            Group group = (Group) o;
+            return false;
+        }
 
-            return _group.equals(group._group);
+        private void release()
+        {
+            _groupMap.remove(_group, this);
+            resetSkippedEntries();
         }
 
-        @Override
-        public int hashCode()
+        private void resetSkippedEntries()
         {
-            return _group.hashCode();
+            QueueEntry first;
+            while((first = _skippedEntries.pollFirst()) != null)
+            {
+                _resetHelper.resetSubPointersForGroups(first);
+                _skippedEntries.clear();
+            }
         }
 
         public boolean isValid()
         {
-            return !(_consumer == null || (_activeCount == 0 && _consumer.isClosed()));
+            final int count = _activeCount.get();
+            return !(count == RELEASED || (count == 0 && _consumer.isClosed()));
+        }
+
+        public boolean isAssignedTo(final QueueConsumer<?> sub)
+        {
+            return _consumer == sub && _activeCount.get() != RELEASED;
         }
 
         public QueueConsumer<?> getConsumer()
@@ -135,6 +175,12 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         public void addSkippedEntry(final QueueEntry entry)
         {
             _skippedEntries.add(entry);
+            // the group may have been released after the caller found it in the map, in which case the skipped
+            // entries have already been reset and this one would otherwise be left behind the consumers
+            if(_activeCount.get() == RELEASED)
+            {
+                resetSkippedEntries();
+            }
         }
     }
 
@@ -145,7 +191,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         _resetHelper = resetHelper;
     }
     
-    public synchronized boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
+    public boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
     {
         Object groupId = getKey(entry);
 
@@ -158,46 +204,94 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         return possibleAssignment;
     }
 
-    public synchronized boolean acceptMessage(final QueueConsumer<?> sub, final QueueEntry entry)
+    public boolean acceptMessage(final QueueConsumer<?> sub, final QueueEntry entry)
     {
-        return assignMessage(sub, entry) && entry.acquire(sub);
+        final Group group = assignMessage(sub, entry);
+        if(group == null)
+        {
+            return false;
+        }
+
+        // the group's count already includes this entry, so the group cannot be released and taken by another
+        // consumer between its assignment and the acquisition of the entry
+        final GroupStateChangeListener listener = new GroupStateChangeListener(group, true);
+        entry.addStateChangeListener(listener);
+        if(entry.acquire(sub))
+        {
+            return true;
+        }
+        entry.removeStateChangeListener(listener);
+        listener.cancelReservation(entry);
+        return false;
     }
 
-    private boolean assignMessage(final QueueConsumer<?> sub, final QueueEntry entry)
+    /**
+     * Finds or takes the group of the entry for the consumer and, if the consumer holds the group, reserves a place
+     * in its count for the entry.
+     *
+     * @return the group, or null if the entry may not be delivered to the consumer
+     */
+    private Group assignMessage(final QueueConsumer<?> sub, final QueueEntry entry)
     {
         Object groupId = getKey(entry);
-        Group group = _groupMap.get(groupId);
-
-        if(group == null || !group.isValid())
+        while(true)
         {
-            group = new Group(groupId, sub);
-
-            _groupMap.put(groupId, group);
+            Group group = _groupMap.get(groupId);
 
-            // there's a small chance that the group became empty between the point at which getNextAvailable() was
-            // called on the consumer, and when accept message is called... in that case we want to avoid delivering
-            // out of order
-            if(_resetHelper.isEntryAheadOfConsumer(entry, sub))
+            if(group == null || !group.isValid())
             {
-                return false;
-            }
-        }
+                final Group newGroup = new Group(groupId, sub);
+                while(true)
+                {
+                    if(group == null)
+                    {
+                        group = _groupMap.putIfAbsent(groupId, newGroup);
+                        if(group == null)
+                        {
+                            group = newGroup;
+                            break;
+                        }
+                    }
+                    else if(group.isValid())
+                    {
+                        // another consumer took the group first
+                        break;
+                    }
+                    else
+                    {
+                        group.releaseIfStale();
+                        if(_groupMap.replace(groupId, group, newGroup))
+                        {
+                            group = newGroup;
+                            break;
+                        }
+                        group = _groupMap.get(groupId);
+                    }
+                }
 
-        ConsumerImpl assignedSub = group.getConsumer();
+                // there's a small chance that the group became empty between the point at which getNextAvailable()
+                // was called on the consumer, and when accept message is called... in that case we want to avoid
+                // delivering out of order
+                if(group == newGroup && _resetHelper.isEntryAheadOfConsumer(entry, sub))
+                {
+                    return null;
+                }
+            }
 
-        if(assignedSub == sub)
-        {
-            entry.addStateChangeListener(new GroupStateChangeListener(group));
-            return true;
-        }
-        else
-        {
-            group.addSkippedEntry(entry);
-            return false;            
+            if(group.getConsumer() != sub)
+            {
+                group.addSkippedEntry(entry);
+                return null;
+            }
+            else if(group.add())
+            {
+                return group;
+            }
+            // the group was released after it was found, so look again
         }
     }
 
-    public synchronized QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?> sub)
+    public QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?> sub)
     {
         EntryFinder visitor = new EntryFinder(sub);
         sub.getQueue().visit(visitor);
@@ -224,7 +318,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
             Object groupId = getKey(entry);
 
             Group group = _groupMap.get(groupId);
-            if(group != null && group.getConsumer() == _sub)
+            if(group != null && group.isAssignedTo(_sub))
             {
                 _entry = entry;
                 return true;
@@ -261,33 +355,50 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
     private class GroupStateChangeListener implements StateChangeListener<MessageInstance, EntryState>
     {
         private final Group _group;
+        private final AtomicBoolean _reserved;
 
-        public GroupStateChangeListener(final Group group)
+        /**
+         * @param reserved true if the group's count already includes the acquisition of the entry which is about to
+         *                 be made, in which case that acquisition is not counted again
+         */
+        public GroupStateChangeListener(final Group group, final boolean reserved)
         {
             _group = group;
+            _reserved = new AtomicBoolean(reserved);
+        }
+
+        /**
+         * Gives back the place reserved in the group's count when the entry was not acquired after all.
+         */
+        public void cancelReservation(final QueueEntry entry)
+        {
+            if(_reserved.compareAndSet(true, false))
+            {
+                _group.subtract(entry, true);
+            }
         }
 
         @Override
         public void stateChanged(final MessageInstance entry, final EntryState oldState, final EntryState newState)
         {
-            synchronized (DefinedGroupMessageGroupManager.this)
+            if(_group.isValid())
             {
-                if(_group.isValid())
+                if (isConsumerAcquiredStateForThisGroup(newState) && !isConsumerAcquiredStateForThisGroup(oldState))
                 {
-                    if (isConsumerAcquiredStateForThisGroup(newState) && !isConsumerAcquiredStateForThisGroup(oldState))
+                    if(!_reserved.compareAndSet(true, false))
                     {
                         _group.add();
                     }
-                    else if (isConsumerAcquiredStateForThisGroup(oldState) && !isConsumerAcquiredStateForThisGroup(newState))
-                    {
-                        _group.subtract((QueueEntry) entry, newState.getState() == MessageInstance.State.AVAILABLE);
-                    }
                 }
-                else
+                else if (isConsumerAcquiredStateForThisGroup(oldState) && !isConsumerAcquiredStateForThisGroup(newState))
                 {
-                    entry.removeStateChangeListener(this);
+                    _group.subtract((QueueEntry) entry, newState.getState() == MessageInstance.State.AVAILABLE);
                 }
             }
+            else
+            {
+                entry.removeStateChangeListener(this);
+            }
         }
 
         private boolean isConsumerAcquiredStateForThisGroup(EntryState state)
@@ -0,0 +1,73 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+/**
+ * Decides how many delivery attempts a single run of the queue runner makes for each consumer in turn.
+ * <p>
+ * The iterations remaining to the run are shared at the start of each round between the consumers which took every
+ * delivery offered to them in the previous round; in the first round they are shared between all consumers. A
+ * consumer which was held back in its last turn, because it had run out of credit or its connection had suspended
+ * message assignment owing to a full outbound buffer, is offered a single delivery until it accepts deliveries again.
+ * Fast consumers are therefore given the iterations slow consumers cannot use, while each consumer still receives
+ * an equal share when all are able to keep up.
+ */
+final class DeliveryBatchPolicy
+{
+    private int _batchSize;
+    private int _consumersWithAppetite;
+
+    DeliveryBatchPolicy(final int consumers)
+    {
+        _consumersWithAppetite = consumers;
+    }
+
+    void startRound(final int iterationsRemaining)
+    {
+        _batchSize = Math.max(iterationsRemaining / Math.max(_consumersWithAppetite, 1), 1);
+        _consumersWithAppetite = 0;
+    }
+
+    int getBatchSize(final QueueContext context)
+    {
+        return context != null && context.isDeliveryStalled() ? 1 : _batchSize;
+    }
+
+    /**
+     * Records the outcome of a consumer's turn.
+     *
+     * @param context the consumer's context, or null if the consumer has been removed from the queue
+     * @param tookWholeBatch true if the consumer accepted every delivery offered to it in this turn
+     * @param stalled true if the consumer was prevented from taking further deliveries by lack of credit or
+     *                suspension
+     */
+    void consumerServed(final QueueContext context, final boolean tookWholeBatch, final boolean stalled)
+    {
+        if (tookWholeBatch)
+        {
+            _consumersWithAppetite++;
+        }
+        if (context != null)
+        {
+            context.setDeliveryStalled(stalled && !tookWholeBatch);
+        }
+    }
+}
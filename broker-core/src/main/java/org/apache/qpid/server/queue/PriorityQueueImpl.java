@@ -62,6 +62,13 @@ public class PriorityQueueImpl extends OutOfOrderQueue<PriorityQueueImpl> implem
         return _entries;
     }
 
+    @Override
+    public void requeue(final QueueEntry entry)
+    {
+        _entries.entryReleased(entry);
+        super.requeue(entry);
+    }
+
     protected LogMessage getCreatedLogMessage()
     {
         String ownerString = getOwner();
@@ -20,6 +20,9 @@
 */
 package org.apache.qpid.server.queue;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 
@@ -38,6 +41,15 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
         super(queue, headCreator);
     }
 
+    /**
+     * Called when an entry of the list has been made available again after having been acquired.
+     */
+    void entryReleased(final QueueEntry entry)
+    {
+        final PriorityQueueEntry priorityQueueEntry = (PriorityQueueEntry) entry;
+        ((PriorityQueueEntrySubList) priorityQueueEntry.getQueueEntryList()).entryReleased(priorityQueueEntry);
+    }
+
     static class PriorityQueueMasterList extends PriorityQueueList
     {
         private static final HeadCreator DUMMY_HEAD_CREATOR =
@@ -101,26 +113,23 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
             throw new UnsupportedOperationException();
         }
 
+        /**
+         * Returns the entry following the given node, moving on to the next lower priority sub-list when the
+         * sub-list of the node is exhausted. Entries at the start of each sub-list which are known to be acquired or
+         * deleted are passed over, so a consumer moving between sub-lists does not have to walk every unacknowledged
+         * entry of the lower priorities again.
+         */
         @Override
         public PriorityQueueEntry next(QueueEntry node)
         {
-            PriorityQueueEntry next = (PriorityQueueEntry) node.getNextValidEntry();
+            final PriorityQueueEntry entry = (PriorityQueueEntry) node;
+            int index = ((PriorityQueueEntrySubList) entry.getQueueEntryList()).getListPriority();
 
-            if(next == null)
+            PriorityQueueEntry next = _priorityLists[index].nextCandidate(entry);
+            while(next == null && index != 0)
             {
-                final PriorityQueueList nodeEntryList = (PriorityQueueList) ((PriorityQueueEntry)node).getQueueEntryList();
-                int index;
-                for(index = _priorityLists.length-1; _priorityLists[index] != nodeEntryList; index--)
-                {
-                    // do nothing loop is just to find the index
-                }
-
-                while(next == null && index != 0)
-                {
-                    index--;
-                    next = (PriorityQueueEntry) _priorityLists[index].getHead().getNextValidEntry();
-                }
-
+                index--;
+                next = _priorityLists[index].nextCandidate(null);
             }
             return next;
         }
@@ -228,12 +237,76 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
         };
         private int _listPriority;
 
+        /**
+         * Every entry of the list before the first candidate is acquired or deleted. A null first candidate means
+         * the list must be examined from its head.
+         */
+        private final AtomicReference<PriorityQueueEntry> _firstCandidate = new AtomicReference<>();
+        private final AtomicLong _releaseCount = new AtomicLong();
+
         public PriorityQueueEntrySubList(PriorityQueueImpl queue, int listPriority)
         {
             super(queue, HEAD_CREATOR);
             _listPriority = listPriority;
         }
 
+        /**
+         * Returns the entry of this list following the given entry, or the first entry which may be available if
+         * the given entry is null or lies before the first candidate.
+         */
+        PriorityQueueEntry nextCandidate(final PriorityQueueEntry after)
+        {
+            final long releaseCount = _releaseCount.get();
+            final PriorityQueueEntry firstCandidate = _firstCandidate.get();
+            if(after != null && after != getHead() && (firstCandidate == null || after.compareTo(firstCandidate) >= 0))
+            {
+                return (PriorityQueueEntry) after.getNextValidEntry();
+            }
+
+            PriorityQueueEntry last = firstCandidate;
+            PriorityQueueEntry candidate;
+            if(firstCandidate == null)
+            {
+                candidate = (PriorityQueueEntry) getHead().getNextValidEntry();
+            }
+            else if(firstCandidate.isDeleted())
+            {
+                candidate = (PriorityQueueEntry) firstCandidate.getNextValidEntry();
+            }
+            else
+            {
+                candidate = firstCandidate;
+            }
+
+            while(candidate != null && (candidate.isAcquired() || candidate.isDeleted()))
+            {
+                last = candidate;
+                candidate = (PriorityQueueEntry) candidate.getNextValidEntry();
+            }
+
+            final PriorityQueueEntry newFirstCandidate = candidate == null ? last : candidate;
+            if(newFirstCandidate != firstCandidate
+               && _firstCandidate.compareAndSet(firstCandidate, newFirstCandidate)
+               && _releaseCount.get() != releaseCount)
+            {
+                // an entry which was passed over may have been released while the list was being walked
+                _firstCandidate.set(null);
+            }
+            return candidate;
+        }
+
+        void entryReleased(final PriorityQueueEntry entry)
+        {
+            _releaseCount.incrementAndGet();
+            PriorityQueueEntry firstCandidate;
+            while((firstCandidate = _firstCandidate.get()) != null
+                  && firstCandidate.compareTo(entry) > 0
+                  && !_firstCandidate.compareAndSet(firstCandidate, entry))
+            {
+                // retry until the first candidate is no later than the released entry
+            }
+        }
+
         @Override
         protected PriorityQueueEntry createQueueEntry(ServerMessage<?> message,
                                                       final MessageEnqueueRecord enqueueRecord)
@@ -27,6 +27,8 @@ final class QueueContext
 {
     private volatile QueueEntry _lastSeenEntry;
     private volatile QueueEntry _releasedEntry;
+    // only accessed by the queue runner whilst holding the consumer's send lock
+    private boolean _deliveryStalled;
 
     static final AtomicReferenceFieldUpdater<QueueContext, QueueEntry>
             _lastSeenUpdater =
@@ -53,6 +55,16 @@ final class QueueContext
         return _releasedEntry;
     }
 
+    boolean isDeliveryStalled()
+    {
+        return _deliveryStalled;
+    }
+
+    void setDeliveryStalled(final boolean deliveryStalled)
+    {
+        _deliveryStalled = deliveryStalled;
+    }
+
     @Override
     public String toString()
     {
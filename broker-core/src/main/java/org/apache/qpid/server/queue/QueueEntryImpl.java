@@ -111,6 +111,9 @@ public abstract class QueueEntryImpl implements QueueEntry
     private static final AtomicIntegerFieldUpdater<QueueEntryImpl> _deliveryCountUpdater = AtomicIntegerFieldUpdater
                     .newUpdater(QueueEntryImpl.class, "_deliveryCount");
 
+    /** System.nanoTime() at which this entry was last acquired by a consumer */
+    private volatile long _deliveryTime;
+
     private final MessageEnqueueRecord _enqueueRecord;
 
 
@@ -309,7 +312,11 @@ public abstract class QueueEntryImpl implements QueueEntry
         final boolean acquired = acquire(((QueueConsumer<?>) sub).getOwningState().getUnstealableState());
         if(acquired)
         {
-            _deliveryCountUpdater.compareAndSet(this,-1,0);
+            _deliveryTime = System.nanoTime();
+            if(_deliveryCountUpdater.compareAndSet(this,-1,0))
+            {
+                getQueue().registerFirstDelivery(this);
+            }
             getQueue().incrementUnackedMsgCount(this);
         }
         return acquired;
@@ -526,6 +533,7 @@ public abstract class QueueEntryImpl implements QueueEntry
             if (state instanceof ConsumerAcquiredState)
             {
                 getQueue().decrementUnackedMsgCount(this);
+                getQueue().registerAcknowledgement(this, _deliveryTime);
             }
 
             getQueue().dequeue(this);
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+
+/**
+ * An implementation of QueueEntryImpl to be used in SegmentedQueueEntryList.
+ * <p>
+ * The entry carries no link to its neighbours; its position in the list is given by its entry id.
+ */
+public class SegmentedQueueEntry extends QueueEntryImpl
+{
+    SegmentedQueueEntry(final SegmentedQueueEntryList queueEntryList)
+    {
+        super(queueEntryList);
+    }
+
+    public SegmentedQueueEntry(final SegmentedQueueEntryList queueEntryList,
+                               final ServerMessage message,
+                               final long entryId,
+                               final MessageEnqueueRecord messageEnqueueRecord)
+    {
+        super(queueEntryList, message, entryId, messageEnqueueRecord);
+    }
+
+    @Override
+    public SegmentedQueueEntryList getQueueEntryList()
+    {
+        return (SegmentedQueueEntryList) super.getQueueEntryList();
+    }
+
+    @Override
+    public SegmentedQueueEntry getNextNode()
+    {
+        return getQueueEntryList().next(this);
+    }
+
+    @Override
+    public SegmentedQueueEntry getNextValidEntry()
+    {
+        return getQueueEntryList().next(this);
+    }
+}
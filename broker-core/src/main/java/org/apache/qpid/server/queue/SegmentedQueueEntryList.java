@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+
+/**
+ * A FIFO implementation of QueueEntryList which keeps its entries in fixed size array segments rather than
+ * in a linked list.
+ * <p>
+ * An entry's id is its position in the list, so the entries carry no link to their successor and the list needs
+ * no scavenging of deleted entries. The slot of a deleted entry is cleared as soon as the entry is deleted, making the
+ * entry and its message reference collectable even when it lies behind entries which are still on the queue, and a
+ * segment is released as a whole once all of its entries have been deleted.
+ * <p>
+ * Producers claim positions in order and fill them concurrently. A consumer iterating the list stops at the first
+ * claimed position that has not yet been filled, so it never passes over an entry that is still being added.
+ */
+public class SegmentedQueueEntryList implements QueueEntryList
+{
+    static final int SEGMENT_SHIFT = 10;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private static final Object REMOVED = new Object();
+
+    private static final AtomicReferenceFieldUpdater<SegmentedQueueEntryList, SegmentedQueueEntry> _tailUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(SegmentedQueueEntryList.class, SegmentedQueueEntry.class, "_tail");
+
+    private final Queue<?> _queue;
+    private final SegmentedQueueEntry _head;
+    private final AtomicLong _nextPosition = new AtomicLong();
+    private final Object _directoryLock = new Object();
+    private volatile Directory _directory = new Directory(0L, new Segment[] { new Segment() });
+    private volatile SegmentedQueueEntry _tail;
+
+    public SegmentedQueueEntryList(final Queue<?> queue)
+    {
+        _queue = queue;
+        _head = new SegmentedQueueEntry(this);
+        _tail = _head;
+    }
+
+    @Override
+    public Queue<?> getQueue()
+    {
+        return _queue;
+    }
+
+    @Override
+    public SegmentedQueueEntry add(final ServerMessage message, final MessageEnqueueRecord enqueueRecord)
+    {
+        final long position = _nextPosition.getAndIncrement();
+        final long segmentNumber = position >>> SEGMENT_SHIFT;
+        final Segment segment = getOrCreateSegment(segmentNumber);
+        final int slot = (int) (position & SEGMENT_MASK);
+
+        SegmentedQueueEntry entry = null;
+        try
+        {
+            entry = new SegmentedQueueEntry(this, message, position, enqueueRecord);
+        }
+        finally
+        {
+            if(entry == null)
+            {
+                // the position has been claimed, so it must be filled for consumers to move beyond it
+                segment.set(slot, REMOVED);
+                if(segment.entryRemoved())
+                {
+                    releaseSegment(segmentNumber);
+                }
+            }
+        }
+        segment.set(slot, entry);
+
+        SegmentedQueueEntry tail;
+        while((tail = _tail) == _head || tail.getEntryId() < position)
+        {
+            if(_tailUpdater.compareAndSet(this, tail, entry))
+            {
+                break;
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public SegmentedQueueEntry next(final QueueEntry node)
+    {
+        final SegmentedQueueEntry entry = (SegmentedQueueEntry) node;
+        long position = entry == _head ? 0L : entry.getEntryId() + 1L;
+
+        Directory directory = _directory;
+        while(true)
+        {
+            final long segmentNumber = position >>> SEGMENT_SHIFT;
+            if(segmentNumber < directory._firstSegment)
+            {
+                position = directory._firstSegment << SEGMENT_SHIFT;
+                continue;
+            }
+            final long index = segmentNumber - directory._firstSegment;
+            if(index >= directory._segments.length)
+            {
+                final Directory current = _directory;
+                if(current == directory)
+                {
+                    return null;
+                }
+                directory = current;
+                continue;
+            }
+
+            final Segment segment = directory._segments[(int) index];
+            if(segment != null)
+            {
+                for(int i = (int) (position & SEGMENT_MASK); i < SEGMENT_SIZE; i++)
+                {
+                    final Object slot = segment.get(i);
+                    if(slot == null)
+                    {
+                        // not yet filled - entries beyond this point must not be returned before it
+                        return null;
+                    }
+                    else if(slot != REMOVED && !((SegmentedQueueEntry) slot).isDeleted())
+                    {
+                        return (SegmentedQueueEntry) slot;
+                    }
+                }
+            }
+            position = (segmentNumber + 1L) << SEGMENT_SHIFT;
+        }
+    }
+
+    @Override
+    public QueueEntryIterator iterator()
+    {
+        return new QueueEntryIteratorImpl(_head);
+    }
+
+    @Override
+    public SegmentedQueueEntry getHead()
+    {
+        return _head;
+    }
+
+    @Override
+    public SegmentedQueueEntry getTail()
+    {
+        return _tail;
+    }
+
+    @Override
+    public QueueEntry getOldestEntry()
+    {
+        return next(getHead());
+    }
+
+    @Override
+    public void entryDeleted(final QueueEntry queueEntry)
+    {
+        final SegmentedQueueEntry entry = (SegmentedQueueEntry) queueEntry;
+        if(entry == _head)
+        {
+            return;
+        }
+        final long position = entry.getEntryId();
+        final long segmentNumber = position >>> SEGMENT_SHIFT;
+        final Directory directory = _directory;
+        final Segment segment = directory._segments[(int) (segmentNumber - directory._firstSegment)];
+
+        segment.set((int) (position & SEGMENT_MASK), REMOVED);
+        if(segment.entryRemoved())
+        {
+            releaseSegment(segmentNumber);
+        }
+    }
+
+    @Override
+    public int getPriorities()
+    {
+        return 0;
+    }
+
+    int getSegmentCount()
+    {
+        int count = 0;
+        for(Segment segment : _directory._segments)
+        {
+            if(segment != null)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Segment getOrCreateSegment(final long segmentNumber)
+    {
+        Directory directory = _directory;
+        long index = segmentNumber - directory._firstSegment;
+        if(index < directory._segments.length)
+        {
+            return directory._segments[(int) index];
+        }
+
+        synchronized (_directoryLock)
+        {
+            directory = _directory;
+            index = segmentNumber - directory._firstSegment;
+            if(index >= directory._segments.length)
+            {
+                final Segment[] segments = Arrays.copyOf(directory._segments, (int) index + 1);
+                for(int i = directory._segments.length; i < segments.length; i++)
+                {
+                    segments[i] = new Segment();
+                }
+                directory = new Directory(directory._firstSegment, segments);
+                _directory = directory;
+            }
+            return directory._segments[(int) index];
+        }
+    }
+
+    private void releaseSegment(final long segmentNumber)
+    {
+        synchronized (_directoryLock)
+        {
+            final Directory directory = _directory;
+            final Segment[] segments = directory._segments.clone();
+            segments[(int) (segmentNumber - directory._firstSegment)] = null;
+
+            int leading = 0;
+            while(leading < segments.length && segments[leading] == null)
+            {
+                leading++;
+            }
+            _directory = new Directory(directory._firstSegment + leading,
+                                       Arrays.copyOfRange(segments, leading, segments.length));
+        }
+    }
+
+    private static final class Directory
+    {
+        private final long _firstSegment;
+        private final Segment[] _segments;
+
+        private Directory(final long firstSegment, final Segment[] segments)
+        {
+            _firstSegment = firstSegment;
+            _segments = segments;
+        }
+    }
+
+    private static final class Segment extends AtomicReferenceArray<Object>
+    {
+        private final AtomicInteger _removed = new AtomicInteger();
+
+        private Segment()
+        {
+            super(SEGMENT_SIZE);
+        }
+
+        /** @return true if every slot in the segment has now been filled and its entry removed */
+        boolean entryRemoved()
+        {
+            return _removed.incrementAndGet() == SEGMENT_SIZE;
+        }
+    }
+
+    public class QueueEntryIteratorImpl implements QueueEntryIterator
+    {
+        private SegmentedQueueEntry _lastNode;
+
+        QueueEntryIteratorImpl(final SegmentedQueueEntry startNode)
+        {
+            _lastNode = startNode;
+        }
+
+        @Override
+        public boolean atTail()
+        {
+            return next(_lastNode) == null;
+        }
+
+        @Override
+        public SegmentedQueueEntry getNode()
+        {
+            return _lastNode;
+        }
+
+        @Override
+        public boolean advance()
+        {
+            final SegmentedQueueEntry nextNode = next(_lastNode);
+            if(nextNode != null)
+            {
+                _lastNode = nextNode;
+                return true;
+            }
+            else
+            {
+                return false;
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@
 package org.apache.qpid.server.queue;
 
 import org.apache.qpid.server.model.ManagedAttribute;
+import org.apache.qpid.server.model.ManagedContextDefault;
 import org.apache.qpid.server.model.ManagedObject;
 import org.apache.qpid.server.model.Queue;
 
@@ -30,6 +31,10 @@ public interface SortedQueue<X extends SortedQueue<X>> extends Queue<X>
     String SORT_KEY = "sortKey";
     String SORTED_QUEUE_TYPE = "sorted";
 
+    String USE_CONCURRENT_ENTRY_LIST = "queue.sorted.useConcurrentEntryList";
+    @ManagedContextDefault( name = USE_CONCURRENT_ENTRY_LIST)
+    boolean DEFAULT_USE_CONCURRENT_ENTRY_LIST = true;
+
     @ManagedAttribute( mandatory = true )
     String getSortKey();
 
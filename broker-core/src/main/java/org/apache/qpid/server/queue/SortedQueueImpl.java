@@ -31,14 +31,14 @@ import org.apache.qpid.server.util.Action;
 
 public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements SortedQueue<SortedQueueImpl>
 {
-    //Lock object to synchronize enqueue. Used instead of the object
-    //monitor to prevent lock order issues with consumer sendLocks
-    //and consumer updates in the super classes
+    //Lock object to synchronize enqueue onto the red/black tree list.
+    //Used instead of the object monitor to prevent lock order issues with
+    //consumer sendLocks and consumer updates in the super classes
     private final Object _sortedQueueLock = new Object();
 
     @ManagedAttributeField
     private String _sortKey;
-    private SortedQueueEntryList _entries;
+    private QueueEntryList _entries;
 
     @ManagedObjectFactoryConstructor
     public SortedQueueImpl(Map<String, Object> attributes, VirtualHost<?> virtualHost)
@@ -50,7 +50,14 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
     protected void onOpen()
     {
         super.onOpen();
-        _entries = new SortedQueueEntryList(this);
+        if(getContextValue(Boolean.class, USE_CONCURRENT_ENTRY_LIST))
+        {
+            _entries = new ConcurrentSortedQueueEntryList(this);
+        }
+        else
+        {
+            _entries = new SortedQueueEntryList(this);
+        }
     }
 
     @Override
@@ -58,14 +65,21 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
                         final Action<? super MessageInstance> action,
                         MessageEnqueueRecord record)
     {
-        synchronized (_sortedQueueLock)
+        if(getEntries() instanceof ConcurrentSortedQueueEntryList)
         {
             super.doEnqueue(message, action, record);
         }
+        else
+        {
+            synchronized (_sortedQueueLock)
+            {
+                super.doEnqueue(message, action, record);
+            }
+        }
     }
 
     @Override
-    SortedQueueEntryList getEntries()
+    QueueEntryList getEntries()
     {
         return _entries;
     }
@@ -20,10 +20,14 @@
  */
 package org.apache.qpid.server.queue;
 
+import org.apache.qpid.server.model.ManagedContextDefault;
 import org.apache.qpid.server.model.ManagedObject;
 import org.apache.qpid.server.model.Queue;
 
 @ManagedObject( category = false, type="standard" )
 public interface StandardQueue<X extends StandardQueue<X>> extends Queue<X>
 {
+    String USE_SEGMENTED_ENTRY_LIST = "queue.standard.useSegmentedEntryList";
+    @ManagedContextDefault( name = USE_SEGMENTED_ENTRY_LIST)
+    boolean DEFAULT_USE_SEGMENTED_ENTRY_LIST = false;
 }
@@ -27,7 +27,7 @@ import org.apache.qpid.server.model.VirtualHost;
 
 public class StandardQueueImpl extends AbstractQueue<StandardQueueImpl> implements StandardQueue<StandardQueueImpl>
 {
-    private StandardQueueEntryList _entries;
+    private QueueEntryList _entries;
 
     @ManagedObjectFactoryConstructor
     public StandardQueueImpl(final Map<String, Object> arguments, final VirtualHost<?> virtualHost)
@@ -39,11 +39,18 @@ public class StandardQueueImpl extends AbstractQueue<StandardQueueImpl> implemen
     protected void onOpen()
     {
         super.onOpen();
-        _entries = new StandardQueueEntryList(this);
+        if(getContextValue(Boolean.class, USE_SEGMENTED_ENTRY_LIST))
+        {
+            _entries = new SegmentedQueueEntryList(this);
+        }
+        else
+        {
+            _entries = new StandardQueueEntryList(this);
+        }
     }
 
     @Override
-    StandardQueueEntryList getEntries()
+    QueueEntryList getEntries()
     {
         return _entries;
     }
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, log-linear histogram of non-negative values (typically latencies in microseconds).
+ * <p>
+ * Each power of two is split into {@value #SUB_BUCKET_COUNT} linear sub-buckets, so any recorded value is
+ * reported with a relative error of at most 1/{@value #SUB_BUCKET_COUNT}. Recording is lock-free and does not
+ * allocate; values larger than {@link #getHighestTrackableValue()} are counted in the highest bucket.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_SHIFT = 36;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT * (MAX_SHIFT + 2);
+    private static final long HIGHEST_TRACKABLE_VALUE = (2L * SUB_BUCKET_COUNT << MAX_SHIFT) - 1;
+
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong _totalCount = new AtomicLong();
+    private final AtomicLong _totalValue = new AtomicLong();
+    private final AtomicLong _maxValue = new AtomicLong();
+
+    public void recordValue(final long value)
+    {
+        final long boundedValue = value < 0 ? 0 : Math.min(value, HIGHEST_TRACKABLE_VALUE);
+        _counts.incrementAndGet(getBucketIndex(boundedValue));
+        _totalCount.incrementAndGet();
+        _totalValue.addAndGet(boundedValue);
+
+        long currentMax;
+        while (boundedValue > (currentMax = _maxValue.get()))
+        {
+            if (_maxValue.compareAndSet(currentMax, boundedValue))
+            {
+                break;
+            }
+        }
+    }
+
+    public long getTotalCount()
+    {
+        return _totalCount.get();
+    }
+
+    public long getMaxValue()
+    {
+        return _maxValue.get();
+    }
+
+    public long getMean()
+    {
+        final long count = _totalCount.get();
+        return count == 0 ? 0 : _totalValue.get() / count;
+    }
+
+    /**
+     * @param percentile the percentile in the range 0 to 100
+     * @return the highest value equivalent of the bucket containing the given percentile, or 0 if no values
+     * have been recorded
+     */
+    public long getValueAtPercentile(final double percentile)
+    {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            total += _counts.get(i);
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        final double boundedPercentile = Math.max(0d, Math.min(100d, percentile));
+        final long target = Math.max(1L, (long) Math.ceil(boundedPercentile / 100d * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            cumulative += _counts.get(i);
+            if (cumulative >= target)
+            {
+                return Math.min(getHighestEquivalentValue(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            _counts.set(i, 0L);
+        }
+        _totalCount.set(0L);
+        _totalValue.set(0L);
+        _maxValue.set(0L);
+    }
+
+    public static long getHighestTrackableValue()
+    {
+        return HIGHEST_TRACKABLE_VALUE;
+    }
+
+    static int getBucketIndex(final long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        final int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long getHighestEquivalentValue(final int index)
+    {
+        if (index < SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        final int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+}
@@ -51,6 +51,8 @@ import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -166,6 +168,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     private static final int HOUSEKEEPING_SHUTDOWN_TIMEOUT = 5;
 
     private ScheduledThreadPoolExecutor _houseKeepingTaskExecutor;
+    private final ConcurrentMap<Queue<?>, QueueHouseKeepingTask> _queueHouseKeepingTasks = new ConcurrentHashMap<>();
 
     private final Broker<?> _broker;
 
@@ -1053,6 +1056,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         if(_houseKeepingTaskExecutor != null)
         {
             _houseKeepingTaskExecutor.shutdown();
+            _queueHouseKeepingTasks.clear();
 
             try
             {
@@ -1748,15 +1752,94 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
 
             for (Queue<?> q : getChildren(Queue.class))
             {
-                if (q.getState() == State.ACTIVE)
+                if (q.getState() == State.ACTIVE && !_queueHouseKeepingTasks.containsKey(q))
                 {
-                    _logger.debug("Checking message status for queue: {}", q.getName());
-                    q.checkMessageStatus();
+                    QueueHouseKeepingTask task = new QueueHouseKeepingTask(q);
+                    if (_queueHouseKeepingTasks.putIfAbsent(q, task) == null)
+                    {
+                        task.schedule(0L);
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Checks the message status of a single queue, so that a large queue does not hold up the checking of the
+     * others. Each run checks a bounded slice of the queue's entries; a run which leaves entries unchecked is
+     * resubmitted straight away, behind any other waiting housekeeping work, while a run which completes the pass
+     * over the queue schedules the next pass one housekeeping period after the start of this one. A run which fails
+     * abandons the pass and starts a new one a housekeeping period later.
+     */
+    private class QueueHouseKeepingTask extends HouseKeepingTask
+    {
+        private final Queue<?> _queue;
+        private long _passStartTime = -1L;
+
+        private QueueHouseKeepingTask(final Queue<?> queue)
+        {
+            super("Housekeeping["+AbstractVirtualHost.this.getName()+"]["+queue.getName()+"]",
+                  AbstractVirtualHost.this,
+                  _housekeepingJobContext);
+            _queue = queue;
+        }
+
+        @Override
+        public void execute()
+        {
+            if (_queue.getState() != State.ACTIVE)
+            {
+                _queueHouseKeepingTasks.remove(_queue, this);
+                return;
+            }
+
+            if (_passStartTime < 0L)
+            {
+                _passStartTime = System.currentTimeMillis();
+            }
+
+            _logger.debug("Checking message status for queue: {}", _queue.getName());
+            final boolean passComplete;
+            try
+            {
+                passComplete = _queue.checkMessageStatus(_queue.getContextValue(Integer.class,
+                                                                                Queue.HOUSEKEEPING_SLICE_SIZE));
+            }
+            catch (RuntimeException e)
+            {
+                // the executor would otherwise silently drop this task, leaving the queue unchecked
+                _logger.warn("Failed to check message status for queue: {}", _queue.getName(), e);
+                _passStartTime = -1L;
+                schedule(getHousekeepingCheckPeriod());
+                return;
+            }
+
+            if (passComplete)
+            {
+                final long elapsed = System.currentTimeMillis() - _passStartTime;
+                _passStartTime = -1L;
+                schedule(Math.max(0L, getHousekeepingCheckPeriod() - elapsed));
+            }
+            else
+            {
+                schedule(0L);
+            }
+        }
+
+        private void schedule(final long delay)
+        {
+            try
+            {
+                scheduleTask(delay, this);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // housekeeping is shutting down
+                _queueHouseKeepingTasks.remove(_queue, this);
+            }
+        }
+    }
+
     private class SystemNodeRegistry implements SystemNodeCreator.SystemNodeRegistry
     {
         @Override
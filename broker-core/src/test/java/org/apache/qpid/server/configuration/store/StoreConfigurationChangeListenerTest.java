@@ -22,22 +22,29 @@ package org.apache.qpid.server.configuration.store;
 
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.UUID;
 
+import org.mockito.InOrder;
+
 import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.Model;
+import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.State;
 import org.apache.qpid.server.model.VirtualHost;
 import org.apache.qpid.server.model.VirtualHostNode;
 import org.apache.qpid.server.store.ConfiguredObjectRecord;
 import org.apache.qpid.server.store.DurableConfigurationStore;
+import org.apache.qpid.server.store.StoreException;
 import org.apache.qpid.test.utils.QpidTestCase;
 
 public class StoreConfigurationChangeListenerTest extends QpidTestCase
@@ -102,6 +109,117 @@ public class StoreConfigurationChangeListenerTest extends QpidTestCase
         verifyNoMoreInteractions(_store);
     }
 
+    public void testChangesWithinBatchAreAppliedOnCommit()
+    {
+        notifyBrokerStarted();
+        VirtualHost<?> virtualHost = mock(VirtualHost.class);
+        when(virtualHost.getCategoryClass()).thenReturn(VirtualHost.class);
+        when(virtualHost.isDurable()).thenReturn(true);
+
+        ConfiguredObjectRecord record1 = createRecord();
+        ConfiguredObjectRecord record2 = createRecord();
+        ConfiguredObjectRecord removedRecord = createRecord();
+
+        try (ConfigurationUpdateBatch batch = ConfigurationUpdateBatch.begin())
+        {
+            _listener.childAdded(virtualHost, createDurableChild(record1));
+            _listener.childAdded(virtualHost, createDurableChild(record2));
+            _listener.childRemoved(virtualHost, createDurableChild(removedRecord));
+
+            verifyNoMoreInteractions(_store);
+            assertEquals("Unexpected number of pending records", 3, batch.getPendingRecordCount());
+
+            batch.commit();
+        }
+
+        InOrder inOrder = inOrder(_store);
+        inOrder.verify(_store).update(true, record1, record2);
+        inOrder.verify(_store).remove(removedRecord);
+        assertNull("Batch should no longer be current", ConfigurationUpdateBatch.current());
+    }
+
+    public void testChangesWithinClosedBatchAreDiscarded()
+    {
+        notifyBrokerStarted();
+        VirtualHost<?> virtualHost = mock(VirtualHost.class);
+        when(virtualHost.getCategoryClass()).thenReturn(VirtualHost.class);
+        when(virtualHost.isDurable()).thenReturn(true);
+
+        try (ConfigurationUpdateBatch batch = ConfigurationUpdateBatch.begin())
+        {
+            _listener.childAdded(virtualHost, createDurableChild(createRecord()));
+        }
+
+        verifyNoMoreInteractions(_store);
+        assertNull("Batch should no longer be current", ConfigurationUpdateBatch.current());
+    }
+
+    public void testRecordsAppliedIndividuallyWhenBatchFails()
+    {
+        notifyBrokerStarted();
+        VirtualHost<?> virtualHost = mock(VirtualHost.class);
+        when(virtualHost.getCategoryClass()).thenReturn(VirtualHost.class);
+        when(virtualHost.isDurable()).thenReturn(true);
+
+        ConfiguredObjectRecord record1 = createRecord();
+        ConfiguredObjectRecord record2 = createRecord();
+        StoreException batchFailure = new StoreException("Batch failed");
+        StoreException record2Failure = new StoreException("Record failed");
+        doThrow(batchFailure).when(_store).update(true, record1, record2);
+        doThrow(record2Failure).when(_store).update(true, record2);
+
+        Map<UUID, RuntimeException> failures;
+        try (ConfigurationUpdateBatch batch = ConfigurationUpdateBatch.begin())
+        {
+            _listener.childAdded(virtualHost, createDurableChild(record1));
+            _listener.childAdded(virtualHost, createDurableChild(record2));
+
+            failures = batch.commitPartially();
+        }
+
+        InOrder inOrder = inOrder(_store);
+        inOrder.verify(_store).update(true, record1, record2);
+        inOrder.verify(_store).update(true, record1);
+        inOrder.verify(_store).update(true, record2);
+        assertEquals("Unexpected failures", Collections.singletonMap(record2.getId(), record2Failure), failures);
+        assertNull("Batch should no longer be current", ConfigurationUpdateBatch.current());
+    }
+
+    public void testNestedBatchNotAllowed()
+    {
+        try (ConfigurationUpdateBatch batch = ConfigurationUpdateBatch.begin())
+        {
+            try
+            {
+                ConfigurationUpdateBatch.begin();
+                fail("Exception not thrown");
+            }
+            catch (IllegalStateException e)
+            {
+                // pass
+            }
+        }
+    }
+
+    private ConfiguredObjectRecord createRecord()
+    {
+        ConfiguredObjectRecord record = mock(ConfiguredObjectRecord.class);
+        when(record.getId()).thenReturn(UUID.randomUUID());
+        return record;
+    }
+
+    private ConfiguredObject<?> createDurableChild(final ConfiguredObjectRecord record)
+    {
+        Queue<?> child = mock(Queue.class);
+        when(child.getCategoryClass()).thenReturn(Queue.class);
+        Model model = mock(Model.class);
+        when(model.getChildTypes(any(Class.class))).thenReturn(Collections.<Class<? extends ConfiguredObject>>emptyList());
+        when(child.getModel()).thenReturn(model);
+        when(child.isDurable()).thenReturn(true);
+        when(child.asObjectRecord()).thenReturn(record);
+        return child;
+    }
+
     private void notifyBrokerStarted()
     {
         Broker broker = mock(Broker.class);
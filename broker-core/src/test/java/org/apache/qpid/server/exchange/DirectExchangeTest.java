@@ -19,15 +19,30 @@
  */
 package org.apache.qpid.server.exchange;
 
+import static org.mockito.Matchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import org.apache.qpid.common.AMQPFilterTypes;
 import org.apache.qpid.exchange.ExchangeDefaults;
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.InstanceProperties;
+import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Exchange;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.State;
 import org.apache.qpid.server.model.VirtualHost;
 import org.apache.qpid.server.model.BrokerTestHelper;
+import org.apache.qpid.server.queue.BaseQueue;
 import org.apache.qpid.server.virtualhost.ExchangeIsAlternateException;
 import org.apache.qpid.server.virtualhost.ReservedExchangeNameException;
 import org.apache.qpid.test.utils.QpidTestCase;
@@ -145,4 +160,89 @@ public class DirectExchangeTest extends QpidTestCase
         assertEquals("Unexpected desired exchange state", State.ACTIVE, _exchange.getDesiredState());
     }
 
+    public void testRoutingWithSelectors() throws Exception
+    {
+        Queue<?> queue1 = createQueue("queue1");
+        Queue<?> queue2 = createQueue("queue2");
+
+        _exchange.addBinding("key", queue1, null);
+        _exchange.addBinding("key", queue2, Collections.singletonMap(AMQPFilterTypes.JMS_SELECTOR.toString(), (Object) "select = True"));
+
+        List<? extends BaseQueue> result = _exchange.route(mockMessage(true), "key", InstanceProperties.EMPTY);
+        assertEquals("Expected message to be routed to both queues", 2, result.size());
+        assertTrue("Expected queue1 to be routed to", result.contains(queue1));
+        assertTrue("Expected queue2 to be routed to", result.contains(queue2));
+
+        result = _exchange.route(mockMessage(false), "key", InstanceProperties.EMPTY);
+        assertEquals("Expected message to be routed to queue1 only", 1, result.size());
+        assertTrue("Expected queue1 to be routed to", result.contains(queue1));
+
+        _exchange.replaceBinding("key", queue2, Collections.<String, Object>emptyMap());
+
+        result = _exchange.route(mockMessage(false), "key", InstanceProperties.EMPTY);
+        assertEquals("Expected message to be routed to both queues once selector removed", 2, result.size());
+
+        _exchange.deleteBinding("key", queue1);
+
+        result = _exchange.route(mockMessage(false), "key", InstanceProperties.EMPTY);
+        assertEquals("Expected message to be routed to queue2 only", 1, result.size());
+        assertTrue("Expected queue2 to be routed to", result.contains(queue2));
+    }
+
+    public void testRouteIntoBuffer() throws Exception
+    {
+        Queue<?> queue1 = createQueue("queue1");
+        Queue<?> queue2 = createQueue("queue2");
+
+        _exchange.addBinding("key1", queue1, null);
+        _exchange.addBinding("key2", queue1, null);
+        _exchange.addBinding("key2", queue2, null);
+
+        RoutingBuffer destinations = new RoutingBuffer();
+
+        assertEquals("Unexpected number of queues routed to",
+                     2, _exchange.route(mockMessage(true), "key2", InstanceProperties.EMPTY, destinations));
+        assertTrue("Expected queue1 to be routed to", destinations.contains(queue1));
+        assertTrue("Expected queue2 to be routed to", destinations.contains(queue2));
+
+        assertEquals("Unexpected number of queues routed to",
+                     1, _exchange.route(mockMessage(true), "key1", InstanceProperties.EMPTY, destinations));
+        assertEquals("Buffer should hold only the result of the last route", 1, destinations.size());
+        assertSame("Expected queue1 to be routed to", queue1, destinations.get(0));
+
+        assertEquals("Unexpected number of queues routed to",
+                     0, _exchange.route(mockMessage(true), "unknown", InstanceProperties.EMPTY, destinations));
+        assertTrue("Buffer should be empty", destinations.isEmpty());
+    }
+
+    private Queue<?> createQueue(final String name)
+    {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(Queue.NAME, name);
+        attributes.put(Queue.DURABLE, false);
+        Queue<?> queue = (Queue<?>) _vhost.createChild(Queue.class, attributes);
+        queue.open();
+        return queue;
+    }
+
+    private ServerMessage mockMessage(boolean val)
+    {
+        final AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.containsHeader("select")).thenReturn(true);
+        when(header.getHeader("select")).thenReturn(val);
+        when(header.getHeaderNames()).thenReturn(Collections.singleton("select"));
+        when(header.containsHeaders(anySet())).then(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                final Set names = (Set) invocation.getArguments()[0];
+                return names.size() == 1 && names.contains("select");
+
+            }
+        });
+        final ServerMessage serverMessage = mock(ServerMessage.class);
+        when(serverMessage.getMessageHeader()).thenReturn(header);
+        return serverMessage;
+    }
 }
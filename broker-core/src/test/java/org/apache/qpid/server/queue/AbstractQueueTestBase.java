@@ -22,6 +22,7 @@
 package org.apache.qpid.server.queue;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
@@ -63,6 +64,7 @@ import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.QueueNotificationListener;
 import org.apache.qpid.server.queue.AbstractQueue.QueueEntryFilter;
+import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
 import org.apache.qpid.server.util.Action;
 import org.apache.qpid.server.model.BrokerTestHelper;
@@ -235,6 +237,55 @@ abstract class AbstractQueueTestBase extends QpidTestCase
                    _consumer.getQueueContext().getReleasedEntry());
     }
 
+    public void testFlowedToDiskMessagesDelivered() throws Exception
+    {
+        final int messageCount = 3;
+        final List<boolean[]> inMemory = new ArrayList<>();
+        ServerMessage messageA = null;
+        for (int i = 0; i < messageCount; i++)
+        {
+            final boolean[] state = new boolean[]{false};
+            inMemory.add(state);
+            ServerMessage message = createMessage((long) (24 + i));
+            StoredMessage storedMessage = mock(StoredMessage.class);
+            when(storedMessage.isInMemory()).thenAnswer(new Answer<Boolean>()
+            {
+                @Override
+                public Boolean answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    return state[0];
+                }
+            });
+            when(storedMessage.getContent(anyInt(), anyInt())).thenAnswer(new Answer<Object>()
+            {
+                @Override
+                public Object answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    state[0] = true;
+                    return Collections.emptyList();
+                }
+            });
+            when(message.getStoredMessage()).thenReturn(storedMessage);
+            when(message.getSize()).thenReturn(100L);
+            _queue.enqueue(message, null, null);
+            if (messageA == null)
+            {
+                messageA = message;
+            }
+        }
+
+        _consumer = (QueueConsumer<?>) _queue.addConsumer(_consumerTarget, null, messageA.getClass(), "test",
+                                                          EnumSet.of(ConsumerImpl.Option.ACQUIRES,
+                                                                     ConsumerImpl.Option.SEES_REQUEUES), 0);
+        Thread.sleep(QUEUE_RUNNER_WAIT_TIME);
+
+        assertEquals("Flowed to disk messages were not delivered", messageCount, _consumerTarget.getMessages().size());
+        assertFalse("Content of the stalled first message should be left to the protocol layer", inMemory.get(0)[0]);
+        assertEquals("Each delivery should be either a read ahead hit or a stall",
+                     messageCount, _queue.getReadAheadHits() + _queue.getReadAheadStalls());
+        assertTrue("First delivery should have stalled", _queue.getReadAheadStalls() >= 1);
+    }
+
     public void testMessageHeldIfNotYetValidWhenConsumerAdded() throws Exception
     {
         _queue.close();
@@ -317,6 +368,27 @@ abstract class AbstractQueueTestBase extends QpidTestCase
 
     }
 
+    public void testMessageStatusCheckedInSlices() throws Exception
+    {
+        _queue.enqueue(createMessage(24L), null, null);
+        _queue.enqueue(createMessage(25L), null, null);
+        _queue.enqueue(createMessage(26L), null, null);
+
+        long runCount = _queue.getHousekeepingRunCount();
+
+        assertFalse("Pass should not be complete after first slice", _queue.checkMessageStatus(1));
+        assertFalse("Pass should not be complete after second slice", _queue.checkMessageStatus(1));
+        assertFalse("Pass should not be complete after third slice", _queue.checkMessageStatus(1));
+        assertEquals("Housekeeping run counted before pass was complete",
+                     runCount, _queue.getHousekeepingRunCount());
+
+        assertTrue("Pass should be complete once all entries have been visited", _queue.checkMessageStatus(1));
+        assertEquals("Unexpected housekeeping run count", runCount + 1, _queue.getHousekeepingRunCount());
+
+        assertTrue("Pass should complete in a single slice", _queue.checkMessageStatus(10));
+        assertEquals("Unexpected housekeeping run count", runCount + 2, _queue.getHousekeepingRunCount());
+    }
+
     /**
      * Tests that a released queue entry is resent to the subscriber.  Verifies also that the
      * QueueContext._releasedEntry is reset to null after the entry has been reset.
@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.server.configuration.updater.CurrentThreadTaskExecutor;
+import org.apache.qpid.server.configuration.updater.TaskExecutor;
+import org.apache.qpid.server.logging.EventLogger;
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.ConfiguredObjectFactory;
+import org.apache.qpid.server.model.ConfiguredObjectFactoryImpl;
+import org.apache.qpid.server.model.LifetimePolicy;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.store.TransactionLogResource;
+
+public class ConcurrentSortedQueueEntryListTest extends QueueEntryListTestBase
+{
+    private static final int PRODUCERS = 8;
+    private static final int CONSUMERS = 8;
+    private static final int MESSAGES_PER_PRODUCER = 2000;
+
+    private final static String keysSorted[] = SortedQueueEntryListTest.keys.clone();
+
+    private SortedQueueImpl _testQueue;
+    private ConcurrentSortedQueueEntryList _list;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        Map<String,Object> attributes = new HashMap<String,Object>();
+        attributes.put(Queue.ID,UUID.randomUUID());
+        attributes.put(Queue.NAME, getName());
+        attributes.put(Queue.DURABLE, false);
+        attributes.put(Queue.LIFETIME_POLICY, LifetimePolicy.PERMANENT);
+        attributes.put(SortedQueue.SORT_KEY, "KEY");
+
+        final VirtualHost virtualHost = mock(VirtualHost.class);
+        when(virtualHost.getEventLogger()).thenReturn(new EventLogger());
+        ConfiguredObjectFactory factory = new ConfiguredObjectFactoryImpl(BrokerModel.getInstance());
+        when(virtualHost.getObjectFactory()).thenReturn(factory);
+        when(virtualHost.getModel()).thenReturn(factory.getModel());
+        when(virtualHost.getPrincipal()).thenReturn(mock(Principal.class));
+        TaskExecutor taskExecutor = CurrentThreadTaskExecutor.newStartedInstance();
+        when(virtualHost.getTaskExecutor()).thenReturn(taskExecutor);
+        when(virtualHost.getChildExecutor()).thenReturn(taskExecutor);
+        _testQueue = new SortedQueueImpl(attributes, virtualHost);
+        _testQueue.open();
+        _list = (ConcurrentSortedQueueEntryList) _testQueue.getEntries();
+
+        super.setUp();
+
+        Arrays.sort(keysSorted);
+
+        long messageId = 0L;
+        for(final String key : SortedQueueEntryListTest.keys)
+        {
+            _list.add(generateTestMessage(messageId++, key), null);
+        }
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntryList getTestList()
+    {
+        return getTestList(false);
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntryList getTestList(boolean newList)
+    {
+        if(newList)
+        {
+            return new ConcurrentSortedQueueEntryList(_testQueue);
+        }
+        else
+        {
+            return _list;
+        }
+    }
+
+    @Override
+    public int getExpectedListLength()
+    {
+        return SortedQueueEntryListTest.keys.length;
+    }
+
+    @Override
+    public long getExpectedFirstMsgId()
+    {
+        return 67L;
+    }
+
+    @Override
+    public ServerMessage getTestMessageToAdd()
+    {
+        return generateTestMessage(1, "test value");
+    }
+
+    @Override
+    protected SortedQueueImpl getTestQueue()
+    {
+        return _testQueue;
+    }
+
+    @Override
+    public void testIterator()
+    {
+        super.testIterator();
+
+        final QueueEntryIterator iter = getTestList().iterator();
+        int count = 0;
+        while(iter.advance())
+        {
+            assertEquals("Sorted queue entry value does not match sorted key array",
+                         keysSorted[count++], getSortedKeyValue(iter.getNode()));
+        }
+    }
+
+    public void testEqualAndNullSortKeysRetainArrivalOrder()
+    {
+        _list = getTestList(true);
+        for(long messageId = 0; messageId < 100; messageId++)
+        {
+            _list.add(generateTestMessage(messageId, messageId % 2 == 0 ? null : "samekey"), null);
+        }
+
+        final QueueEntryIterator iter = _list.iterator();
+        long expectedId = 0;
+        while(iter.advance())
+        {
+            final QueueEntry node = iter.getNode();
+            if(expectedId == 100)
+            {
+                expectedId = 1;
+            }
+            assertEquals("Sorted queue entry value is not as expected",
+                         expectedId % 2 == 0 ? null : "samekey", getSortedKeyValue(node));
+            assertEquals("Message id not as expected", expectedId, node.getMessage().getMessageNumber());
+            expectedId += 2;
+        }
+        assertEquals("Unexpected number of entries iterated", 101, expectedId);
+    }
+
+    public void testNextOfRemovedEntryFindsSuccessor()
+    {
+        _list = getTestList(true);
+        final QueueEntry a = _list.add(generateTestMessage(1, "A"), null);
+        final QueueEntry c = _list.add(generateTestMessage(2, "C"), null);
+
+        a.acquire();
+        a.delete();
+
+        final QueueEntry b = _list.add(generateTestMessage(3, "B"), null);
+
+        assertSame("Unexpected successor of removed entry", b, _list.next(a));
+        assertSame("Unexpected successor", c, _list.next(b));
+        assertSame("Unexpected tail", c, _list.getTail());
+        assertSame("Unexpected first entry", b, _list.next(_list.getHead()));
+    }
+
+    public void testConcurrentProducersAndConsumers() throws Exception
+    {
+        _list = getTestList(true);
+        final int totalMessages = PRODUCERS * MESSAGES_PER_PRODUCER;
+        final ServerMessage[][] messages = new ServerMessage[PRODUCERS][MESSAGES_PER_PRODUCER];
+        for(int i = 0; i < PRODUCERS; i++)
+        {
+            for(int j = 0; j < MESSAGES_PER_PRODUCER; j++)
+            {
+                messages[i][j] = generateTestMessage(i * MESSAGES_PER_PRODUCER + j,
+                                                     SortedQueueEntryListTest.keys[(i + j) % SortedQueueEntryListTest.keys.length]);
+            }
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger produced = new AtomicInteger();
+        final AtomicInteger consumed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + CONSUMERS);
+        try
+        {
+            Future<?>[] futures = new Future<?>[PRODUCERS + CONSUMERS];
+            for(int i = 0; i < PRODUCERS; i++)
+            {
+                final ServerMessage[] producerMessages = messages[i];
+                futures[i] = executor.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        awaitQuietly(start);
+                        for(ServerMessage message : producerMessages)
+                        {
+                            _list.add(message, null);
+                            produced.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            for(int i = 0; i < CONSUMERS; i++)
+            {
+                futures[PRODUCERS + i] = executor.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        awaitQuietly(start);
+                        while(consumed.get() < totalMessages)
+                        {
+                            QueueEntry entry = _list.next(_list.getHead());
+                            while(entry != null)
+                            {
+                                if(entry.acquire())
+                                {
+                                    entry.delete();
+                                    consumed.incrementAndGet();
+                                }
+                                entry = _list.next(entry);
+                            }
+                        }
+                    }
+                });
+            }
+
+            start.countDown();
+            for(Future<?> future : futures)
+            {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Unexpected number of messages produced", totalMessages, produced.get());
+        assertEquals("Unexpected number of messages consumed", totalMessages, consumed.get());
+        assertNull("List should be empty", _list.next(_list.getHead()));
+        assertSame("Tail of an empty list should be the head", _list.getHead(), _list.getTail());
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Object getSortedKeyValue(QueueEntry entry)
+    {
+        return entry.getMessage().getMessageHeader().getHeader("KEY");
+    }
+
+    private ServerMessage generateTestMessage(final long id, final String keyValue)
+    {
+        final ServerMessage message = mock(ServerMessage.class);
+        AMQMessageHeader hdr = mock(AMQMessageHeader.class);
+        when(message.getMessageHeader()).thenReturn(hdr);
+        when(hdr.getHeader(eq("KEY"))).thenReturn(keyValue);
+        when(hdr.containsHeader(eq("KEY"))).thenReturn(true);
+        when(hdr.getHeaderNames()).thenReturn(Collections.singleton("KEY"));
+        MessageReference ref = mock(MessageReference.class);
+        when(ref.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(ref);
+        when(message.newReference(any(TransactionLogResource.class))).thenReturn(ref);
+        when(message.getMessageNumber()).thenReturn(id);
+
+        return message;
+    }
+}
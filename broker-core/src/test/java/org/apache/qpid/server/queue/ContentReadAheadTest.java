@@ -0,0 +1,187 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class ContentReadAheadTest extends QpidTestCase
+{
+    private static final int MESSAGE_SIZE = 100;
+
+    private final List<QueueEntry> _entries = new ArrayList<>();
+    private final List<boolean[]> _inMemory = new ArrayList<>();
+    private final List<Runnable> _tasks = new ArrayList<>();
+    private QueueEntryList _entryList;
+    private AbstractQueue<?> _queue;
+    private Executor _executor;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _entryList = mock(QueueEntryList.class);
+        when(_entryList.next(any(QueueEntry.class))).thenAnswer(new Answer<QueueEntry>()
+        {
+            @Override
+            public QueueEntry answer(final InvocationOnMock invocation) throws Throwable
+            {
+                int index = _entries.indexOf(invocation.getArguments()[0]) + 1;
+                return index < _entries.size() ? _entries.get(index) : null;
+            }
+        });
+        _queue = mock(AbstractQueue.class);
+        when(_queue.getEntries()).thenReturn(_entryList);
+        _executor = new Executor()
+        {
+            @Override
+            public void execute(final Runnable command)
+            {
+                _tasks.add(command);
+            }
+        };
+    }
+
+    public void testEntriesInMemoryNotReadAhead()
+    {
+        ContentReadAhead readAhead = new ContentReadAhead(_queue, _executor, 4, 1024);
+        createEntries(5, true);
+
+        assertFalse("Entry held in memory should not involve read ahead", readAhead.beforeDelivery(_entries.get(0)));
+        assertTrue("No read ahead expected", _tasks.isEmpty());
+        assertEquals(0, readAhead.getStalls());
+        assertEquals(0, readAhead.getHits());
+    }
+
+    public void testStallTriggersReadAheadOfFollowingEntries()
+    {
+        ContentReadAhead readAhead = new ContentReadAhead(_queue, _executor, 4, 1024);
+        createEntries(10, false);
+
+        assertFalse("Stalled entry should not need flowing to disk", readAhead.beforeDelivery(_entries.get(0)));
+        assertFalse("Content of stalled entry should be left to the protocol layer", _inMemory.get(0)[0]);
+        assertEquals("Unexpected number of stalls", 1, readAhead.getStalls());
+        assertEquals("Unexpected number of entries read ahead", 4, _tasks.size());
+        assertEquals("Unexpected bytes reserved", 4 * MESSAGE_SIZE, readAhead.getPendingBytes());
+
+        runTasks();
+        for (int i = 1; i <= 4; i++)
+        {
+            assertTrue("Entry " + i + " should have been read ahead", _inMemory.get(i)[0]);
+        }
+        assertFalse("Entry beyond read ahead window should not have been read", _inMemory.get(5)[0]);
+
+        assertTrue(readAhead.beforeDelivery(_entries.get(1)));
+        assertEquals("Unexpected number of hits", 1, readAhead.getHits());
+        assertEquals("Unexpected number of stalls", 1, readAhead.getStalls());
+        assertEquals("Read ahead window should have moved on by one entry", 1, _tasks.size());
+    }
+
+    public void testReadAheadBoundedByBytes()
+    {
+        ContentReadAhead readAhead = new ContentReadAhead(_queue, _executor, 8, 2 * MESSAGE_SIZE);
+        createEntries(10, false);
+
+        readAhead.beforeDelivery(_entries.get(0));
+        assertEquals("Unexpected number of entries read ahead", 2, _tasks.size());
+
+        readAhead.entryDequeued(_entries.get(1));
+        assertEquals("Dequeued entry should release its reservation", MESSAGE_SIZE, readAhead.getPendingBytes());
+    }
+
+    public void testMessageLargerThanBudgetNotReadAhead()
+    {
+        ContentReadAhead readAhead = new ContentReadAhead(_queue, _executor, 8, 2 * MESSAGE_SIZE);
+        createEntries(1, false);
+        createEntry(3 * MESSAGE_SIZE, false);
+        createEntries(2, false);
+
+        readAhead.beforeDelivery(_entries.get(0));
+        runTasks();
+        assertFalse("Message larger than the byte budget should not be read ahead", _inMemory.get(1)[0]);
+        assertTrue("Entry after the large message should have been read ahead", _inMemory.get(2)[0]);
+        assertTrue("Entry after the large message should have been read ahead", _inMemory.get(3)[0]);
+    }
+
+    private void createEntries(final int count, final boolean inMemory)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            createEntry(MESSAGE_SIZE, inMemory);
+        }
+    }
+
+    private void createEntry(final long size, final boolean inMemory)
+    {
+        final boolean[] state = new boolean[]{inMemory};
+        StoredMessage storedMessage = mock(StoredMessage.class);
+        when(storedMessage.isInMemory()).thenAnswer(new Answer<Boolean>()
+        {
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) throws Throwable
+            {
+                return state[0];
+            }
+        });
+        when(storedMessage.getContent(anyInt(), anyInt())).thenAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable
+            {
+                state[0] = true;
+                return Collections.<QpidByteBuffer>emptyList();
+            }
+        });
+        ServerMessage message = mock(ServerMessage.class);
+        when(message.getStoredMessage()).thenReturn(storedMessage);
+        when(message.getSize()).thenReturn(size);
+        QueueEntry entry = mock(QueueEntry.class);
+        when(entry.getMessage()).thenReturn(message);
+        when(entry.isAvailable()).thenReturn(true);
+        _entries.add(entry);
+        _inMemory.add(state);
+    }
+
+    private void runTasks()
+    {
+        List<Runnable> tasks = new ArrayList<>(_tasks);
+        _tasks.clear();
+        for (Runnable task : tasks)
+        {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageInstance;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.util.StateChangeListener;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class DefinedGroupMessageGroupManagerTest extends QpidTestCase
+{
+    private static final String GROUP_HEADER = "group";
+
+    private MessageGroupManager.ConsumerResetHelper _resetHelper;
+    private DefinedGroupMessageGroupManager _manager;
+    private final AtomicInteger _entryId = new AtomicInteger();
+    private final Map<QueueEntry, Integer> _ids = new ConcurrentHashMap<>();
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _resetHelper = mock(MessageGroupManager.ConsumerResetHelper.class);
+        _manager = new DefinedGroupMessageGroupManager(GROUP_HEADER, "default", _resetHelper);
+    }
+
+    public void testGroupAssignedToFirstAcceptingConsumer()
+    {
+        QueueConsumer<?> consumer1 = createConsumer();
+        QueueConsumer<?> consumer2 = createConsumer();
+        TestEntry entryA = new TestEntry("g1");
+        TestEntry entryB = new TestEntry("g1");
+
+        assertTrue("Group should be assignable to any consumer", _manager.mightAssign(entryA.getEntry(), consumer2));
+        assertTrue("First consumer should take the group", _manager.acceptMessage(consumer1, entryA.getEntry()));
+        assertFalse("Group should not be assignable to another consumer",
+                    _manager.mightAssign(entryB.getEntry(), consumer2));
+        assertFalse("Another consumer should not accept a message of the group",
+                    _manager.acceptMessage(consumer2, entryB.getEntry()));
+        assertTrue("Group should remain assignable to its consumer", _manager.mightAssign(entryB.getEntry(), consumer1));
+        assertTrue("Group consumer should accept a further message of the group",
+                   _manager.acceptMessage(consumer1, entryB.getEntry()));
+    }
+
+    public void testGroupReleasedWhenLastMessageConsumed()
+    {
+        QueueConsumer<?> consumer1 = createConsumer();
+        QueueConsumer<?> consumer2 = createConsumer();
+        TestEntry entryA = new TestEntry("g1");
+        TestEntry entryB = new TestEntry("g1");
+
+        assertTrue(_manager.acceptMessage(consumer1, entryA.getEntry()));
+        assertFalse(_manager.mightAssign(entryB.getEntry(), consumer2));
+        verify(_resetHelper, never()).resetSubPointersForGroups(any(QueueEntry.class));
+
+        entryA.delete();
+
+        verify(_resetHelper).resetSubPointersForGroups(entryB.getEntry());
+        assertTrue("Released group should be assignable to another consumer",
+                   _manager.acceptMessage(consumer2, entryB.getEntry()));
+    }
+
+    public void testGroupHeldWhileAnyMessageAcquired()
+    {
+        QueueConsumer<?> consumer1 = createConsumer();
+        QueueConsumer<?> consumer2 = createConsumer();
+        TestEntry entryA = new TestEntry("g1");
+        TestEntry entryB = new TestEntry("g1");
+        TestEntry entryC = new TestEntry("g1");
+
+        assertTrue(_manager.acceptMessage(consumer1, entryA.getEntry()));
+        assertTrue(_manager.acceptMessage(consumer1, entryB.getEntry()));
+
+        entryA.delete();
+        assertFalse("Group should still be held by its consumer", _manager.acceptMessage(consumer2, entryC.getEntry()));
+
+        entryB.delete();
+        assertTrue("Group should be released once no messages are held",
+                   _manager.acceptMessage(consumer2, entryC.getEntry()));
+    }
+
+    public void testGroupOfClosedConsumerReassigned()
+    {
+        QueueConsumer<?> consumer1 = createConsumer();
+        QueueConsumer<?> consumer2 = createConsumer();
+        TestEntry entryA = new TestEntry("g1");
+        TestEntry entryB = new TestEntry("g1");
+
+        assertTrue(_manager.acceptMessage(consumer1, entryA.getEntry()));
+        entryA.release();
+        when(consumer1.isClosed()).thenReturn(true);
+
+        assertTrue("Group of closed consumer should be reassigned", _manager.acceptMessage(consumer2, entryB.getEntry()));
+    }
+
+    /**
+     * The last message held by the group's consumer is consumed after the group has been assigned to the consumer
+     * for a further message, but before that message is acquired. The group must not be released to another
+     * consumer in between.
+     */
+    public void testGroupNotReleasedBetweenAssignmentAndAcquisition()
+    {
+        final QueueConsumer<?> consumer1 = createConsumer();
+        final QueueConsumer<?> consumer2 = createConsumer();
+        final TestEntry entryA = new TestEntry("g1");
+        final TestEntry entryB = new TestEntry("g1");
+        final TestEntry entryC = new TestEntry("g1");
+        final AtomicReference<Boolean> acceptedByOtherConsumer = new AtomicReference<>();
+
+        assertTrue(_manager.acceptMessage(consumer1, entryA.getEntry()));
+        entryB.setBeforeAcquire(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                entryA.delete();
+                acceptedByOtherConsumer.set(_manager.acceptMessage(consumer2, entryC.getEntry()));
+            }
+        });
+
+        assertTrue("Group consumer should accept a further message of the group",
+                   _manager.acceptMessage(consumer1, entryB.getEntry()));
+        assertEquals("Group was taken by another consumer while a message was being acquired",
+                     Boolean.FALSE, acceptedByOtherConsumer.get());
+
+        entryB.delete();
+        assertTrue("Group should be released once no messages are held",
+                   _manager.acceptMessage(consumer2, entryC.getEntry()));
+    }
+
+    public void testGroupReleasedWhenAcquisitionFails()
+    {
+        QueueConsumer<?> consumer1 = createConsumer();
+        QueueConsumer<?> consumer2 = createConsumer();
+        TestEntry entryA = new TestEntry("g1");
+        TestEntry entryB = new TestEntry("g1");
+
+        entryA.getEntry().acquire(consumer2);
+        assertFalse("Message acquired elsewhere should not be accepted",
+                    _manager.acceptMessage(consumer1, entryA.getEntry()));
+        assertTrue("Group should be released when its only message could not be acquired",
+                   _manager.acceptMessage(consumer2, entryB.getEntry()));
+    }
+
+    public void testFindEarliestAssignedAvailableEntry()
+    {
+        QueueConsumer<?> consumer = createConsumer();
+        TestEntry entryA = new TestEntry("g1");
+        final TestEntry entryB = new TestEntry("g1");
+        final TestEntry entryC = new TestEntry("g2");
+        assertTrue(_manager.acceptMessage(consumer, entryA.getEntry()));
+
+        final Queue<?> queue = mock(Queue.class);
+        when(consumer.getQueue()).thenReturn((Queue) queue);
+        when(queue.visit(any(QueueEntryVisitor.class))).thenAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable
+            {
+                QueueEntryVisitor visitor = (QueueEntryVisitor) invocation.getArguments()[0];
+                if(!visitor.visit(entryC.getEntry()))
+                {
+                    visitor.visit(entryB.getEntry());
+                }
+                return null;
+            }
+        });
+
+        assertSame(entryB.getEntry(), _manager.findEarliestAssignedAvailableEntry(consumer));
+    }
+
+    /**
+     * Many consumers competing for messages of many groups. Each consumer holds one message at a time, and no group
+     * may ever be held by more than one consumer at once.
+     */
+    public void testConcurrentConsumersNeverShareGroup() throws Exception
+    {
+        final int numberOfGroups = 64;
+        final int numberOfConsumers = 8;
+        final int messagesPerConsumer = 20000;
+
+        final AtomicReferenceArray<QueueConsumer<?>> holders = new AtomicReferenceArray<>(numberOfGroups);
+        final AtomicInteger violations = new AtomicInteger();
+        final AtomicInteger delivered = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfConsumers);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < numberOfConsumers; i++)
+            {
+                final QueueConsumer<?> consumer = createConsumer();
+                final int seed = i;
+                futures.add(executor.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            start.await();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        for (int j = 0; j < messagesPerConsumer; j++)
+                        {
+                            int group = (seed * 31 + j) % numberOfGroups;
+                            TestEntry entry = new TestEntry("g" + group);
+                            if (_manager.mightAssign(entry.getEntry(), consumer)
+                                && _manager.acceptMessage(consumer, entry.getEntry()))
+                            {
+                                if (!holders.compareAndSet(group, null, consumer))
+                                {
+                                    violations.incrementAndGet();
+                                }
+                                delivered.incrementAndGet();
+                                holders.compareAndSet(group, consumer, null);
+                                entry.delete();
+                            }
+                        }
+                    }
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures)
+            {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Group held by more than one consumer at a time", 0, violations.get());
+        assertTrue("No messages were delivered", delivered.get() > 0);
+    }
+
+    private QueueConsumer<?> createConsumer()
+    {
+        return mock(QueueConsumer.class);
+    }
+
+    /**
+     * A mocked queue entry whose acquisition, release and deletion notify the registered listeners as a real entry
+     * does.
+     */
+    private class TestEntry
+    {
+        private final QueueEntry _entry = mock(QueueEntry.class);
+        private final int _id = _entryId.incrementAndGet();
+        private final List<StateChangeListener<MessageInstance, MessageInstance.EntryState>> _listeners =
+                new ArrayList<>();
+        private final AtomicReference<MessageInstance.EntryState> _state =
+                new AtomicReference<>(MessageInstance.AVAILABLE_STATE);
+        private volatile Runnable _beforeAcquire;
+
+        @SuppressWarnings("unchecked")
+        private TestEntry(final String group)
+        {
+            ServerMessage message = mock(ServerMessage.class);
+            AMQMessageHeader header = mock(AMQMessageHeader.class);
+            when(header.getHeader(GROUP_HEADER)).thenReturn(group);
+            when(message.getMessageHeader()).thenReturn(header);
+            when(_entry.getMessage()).thenReturn(message);
+            when(_entry.isAvailable()).thenAnswer(new Answer<Boolean>()
+            {
+                @Override
+                public Boolean answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    return _state.get() == MessageInstance.AVAILABLE_STATE;
+                }
+            });
+            when(_entry.compareTo(any(QueueEntry.class))).thenAnswer(new Answer<Integer>()
+            {
+                @Override
+                public Integer answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    QueueEntry other = (QueueEntry) invocation.getArguments()[0];
+                    return Integer.compare(_id, _ids.get(other));
+                }
+            });
+            when(_entry.addStateChangeListener(any(StateChangeListener.class))).thenAnswer(new Answer<Object>()
+            {
+                @Override
+                public Object answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    synchronized (_listeners)
+                    {
+                        _listeners.add((StateChangeListener<MessageInstance, MessageInstance.EntryState>) invocation.getArguments()[0]);
+                    }
+                    return null;
+                }
+            });
+            when(_entry.removeStateChangeListener(any(StateChangeListener.class))).thenAnswer(new Answer<Boolean>()
+            {
+                @Override
+                public Boolean answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    synchronized (_listeners)
+                    {
+                        return _listeners.remove(invocation.getArguments()[0]);
+                    }
+                }
+            });
+            when(_entry.acquire(any(QueueConsumer.class))).thenAnswer(new Answer<Boolean>()
+            {
+                @Override
+                public Boolean answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    QueueConsumer<?> consumer = (QueueConsumer<?>) invocation.getArguments()[0];
+                    final Runnable beforeAcquire = _beforeAcquire;
+                    if(beforeAcquire != null)
+                    {
+                        _beforeAcquire = null;
+                        beforeAcquire.run();
+                    }
+                    return changeState(MessageInstance.AVAILABLE_STATE,
+                                       new MessageInstance.StealableConsumerAcquiredState<>(consumer));
+                }
+            });
+            _ids.put(_entry, _id);
+        }
+
+        QueueEntry getEntry()
+        {
+            return _entry;
+        }
+
+        /**
+         * Sets an action to be run on the next acquisition attempt, before the entry changes state.
+         */
+        void setBeforeAcquire(final Runnable beforeAcquire)
+        {
+            _beforeAcquire = beforeAcquire;
+        }
+
+        void release()
+        {
+            changeState(_state.get(), MessageInstance.AVAILABLE_STATE);
+        }
+
+        void delete()
+        {
+            changeState(_state.get(), MessageInstance.DELETED_STATE);
+        }
+
+        private boolean changeState(final MessageInstance.EntryState expected, final MessageInstance.EntryState newState)
+        {
+            if(!_state.compareAndSet(expected, newState))
+            {
+                return false;
+            }
+            List<StateChangeListener<MessageInstance, MessageInstance.EntryState>> listeners;
+            synchronized (_listeners)
+            {
+                listeners = new ArrayList<>(_listeners);
+            }
+            for(StateChangeListener<MessageInstance, MessageInstance.EntryState> listener : listeners)
+            {
+                listener.stateChanged(_entry, expected, newState);
+            }
+            return true;
+        }
+    }
+}
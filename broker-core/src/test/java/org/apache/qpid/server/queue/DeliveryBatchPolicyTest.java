@@ -0,0 +1,78 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class DeliveryBatchPolicyTest extends QpidTestCase
+{
+    private final QueueContext _fast = new QueueContext(null);
+    private final QueueContext _slow = new QueueContext(null);
+
+    public void testIterationsSharedEquallyInFirstRound()
+    {
+        DeliveryBatchPolicy policy = new DeliveryBatchPolicy(4);
+        policy.startRound(80);
+        assertEquals("Unexpected batch size", 20, policy.getBatchSize(_fast));
+    }
+
+    public void testBatchSizeIsAtLeastOne()
+    {
+        DeliveryBatchPolicy policy = new DeliveryBatchPolicy(10);
+        policy.startRound(3);
+        assertEquals("Unexpected batch size", 1, policy.getBatchSize(_fast));
+    }
+
+    public void testStalledConsumerGivenSingleDeliveryAndItsShareGivenToOthers()
+    {
+        DeliveryBatchPolicy policy = new DeliveryBatchPolicy(2);
+        policy.startRound(100);
+        assertEquals("Unexpected batch size", 50, policy.getBatchSize(_fast));
+        assertEquals("Unexpected batch size", 50, policy.getBatchSize(_slow));
+
+        policy.consumerServed(_fast, true, false);
+        policy.consumerServed(_slow, false, true);
+
+        policy.startRound(50);
+        assertEquals("Fast consumer should be given the remaining iterations", 50, policy.getBatchSize(_fast));
+        assertEquals("Stalled consumer should be offered a single delivery", 1, policy.getBatchSize(_slow));
+
+        policy.consumerServed(_fast, true, false);
+        policy.consumerServed(_slow, true, false);
+
+        policy.startRound(40);
+        assertEquals("Unexpected batch size", 20, policy.getBatchSize(_fast));
+        assertEquals("Consumer accepting deliveries again should be given its share", 20, policy.getBatchSize(_slow));
+    }
+
+    public void testConsumerAtEndOfQueueIsNotStalled()
+    {
+        DeliveryBatchPolicy policy = new DeliveryBatchPolicy(2);
+        policy.startRound(100);
+
+        policy.consumerServed(_fast, true, false);
+        policy.consumerServed(_slow, false, false);
+
+        policy.startRound(50);
+        assertEquals("Unexpected batch size", 50, policy.getBatchSize(_slow));
+        assertFalse("Consumer should not be stalled", _slow.isDeliveryStalled());
+    }
+}
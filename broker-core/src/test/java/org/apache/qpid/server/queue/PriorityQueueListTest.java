@@ -161,4 +161,30 @@ public class PriorityQueueListTest extends QpidTestCase
         assertEquals("second message with priority 4 should be 'later' than second message of priority 5",
                 1, _priority4message2.compareTo(_priority5message2));
     }
+
+    public void testNextPassesOverAcquiredEntriesOfLowerPriority()
+    {
+        assertSame("Unexpected first entry of lower priority", _priority4message1, _list.next(_priority5message2));
+
+        _priority4message1.acquire();
+
+        assertSame("Acquired entry of lower priority should be passed over",
+                   _priority4message2, _list.next(_priority5message2));
+        assertSame("Entry behind first candidate should lead to the first candidate",
+                   _priority4message2, _list.next(_priority4message1));
+
+        _priority4message2.acquire();
+
+        assertNull("All entries of lower priority are acquired", _list.next(_priority5message2));
+    }
+
+    public void testNextFindsReleasedEntryOfLowerPriority()
+    {
+        _priority4message1.acquire();
+        assertSame(_priority4message2, _list.next(_priority5message2));
+
+        _priority4message1.release();
+
+        assertSame("Released entry should be found again", _priority4message1, _list.next(_priority5message2));
+    }
 }
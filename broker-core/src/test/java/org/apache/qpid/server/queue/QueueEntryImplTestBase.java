@@ -298,7 +298,7 @@ public abstract class QueueEntryImplTestBase extends QpidTestCase
 
         StandardQueueImpl queue = new StandardQueueImpl(queueAttributes, virtualHost);
         queue.open();
-        OrderedQueueEntryList queueEntryList = queue.getEntries();
+        OrderedQueueEntryList queueEntryList = (OrderedQueueEntryList) queue.getEntries();
 
         // create test entries
         for(int i = 0; i < numberOfEntries ; i++)
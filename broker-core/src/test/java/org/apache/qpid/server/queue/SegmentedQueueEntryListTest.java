@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.qpid.server.configuration.updater.CurrentThreadTaskExecutor;
+import org.apache.qpid.server.configuration.updater.TaskExecutor;
+import org.apache.qpid.server.logging.EventLogger;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.ConfiguredObjectFactoryImpl;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.store.TransactionLogResource;
+
+public class SegmentedQueueEntryListTest extends QueueEntryListTestBase
+{
+    private StandardQueueImpl _testQueue;
+    private SegmentedQueueEntryList _list;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        Map<String,Object> queueAttributes = new HashMap<String, Object>();
+        queueAttributes.put(Queue.ID, UUID.randomUUID());
+        queueAttributes.put(Queue.NAME, getName());
+        queueAttributes.put(Queue.CONTEXT,
+                            Collections.singletonMap(StandardQueue.USE_SEGMENTED_ENTRY_LIST, "true"));
+        final VirtualHost virtualHost = mock(VirtualHost.class);
+        when(virtualHost.getEventLogger()).thenReturn(new EventLogger());
+        ConfiguredObjectFactoryImpl factory = new ConfiguredObjectFactoryImpl(BrokerModel.getInstance());
+        when(virtualHost.getObjectFactory()).thenReturn(factory);
+        when(virtualHost.getModel()).thenReturn(factory.getModel());
+        TaskExecutor taskExecutor = CurrentThreadTaskExecutor.newStartedInstance();
+        when(virtualHost.getTaskExecutor()).thenReturn(taskExecutor);
+        when(virtualHost.getChildExecutor()).thenReturn(taskExecutor);
+        when(virtualHost.getPrincipal()).thenReturn(mock(Principal.class));
+        _testQueue = new StandardQueueImpl(queueAttributes, virtualHost);
+        _testQueue.open();
+
+        QueueEntryList entries = _testQueue.getEntries();
+        assertTrue("Segmented entry list not selected by context variable, got " + entries,
+                   entries instanceof SegmentedQueueEntryList);
+        _list = (SegmentedQueueEntryList) entries;
+        for(int i = 1; i <= 100; i++)
+        {
+            assertNotNull("QE should not have been null", _list.add(createMessage(i), null));
+        }
+
+        super.setUp();
+    }
+
+    @Override
+    public SegmentedQueueEntryList getTestList()
+    {
+        return getTestList(false);
+    }
+
+    @Override
+    public SegmentedQueueEntryList getTestList(boolean newList)
+    {
+        return newList ? new SegmentedQueueEntryList(_testQueue) : _list;
+    }
+
+    @Override
+    public long getExpectedFirstMsgId()
+    {
+        return 1;
+    }
+
+    @Override
+    public int getExpectedListLength()
+    {
+        return 100;
+    }
+
+    @Override
+    public ServerMessage getTestMessageToAdd()
+    {
+        ServerMessage msg = mock(ServerMessage.class);
+        when(msg.getMessageNumber()).thenReturn(1l);
+        return msg;
+    }
+
+    @Override
+    protected StandardQueueImpl getTestQueue()
+    {
+        return _testQueue;
+    }
+
+    public void testNextSpansSegments()
+    {
+        final SegmentedQueueEntryList list = getTestList(true);
+        final int numberOfEntries = SegmentedQueueEntryList.SEGMENT_SIZE * 2 + 1;
+        final List<QueueEntry> entries = addEntries(list, numberOfEntries);
+
+        QueueEntry entry = list.getHead();
+        for(int i = 0; i < numberOfEntries; i++)
+        {
+            entry = list.next(entry);
+            assertSame("Unexpected entry at position " + i, entries.get(i), entry);
+        }
+        assertNull("The next entry after the last should be null", list.next(entry));
+        assertSame("Unexpected tail", entries.get(numberOfEntries - 1), list.getTail());
+        assertEquals("Unexpected number of segments", 3, list.getSegmentCount());
+    }
+
+    public void testDeletedEntriesAreSkippedAndDrainedSegmentsReleased()
+    {
+        final SegmentedQueueEntryList list = getTestList(true);
+        final int numberOfEntries = SegmentedQueueEntryList.SEGMENT_SIZE * 2 + 1;
+        final List<QueueEntry> entries = addEntries(list, numberOfEntries);
+
+        // delete every entry of the first segment, and every other entry of the second
+        for(int i = 0; i < SegmentedQueueEntryList.SEGMENT_SIZE * 2; i++)
+        {
+            if(i < SegmentedQueueEntryList.SEGMENT_SIZE || i % 2 == 0)
+            {
+                entries.get(i).acquire();
+                entries.get(i).delete();
+            }
+        }
+
+        assertEquals("Drained segment should have been released", 2, list.getSegmentCount());
+        assertSame("Unexpected first entry",
+                   entries.get(SegmentedQueueEntryList.SEGMENT_SIZE + 1), list.next(list.getHead()));
+        assertSame("Unexpected successor of an entry in a released segment",
+                   entries.get(SegmentedQueueEntryList.SEGMENT_SIZE + 1), list.next(entries.get(3)));
+        assertSame("Unexpected successor of a deleted entry",
+                   entries.get(SegmentedQueueEntryList.SEGMENT_SIZE + 3),
+                   list.next(entries.get(SegmentedQueueEntryList.SEGMENT_SIZE + 2)));
+
+        int count = 0;
+        final QueueEntryIterator iterator = list.iterator();
+        while(iterator.advance())
+        {
+            assertFalse("Iterator returned a deleted entry", iterator.getNode().isDeleted());
+            count++;
+        }
+        assertEquals("Unexpected number of entries", SegmentedQueueEntryList.SEGMENT_SIZE / 2 + 1, count);
+    }
+
+    private List<QueueEntry> addEntries(final SegmentedQueueEntryList list, final int numberOfEntries)
+    {
+        final List<QueueEntry> entries = new ArrayList<>(numberOfEntries);
+        for(int i = 0; i < numberOfEntries; i++)
+        {
+            entries.add(list.add(createMessage(i), null));
+        }
+        return entries;
+    }
+
+    private ServerMessage createMessage(final long messageNumber)
+    {
+        ServerMessage message = mock(ServerMessage.class);
+        when(message.getMessageNumber()).thenReturn(messageNumber);
+        MessageReference ref = mock(MessageReference.class);
+        when(ref.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(ref);
+        when(message.newReference(any(TransactionLogResource.class))).thenReturn(ref);
+        return message;
+    }
+}
@@ -63,7 +63,7 @@ public class SimpleQueueEntryImplTest extends QueueEntryImplTestBase
         when(virtualHost.getChildExecutor()).thenReturn(taskExecutor);
         StandardQueueImpl queue = new StandardQueueImpl(queueAttributes, virtualHost);
         queue.open();
-        queueEntryList = queue.getEntries();
+        queueEntryList = (OrderedQueueEntryList) queue.getEntries();
 
         super.setUp();
     }
@@ -71,7 +71,7 @@ public class StandardQueueEntryListTest extends QueueEntryListTestBase
         when(virtualHost.getPrincipal()).thenReturn(mock(Principal.class));
         _testQueue = new StandardQueueImpl(queueAttributes, virtualHost);
         _testQueue.open();
-        _sqel = _testQueue.getEntries();
+        _sqel = (StandardQueueEntryList) _testQueue.getEntries();
         for(int i = 1; i <= 100; i++)
         {
             final ServerMessage message = mock(ServerMessage.class);
@@ -124,7 +124,7 @@ public class StandardQueueEntryListTest extends QueueEntryListTestBase
 
             StandardQueueImpl queue = new StandardQueueImpl(queueAttributes, virtualHost);
             queue.open();
-            return queue.getEntries();
+            return (StandardQueueEntryList) queue.getEntries();
         }
         else
         {
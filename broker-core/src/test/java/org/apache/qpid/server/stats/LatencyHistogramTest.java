@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.stats;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class LatencyHistogramTest extends QpidTestCase
+{
+    private LatencyHistogram _histogram;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _histogram = new LatencyHistogram();
+    }
+
+    public void testEmptyHistogram()
+    {
+        assertEquals(0L, _histogram.getTotalCount());
+        assertEquals(0L, _histogram.getMaxValue());
+        assertEquals(0L, _histogram.getMean());
+        assertEquals(0L, _histogram.getValueAtPercentile(99d));
+    }
+
+    public void testSmallValuesAreExact()
+    {
+        for (int i = 1; i <= 10; i++)
+        {
+            _histogram.recordValue(i);
+        }
+        assertEquals(10L, _histogram.getTotalCount());
+        assertEquals(5L, _histogram.getValueAtPercentile(50d));
+        assertEquals(10L, _histogram.getValueAtPercentile(100d));
+        assertEquals(10L, _histogram.getMaxValue());
+        assertEquals(5L, _histogram.getMean());
+    }
+
+    public void testPercentileRelativeError()
+    {
+        for (long i = 1; i <= 100000; i++)
+        {
+            _histogram.recordValue(i);
+        }
+        assertWithinRelativeError(50000L, _histogram.getValueAtPercentile(50d));
+        assertWithinRelativeError(99000L, _histogram.getValueAtPercentile(99d));
+        assertEquals(100000L, _histogram.getMaxValue());
+    }
+
+    public void testBucketBoundaries()
+    {
+        long[] values = {0L, 15L, 16L, 31L, 32L, 1000L, 1L << 30, LatencyHistogram.getHighestTrackableValue()};
+        for (long value : values)
+        {
+            int index = LatencyHistogram.getBucketIndex(value);
+            assertTrue("Value " + value + " above highest equivalent value of its bucket",
+                       value <= LatencyHistogram.getHighestEquivalentValue(index));
+            if (index > 0)
+            {
+                assertTrue("Value " + value + " not above highest equivalent value of previous bucket",
+                           value > LatencyHistogram.getHighestEquivalentValue(index - 1));
+            }
+        }
+    }
+
+    public void testValuesOutsideRangeAreClamped()
+    {
+        _histogram.recordValue(-5L);
+        _histogram.recordValue(Long.MAX_VALUE);
+        assertEquals(2L, _histogram.getTotalCount());
+        assertEquals(LatencyHistogram.getHighestTrackableValue(), _histogram.getMaxValue());
+        assertEquals(0L, _histogram.getValueAtPercentile(50d));
+    }
+
+    public void testReset()
+    {
+        _histogram.recordValue(100L);
+        _histogram.reset();
+        assertEquals(0L, _histogram.getTotalCount());
+        assertEquals(0L, _histogram.getMaxValue());
+        assertEquals(0L, _histogram.getValueAtPercentile(50d));
+    }
+
+    private void assertWithinRelativeError(final long expected, final long actual)
+    {
+        assertTrue("Value " + actual + " not within 1/16 of " + expected,
+                   Math.abs(actual - expected) <= expected / 16);
+    }
+}
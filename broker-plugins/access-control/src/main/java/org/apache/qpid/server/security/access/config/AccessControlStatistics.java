@@ -0,0 +1,85 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.qpid.server.security.access.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the cost of evaluating access control rules, and the use made of cached publish decisions.
+ * <p>
+ * A single instance is shared by the successive {@link RuleBasedAccessControl} instances created by a provider
+ * as its rules change, so that the figures are not lost when the rule set is replaced.
+ */
+public final class AccessControlStatistics
+{
+    private final AtomicLong _evaluationCount = new AtomicLong();
+    private final AtomicLong _evaluationTimeTotal = new AtomicLong();
+    private final AtomicLong _evaluationTimeMax = new AtomicLong();
+    private final AtomicLong _publishCacheHits = new AtomicLong();
+    private final AtomicLong _publishCacheMisses = new AtomicLong();
+
+    void registerEvaluation(final long durationNanos)
+    {
+        _evaluationCount.incrementAndGet();
+        _evaluationTimeTotal.addAndGet(durationNanos);
+        long max;
+        while ((max = _evaluationTimeMax.get()) < durationNanos
+               && !_evaluationTimeMax.compareAndSet(max, durationNanos))
+        {
+        }
+    }
+
+    void registerPublishCacheHit()
+    {
+        _publishCacheHits.incrementAndGet();
+    }
+
+    void registerPublishCacheMiss()
+    {
+        _publishCacheMisses.incrementAndGet();
+    }
+
+    public long getEvaluationCount()
+    {
+        return _evaluationCount.get();
+    }
+
+    /** @return the total time spent evaluating rules, in microseconds */
+    public long getEvaluationTimeTotal()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_evaluationTimeTotal.get());
+    }
+
+    /** @return the longest time spent on a single evaluation, in microseconds */
+    public long getEvaluationTimeMax()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_evaluationTimeMax.get());
+    }
+
+    public long getPublishCacheHits()
+    {
+        return _publishCacheHits.get();
+    }
+
+    public long getPublishCacheMisses()
+    {
+        return _publishCacheMisses.get();
+    }
+}
@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import javax.security.auth.Subject;
@@ -32,9 +33,15 @@ import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.security.Result;
 import org.apache.qpid.server.security.SecurityToken;
 import org.apache.qpid.server.security.access.Operation;
+import org.apache.qpid.server.security.access.OperationType;
 
 class CachingSecurityToken implements SecurityToken
 {
+    static final String PUBLISH_ACTION = "publish";
+    static final String ROUTING_KEY_ARGUMENT = "routingKey";
+    static final String IMMEDIATE_ARGUMENT = "immediate";
+    static final int MAX_CACHED_ROUTING_KEYS_PER_DESTINATION = 1024;
+
     private final Subject _subject;
     private volatile AccessControlCache _cache;
 
@@ -61,6 +68,10 @@ class CachingSecurityToken implements SecurityToken
         {
             CACHE_UPDATE.compareAndSet(this, cache, new AccessControlCache(ruleBasedAccessControl));
         }
+        if(isCacheablePublish(operation, configuredObject, arguments))
+        {
+            return authorisePublish(cache, operation, configuredObject, arguments);
+        }
         final CachedMethodAuthKey key = new CachedMethodAuthKey(configuredObject, operation, arguments);
         Result result = cache.getCache().get(key);
         if(result == null)
@@ -71,6 +82,77 @@ class CachingSecurityToken implements SecurityToken
         return result;
     }
 
+    private boolean isCacheablePublish(final Operation operation,
+                                       final ConfiguredObject<?> configuredObject,
+                                       final Map<String, Object> arguments)
+    {
+        return operation.getType() == OperationType.ACTION
+               && PUBLISH_ACTION.equals(operation.getName())
+               && configuredObject != null
+               && arguments != null
+               && arguments.size() == 2
+               && arguments.get(ROUTING_KEY_ARGUMENT) instanceof String
+               && arguments.get(IMMEDIATE_ARGUMENT) instanceof Boolean;
+    }
+
+    private Result authorisePublish(final AccessControlCache cache,
+                                    final Operation operation,
+                                    final ConfiguredObject<?> configuredObject,
+                                    final Map<String, Object> arguments)
+    {
+        final RuleBasedAccessControl ruleBasedAccessControl = cache.getAccessControl();
+        final AccessControlStatistics statistics = ruleBasedAccessControl.getStatistics();
+        final PublishDecisions decisions = cache.getPublishDecisions(configuredObject);
+        final ConcurrentMap<String, Result> decisionsByRoutingKey =
+                decisions.getDecisions((Boolean) arguments.get(IMMEDIATE_ARGUMENT));
+        final String routingKey = (String) arguments.get(ROUTING_KEY_ARGUMENT);
+
+        Result result = decisionsByRoutingKey.get(routingKey);
+        if(result == null)
+        {
+            statistics.registerPublishCacheMiss();
+            result = ruleBasedAccessControl.authorise(operation, configuredObject, arguments);
+            if(decisions.reserveEntry())
+            {
+                decisionsByRoutingKey.putIfAbsent(routingKey, result);
+            }
+        }
+        else
+        {
+            statistics.registerPublishCacheHit();
+        }
+        return result;
+    }
+
+    /**
+     * Publish decisions for a single destination, keyed by routing key.  The number of routing keys remembered
+     * is bounded as, unlike most authorisation arguments, routing keys are chosen freely by the publisher.
+     */
+    private static final class PublishDecisions
+    {
+        private final ConcurrentMap<String, Result> _decisions = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Result> _immediateDecisions = new ConcurrentHashMap<>();
+        private final AtomicInteger _entries = new AtomicInteger();
+
+        ConcurrentMap<String, Result> getDecisions(final boolean immediate)
+        {
+            return immediate ? _immediateDecisions : _decisions;
+        }
+
+        boolean reserveEntry()
+        {
+            int entries;
+            while((entries = _entries.get()) < MAX_CACHED_ROUTING_KEYS_PER_DESTINATION)
+            {
+                if(_entries.compareAndSet(entries, entries + 1))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     private static final class CachedMethodAuthKey
     {
         private final ConfiguredObject<?> _configuredObject;
@@ -122,6 +204,8 @@ class CachingSecurityToken implements SecurityToken
     {
         private final RuleBasedAccessControl _accessControl;
         private final ConcurrentMap<CachedMethodAuthKey, Result>  _cache = new ConcurrentHashMap<>();
+        private final ConcurrentMap<ConfiguredObject<?>, PublishDecisions> _publishDecisions =
+                new ConcurrentHashMap<>();
 
         private AccessControlCache(final RuleBasedAccessControl accessControl)
         {
@@ -137,5 +221,20 @@ class CachingSecurityToken implements SecurityToken
         {
             return _cache;
         }
+
+        public PublishDecisions getPublishDecisions(final ConfiguredObject<?> destination)
+        {
+            PublishDecisions decisions = _publishDecisions.get(destination);
+            if(decisions == null)
+            {
+                decisions = new PublishDecisions();
+                PublishDecisions existing = _publishDecisions.putIfAbsent(destination, decisions);
+                if(existing != null)
+                {
+                    decisions = existing;
+                }
+            }
+            return decisions;
+        }
     }
 }
@@ -44,12 +44,25 @@ public class RuleBasedAccessControl implements AccessControl<CachingSecurityToke
     private static final Logger _logger = LoggerFactory.getLogger(RuleBasedAccessControl.class);
     private final LegacyAccessControlAdapter _adapter;
 
+    private final AccessControlStatistics _statistics;
+
     private RuleSet _ruleSet;
 
     public RuleBasedAccessControl(RuleSet rs, final Model model)
+    {
+        this(rs, model, new AccessControlStatistics());
+    }
+
+    public RuleBasedAccessControl(RuleSet rs, final Model model, final AccessControlStatistics statistics)
     {
         _ruleSet = rs;
         _adapter = new LegacyAccessControlAdapter(this, model);
+        _statistics = statistics;
+    }
+
+    AccessControlStatistics getStatistics()
+    {
+        return _statistics;
     }
 
     public Result getDefault()
@@ -101,6 +114,7 @@ public class RuleBasedAccessControl implements AccessControl<CachingSecurityToke
                           (addressOfClient == null ? "" : addressOfClient));
         }
 
+        final long startTime = System.nanoTime();
         try
         {
             return  _ruleSet.check(subject, operation, objectType, properties, addressOfClient);
@@ -111,6 +125,10 @@ public class RuleBasedAccessControl implements AccessControl<CachingSecurityToke
                           + (addressOfClient == null ? "" : addressOfClient), e);
             return Result.DENIED;
         }
+        finally
+        {
+            _statistics.registerEvaluation(System.nanoTime() - startTime);
+        }
     }
 
     @Override
@@ -23,14 +23,14 @@ import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import javax.security.auth.Subject;
 
@@ -55,9 +55,19 @@ public class RuleSet implements EventLoggerProvider
 
     private static final Integer _increment = 10;
 
+    private static final int OBJECT_TYPE_COUNT = ObjectType.values().length;
+    private static final int RULE_CACHE_SIZE = LegacyOperation.values().length * OBJECT_TYPE_COUNT;
+
+    /** Marks an operation and object type for which no rule exists at all, as distinct from one not yet looked up */
+    private static final List<Rule> UNCONTROLLED = Collections.unmodifiableList(new ArrayList<Rule>());
+
     private final List<Rule> _rules;
-    private final Map<Subject, Map<LegacyOperation, Map<ObjectType, List<Rule>>>> _cache =
-                        Collections.synchronizedMap(new WeakHashMap<Subject, Map<LegacyOperation, Map<ObjectType, List<Rule>>>>());
+    /**
+     * Keyed by Subject equality, so that distinct but equal Subject instances share their cached rules. The weak
+     * keyed caches of Guava compare keys by identity and so are not used here.
+     */
+    private final Map<Subject, SubjectRules> _cache =
+            Collections.synchronizedMap(new WeakHashMap<Subject, SubjectRules>());
     private final Map<String, Boolean> _config = new HashMap<String, Boolean>();
     private final EventLoggerProvider _eventLogger;
     private Result _defaultResult = Result.DENIED;
@@ -84,14 +94,16 @@ public class RuleSet implements EventLoggerProvider
      */
     private List<Rule> getRules(final Subject subject, final LegacyOperation operation, final ObjectType objectType)
     {
-        final Map<ObjectType, List<Rule>> objects = getObjectToRuleCache(subject, operation);
+        final SubjectRules subjectRules = getSubjectRuleCache(subject);
+        final int index = operation.ordinal() * OBJECT_TYPE_COUNT + objectType.ordinal();
 
         // Lookup object type rules for the operation
-        if (!objects.containsKey(objectType))
+        List<Rule> rules = subjectRules.get(index);
+        if (rules == null)
         {
-            final Set<Principal> principals = subject.getPrincipals();
+            final Set<Principal> principals = subjectRules.getPrincipals();
             boolean controlled = false;
-            List<Rule> filtered = new LinkedList<Rule>();
+            List<Rule> filtered = new ArrayList<Rule>();
             for (Rule rule : _rules)
             {
                 final Action ruleAction = rule.getAction();
@@ -107,24 +119,18 @@ public class RuleSet implements EventLoggerProvider
                 }
             }
 
-            // Return null if there are no rules at all for this operation and object type
-            if (filtered.isEmpty() && !controlled)
-            {
-                filtered = null;
-            }
+            // Remember if there are no rules at all for this operation and object type
+            rules = filtered.isEmpty() && !controlled ? UNCONTROLLED : Collections.unmodifiableList(filtered);
 
             // Save the rules we selected
-            objects.put(objectType, filtered);
+            subjectRules.lazySet(index, rules);
 
-            _logger.debug("Cached {} RulesList: {}", objectType, filtered);
+            _logger.debug("Cached {} RulesList: {}", objectType, rules);
         }
 
-        // Return the cached rules
-        List<Rule> rules = objects.get(objectType);
-
         _logger.debug("Returning RuleList: {}", rules);
 
-        return rules;
+        return rules == UNCONTROLLED ? null : rules;
     }
 
     /**
@@ -248,24 +254,42 @@ public class RuleSet implements EventLoggerProvider
         return false;
     }
 
-    private Map<ObjectType, List<Rule>> getObjectToRuleCache(final Subject subject, final LegacyOperation operation)
+    private SubjectRules getSubjectRuleCache(final Subject subject)
     {
-        // Lookup identity in cache and create empty operation map if required
-        Map<LegacyOperation, Map<ObjectType, List<Rule>>> operations = _cache.get(subject);
-        if (operations == null)
+        // Lookup identity in cache and create empty rule cache if required, or if the subject's principals
+        // have changed since the rules were cached
+        SubjectRules subjectRules = _cache.get(subject);
+        if (subjectRules == null || !subjectRules.isFor(subject))
+        {
+            subjectRules = new SubjectRules(subject);
+            _cache.put(subject, subjectRules);
+        }
+        return subjectRules;
+    }
+
+    /**
+     * The rules relevant to a subject, indexed by operation and object type.  Entries are looked up and filled in
+     * without locking; a concurrent lookup of the same entry selects the same rules.
+     */
+    private static final class SubjectRules extends AtomicReferenceArray<List<Rule>>
+    {
+        private final Set<Principal> _principals;
+
+        private SubjectRules(final Subject subject)
+        {
+            super(RULE_CACHE_SIZE);
+            _principals = new HashSet<>(subject.getPrincipals());
+        }
+
+        Set<Principal> getPrincipals()
         {
-            operations = Collections.synchronizedMap(new EnumMap<LegacyOperation, Map<ObjectType, List<Rule>>>(LegacyOperation.class));
-            _cache.put(subject, operations);
+            return _principals;
         }
 
-        // Lookup operation and create empty object type map if required
-        Map<ObjectType, List<Rule>> objects = operations.get(operation);
-        if (objects == null)
+        boolean isFor(final Subject subject)
         {
-            objects = Collections.synchronizedMap(new EnumMap<ObjectType, List<Rule>>(ObjectType.class));
-            operations.put(operation, objects);
+            return _principals.equals(subject.getPrincipals());
         }
-        return objects;
     }
 
     public EventLogger getEventLogger()
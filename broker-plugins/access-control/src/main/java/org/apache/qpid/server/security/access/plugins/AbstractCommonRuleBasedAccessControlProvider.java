@@ -86,7 +86,7 @@ abstract class AbstractCommonRuleBasedAccessControlProvider<X extends AbstractCo
                                              new AclRulePredicates(configuredRule.getAttributes())),
                                configuredRule.getOutcome()));
         }
-        return new RuleBasedAccessControl(new RuleSet(this, rules, _defaultResult), getModel());
+        return new RuleBasedAccessControl(new RuleSet(this, rules, _defaultResult), getModel(), getAccessControlStatistics());
     }
 
     public Result getDefaultResult()
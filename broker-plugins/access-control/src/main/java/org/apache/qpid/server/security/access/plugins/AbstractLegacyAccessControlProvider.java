@@ -36,6 +36,7 @@ import org.apache.qpid.server.model.StateTransition;
 import org.apache.qpid.server.model.SystemConfig;
 import org.apache.qpid.server.security.AccessControl;
 import org.apache.qpid.server.security.access.AbstractAccessControlProvider;
+import org.apache.qpid.server.security.access.config.AccessControlStatistics;
 import org.apache.qpid.server.security.access.config.RuleBasedAccessControl;
 import org.apache.qpid.server.util.urlstreamhandler.data.Handler;
 
@@ -49,6 +50,7 @@ abstract class AbstractLegacyAccessControlProvider<X extends AbstractLegacyAcces
         Handler.register();
     }
 
+    private final AccessControlStatistics _statistics = new AccessControlStatistics();
     private volatile RuleBasedAccessControl _accessControl;
 
 
@@ -123,4 +125,34 @@ abstract class AbstractLegacyAccessControlProvider<X extends AbstractLegacyAcces
         return _accessControl;
     }
 
+    protected final AccessControlStatistics getAccessControlStatistics()
+    {
+        return _statistics;
+    }
+
+    public long getAclEvaluationCount()
+    {
+        return _statistics.getEvaluationCount();
+    }
+
+    public long getAclEvaluationTimeTotal()
+    {
+        return _statistics.getEvaluationTimeTotal();
+    }
+
+    public long getAclEvaluationTimeMax()
+    {
+        return _statistics.getEvaluationTimeMax();
+    }
+
+    public long getPublishAuthorisationCacheHits()
+    {
+        return _statistics.getPublishCacheHits();
+    }
+
+    public long getPublishAuthorisationCacheMisses()
+    {
+        return _statistics.getPublishCacheMisses();
+    }
+
 }
@@ -68,7 +68,9 @@ public class AclFileAccessControlProviderImpl
     @Override
     protected RuleBasedAccessControl createRuleBasedAccessController()
     {
-        return new RuleBasedAccessControl(AclFileParser.parse(getPath(), this), getModel());
+        return new RuleBasedAccessControl(AclFileParser.parse(getPath(), this),
+                                          getModel(),
+                                          getAccessControlStatistics());
     }
 
     @Override
@@ -32,7 +32,8 @@ import org.apache.qpid.server.model.VirtualHostAccessControlProvider;
 import org.apache.qpid.server.security.Result;
 
 @ManagedObject( category = false, type= RuleBasedVirtualHostAccessControlProvider.RULE_BASED_TYPE)
-public interface RuleBasedVirtualHostAccessControlProvider<X extends RuleBasedVirtualHostAccessControlProvider<X>> extends VirtualHostAccessControlProvider<X>
+public interface RuleBasedVirtualHostAccessControlProvider<X extends RuleBasedVirtualHostAccessControlProvider<X>> extends VirtualHostAccessControlProvider<X>,
+        LegacyAccessControlProvider<X>
 {
     String RULE_BASED_TYPE = "RuleBased";
     String DEFAULT_RESULT= "defaultResult";
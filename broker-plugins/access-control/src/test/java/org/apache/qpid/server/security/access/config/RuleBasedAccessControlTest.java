@@ -20,6 +20,7 @@
  */
 package org.apache.qpid.server.security.access.config;
 
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -28,6 +29,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedExceptionAction;
+import java.util.Map;
 
 import javax.security.auth.Subject;
 
@@ -36,10 +38,14 @@ import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.logging.EventLoggerProvider;
 import org.apache.qpid.server.logging.UnitTestMessageLogger;
 import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.Exchange;
+import org.apache.qpid.server.model.VirtualHost;
 import org.apache.qpid.server.security.Result;
+import org.apache.qpid.server.security.access.Operation;
 import org.apache.qpid.server.security.access.plugins.RuleOutcome;
 import org.apache.qpid.server.security.auth.TestPrincipalUtils;
 import org.apache.qpid.server.transport.AMQPConnection;
+import org.apache.qpid.server.transport.AbstractAMQPConnection;
 import org.apache.qpid.test.utils.QpidTestCase;
 
 /**
@@ -465,4 +471,72 @@ public class RuleBasedAccessControlTest extends QpidTestCase
         });
 
     }
+
+    public void testPublishDecisionsCachedPerTokenUntilRulesChange()
+    {
+        final AccessControlStatistics statistics = new AccessControlStatistics();
+        final RuleBasedAccessControl accessControl =
+                new RuleBasedAccessControl(createPublishRuleSet("allowed", RuleOutcome.ALLOW),
+                                           BrokerModel.getInstance(),
+                                           statistics);
+        final Subject subject = TestPrincipalUtils.createTestSubject("user1");
+        final CachingSecurityToken token = accessControl.newToken(subject);
+
+        final Exchange<?> exchange = mock(Exchange.class);
+        final VirtualHost<?> virtualHost = mock(VirtualHost.class);
+        when(virtualHost.getName()).thenReturn("test");
+        doReturn(Exchange.class).when(exchange).getCategoryClass();
+        doReturn(virtualHost).when(exchange).getParent(VirtualHost.class);
+        when(exchange.getName()).thenReturn("amq.direct");
+
+        Subject.doAs(subject, new PrivilegedAction<Object>()
+        {
+            @Override
+            public Object run()
+            {
+                assertEquals(Result.ALLOWED, authorisePublish(accessControl, token, exchange, "allowed"));
+                assertEquals(Result.DENIED, authorisePublish(accessControl, token, exchange, "other"));
+                assertEquals(Result.ALLOWED, authorisePublish(accessControl, token, exchange, "allowed"));
+                assertEquals(Result.DENIED, authorisePublish(accessControl, token, exchange, "other"));
+
+                assertEquals("Unexpected number of rule evaluations", 2, statistics.getEvaluationCount());
+                assertEquals("Unexpected number of cache misses", 2, statistics.getPublishCacheMisses());
+                assertEquals("Unexpected number of cache hits", 2, statistics.getPublishCacheHits());
+
+                final RuleBasedAccessControl changedAccessControl =
+                        new RuleBasedAccessControl(createPublishRuleSet("allowed", RuleOutcome.DENY),
+                                                   BrokerModel.getInstance(),
+                                                   statistics);
+
+                assertEquals("Decision should be re-evaluated after the rules change",
+                             Result.DENIED, authorisePublish(changedAccessControl, token, exchange, "allowed"));
+                assertEquals(3, statistics.getEvaluationCount());
+                return null;
+            }
+        });
+    }
+
+    private Result authorisePublish(final RuleBasedAccessControl accessControl,
+                                    final CachingSecurityToken token,
+                                    final Exchange<?> exchange,
+                                    final String routingKey)
+    {
+        final Map<String, Object> arguments =
+                AbstractAMQPConnection.PUBLISH_ACTION_MAP_CREATOR.createMap(routingKey, false);
+        return accessControl.authorise(token, Operation.ACTION("publish"), exchange, arguments);
+    }
+
+    private RuleSet createPublishRuleSet(final String routingKey, final RuleOutcome outcome)
+    {
+        final EventLoggerProvider provider = mock(EventLoggerProvider.class);
+        when(provider.getEventLogger()).thenReturn(_eventLogger);
+        final RuleSetCreator rsc = new RuleSetCreator();
+
+        final ObjectProperties properties = new ObjectProperties();
+        properties.put(ObjectProperties.Property.ROUTING_KEY, routingKey);
+        rsc.addRule(1, Rule.ALL, outcome, LegacyOperation.PUBLISH, ObjectType.EXCHANGE, properties);
+        rsc.addRule(2, Rule.ALL, RuleOutcome.DENY, LegacyOperation.PUBLISH, ObjectType.EXCHANGE, ObjectProperties.EMPTY);
+
+        return rsc.createRuleSet(provider);
+    }
 }
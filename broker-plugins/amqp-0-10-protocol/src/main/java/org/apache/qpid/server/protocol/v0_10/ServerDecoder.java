@@ -20,20 +20,33 @@
  */
 package org.apache.qpid.server.protocol.v0_10;
 
+import java.nio.BufferUnderflowException;
 import java.util.List;
 
 import org.apache.qpid.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.transport.codec.AbstractDecoder;
 
+/**
+ * Decodes directly from the frame buffers making up a segment. A value which straddles two frames is gathered into
+ * a small scratch buffer rather than into a newly allocated one.
+ */
 final class ServerDecoder extends AbstractDecoder
 {
+    private static final int MAX_PRIMITIVE_SIZE = 8;
+
     private final List<QpidByteBuffer> _underlying;
     private int _bufferIndex;
+    private int _remainingAfterCurrent;
+    private QpidByteBuffer _scratch;
 
     ServerDecoder(List<QpidByteBuffer> in)
     {
         _underlying = in;
         _bufferIndex = 0;
+        for(int i = 1; i < in.size(); i++)
+        {
+            _remainingAfterCurrent += in.get(i).remaining();
+        }
     }
 
     private void advanceIfNecessary()
@@ -41,6 +54,7 @@ final class ServerDecoder extends AbstractDecoder
         while(!getCurrentBuffer().hasRemaining() && _bufferIndex != _underlying.size()-1)
         {
             _bufferIndex++;
+            _remainingAfterCurrent -= getCurrentBuffer().remaining();
         }
     }
 
@@ -54,55 +68,35 @@ final class ServerDecoder extends AbstractDecoder
         }
         else
         {
-            return readAsQpidByteBuffer(size);
+            return gather(size);
         }
     }
 
-    private QpidByteBuffer readAsQpidByteBuffer(int len)
+    private QpidByteBuffer gather(int size)
     {
-        QpidByteBuffer currentBuffer = getCurrentBuffer();
-        if(currentBuffer.remaining()>=len)
+        if(_scratch == null)
         {
-            QpidByteBuffer buf = currentBuffer.slice();
-            buf.limit(len);
-            currentBuffer.position(currentBuffer.position()+len);
-            return buf;
+            _scratch = QpidByteBuffer.allocate(MAX_PRIMITIVE_SIZE);
         }
-        else
+        _scratch.clear();
+        _scratch.limit(size);
+        while(_scratch.hasRemaining())
         {
-            QpidByteBuffer dest = QpidByteBuffer.allocate(len);
-            while(dest.hasRemaining() && available()>0)
+            advanceIfNecessary();
+            final QpidByteBuffer currentBuffer = getCurrentBuffer();
+            if(!currentBuffer.hasRemaining())
             {
-                advanceIfNecessary();
-                currentBuffer = getCurrentBuffer();
-                final int remaining = dest.remaining();
-                if(currentBuffer.remaining()>= remaining)
-                {
-                    QpidByteBuffer buf = currentBuffer.slice();
-                    buf.limit(remaining);
-                    currentBuffer.position(currentBuffer.position()+remaining);
-                    dest.put(buf);
-                    buf.dispose();
-                }
-                else
-                {
-                    dest.put(currentBuffer);
-                }
+                throw new BufferUnderflowException();
             }
-
-            dest.flip();
-            return dest;
+            _scratch.put(currentBuffer.get());
         }
+        _scratch.flip();
+        return _scratch;
     }
 
     private int available()
     {
-        int remaining = 0;
-        for(int i = _bufferIndex; i < _underlying.size(); i++)
-        {
-            remaining += _underlying.get(i).remaining();
-        }
-        return remaining;
+        return getCurrentBuffer().remaining() + _remainingAfterCurrent;
     }
 
 
@@ -118,7 +112,19 @@ final class ServerDecoder extends AbstractDecoder
 
     protected void doGet(byte[] bytes)
     {
-        getBuffer(bytes.length).get(bytes);
+        int offset = 0;
+        while(offset < bytes.length)
+        {
+            advanceIfNecessary();
+            final QpidByteBuffer currentBuffer = getCurrentBuffer();
+            final int length = Math.min(currentBuffer.remaining(), bytes.length - offset);
+            if(length == 0)
+            {
+                throw new BufferUnderflowException();
+            }
+            currentBuffer.get(bytes, offset, length);
+            offset += length;
+        }
     }
 
     public boolean hasRemaining()
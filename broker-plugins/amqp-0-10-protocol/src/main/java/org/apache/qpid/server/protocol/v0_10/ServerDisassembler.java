@@ -97,13 +97,7 @@ public final class ServerDisassembler implements ProtocolEventSender, ProtocolDe
     {
         QpidByteBuffer data = QpidByteBuffer.allocateDirect(HEADER_SIZE);
 
-        data.put(0, flags);
-        data.put(1, type);
-        data.putShort(2, (short) (size + HEADER_SIZE));
-        data.put(4, (byte) 0);
-        data.put(5, track);
-        data.putShort(6, (short) channel);
-
+        putFrameHeader(data, 0, flags, type, track, channel, size);
 
         _sender.send(data);
         data.dispose();
@@ -135,6 +129,42 @@ public final class ServerDisassembler implements ProtocolEventSender, ProtocolDe
 
     }
 
+    private static void putFrameHeader(QpidByteBuffer data, int pos, byte flags, byte type, byte track, int channel,
+                                       int size)
+    {
+        data.put(pos, flags);
+        data.put(pos + 1, type);
+        data.putShort(pos + 2, (short) (size + HEADER_SIZE));
+        data.put(pos + 4, (byte) 0);
+        data.put(pos + 5, track);
+        data.putShort(pos + 6, (short) channel);
+        data.putInt(pos + 8, 0);
+    }
+
+    /**
+     * Sends the segment encoded in the buffer after the frame header reserved at start. A segment which fits in a
+     * single frame is sent in one piece with its header written into the reserved space, otherwise it is fragmented.
+     */
+    private void segment(byte flags, SegmentType type, ProtocolEvent event, QpidByteBuffer buf, int start, int limit)
+    {
+        int size = limit - start - HEADER_SIZE;
+        if (size <= _maxPayload)
+        {
+            byte track = event.getEncodedTrack() == Frame.L4 ? (byte) 1 : (byte) 0;
+            putFrameHeader(buf, start, (byte) (flags | FIRST_FRAME | LAST_FRAME), (byte) type.getValue(), track,
+                           event.getChannel(), size);
+            QpidByteBuffer frame = buf.view(start, limit - start);
+            _sender.send(frame);
+            frame.dispose();
+        }
+        else
+        {
+            QpidByteBuffer duplicate = buf.view(start + HEADER_SIZE, size);
+            fragment(flags, type, event, Collections.singletonList(duplicate));
+            duplicate.dispose();
+        }
+    }
+
     private void fragment(byte flags, SegmentType type, ProtocolEvent event, Collection<QpidByteBuffer> buffers)
     {
         byte typeb = (byte) type.getValue();
@@ -191,6 +221,7 @@ public final class ServerDisassembler implements ProtocolEventSender, ProtocolDe
     {
         ServerEncoder enc = _encoder;
         enc.init();
+        final int methodStart = enc.beginFrame();
         enc.writeUint16(method.getEncodedType());
         if (type == SegmentType.COMMAND)
         {
@@ -214,9 +245,11 @@ public final class ServerDisassembler implements ProtocolEventSender, ProtocolDe
             flags |= LAST_SEG;
         }
 
+        int headerStart = -1;
         int headerLimit = -1;
         if (payload)
         {
+            headerStart = enc.beginFrame();
             final Header hdr = method.getHeader();
             if (hdr != null)
             {
@@ -243,22 +276,17 @@ public final class ServerDisassembler implements ProtocolEventSender, ProtocolDe
         {
             final QpidByteBuffer buf = enc.getBuffer();
 
-            QpidByteBuffer duplicate = buf.view(0, methodLimit);
-            fragment(flags, type, method, Collections.singletonList(duplicate));
-            duplicate.dispose();
+            segment(flags, type, method, buf, methodStart, methodLimit);
 
             if (payload)
             {
                 Collection<QpidByteBuffer> body = method.getBody();
-                buf.limit(headerLimit);
-                buf.position(methodLimit);
-
-                duplicate = buf.slice();
-                fragment(body == null ? LAST_SEG : 0x0,
-                         SegmentType.HEADER,
-                         method,
-                         Collections.singletonList(duplicate));
-                duplicate.dispose();
+                segment(body == null ? LAST_SEG : 0x0,
+                        SegmentType.HEADER,
+                        method,
+                        buf,
+                        headerStart,
+                        headerLimit);
 
                 if (body != null)
                 {
@@ -26,6 +26,7 @@ import java.util.UUID;
 
 import org.apache.qpid.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.transport.codec.AbstractEncoder;
+import org.apache.qpid.transport.network.Frame;
 
 
 public final class ServerEncoder extends AbstractEncoder
@@ -187,6 +188,21 @@ public final class ServerEncoder extends AbstractEncoder
         }
     }
 
+    /**
+     * Reserves space for a frame header ahead of the segment about to be encoded, returning the position of the
+     * header so that it can be written once the size of the segment is known.
+     */
+    public int beginFrame()
+    {
+        if(_out.remaining() < Frame.HEADER_SIZE)
+        {
+            grow(Frame.HEADER_SIZE);
+        }
+        int pos = _out.position();
+        _out.position(pos + Frame.HEADER_SIZE);
+        return pos;
+    }
+
     public int beginSize8()
     {
         int pos = _out.position();
@@ -46,6 +46,7 @@ public class ServerInputHandler implements FrameSizeObserver
     {
         PROTO_HDR,
         FRAME_HDR,
+        FRAME_BODY,
         ERROR;
     }
     private final ServerAssembler _serverAssembler;
@@ -56,6 +57,8 @@ public class ServerInputHandler implements FrameSizeObserver
     private SegmentType type;
     private byte track;
     private int channel;
+    private int bodyRemaining;
+    private boolean bodyStarted;
 
 
     public ServerInputHandler(ServerAssembler serverAssembler)
@@ -93,15 +96,20 @@ public class ServerInputHandler implements FrameSizeObserver
         }
     }
 
+    /**
+     * Parses as much of the buffer as possible. A frame header is consumed as soon as it is complete and the frame
+     * body is awaited in the FRAME_BODY state, so parsing resumes where it left off when more data arrives. The body
+     * of a message body frame is passed on in pieces as it arrives rather than being held until the frame completes.
+     */
     private void parse(QpidByteBuffer buffer)
     {
-        buffer.mark();
         switch (_state) {
             case PROTO_HDR:
                 if(buffer.remaining() < 8)
                 {
                     break;
                 }
+                buffer.mark();
                 if (buffer.get() != 'A' ||
                     buffer.get() != 'M' ||
                     buffer.get() != 'Q' ||
@@ -123,11 +131,7 @@ public class ServerInputHandler implements FrameSizeObserver
                 }
                 break;
             case FRAME_HDR:
-                if(buffer.remaining() < ServerFrame.HEADER_SIZE)
-                {
-                    buffer.reset();
-                }
-                else
+                if(buffer.remaining() >= ServerFrame.HEADER_SIZE)
                 {
                     flags = buffer.get();
                     type = SegmentType.get(buffer.get());
@@ -161,29 +165,51 @@ public class ServerInputHandler implements FrameSizeObserver
                                 _serverAssembler.received(frame);
 
                             }
-                            else if (buffer.remaining() < size)
-                            {
-                                buffer.reset();
-                            }
                             else
                             {
-                                final QpidByteBuffer body = buffer.slice();
-                                body.limit(size);
-                                ServerFrame frame = new ServerFrame(flags, type, track, channel, body);
-                                buffer.position(buffer.position() + size);
-
-                                _serverAssembler.received(frame);
+                                bodyRemaining = size;
+                                bodyStarted = false;
+                                _state = FRAME_BODY;
                             }
                         }
                     }
                 }
                 break;
+            case FRAME_BODY:
+                if (buffer.remaining() >= bodyRemaining)
+                {
+                    byte frameFlags = bodyStarted ? (byte) (flags & ~ServerFrame.FIRST_FRAME) : flags;
+                    emitBody(buffer, frameFlags, bodyRemaining);
+                    _state = FRAME_HDR;
+                }
+                else if (type == SegmentType.BODY && buffer.hasRemaining())
+                {
+                    byte frameFlags = (byte) (flags & ~ServerFrame.LAST_FRAME);
+                    if (bodyStarted)
+                    {
+                        frameFlags &= ~ServerFrame.FIRST_FRAME;
+                    }
+                    int length = buffer.remaining();
+                    emitBody(buffer, frameFlags, length);
+                    bodyRemaining -= length;
+                    bodyStarted = true;
+                }
+                break;
             default:
                 throw new IllegalStateException();
         }
 
     }
 
+    private void emitBody(QpidByteBuffer buffer, byte frameFlags, int length)
+    {
+        final QpidByteBuffer body = buffer.slice();
+        body.limit(length);
+        buffer.position(buffer.position() + length);
+
+        _serverAssembler.received(new ServerFrame(frameFlags, type, track, channel, body));
+    }
+
     public void exception(Throwable t)
     {
         _serverAssembler.exception(t);
@@ -0,0 +1,184 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_10;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.test.utils.QpidTestCase;
+import org.apache.qpid.transport.ByteBufferSender;
+import org.apache.qpid.transport.DeliveryProperties;
+import org.apache.qpid.transport.Header;
+import org.apache.qpid.transport.MessageAcceptMode;
+import org.apache.qpid.transport.MessageAcquireMode;
+import org.apache.qpid.transport.MessageProperties;
+import org.apache.qpid.transport.MessageTransfer;
+import org.apache.qpid.transport.ProtocolError;
+import org.apache.qpid.transport.ProtocolHeader;
+import org.apache.qpid.transport.SegmentType;
+
+public class ServerDisassemblerTest extends QpidTestCase
+{
+    private static final byte[] PROTOCOL_HEADER = {'A', 'M', 'Q', 'P', 1, 1, 0, 10};
+    private static final byte[] BODY = "Hello, world".getBytes();
+
+    public void testSegmentSentInOneBufferWithItsFrameHeader()
+    {
+        RecordingSender sender = new RecordingSender();
+        ServerDisassembler disassembler = new ServerDisassembler(sender, 4096);
+        disassembler.send(createTransfer());
+
+        assertEquals("Unexpected number of buffers sent", 4, sender._sent.size());
+        assertFrame(sender._sent.get(0),
+                    ServerFrame.FIRST_SEG | ServerFrame.FIRST_FRAME | ServerFrame.LAST_FRAME,
+                    SegmentType.COMMAND);
+        assertFrame(sender._sent.get(1), ServerFrame.FIRST_FRAME | ServerFrame.LAST_FRAME, SegmentType.HEADER);
+        assertTrue("Unexpected body", Arrays.equals(BODY, sender._sent.get(3)));
+    }
+
+    public void testFragmentedSegmentsMatchUnfragmented()
+    {
+        List<byte[]> expected = segments(4096);
+        List<byte[]> fragmented = segments(ServerFrame.HEADER_SIZE + 5);
+
+        assertEquals("Unexpected number of segments", 3, expected.size());
+        assertEquals("Unexpected number of segments", expected.size(), fragmented.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertTrue("Segment " + i + " differs", Arrays.equals(expected.get(i), fragmented.get(i)));
+        }
+        assertTrue("Unexpected body", Arrays.equals(BODY, expected.get(2)));
+    }
+
+    private void assertFrame(final byte[] frame, final int flags, final SegmentType type)
+    {
+        assertEquals("Unexpected flags", flags, frame[0]);
+        assertEquals("Unexpected segment type", type.getValue(), frame[1]);
+        assertEquals("Unexpected frame size", frame.length, ((frame[2] & 0xFF) << 8) | (frame[3] & 0xFF));
+    }
+
+    private List<byte[]> segments(final int maxFrameSize)
+    {
+        RecordingSender sender = new RecordingSender();
+        ServerDisassembler disassembler = new ServerDisassembler(sender, maxFrameSize);
+        disassembler.send(createTransfer());
+
+        final List<byte[]> segments = new ArrayList<>();
+        final ByteArrayOutputStream segment = new ByteArrayOutputStream();
+        ServerInputHandler inputHandler = new ServerInputHandler(new ServerAssembler(null)
+        {
+            @Override
+            public void init(final ProtocolHeader header)
+            {
+            }
+
+            @Override
+            public void error(final ProtocolError error)
+            {
+                fail("Unexpected error " + error);
+            }
+
+            @Override
+            public void received(final ServerFrame frame)
+            {
+                byte[] data = new byte[frame.getSize()];
+                frame.getBody().get(data);
+                frame.getBody().dispose();
+                segment.write(data, 0, data.length);
+                if (frame.isLastFrame())
+                {
+                    segments.add(segment.toByteArray());
+                    segment.reset();
+                }
+            }
+        });
+
+        QpidByteBuffer buffer = QpidByteBuffer.wrap(sender.getBytes());
+        inputHandler.received(buffer);
+        assertFalse("All data should be consumed", buffer.hasRemaining());
+        buffer.dispose();
+        return segments;
+    }
+
+    private static MessageTransfer createTransfer()
+    {
+        DeliveryProperties deliveryProperties = new DeliveryProperties();
+        deliveryProperties.setRoutingKey("routingKey");
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType("text/plain");
+        messageProperties.setContentLength(BODY.length);
+
+        MessageTransfer transfer = new MessageTransfer("destination",
+                                                       MessageAcceptMode.NONE,
+                                                       MessageAcquireMode.PRE_ACQUIRED,
+                                                       new Header(deliveryProperties, messageProperties),
+                                                       ByteBuffer.wrap(BODY));
+        transfer.setChannel(1);
+        return transfer;
+    }
+
+    private static class RecordingSender implements ByteBufferSender
+    {
+        private final List<byte[]> _sent = new ArrayList<>();
+
+        @Override
+        public boolean isDirectBufferPreferred()
+        {
+            return true;
+        }
+
+        @Override
+        public void send(final QpidByteBuffer msg)
+        {
+            byte[] bytes = new byte[msg.remaining()];
+            QpidByteBuffer duplicate = msg.duplicate();
+            duplicate.get(bytes);
+            duplicate.dispose();
+            _sent.add(bytes);
+            msg.position(msg.limit());
+        }
+
+        private byte[] getBytes()
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            output.write(PROTOCOL_HEADER, 0, PROTOCOL_HEADER.length);
+            for (byte[] bytes : _sent)
+            {
+                output.write(bytes, 0, bytes.length);
+            }
+            return output.toByteArray();
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
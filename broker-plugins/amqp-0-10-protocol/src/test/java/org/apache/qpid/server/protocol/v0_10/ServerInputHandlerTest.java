@@ -0,0 +1,216 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_10;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.test.utils.QpidTestCase;
+import org.apache.qpid.transport.ProtocolError;
+import org.apache.qpid.transport.ProtocolHeader;
+import org.apache.qpid.transport.SegmentType;
+
+public class ServerInputHandlerTest extends QpidTestCase
+{
+    private static final byte[] PROTOCOL_HEADER = {'A', 'M', 'Q', 'P', 1, 1, 0, 10};
+    private static final int CHANNEL = 3;
+
+    private final List<ServerFrame> _frames = new ArrayList<>();
+    private ServerInputHandler _inputHandler;
+    private byte[] _unconsumed;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        createInputHandler();
+    }
+
+    private void createInputHandler()
+    {
+        _frames.clear();
+        _unconsumed = new byte[0];
+        _inputHandler = new ServerInputHandler(new ServerAssembler(null)
+        {
+            @Override
+            public void init(final ProtocolHeader header)
+            {
+            }
+
+            @Override
+            public void error(final ProtocolError error)
+            {
+                fail("Unexpected error " + error);
+            }
+
+            @Override
+            public void received(final ServerFrame event)
+            {
+                _frames.add(event);
+            }
+        });
+        _inputHandler.setMaxFrameSize(0xFFFF);
+    }
+
+    public void testTrafficSplitAtEveryPosition()
+    {
+        final byte[] command = bytes(40, 1);
+        final byte[] header = bytes(30, 2);
+        final byte[] body = bytes(200, 3);
+        final byte[] traffic = concat(PROTOCOL_HEADER,
+                                      frame(ServerFrame.FIRST_SEG | ServerFrame.FIRST_FRAME | ServerFrame.LAST_FRAME,
+                                            SegmentType.COMMAND, command),
+                                      frame(ServerFrame.FIRST_FRAME | ServerFrame.LAST_FRAME,
+                                            SegmentType.HEADER, header),
+                                      frame(ServerFrame.LAST_SEG | ServerFrame.FIRST_FRAME | ServerFrame.LAST_FRAME,
+                                            SegmentType.BODY, body));
+
+        for (int split = 1; split < traffic.length; split++)
+        {
+            createInputHandler();
+            received(Arrays.copyOfRange(traffic, 0, split));
+            received(Arrays.copyOfRange(traffic, split, traffic.length));
+
+            assertSegment("command at split " + split, SegmentType.COMMAND, command);
+            assertSegment("header at split " + split, SegmentType.HEADER, header);
+            assertSegment("body at split " + split, SegmentType.BODY, body);
+            assertTrue("Unexpected frames at split " + split + ": " + _frames, _frames.isEmpty());
+            assertEquals("Unconsumed data at split " + split, 0, _unconsumed.length);
+        }
+    }
+
+    public void testTrafficDeliveredByteAtATime()
+    {
+        final byte[] body = bytes(50, 7);
+        final byte[] traffic = concat(PROTOCOL_HEADER,
+                                      frame(ServerFrame.FIRST_FRAME, SegmentType.BODY, Arrays.copyOf(body, 20)),
+                                      frame(ServerFrame.LAST_FRAME, SegmentType.BODY,
+                                            Arrays.copyOfRange(body, 20, body.length)));
+
+        for (byte b : traffic)
+        {
+            received(new byte[]{b});
+        }
+
+        assertSegment("body", SegmentType.BODY, body);
+        assertTrue("Unexpected frames: " + _frames, _frames.isEmpty());
+    }
+
+    public void testDecoderReadsValuesStraddlingBuffers()
+    {
+        final byte[] encoded = {0x12, 0x34, 0x56, 0x78, (byte) 0x9A, (byte) 0xBC, (byte) 0xDE, (byte) 0xF0,
+                                0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A};
+        final List<QpidByteBuffer> buffers = new ArrayList<>();
+        buffers.add(QpidByteBuffer.wrap(encoded, 0, 1));
+        buffers.add(QpidByteBuffer.wrap(encoded, 1, 4));
+        buffers.add(QpidByteBuffer.wrap(encoded, 5, 0));
+        buffers.add(QpidByteBuffer.wrap(encoded, 5, 13));
+
+        ServerDecoder decoder = new ServerDecoder(buffers);
+        assertEquals("Unexpected uint16", 0x1234, decoder.readUint16());
+        assertEquals("Unexpected uint64", 0x56789ABCDEF00102L, decoder.readUint64());
+        assertTrue("Unexpected bytes",
+                   Arrays.equals(new byte[]{0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09}, decoder.readBytes(7)));
+        assertTrue("Decoder should have remaining", decoder.hasRemaining());
+        assertEquals("Unexpected uint8", 0x0A, decoder.readUint8());
+        assertFalse("Decoder should be exhausted", decoder.hasRemaining());
+
+        for (QpidByteBuffer buffer : buffers)
+        {
+            buffer.dispose();
+        }
+    }
+
+    /**
+     * Passes the data to the input handler after any left unconsumed by the previous call, as the network
+     * connection does.
+     */
+    private void received(final byte[] data)
+    {
+        QpidByteBuffer buffer = QpidByteBuffer.wrap(concat(_unconsumed, data));
+        _inputHandler.received(buffer);
+        _unconsumed = new byte[buffer.remaining()];
+        buffer.get(_unconsumed);
+        buffer.dispose();
+    }
+
+    private void assertSegment(final String message, final SegmentType type, final byte[] expected)
+    {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        boolean first = true;
+        while (!_frames.isEmpty())
+        {
+            ServerFrame frame = _frames.remove(0);
+            assertEquals(message + ": unexpected type", type, frame.getType());
+            assertEquals(message + ": unexpected channel", CHANNEL, frame.getChannel());
+            assertEquals(message + ": unexpected first frame flag", first, frame.isFirstFrame());
+            first = false;
+
+            byte[] data = new byte[frame.getSize()];
+            frame.getBody().get(data);
+            frame.getBody().dispose();
+            content.write(data, 0, data.length);
+
+            if (frame.isLastFrame())
+            {
+                break;
+            }
+        }
+        assertTrue(message + ": unexpected content", Arrays.equals(expected, content.toByteArray()));
+    }
+
+    private static byte[] frame(final int flags, final SegmentType type, final byte[] body)
+    {
+        final int size = ServerFrame.HEADER_SIZE + body.length;
+        final byte[] frame = new byte[size];
+        frame[0] = (byte) flags;
+        frame[1] = (byte) type.getValue();
+        frame[2] = (byte) (size >> 8);
+        frame[3] = (byte) size;
+        frame[6] = (byte) (CHANNEL >> 8);
+        frame[7] = (byte) CHANNEL;
+        System.arraycopy(body, 0, frame, ServerFrame.HEADER_SIZE, body.length);
+        return frame;
+    }
+
+    private static byte[] bytes(final int length, final int seed)
+    {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            bytes[i] = (byte) (seed + i);
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(final byte[]... arrays)
+    {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (byte[] array : arrays)
+        {
+            output.write(array, 0, array.length);
+        }
+        return output.toByteArray();
+    }
+}
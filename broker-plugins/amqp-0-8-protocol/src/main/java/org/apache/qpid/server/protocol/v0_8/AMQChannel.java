@@ -99,7 +99,6 @@ import org.apache.qpid.server.protocol.ConsumerListener;
 import org.apache.qpid.server.queue.QueueArgumentsConverter;
 import org.apache.qpid.server.security.SecurityToken;
 import org.apache.qpid.server.security.access.Operation;
-import org.apache.qpid.server.store.MessageHandle;
 import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
@@ -414,6 +413,12 @@ public class AMQChannel
 
         _currentMessage.setContentHeaderBody(contentHeaderBody);
 
+        final MessageMetaData messageMetaData =
+                new MessageMetaData(_currentMessage.getMessagePublishInfo(),
+                                    contentHeaderBody,
+                                    getConnection().getLastReadTime());
+        _currentMessage.setMessageHandle(_messageStore.addMessage(messageMetaData));
+
         deliverCurrentMessageIfComplete();
     }
 
@@ -455,23 +460,8 @@ public class AMQChannel
                     final MessagePublishInfo messagePublishInfo = _currentMessage.getMessagePublishInfo();
                     final MessageDestination destination = _currentMessage.getDestination();
 
-                    final MessageMetaData messageMetaData =
-                            new MessageMetaData(messagePublishInfo,
-                                                contentHeader,
-                                                getConnection().getLastReadTime());
-
-                    final MessageHandle<MessageMetaData> handle = _messageStore.addMessage(messageMetaData);
-                    int bodyCount = _currentMessage.getBodyCount();
-                    if (bodyCount > 0)
-                    {
-                        for (int i = 0; i < bodyCount; i++)
-                        {
-                            ContentBody contentChunk = _currentMessage.getContentChunk(i);
-                            handle.addContent(contentChunk.getPayload());
-                            contentChunk.dispose();
-                        }
-                    }
-                    final StoredMessage<MessageMetaData> storedMessage = handle.allContentAdded();
+                    final StoredMessage<MessageMetaData> storedMessage =
+                            _currentMessage.getMessageHandle().allContentAdded();
 
                     final AMQMessage amqMessage = createAMQMessage(storedMessage);
                     MessageReference reference = amqMessage.newReference();
@@ -546,6 +536,7 @@ public class AMQChannel
             }
             catch (AccessControlException e)
             {
+                discardCurrentMessage();
                 _connection.sendConnectionClose(AMQConstant.ACCESS_REFUSED, e.getMessage(), getChannelId());
             }
 
@@ -553,6 +544,15 @@ public class AMQChannel
 
     }
 
+    private void discardCurrentMessage()
+    {
+        if (_currentMessage != null)
+        {
+            _currentMessage.discard();
+            _currentMessage = null;
+        }
+    }
+
     private void incrementUncommittedMessageSize(final StoredMessage<MessageMetaData> handle)
     {
         if (isTransactional())
@@ -658,6 +658,7 @@ public class AMQChannel
             long currentSize = _currentMessage.addContentBodyFrame(contentBody);
             if(currentSize > _currentMessage.getSize())
             {
+                discardCurrentMessage();
                 _connection.sendConnectionClose(AMQConstant.FRAME_ERROR,
                         "More message data received than content header defined",
                         _channelId);
@@ -671,7 +672,7 @@ public class AMQChannel
         {
             // we want to make sure we don't keep a reference to the message in the
             // event of an error
-            _currentMessage = null;
+            discardCurrentMessage();
             throw e;
         }
     }
@@ -904,6 +905,7 @@ public class AMQChannel
 
         try
         {
+            discardCurrentMessage();
             unsubscribeAllConsumers();
             setDefaultQueue(null);
             if(_modelObject != null)
@@ -2577,7 +2579,10 @@ public class AMQChannel
                 closeChannel(AMQConstant.MESSAGE_TOO_LARGE,
                              "Message size of " + bodySize + " greater than allowed maximum of " + _connection.getMaxMessageSize());
             }
-            publishContentHeader(new ContentHeaderBody(properties, bodySize));
+            else
+            {
+                publishContentHeader(new ContentHeaderBody(properties, bodySize));
+            }
         }
         else
         {
@@ -2604,12 +2609,14 @@ public class AMQChannel
         Map<Long, MessageInstance> nackedMessageMap = new LinkedHashMap<>();
         _unacknowledgedMessageMap.collect(deliveryTag, multiple, nackedMessageMap);
 
-        for(MessageInstance message : nackedMessageMap.values())
+        for(Map.Entry<Long, MessageInstance> nacked : nackedMessageMap.entrySet())
         {
+            final long nackedDeliveryTag = nacked.getKey();
+            final MessageInstance message = nacked.getValue();
 
             if (message == null)
             {
-                _logger.warn("Ignoring nack request as message is null for tag:" + deliveryTag);
+                _logger.warn("Ignoring nack request as message is null for tag:" + nackedDeliveryTag);
             }
             else
             {
@@ -2622,7 +2629,7 @@ public class AMQChannel
                 {
                     if (_logger.isDebugEnabled())
                     {
-                        _logger.debug("Nack-ing: DT:" + deliveryTag
+                        _logger.debug("Nack-ing: DT:" + nackedDeliveryTag
                                       + "-" + message.getMessage() +
                                       ": Requeue:" + requeue
                                       +
@@ -2633,33 +2640,33 @@ public class AMQChannel
                     {
                         message.decrementDeliveryCount();
 
-                        requeue(deliveryTag);
+                        requeue(nackedDeliveryTag);
                     }
                     else
                     {
                         message.reject();
 
-                        final boolean maxDeliveryCountEnabled = isMaxDeliveryCountEnabled(deliveryTag);
+                        final boolean maxDeliveryCountEnabled = isMaxDeliveryCountEnabled(nackedDeliveryTag);
                         if (_logger.isDebugEnabled())
                         {
                             _logger.debug("maxDeliveryCountEnabled: "
                                           + maxDeliveryCountEnabled
                                           + " deliveryTag "
-                                          + deliveryTag);
+                                          + nackedDeliveryTag);
                         }
                         if (maxDeliveryCountEnabled)
                         {
-                            final boolean deliveredTooManyTimes = isDeliveredTooManyTimes(deliveryTag);
+                            final boolean deliveredTooManyTimes = isDeliveredTooManyTimes(nackedDeliveryTag);
                             if (_logger.isDebugEnabled())
                             {
                                 _logger.debug("deliveredTooManyTimes: "
                                               + deliveredTooManyTimes
                                               + " deliveryTag "
-                                              + deliveryTag);
+                                              + nackedDeliveryTag);
                             }
                             if (deliveredTooManyTimes)
                             {
-                                deadLetter(deliveryTag);
+                                deadLetter(nackedDeliveryTag);
                             }
                             else
                             {
@@ -2668,7 +2675,7 @@ public class AMQChannel
                         }
                         else
                         {
-                            requeue(deliveryTag);
+                            requeue(nackedDeliveryTag);
                         }
                     }
                 }
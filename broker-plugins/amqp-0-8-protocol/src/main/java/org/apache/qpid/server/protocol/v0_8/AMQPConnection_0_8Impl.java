@@ -82,7 +82,7 @@ import org.apache.qpid.server.util.Action;
 import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
 import org.apache.qpid.server.util.ServerScopedRuntimeException;
 import org.apache.qpid.server.virtualhost.VirtualHostUnavailableException;
-import org.apache.qpid.transport.ByteBufferSender;
+import org.apache.qpid.transport.CoalescingByteBufferSender;
 import org.apache.qpid.transport.TransportException;
 import org.apache.qpid.server.transport.AggregateTicker;
 
@@ -143,7 +143,7 @@ public class AMQPConnection_0_8Impl
     private volatile int _maxFrameSize;
     private final AtomicBoolean _orderlyClose = new AtomicBoolean(false);
 
-    private final ByteBufferSender _sender;
+    private final CoalescingByteBufferSender _sender;
 
     private volatile boolean _deferFlush;
     /** Guarded by _channelAddRemoveLock */
@@ -186,7 +186,7 @@ public class AMQPConnection_0_8Impl
                 ? getBroker().getContextValue(String.class, Broker.SEND_QUEUE_DELETE_OK_REGARDLESS_CLIENT_VER_REGEXP): "";
         _sendQueueDeleteOkRegardlessClientVerRegexp = Pattern.compile(sendQueueDeleteOkRegardlessRegexp);
 
-        _sender = network.getSender();
+        _sender = new CoalescingByteBufferSender(network.getSender());
         _closeWhenNoRoute = getBroker().getConnection_closeWhenNoRoute();
     }
 
@@ -577,6 +577,7 @@ public class AMQPConnection_0_8Impl
 
     public void closeNetworkConnection()
     {
+        flushFrames();
         getNetwork().close();
     }
 
@@ -727,10 +728,23 @@ public class AMQPConnection_0_8Impl
         }
         finally
         {
+            releaseFrameBuffer();
             markTransportClosed();
         }
     }
 
+    private synchronized void flushFrames()
+    {
+        _sender.flush();
+    }
+
+    private synchronized void releaseFrameBuffer()
+    {
+        _logger.debug("Connection {} coalesced {} frame buffers into {} network writes",
+                      this, _sender.getBuffersSent(), _sender.getBuffersWritten());
+        _sender.dispose();
+    }
+
     @Override
     protected boolean isOrderlyClose()
     {
@@ -861,8 +875,12 @@ public class AMQPConnection_0_8Impl
     }
 
 
-    public void setDeferFlush(boolean deferFlush)
+    public synchronized void setDeferFlush(boolean deferFlush)
     {
+        if(_deferFlush && !deferFlush)
+        {
+            _sender.flush();
+        }
         _deferFlush = deferFlush;
     }
 
@@ -1271,11 +1289,12 @@ public class AMQPConnection_0_8Impl
         public long deliverToClient(final ConsumerImpl sub, final ServerMessage message,
                                     final InstanceProperties props, final long deliveryTag)
         {
+            final ConsumerTarget_0_8 target = (ConsumerTarget_0_8) sub.getTarget();
             long size = _protocolOutputConverter.writeDeliver(message,
                                                   props,
                                                   _channelId,
                                                   deliveryTag,
-                                                  new AMQShortString(sub.getName()));
+                                                  target.getDeliverMethodTemplate());
             registerMessageDelivered(size);
             return size;
         }
@@ -1409,6 +1428,8 @@ public class AMQPConnection_0_8Impl
         {
             return Collections.emptyIterator();
         }
+        // frames written by other threads while flushing was deferred must reach the network before it is written to
+        flushFrames();
         return new ProcessPendingIterator();
     }
 
@@ -1443,9 +1464,16 @@ public class AMQPConnection_0_8Impl
                     @Override
                     public void run()
                     {
-                        if(!session.processPending())
+                        try
                         {
-                            _sessionIterator.remove();
+                            if(!session.processPending())
+                            {
+                                _sessionIterator.remove();
+                            }
+                        }
+                        finally
+                        {
+                            flushFrames();
                         }
                     }
                 };
@@ -1458,7 +1486,14 @@ public class AMQPConnection_0_8Impl
                     @Override
                     public void run()
                     {
-                        asyncAction.performAction(AMQPConnection_0_8Impl.this);
+                        try
+                        {
+                            asyncAction.performAction(AMQPConnection_0_8Impl.this);
+                        }
+                        finally
+                        {
+                            flushFrames();
+                        }
                     }
                 };
             }
@@ -291,6 +291,8 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget implemen
 
     private final AMQShortString _consumerTag;
 
+    private final DeliverMethodTemplate _deliverMethodTemplate;
+
     private final FlowCreditManager _creditManager;
 
     private final Boolean _autoClose;
@@ -311,6 +313,7 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget implemen
 
         _channel = channel;
         _consumerTag = consumerTag;
+        _deliverMethodTemplate = new DeliverMethodTemplate(consumerTag);
 
         _creditManager = creditManager;
         creditManager.addStateListener(this);
@@ -433,6 +436,11 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget implemen
         return _consumerTag;
     }
 
+    public DeliverMethodTemplate getDeliverMethodTemplate()
+    {
+        return _deliverMethodTemplate;
+    }
+
     private AMQPConnection_0_8 getConnection()
     {
         return _channel.getConnection();
@@ -0,0 +1,172 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_8;
+
+import org.apache.qpid.QpidException;
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.framing.AMQBody;
+import org.apache.qpid.framing.AMQMethodBody;
+import org.apache.qpid.framing.AMQShortString;
+import org.apache.qpid.framing.BasicDeliverBody;
+import org.apache.qpid.protocol.AMQVersionAwareProtocolSession;
+import org.apache.qpid.transport.ByteBufferSender;
+
+/**
+ * The encoded form of the basic.deliver method sent to one consumer.
+ * <p>
+ * The consumer tag never changes and the exchange and routing key are usually the same from one message to the next,
+ * so the method is encoded once and each delivery copies the encoded bytes, patching in its delivery tag and
+ * redelivered flag. The encoding is redone only when a message arrives with a different exchange or routing key.
+ */
+public final class DeliverMethodTemplate
+{
+    private static final int DELIVERY_TAG_OFFSET = 2 + 2 + 1;
+    private static final byte REDELIVERED = (byte) 1;
+
+    private final AMQShortString _consumerTag;
+    private volatile Encoding _encoding;
+
+    public DeliverMethodTemplate(final AMQShortString consumerTag)
+    {
+        _consumerTag = consumerTag;
+    }
+
+    public AMQShortString getConsumerTag()
+    {
+        return _consumerTag;
+    }
+
+    public AMQBody createBody(final long deliveryTag,
+                              final boolean redelivered,
+                              final AMQShortString exchange,
+                              final AMQShortString routingKey)
+    {
+        Encoding encoding = _encoding;
+        if(encoding == null || !encoding.matches(exchange, routingKey))
+        {
+            encoding = new Encoding(_consumerTag, exchange, routingKey);
+            _encoding = encoding;
+        }
+        return new DeliverBody(encoding, deliveryTag, redelivered);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DeliverMethodTemplate[consumerTag=" + _consumerTag + "]";
+    }
+
+    private static final class Encoding
+    {
+        private final AMQShortString _exchange;
+        private final AMQShortString _routingKey;
+        private final byte[] _bytes;
+        private final int _deliveryTagOffset;
+
+        private Encoding(final AMQShortString consumerTag,
+                         final AMQShortString exchange,
+                         final AMQShortString routingKey)
+        {
+            _exchange = exchange;
+            _routingKey = routingKey;
+
+            BasicDeliverBody body = new BasicDeliverBody(consumerTag, 0L, false, exchange, routingKey);
+            QpidByteBuffer buf = QpidByteBuffer.allocate(false, body.getSize());
+            buf.putUnsignedShort(BasicDeliverBody.CLASS_ID);
+            buf.putUnsignedShort(BasicDeliverBody.METHOD_ID);
+            body.writeMethodPayload(buf);
+            buf.flip();
+            _bytes = new byte[buf.remaining()];
+            buf.get(_bytes);
+            buf.dispose();
+
+            _deliveryTagOffset = DELIVERY_TAG_OFFSET + (consumerTag == null ? 0 : consumerTag.length());
+        }
+
+        private boolean matches(final AMQShortString exchange, final AMQShortString routingKey)
+        {
+            return equal(_exchange, exchange) && equal(_routingKey, routingKey);
+        }
+
+        private static boolean equal(final AMQShortString a, final AMQShortString b)
+        {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    private static final class DeliverBody implements AMQBody
+    {
+        private final Encoding _encoding;
+        private final long _deliveryTag;
+        private final boolean _redelivered;
+
+        private DeliverBody(final Encoding encoding, final long deliveryTag, final boolean redelivered)
+        {
+            _encoding = encoding;
+            _deliveryTag = deliveryTag;
+            _redelivered = redelivered;
+        }
+
+        @Override
+        public byte getFrameType()
+        {
+            return AMQMethodBody.TYPE;
+        }
+
+        @Override
+        public int getSize()
+        {
+            return _encoding._bytes.length;
+        }
+
+        @Override
+        public long writePayload(final ByteBufferSender sender)
+        {
+            final byte[] bytes = _encoding._bytes;
+            final int offset = _encoding._deliveryTagOffset;
+            QpidByteBuffer buf = QpidByteBuffer.allocate(sender.isDirectBufferPreferred(), bytes.length);
+            buf.put(bytes);
+            buf.putLong(offset, _deliveryTag);
+            if(_redelivered)
+            {
+                buf.put(offset + 8, REDELIVERED);
+            }
+            buf.flip();
+            sender.send(buf);
+            buf.dispose();
+            return bytes.length;
+        }
+
+        @Override
+        public void handle(final int channelId, final AMQVersionAwareProtocolSession amqProtocolSession)
+                throws QpidException
+        {
+            throw new QpidException("This block should never be dispatched!");
+        }
+
+        @Override
+        public String toString()
+        {
+            return "[" + getClass().getSimpleName() + " deliveryTag: " + _deliveryTag
+                   + ", redelivered: " + _redelivered + "]";
+        }
+    }
+}
@@ -20,14 +20,12 @@
  */
 package org.apache.qpid.server.protocol.v0_8;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.apache.qpid.framing.AMQShortString;
 import org.apache.qpid.framing.ContentBody;
 import org.apache.qpid.framing.ContentHeaderBody;
 import org.apache.qpid.framing.MessagePublishInfo;
 import org.apache.qpid.server.message.MessageDestination;
+import org.apache.qpid.server.store.MessageHandle;
 
 public class IncomingMessage
 {
@@ -40,7 +38,13 @@ public class IncomingMessage
      * Keeps a track of how many bytes we have received in body frames
      */
     private long _bodyLengthReceived = 0;
-    private List<ContentBody> _contentChunks = new ArrayList<ContentBody>();
+
+    /**
+     * The store's handle for the message, to which each content body is passed as it arrives rather than being
+     * collected here and copied to the store once the message is complete. The store still holds the whole
+     * content in memory until the message has been received, as the handle only persists complete messages.
+     */
+    private MessageHandle<MessageMetaData> _messageHandle;
 
     public IncomingMessage(MessagePublishInfo info)
     {
@@ -57,13 +61,36 @@ public class IncomingMessage
         return _messagePublishInfo;
     }
 
+    public void setMessageHandle(final MessageHandle<MessageMetaData> messageHandle)
+    {
+        _messageHandle = messageHandle;
+    }
+
+    public MessageHandle<MessageMetaData> getMessageHandle()
+    {
+        return _messageHandle;
+    }
+
     public long addContentBodyFrame(final ContentBody contentChunk)
     {
         _bodyLengthReceived += contentChunk.getSize();
-        _contentChunks.add(contentChunk);
+        _messageHandle.addContent(contentChunk.getPayload());
+        contentChunk.dispose();
         return _bodyLengthReceived;
     }
 
+    /**
+     * Releases the content received so far for a message which is not going to be enqueued.
+     */
+    public void discard()
+    {
+        if(_messageHandle != null)
+        {
+            _messageHandle.allContentAdded().remove();
+            _messageHandle = null;
+        }
+    }
+
     public boolean allContentReceived()
     {
         return (_bodyLengthReceived == getContentHeader().getBodySize());
@@ -94,14 +121,4 @@ public class IncomingMessage
         _messageDestination = e;
     }
 
-    public int getBodyCount()
-    {
-        return _contentChunks.size();
-    }
-
-    public ContentBody getContentChunk(int index)
-    {
-        return _contentChunks.get(index);
-    }
-
 }
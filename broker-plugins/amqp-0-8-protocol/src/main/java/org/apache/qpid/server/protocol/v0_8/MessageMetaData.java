@@ -158,8 +158,8 @@ public class MessageMetaData implements StorableMessageMetaData
             {
                 int size = buf.getInt();
                 ContentHeaderBody chb = ContentHeaderBody.createFromBuffer(buf, size);
-                final AMQShortString exchange = AMQShortString.readAMQShortString(buf);
-                final AMQShortString routingKey = AMQShortString.readAMQShortString(buf);
+                final AMQShortString exchange = AMQShortString.readInternedAMQShortString(buf);
+                final AMQShortString routingKey = AMQShortString.readInternedAMQShortString(buf);
 
                 final byte flags = buf.get();
                 long arrivalTime = buf.getLong();
@@ -41,7 +41,7 @@ public interface ProtocolOutputConverter
     long writeDeliver(final ServerMessage msg,
                       final InstanceProperties props, int channelId,
                       long deliveryTag,
-                      AMQShortString consumerTag);
+                      DeliverMethodTemplate deliverTemplate);
 
     long writeGetOk(final ServerMessage msg,
                     final InstanceProperties props,
@@ -32,7 +32,6 @@ import org.apache.qpid.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.framing.AMQBody;
 import org.apache.qpid.framing.AMQDataBlock;
 import org.apache.qpid.framing.AMQFrame;
-import org.apache.qpid.framing.AMQMethodBody;
 import org.apache.qpid.framing.AMQShortString;
 import org.apache.qpid.framing.BasicCancelOkBody;
 import org.apache.qpid.framing.BasicContentHeaderProperties;
@@ -64,11 +63,11 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
     public long writeDeliver(final ServerMessage m,
                              final InstanceProperties props, int channelId,
                              long deliveryTag,
-                             AMQShortString consumerTag)
+                             DeliverMethodTemplate deliverTemplate)
     {
         final AMQMessage msg = convertToAMQMessage(m);
         final boolean isRedelivered = Boolean.TRUE.equals(props.getProperty(InstanceProperties.Property.REDELIVERED));
-        AMQBody deliverBody = createEncodedDeliverBody(msg, isRedelivered, deliveryTag, consumerTag);
+        AMQBody deliverBody = createEncodedDeliverBody(msg, isRedelivered, deliveryTag, deliverTemplate);
         return writeMessageDelivery(msg, channelId, deliverBody);
     }
 
@@ -295,80 +294,10 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
     private AMQBody createEncodedDeliverBody(AMQMessage message,
                                              boolean isRedelivered,
                                              final long deliveryTag,
-                                             final AMQShortString consumerTag)
+                                             final DeliverMethodTemplate deliverTemplate)
     {
-
-        final AMQShortString exchangeName;
-        final AMQShortString routingKey;
-
         final MessagePublishInfo pb = message.getMessagePublishInfo();
-        exchangeName = pb.getExchange();
-        routingKey = pb.getRoutingKey();
-
-        return new EncodedDeliveryBody(deliveryTag, routingKey, exchangeName, consumerTag, isRedelivered);
-    }
-
-    private class EncodedDeliveryBody implements AMQBody
-    {
-        private final long _deliveryTag;
-        private final AMQShortString _routingKey;
-        private final AMQShortString _exchangeName;
-        private final AMQShortString _consumerTag;
-        private final boolean _isRedelivered;
-        private AMQBody _underlyingBody;
-
-        private EncodedDeliveryBody(long deliveryTag, AMQShortString routingKey, AMQShortString exchangeName, AMQShortString consumerTag, boolean isRedelivered)
-        {
-            _deliveryTag = deliveryTag;
-            _routingKey = routingKey;
-            _exchangeName = exchangeName;
-            _consumerTag = consumerTag;
-            _isRedelivered = isRedelivered;
-        }
-
-        public AMQBody createAMQBody()
-        {
-            return _connection.getMethodRegistry().createBasicDeliverBody(_consumerTag,
-                                                                               _deliveryTag,
-                                                                               _isRedelivered,
-                                                                               _exchangeName,
-                                                                               _routingKey);
-        }
-
-        public byte getFrameType()
-        {
-            return AMQMethodBody.TYPE;
-        }
-
-        public int getSize()
-        {
-            if(_underlyingBody == null)
-            {
-                _underlyingBody = createAMQBody();
-            }
-            return _underlyingBody.getSize();
-        }
-
-        public long writePayload(ByteBufferSender sender)
-        {
-            if(_underlyingBody == null)
-            {
-                _underlyingBody = createAMQBody();
-            }
-            return _underlyingBody.writePayload(sender);
-        }
-
-        public void handle(final int channelId, final AMQVersionAwareProtocolSession amqProtocolSession)
-            throws QpidException
-        {
-            throw new QpidException("This block should never be dispatched!");
-        }
-
-        @Override
-        public String toString()
-        {
-            return "[" + getClass().getSimpleName() + " underlyingBody: " + String.valueOf(_underlyingBody) + "]";
-        }
+        return deliverTemplate.createBody(deliveryTag, isRedelivered, pb.getExchange(), pb.getRoutingKey());
     }
 
     private AMQBody createEncodedGetOkBody(ServerMessage msg, InstanceProperties props, long deliveryTag, int queueSize)
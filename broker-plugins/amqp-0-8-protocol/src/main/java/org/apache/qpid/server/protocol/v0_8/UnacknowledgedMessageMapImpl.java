@@ -23,42 +23,75 @@ package org.apache.qpid.server.protocol.v0_8;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.qpid.server.message.MessageInstance;
 
+/**
+ * Holds the unacknowledged messages of a channel in delivery tag order.
+ * <p>
+ * Delivery tags are allocated by the channel in increasing order, so messages are appended to a ring of parallel
+ * primitive tag / message arrays.  Acknowledged messages leave a gap which is reclaimed as soon as it reaches
+ * either end of the ring, so acknowledging in delivery order (singly or with multiple) is O(1) per message
+ * without boxing the delivery tag.  Out of order acknowledgements are located by binary search, and gaps left in
+ * the middle of the ring are compacted once they outnumber the outstanding messages.
+ * <p>
+ * As AMQP 0-9-1 specifies, acknowledging or collecting with multiple set and a delivery tag of zero covers every
+ * outstanding message.
+ */
 public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
 {
+    private static final int MINIMUM_CAPACITY = 16;
+
     private final Object _lock = new Object();
 
-    private Map<Long, MessageInstance> _map;
+    private final int _initialCapacity;
 
-    private final int _prefetchLimit;
+    private long[] _deliveryTags;
+    private MessageInstance[] _messages;
+    /** array index of the oldest slot in use */
+    private int _head;
+    /** number of slots in use, including those whose message has been removed */
+    private int _used;
+    /** number of messages held */
+    private int _size;
+    private boolean _visiting;
 
     public UnacknowledgedMessageMapImpl(int prefetchLimit)
     {
-        _prefetchLimit = prefetchLimit;
-        _map = new LinkedHashMap<>(prefetchLimit);
+        _initialCapacity = capacityFor(prefetchLimit);
+        _deliveryTags = new long[_initialCapacity];
+        _messages = new MessageInstance[_initialCapacity];
     }
 
     public void collect(long deliveryTag, boolean multiple, Map<Long, MessageInstance> msgs)
     {
-        if (multiple)
-        {
-            collect(deliveryTag, msgs);
-        }
-        else
+        synchronized (_lock)
         {
-            final MessageInstance entry = get(deliveryTag);
-            if(entry != null)
+            if (multiple)
             {
-                msgs.put(deliveryTag, entry);
+                final long lastDeliveryTag = lastDeliveryTag(deliveryTag);
+                for (int i = 0; i < _used && tagAt(i) <= lastDeliveryTag; i++)
+                {
+                    final MessageInstance message = messageAt(i);
+                    if (message != null)
+                    {
+                        msgs.put(tagAt(i), message);
+                    }
+                }
+            }
+            else
+            {
+                final MessageInstance entry = get(deliveryTag);
+                if (entry != null)
+                {
+                    msgs.put(deliveryTag, entry);
+                }
             }
         }
-
     }
 
     public void remove(Map<Long,MessageInstance> msgs)
@@ -76,8 +109,13 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-
-            MessageInstance message = _map.remove(deliveryTag);
+            final int position = find(deliveryTag);
+            if (position < 0)
+            {
+                return null;
+            }
+            final MessageInstance message = removeAt(position);
+            reclaim();
             return message;
         }
     }
@@ -86,12 +124,24 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            Set<Map.Entry<Long, MessageInstance>> currentEntries = _map.entrySet();
-            for (Map.Entry<Long, MessageInstance> entry : currentEntries)
+            _visiting = true;
+            try
             {
-                visitor.callback(entry.getKey().longValue(), entry.getValue());
+                for (int i = 0; i < _used; i++)
+                {
+                    final MessageInstance message = messageAt(i);
+                    if (message != null)
+                    {
+                        visitor.callback(tagAt(i), message);
+                    }
+                }
+                visitor.visitComplete();
+            }
+            finally
+            {
+                _visiting = false;
+                reclaim();
             }
-            visitor.visitComplete();
         }
     }
 
@@ -99,7 +149,31 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            _map.put(deliveryTag, message);
+            ensureCapacity(_used + 1);
+            if (_used != 0 && deliveryTag <= tagAt(_used - 1))
+            {
+                final int position = find(deliveryTag);
+                if (position >= 0)
+                {
+                    if (messageAt(position) == null)
+                    {
+                        _size++;
+                    }
+                    _messages[slot(position)] = message;
+                }
+                else
+                {
+                    insertAt(-(position + 1), deliveryTag, message);
+                }
+            }
+            else
+            {
+                final int slot = slot(_used);
+                _deliveryTags[slot] = deliveryTag;
+                _messages[slot] = message;
+                _used++;
+                _size++;
+            }
         }
     }
 
@@ -107,8 +181,16 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            Collection<MessageInstance> currentEntries = _map.values();
-            _map = new LinkedHashMap<>(_prefetchLimit);
+            final List<MessageInstance> currentEntries = new ArrayList<>(_size);
+            for (int i = 0; i < _used; i++)
+            {
+                final MessageInstance message = messageAt(i);
+                if (message != null)
+                {
+                    currentEntries.add(message);
+                }
+            }
+            reset();
             return currentEntries;
         }
     }
@@ -117,7 +199,7 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            return _map.size();
+            return _size;
         }
     }
 
@@ -125,7 +207,7 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            _map.clear();
+            reset();
         }
     }
 
@@ -133,7 +215,8 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            return _map.get(key);
+            final int position = find(key);
+            return position < 0 ? null : messageAt(position);
         }
     }
 
@@ -141,7 +224,15 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            return _map.keySet();
+            final Set<Long> deliveryTags = new LinkedHashSet<>();
+            for (int i = 0; i < _used; i++)
+            {
+                if (messageAt(i) != null)
+                {
+                    deliveryTags.add(tagAt(i));
+                }
+            }
+            return deliveryTags;
         }
     }
 
@@ -149,26 +240,40 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         if(multiple)
         {
-            Map<Long, MessageInstance> ackedMessageMap = new LinkedHashMap<Long, MessageInstance>();
-            collect(deliveryTag, multiple, ackedMessageMap);
-            remove(ackedMessageMap);
-            List<MessageInstance> acknowledged = new ArrayList<>();
-            for (MessageInstance instance : ackedMessageMap.values())
+            final List<MessageInstance> acknowledged;
+            synchronized (_lock)
+            {
+                acknowledged = new ArrayList<>();
+                final long lastDeliveryTag = lastDeliveryTag(deliveryTag);
+                for (int i = 0; i < _used && tagAt(i) <= lastDeliveryTag; i++)
+                {
+                    final MessageInstance message = messageAt(i);
+                    if (message != null)
+                    {
+                        acknowledged.add(message);
+                        removeAt(i);
+                    }
+                }
+                reclaim();
+            }
+
+            int retained = 0;
+            for (MessageInstance instance : acknowledged)
             {
                 if (instance.makeAcquisitionUnstealable(instance.getAcquiringConsumer()))
                 {
-                    acknowledged.add(instance);
+                    acknowledged.set(retained++, instance);
                 }
             }
+            if (retained != acknowledged.size())
+            {
+                acknowledged.subList(retained, acknowledged.size()).clear();
+            }
             return acknowledged;
         }
         else
         {
-            MessageInstance instance;
-            synchronized (_lock)
-            {
-                instance = remove(deliveryTag);
-            }
+            MessageInstance instance = remove(deliveryTag);
             if(instance != null && instance.makeAcquisitionUnstealable(instance.getAcquiringConsumer()))
             {
                 return Collections.singleton(instance);
@@ -181,19 +286,188 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
         }
     }
 
-    private void collect(long key, Map<Long, MessageInstance> msgs)
+    /**
+     * A multiple acknowledgement with a delivery tag of zero covers all outstanding messages.
+     */
+    private static long lastDeliveryTag(final long deliveryTag)
     {
-        synchronized (_lock)
+        return deliveryTag == 0L ? Long.MAX_VALUE : deliveryTag;
+    }
+
+    private int slot(final int position)
+    {
+        return (_head + position) & (_messages.length - 1);
+    }
+
+    private long tagAt(final int position)
+    {
+        return _deliveryTags[slot(position)];
+    }
+
+    private MessageInstance messageAt(final int position)
+    {
+        return _messages[slot(position)];
+    }
+
+    /**
+     * @return the position of the slot holding the delivery tag or, if there is none, (-(insertion point) - 1)
+     */
+    private int find(final long deliveryTag)
+    {
+        if (_used == 0)
+        {
+            return -1;
+        }
+
+        // without gaps in the delivery tags the position follows directly from the tag
+        final long firstTag = tagAt(0);
+        if (deliveryTag >= firstTag && deliveryTag - firstTag < _used && tagAt((int) (deliveryTag - firstTag)) == deliveryTag)
         {
-            for (Map.Entry<Long, MessageInstance> entry : _map.entrySet())
+            return (int) (deliveryTag - firstTag);
+        }
+
+        int low = 0;
+        int high = _used - 1;
+        while (low <= high)
+        {
+            final int mid = (low + high) >>> 1;
+            final long midTag = tagAt(mid);
+            if (midTag < deliveryTag)
             {
-                msgs.put(entry.getKey(),entry.getValue());
-                if (entry.getKey() == key)
-                {
-                    break;
-                }
+                low = mid + 1;
+            }
+            else if (midTag > deliveryTag)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private MessageInstance removeAt(final int position)
+    {
+        final int slot = slot(position);
+        final MessageInstance message = _messages[slot];
+        if (message != null)
+        {
+            _messages[slot] = null;
+            _size--;
+        }
+        return message;
+    }
+
+    private void insertAt(final int position, final long deliveryTag, final MessageInstance message)
+    {
+        if (position == 0)
+        {
+            _head = (_head - 1) & (_messages.length - 1);
+        }
+        else
+        {
+            for (int i = _used; i > position; i--)
+            {
+                _deliveryTags[slot(i)] = tagAt(i - 1);
+                _messages[slot(i)] = messageAt(i - 1);
+            }
+        }
+        _deliveryTags[slot(position)] = deliveryTag;
+        _messages[slot(position)] = message;
+        _used++;
+        _size++;
+    }
+
+    /**
+     * Gives back the slots of removed messages at either end of the ring, and compacts the ring if removed
+     * messages in the middle outnumber those remaining.  Nothing is moved while the map is being visited.
+     */
+    private void reclaim()
+    {
+        if (_visiting)
+        {
+            return;
+        }
+        if (_size == 0)
+        {
+            if (_used != 0)
+            {
+                _head = 0;
+                _used = 0;
+            }
+            return;
+        }
+        while (messageAt(0) == null)
+        {
+            _head = slot(1);
+            _used--;
+        }
+        while (messageAt(_used - 1) == null)
+        {
+            _used--;
+        }
+        if (_used - _size > _size && _used > MINIMUM_CAPACITY)
+        {
+            resize(_messages.length);
+        }
+    }
+
+    private void ensureCapacity(final int required)
+    {
+        if (required > _messages.length)
+        {
+            resize(capacityFor(required));
+        }
+    }
+
+    /**
+     * Copies the outstanding messages, in delivery tag order, to the start of new arrays of the given capacity.
+     */
+    private void resize(final int capacity)
+    {
+        final long[] deliveryTags = new long[capacity];
+        final MessageInstance[] messages = new MessageInstance[capacity];
+        int count = 0;
+        for (int i = 0; i < _used; i++)
+        {
+            final MessageInstance message = messageAt(i);
+            if (message != null)
+            {
+                deliveryTags[count] = tagAt(i);
+                messages[count] = message;
+                count++;
+            }
+        }
+        _deliveryTags = deliveryTags;
+        _messages = messages;
+        _head = 0;
+        _used = count;
+    }
+
+    private void reset()
+    {
+        if (_messages.length > _initialCapacity)
+        {
+            _deliveryTags = new long[_initialCapacity];
+            _messages = new MessageInstance[_initialCapacity];
+        }
+        else
+        {
+            for (int i = 0; i < _used; i++)
+            {
+                _messages[slot(i)] = null;
             }
         }
+        _head = 0;
+        _used = 0;
+        _size = 0;
     }
 
+    private static int capacityFor(final int required)
+    {
+        final int capacity = Integer.highestOneBit(Math.max(required, MINIMUM_CAPACITY) - 1) << 1;
+        return capacity < 0 ? 1 << 30 : capacity;
+    }
 }
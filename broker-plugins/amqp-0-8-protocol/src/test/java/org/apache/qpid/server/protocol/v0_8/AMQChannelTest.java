@@ -26,6 +26,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -37,15 +38,18 @@ import java.util.Set;
 
 import javax.security.auth.Subject;
 
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.framing.AMQShortString;
 import org.apache.qpid.framing.BasicContentHeaderProperties;
 import org.apache.qpid.framing.MethodRegistry;
 import org.apache.qpid.framing.ProtocolVersion;
 import org.apache.qpid.protocol.AMQConstant;
 import org.apache.qpid.server.configuration.updater.TaskExecutor;
+import org.apache.qpid.server.consumer.ConsumerImpl;
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.message.InstanceProperties;
 import org.apache.qpid.server.message.MessageDestination;
+import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.BrokerModel;
@@ -60,6 +64,7 @@ import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.NullMessageStore;
 import org.apache.qpid.server.store.StorableMessageMetaData;
 import org.apache.qpid.server.store.StoredMemoryMessage;
+import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.txn.ServerTransaction;
 import org.apache.qpid.server.util.Action;
 import org.apache.qpid.test.utils.QpidTestCase;
@@ -220,4 +225,77 @@ public class AMQChannelTest extends QpidTestCase
                                          any(ServerTransaction.class),
                                          any(Action.class) );
     }
+
+    public void testContentPassedToStoreAsItArrives() throws Exception
+    {
+        when(_virtualHost.getDefaultDestination()).thenReturn(_messageDestination);
+        when(_amqConnection.getMaxMessageSize()).thenReturn(1024l);
+        MessageHandle<?> handle = mock(MessageHandle.class);
+        StoredMessage<?> storedMessage = mock(StoredMessage.class);
+        doReturn(storedMessage).when(handle).allContentAdded();
+        doReturn(handle).when(_messageStore).addMessage(any(StorableMessageMetaData.class));
+
+        int channelId = 1;
+        AMQChannel channel = new AMQChannel(_amqConnection, channelId, _messageStore);
+
+        channel.receiveBasicPublish(AMQShortString.EMPTY_STRING, ROUTING_KEY, false, false);
+        channel.receiveMessageHeader(new BasicContentHeaderProperties(), 10);
+        channel.receiveMessageContent(QpidByteBuffer.wrap(new byte[6]));
+
+        verify(handle).addContent(any(QpidByteBuffer.class));
+        verify(handle, never()).allContentAdded();
+
+        channel.receiveMessageContent(QpidByteBuffer.wrap(new byte[6]));
+
+        verify(_amqConnection).sendConnectionClose(eq(AMQConstant.FRAME_ERROR), anyString(), eq(channelId));
+        verify(storedMessage).remove();
+        verifyZeroInteractions(_messageDestination);
+    }
+
+    public void testMultipleAckWithDeliveryTagZeroAcknowledgesAllMessages() throws Exception
+    {
+        AMQChannel channel = new AMQChannel(_amqConnection, 1, _messageStore);
+        ConsumerImpl consumer = mock(ConsumerImpl.class);
+        MessageInstance[] messages = addUnacknowledgedMessages(channel, consumer, 5);
+
+        channel.receiveBasicAck(0, true);
+
+        assertEquals("Unexpected number of unacknowledged messages", 0, channel.getUnacknowledgedMessageMap().size());
+        for (MessageInstance message : messages)
+        {
+            verify(message).delete();
+        }
+    }
+
+    public void testMultipleNackWithDeliveryTagZeroRequeuesAllMessages() throws Exception
+    {
+        AMQChannel channel = new AMQChannel(_amqConnection, 1, _messageStore);
+        ConsumerImpl consumer = mock(ConsumerImpl.class);
+        MessageInstance[] messages = addUnacknowledgedMessages(channel, consumer, 5);
+
+        channel.receiveBasicNack(0, true, true);
+
+        assertEquals("Unexpected number of unacknowledged messages", 0, channel.getUnacknowledgedMessageMap().size());
+        for (MessageInstance message : messages)
+        {
+            verify(message).setRedelivered();
+            verify(message).release(consumer);
+        }
+    }
+
+    private MessageInstance[] addUnacknowledgedMessages(final AMQChannel channel,
+                                                        final ConsumerImpl consumer,
+                                                        final int count)
+    {
+        MessageInstance[] messages = new MessageInstance[count];
+        for (int i = 0; i < count; i++)
+        {
+            messages[i] = mock(MessageInstance.class);
+            when(messages[i].getMessage()).thenReturn(mock(ServerMessage.class));
+            when(messages[i].getAcquiringConsumer()).thenReturn(consumer);
+            when(messages[i].makeAcquisitionUnstealable(consumer)).thenReturn(true);
+            channel.getUnacknowledgedMessageMap().add(i + 1, messages[i]);
+        }
+        return messages;
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_8;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.framing.AMQBody;
+import org.apache.qpid.framing.AMQShortString;
+import org.apache.qpid.framing.BasicDeliverBody;
+import org.apache.qpid.test.utils.QpidTestCase;
+import org.apache.qpid.transport.ByteBufferSender;
+
+public class DeliverMethodTemplateTest extends QpidTestCase
+{
+    private static final AMQShortString CONSUMER_TAG = AMQShortString.valueOf("sgen_1");
+    private static final AMQShortString EXCHANGE = AMQShortString.valueOf("amq.direct");
+    private static final AMQShortString ROUTING_KEY = AMQShortString.valueOf("queue");
+
+    private final DeliverMethodTemplate _template = new DeliverMethodTemplate(CONSUMER_TAG);
+
+    public void testEncodingMatchesDeliverBody()
+    {
+        assertEncodingMatches(1L, false, EXCHANGE, ROUTING_KEY);
+        assertEncodingMatches(Long.MAX_VALUE, true, EXCHANGE, ROUTING_KEY);
+        assertEncodingMatches(2L, false, EXCHANGE, ROUTING_KEY);
+    }
+
+    public void testEncodingFollowsChangeOfRoutingKey()
+    {
+        assertEncodingMatches(1L, false, EXCHANGE, ROUTING_KEY);
+        assertEncodingMatches(2L, true, EXCHANGE, AMQShortString.valueOf("anotherQueue"));
+        assertEncodingMatches(3L, false, null, null);
+        assertEncodingMatches(4L, false, EXCHANGE, ROUTING_KEY);
+    }
+
+    private void assertEncodingMatches(final long deliveryTag,
+                                       final boolean redelivered,
+                                       final AMQShortString exchange,
+                                       final AMQShortString routingKey)
+    {
+        AMQBody expected = new BasicDeliverBody(CONSUMER_TAG, deliveryTag, redelivered, exchange, routingKey);
+        AMQBody actual = _template.createBody(deliveryTag, redelivered, exchange, routingKey);
+
+        assertEquals("Unexpected size", expected.getSize(), actual.getSize());
+        assertTrue("Unexpected encoding for delivery tag " + deliveryTag,
+                   Arrays.equals(encode(expected), encode(actual)));
+    }
+
+    private byte[] encode(final AMQBody body)
+    {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        body.writePayload(new ByteBufferSender()
+        {
+            @Override
+            public boolean isDirectBufferPreferred()
+            {
+                return false;
+            }
+
+            @Override
+            public void send(final QpidByteBuffer msg)
+            {
+                byte[] bytes = new byte[msg.remaining()];
+                QpidByteBuffer duplicate = msg.duplicate();
+                duplicate.get(bytes);
+                duplicate.dispose();
+                output.write(bytes, 0, bytes.length);
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        });
+        return output.toByteArray();
+    }
+}
@@ -24,6 +24,9 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.qpid.server.consumer.ConsumerImpl;
 import org.apache.qpid.server.message.MessageInstance;
@@ -66,6 +69,80 @@ public class UnacknowledgedMessageMapTest extends QpidTestCase
 
     }
 
+    public void testMultipleAcknowledgeStopsAtDeliveryTag()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(2);
+        MessageInstance[] msgs = populateMap(map, 50);
+
+        Collection<MessageInstance> acknowledged = map.acknowledge(19, true);
+        assertEquals(20, acknowledged.size());
+        assertEquals(30, map.size());
+        int i = 0;
+        for (MessageInstance instance : acknowledged)
+        {
+            assertSame("Unexpected message acknowledged at position " + i, msgs[i], instance);
+            i++;
+        }
+        assertNull(map.get(19));
+        assertSame(msgs[20], map.get(20));
+    }
+
+    public void testMultipleWithDeliveryTagZeroCoversAllMessages()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(100);
+        MessageInstance[] msgs = new MessageInstance[5];
+        for (int i = 0; i < msgs.length; i++)
+        {
+            msgs[i] = createMessageInstance(i);
+            map.add(i + 1L, msgs[i]);
+        }
+
+        Map<Long, MessageInstance> collected = new LinkedHashMap<>();
+        map.collect(0, true, collected);
+        assertEquals(msgs.length, collected.size());
+
+        Collection<MessageInstance> acknowledged = map.acknowledge(0, true);
+        assertEquals(msgs.length, acknowledged.size());
+        assertEquals(0, map.size());
+    }
+
+    public void testSingleAcknowledgeOutOfOrder()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(100);
+        MessageInstance[] msgs = populateMap(map, 10);
+
+        assertEquals(Collections.singleton(msgs[5]), map.acknowledge(5, false));
+        assertEquals(Collections.singleton(msgs[0]), map.acknowledge(0, false));
+        assertTrue(map.acknowledge(5, false).isEmpty());
+        assertEquals(8, map.size());
+        assertNull(map.get(5));
+        assertSame(msgs[6], map.get(6));
+
+        Collection<MessageInstance> acknowledged = map.acknowledge(7, true);
+        assertEquals(6, acknowledged.size());
+        assertFalse(acknowledged.contains(msgs[5]));
+        assertEquals(2, map.size());
+    }
+
+    public void testDeliveryTagsWithGaps()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(100);
+        MessageInstance[] msgs = new MessageInstance[5];
+        for (int i = 0; i < msgs.length; i++)
+        {
+            msgs[i] = createMessageInstance(i);
+            map.add(i * 10L, msgs[i]);
+        }
+
+        assertNull(map.get(15));
+        assertSame(msgs[2], map.get(20));
+        assertSame(msgs[2], map.remove(20));
+
+        Collection<MessageInstance> acknowledged = map.acknowledge(35, true);
+        assertEquals(3, acknowledged.size());
+        assertEquals(Collections.singleton(40L), map.getDeliveryTags());
+    }
+
     public MessageInstance[] populateMap(final UnacknowledgedMessageMap map, int size)
     {
         MessageInstance[] msgs = new MessageInstance[size];
@@ -170,7 +170,6 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
     private volatile FrameReceivingState _frameReceivingState = FrameReceivingState.AMQP_OR_SASL_HEADER;
 
     private static final short CONNECTION_CONTROL_CHANNEL = (short) 0;
-    private static final QpidByteBuffer EMPTY_BYTE_BUFFER = QpidByteBuffer.wrap(new byte[0]);
 
     private static final int DEFAULT_CHANNEL_MAX = Math.min(Integer.getInteger("amqp.channel_max", 255), 0xFFFF);
     private static final int DEFAULT_MAX_FRAME = Integer.getInteger("amqp.max_frame_size", 1 << 15);
@@ -1037,8 +1036,7 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
     {
         if (!_closedForOutput)
         {
-            ValueWriter<FrameBody> writer = _describedTypeRegistry.getValueWriter(body);
-            int size = writer.writeToBuffer(EMPTY_BYTE_BUFFER);
+            int size = _frameWriter.getEncodedSize(body);
             QpidByteBuffer payloadDup = payload == null ? null : payload.duplicate();
             int payloadSent = _maxFrameSize - (size + 9);
             try
@@ -1051,8 +1049,7 @@ public class AMQPConnection_1_0 extends AbstractAMQPConnection<AMQPConnection_1_
                         ((Transfer) body).setMore(Boolean.TRUE);
                     }
 
-                    writer = _describedTypeRegistry.getValueWriter(body);
-                    size = writer.writeToBuffer(EMPTY_BYTE_BUFFER);
+                    size = _frameWriter.getEncodedSize(body);
                     payloadSent = _maxFrameSize - (size + 9);
 
                     payloadDup.limit(payloadDup.position() + payloadSent);
@@ -21,6 +21,7 @@
 package org.apache.qpid.server.protocol.v1_0;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,21 +34,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.protocol.v1_0.codec.ValueHandler;
-import org.apache.qpid.server.protocol.v1_0.messaging.SectionDecoder;
 import org.apache.qpid.server.protocol.v1_0.messaging.SectionEncoder;
 import org.apache.qpid.server.protocol.v1_0.type.AmqpErrorException;
 import org.apache.qpid.server.protocol.v1_0.type.Section;
 import org.apache.qpid.server.protocol.v1_0.type.Symbol;
+import org.apache.qpid.server.protocol.v1_0.type.UnsignedLong;
 import org.apache.qpid.server.protocol.v1_0.type.codec.AMQPDescribedTypeRegistry;
-import org.apache.qpid.server.protocol.v1_0.type.messaging.AmqpSequence;
-import org.apache.qpid.server.protocol.v1_0.type.messaging.AmqpValue;
 import org.apache.qpid.server.protocol.v1_0.type.messaging.ApplicationProperties;
-import org.apache.qpid.server.protocol.v1_0.type.messaging.Data;
 import org.apache.qpid.server.protocol.v1_0.type.messaging.DeliveryAnnotations;
-import org.apache.qpid.server.protocol.v1_0.type.messaging.Footer;
 import org.apache.qpid.server.protocol.v1_0.type.messaging.Header;
 import org.apache.qpid.server.protocol.v1_0.type.messaging.MessageAnnotations;
 import org.apache.qpid.server.protocol.v1_0.type.messaging.Properties;
+import org.apache.qpid.server.protocol.v1_0.type.transport.AmqpError;
 import org.apache.qpid.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.message.AMQMessageHeader;
 import org.apache.qpid.server.plugin.MessageMetaDataType;
@@ -63,12 +61,55 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
     private static final MessageMetaDataType_1_0 TYPE = new MessageMetaDataType_1_0();
 
 
-    private Header _header;
-    private Properties _properties;
-    private Map _deliveryAnnotations;
-    private Map _messageAnnotations;
-    private Map _appProperties;
-    private Map _footer;
+    private static final AMQPDescribedTypeRegistry DESCRIBED_TYPE_REGISTRY = AMQPDescribedTypeRegistry.newInstance()
+            .registerTransportLayer()
+            .registerMessagingLayer()
+            .registerTransactionLayer()
+            .registerSecurityLayer();
+    private static final ValueHandler VALUE_HANDLER = new ValueHandler(DESCRIBED_TYPE_REGISTRY);
+
+    // the sections which are decoded on demand, in the order they appear in a message
+    private static final int HEADER = 0;
+    private static final int MESSAGE_ANNOTATIONS = 1;
+    private static final int PROPERTIES = 2;
+    private static final int APPLICATION_PROPERTIES = 3;
+    private static final int LAZY_SECTION_COUNT = 4;
+    private static final int BODY = LAZY_SECTION_COUNT;
+    private static final int OTHER = -1;
+
+    private static final byte LIST0 = (byte) 0x45;
+    private static final byte LIST8 = (byte) 0xc0;
+    private static final byte LIST32 = (byte) 0xd0;
+    private static final byte MAP8 = (byte) 0xc1;
+    private static final byte MAP32 = (byte) 0xd1;
+
+    private static final Map<Object, Integer> SECTION_DESCRIPTORS = new HashMap<>();
+
+    static
+    {
+        addSectionDescriptor("amqp:header:list", 0x70L, HEADER);
+        addSectionDescriptor("amqp:delivery-annotations:map", 0x71L, OTHER);
+        addSectionDescriptor("amqp:message-annotations:map", 0x72L, MESSAGE_ANNOTATIONS);
+        addSectionDescriptor("amqp:properties:list", 0x73L, PROPERTIES);
+        addSectionDescriptor("amqp:application-properties:map", 0x74L, APPLICATION_PROPERTIES);
+        addSectionDescriptor("amqp:data:binary", 0x75L, BODY);
+        addSectionDescriptor("amqp:amqp-sequence:list", 0x76L, BODY);
+        addSectionDescriptor("amqp:amqp-value:*", 0x77L, BODY);
+        addSectionDescriptor("amqp:footer:map", 0x78L, OTHER);
+    }
+
+    private volatile Header _header;
+    private volatile Properties _properties;
+    private volatile Map _messageAnnotations;
+    private volatile Map _appProperties;
+
+    /*
+     * When the metadata is created from an encoded message the sections preceding the body are only located, and are
+     * decoded from _encodedMetaData the first time they are asked for. _sectionBounds holds the start and end of each
+     * such section within _encodedMetaData, or -1 for a section the message does not have.
+     */
+    private volatile QpidByteBuffer _encodedMetaData;
+    private final int[] _sectionBounds;
 
     private volatile List<QpidByteBuffer> _encodedSections = new ArrayList<>(3);
 
@@ -83,13 +124,84 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
     public Properties getPropertiesSection()
     {
-        return _properties;
+        Properties properties = _properties;
+        if(properties == null && hasSection(PROPERTIES))
+        {
+            properties = (Properties) decodeSection(PROPERTIES);
+            _properties = properties;
+        }
+        return properties;
     }
 
 
     public Header getHeaderSection()
     {
-        return _header;
+        Header header = _header;
+        if(header == null && hasSection(HEADER))
+        {
+            header = (Header) decodeSection(HEADER);
+            _header = header;
+        }
+        return header;
+    }
+
+    private Map getMessageAnnotations()
+    {
+        Map messageAnnotations = _messageAnnotations;
+        if(messageAnnotations == null && hasSection(MESSAGE_ANNOTATIONS))
+        {
+            messageAnnotations = ((MessageAnnotations) decodeSection(MESSAGE_ANNOTATIONS)).getValue();
+            _messageAnnotations = messageAnnotations;
+        }
+        return messageAnnotations;
+    }
+
+    private Map getApplicationProperties()
+    {
+        Map appProperties = _appProperties;
+        if(appProperties == null && hasSection(APPLICATION_PROPERTIES))
+        {
+            appProperties = ((ApplicationProperties) decodeSection(APPLICATION_PROPERTIES)).getValue();
+            _appProperties = appProperties;
+        }
+        return appProperties;
+    }
+
+    private boolean hasSection(final int section)
+    {
+        return _sectionBounds != null && _sectionBounds[2 * section] != -1;
+    }
+
+    private Section decodeSection(final int section)
+    {
+        final QpidByteBuffer encodedMetaData = _encodedMetaData;
+        if(encodedMetaData == null)
+        {
+            // disposed
+            return null;
+        }
+        final QpidByteBuffer buf = encodedMetaData.duplicate();
+        try
+        {
+            buf.limit(_sectionBounds[2 * section + 1]);
+            buf.position(_sectionBounds[2 * section]);
+            return (Section) VALUE_HANDLER.parse(buf);
+        }
+        catch (AmqpErrorException e)
+        {
+            _logger.error("Decoding read section error", e);
+            throw new ConnectionScopedRuntimeException(e);
+        }
+        finally
+        {
+            buf.dispose();
+        }
+    }
+
+    private static void addSectionDescriptor(final String symbol, final long code, final int section)
+    {
+        SECTION_DESCRIPTORS.put(Symbol.valueOf(symbol), section);
+        SECTION_DESCRIPTORS.put(UnsignedLong.valueOf(code), section);
     }
 
     private static ArrayList<QpidByteBuffer> encodeSections(final List<Section> sections, final SectionEncoder encoder)
@@ -104,19 +216,37 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
         return encodedSections;
     }
 
-    public MessageMetaData_1_0(QpidByteBuffer[] fragments, SectionDecoder decoder)
+    public MessageMetaData_1_0(QpidByteBuffer[] fragments)
     {
-        this(fragments, decoder, new ArrayList<QpidByteBuffer>(3));
+        this(fragments, new ArrayList<QpidByteBuffer>(3));
+    }
+
+    public MessageMetaData_1_0(QpidByteBuffer[] fragments, List<QpidByteBuffer> immutableSections)
+    {
+        _sectionBounds = newSectionBounds();
+        _encodedMetaData = locateSections(fragments, _sectionBounds);
+        for(QpidByteBuffer buf : fragments)
+        {
+            immutableSections.add(buf.duplicate());
+        }
+        _encodedSections = immutableSections;
+        _messageHeader = new MessageHeader_1_0();
     }
 
-    public MessageMetaData_1_0(QpidByteBuffer[] fragments, SectionDecoder decoder, List<QpidByteBuffer> immutableSections)
+    private MessageMetaData_1_0(List<QpidByteBuffer> encodedSections,
+                                QpidByteBuffer encodedMetaData,
+                                int[] sectionBounds)
     {
-        this(constructSections(fragments, decoder,immutableSections), immutableSections);
+        _sectionBounds = sectionBounds;
+        _encodedMetaData = encodedMetaData;
+        _encodedSections = encodedSections;
+        _messageHeader = new MessageHeader_1_0();
     }
 
     private MessageMetaData_1_0(List<Section> sections, List<QpidByteBuffer> encodedSections)
     {
         _encodedSections = encodedSections;
+        _sectionBounds = null;
 
         Iterator<Section> sectIter = sections.iterator();
 
@@ -129,7 +259,6 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
         if(section instanceof DeliveryAnnotations)
         {
-            _deliveryAnnotations = ((DeliveryAnnotations) section).getValue();
             section = sectIter.hasNext() ? sectIter.next() : null;
         }
 
@@ -148,149 +277,206 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
         if(section instanceof ApplicationProperties)
         {
             _appProperties = ((ApplicationProperties) section).getValue();
-            section = sectIter.hasNext() ? sectIter.next() : null;
-        }
-
-        if(section instanceof Footer)
-        {
-            _footer = ((Footer) section).getValue();
-            section = sectIter.hasNext() ? sectIter.next() : null;
         }
 
         _messageHeader = new MessageHeader_1_0();
 
     }
 
-    private static List<Section> constructSections(final QpidByteBuffer[] fragments, final SectionDecoder decoder, List<QpidByteBuffer> encodedSections)
+    private static int[] newSectionBounds()
     {
-        List<Section> sections = new ArrayList<Section>(3);
+        int[] sectionBounds = new int[2 * LAZY_SECTION_COUNT];
+        Arrays.fill(sectionBounds, -1);
+        return sectionBounds;
+    }
 
-        QpidByteBuffer src;
-        if(fragments.length == 1)
+    /**
+     * Records the bounds of the sections preceding the body of the message held in the given fragments, and returns
+     * a buffer holding those sections. The first fragment is scanned on its own, as it will usually hold all of them;
+     * only if it does not are the fragments copied into one buffer.
+     */
+    private static QpidByteBuffer locateSections(final QpidByteBuffer[] fragments, final int[] sectionBounds)
+    {
+        if(fragments.length == 0)
         {
-            src = fragments[0].duplicate();
+            return null;
         }
-        else
+
+        QpidByteBuffer src = fragments[0].slice();
+        try
         {
-            int size = 0;
-            for(QpidByteBuffer buf : fragments)
+            int end = locateSections(src, sectionBounds, fragments.length == 1, true);
+            if(end != -1)
             {
-                size += buf.remaining();
+                return sliceOrNull(src, end);
             }
-            src = QpidByteBuffer.allocateDirect(size);
-            for(QpidByteBuffer buf : fragments)
+        }
+        catch (AmqpErrorException e)
+        {
+            if(fragments.length == 1)
             {
-                QpidByteBuffer duplicate = buf.duplicate();
-                src.put(duplicate);
-                duplicate.dispose();
+                _logger.error("Decoding read section error", e);
+                throw new IllegalArgumentException(e);
             }
-            src.flip();
-
+        }
+        finally
+        {
+            src.dispose();
         }
 
+        Arrays.fill(sectionBounds, -1);
+        int size = 0;
+        for(QpidByteBuffer buf : fragments)
+        {
+            size += buf.remaining();
+        }
+        src = QpidByteBuffer.allocateDirect(size);
         try
         {
-            int startBarePos = -1;
-            int lastPos = src.position();
-            Section s = decoder.readSection(src);
-
-
-
-            if(s instanceof Header)
+            for(QpidByteBuffer buf : fragments)
             {
-                sections.add(s);
-                lastPos = src.position();
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
+                QpidByteBuffer duplicate = buf.duplicate();
+                src.put(duplicate);
+                duplicate.dispose();
             }
+            src.flip();
 
-            if(s instanceof DeliveryAnnotations)
+            int end = locateSections(src, sectionBounds, true, true);
+            if(end <= 0)
             {
-                sections.add(s);
-                lastPos = src.position();
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
+                return null;
             }
+            // copy rather than slice the sections so that the copy of the whole message is not retained
+            QpidByteBuffer encodedMetaData = QpidByteBuffer.allocate(end);
+            src.position(0);
+            src.limit(end);
+            encodedMetaData.put(src);
+            encodedMetaData.flip();
+            return encodedMetaData;
+        }
+        catch (AmqpErrorException e)
+        {
+            _logger.error("Decoding read section error", e);
+            throw new IllegalArgumentException(e);
+        }
+        finally
+        {
+            src.dispose();
+        }
+    }
 
-            if(s instanceof MessageAnnotations)
+    /**
+     * Scans the sections of an encoded message, which starts at position zero of the given buffer, up to the start
+     * of its body. When validating, the sections which are decoded on demand are checked in full, so that a message
+     * which could not be decoded later is rejected as it is received rather than failing on whichever thread first
+     * reads it.
+     *
+     * @return the end of the last section preceding the body, or -1 if the buffer ran out before the body was found
+     *         and the message may continue beyond it
+     */
+    private static int locateSections(final QpidByteBuffer src,
+                                      final int[] sectionBounds,
+                                      final boolean complete,
+                                      final boolean validate)
+            throws AmqpErrorException
+    {
+        int last = -1;
+        int end = 0;
+        boolean bodyFound = false;
+        while(!bodyFound && src.hasRemaining())
+        {
+            final int start = src.position();
+            if(!complete && src.remaining() < 2)
             {
-                sections.add(s);
-                lastPos = src.position();
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
+                return -1;
             }
-
-            if(s instanceof Properties)
+            if(src.get() != 0)
             {
-                sections.add(s);
-                if(startBarePos == -1)
-                {
-                    startBarePos = lastPos;
-                }
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
+                throw new AmqpErrorException(AmqpError.DECODE_ERROR, "Expected a message section at position %d", start);
             }
 
-            if(s instanceof ApplicationProperties)
+            final Integer section;
+            try
             {
-                sections.add(s);
-                if(startBarePos == -1)
+                section = SECTION_DESCRIPTORS.get(VALUE_HANDLER.parse(src));
+                if(validate && section != null && section != OTHER && section != BODY)
                 {
-                    startBarePos = lastPos;
+                    validateSection(src, section);
                 }
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
-            }
-
-            if(s instanceof AmqpValue)
-            {
-                if(startBarePos == -1)
+                else
                 {
-                    startBarePos = lastPos;
+                    VALUE_HANDLER.skip(src);
                 }
-                s = src.hasRemaining() ? decoder.readSection(src) : null;
             }
-            else if(s instanceof Data)
+            catch (AmqpErrorException e)
             {
-                if(startBarePos == -1)
+                if(complete)
                 {
-                    startBarePos = lastPos;
+                    throw e;
                 }
-                do
-                {
-                    s = src.hasRemaining() ? decoder.readSection(src) : null;
-                } while(s instanceof Data);
+                return -1;
             }
-            else if(s instanceof AmqpSequence)
+
+            if(section == null)
             {
-                if(startBarePos == -1)
-                {
-                    startBarePos = lastPos;
-                }
-                do
-                {
-                    s = src.hasRemaining() ? decoder.readSection(src) : null;
-                }
-                while(s instanceof AmqpSequence);
+                throw new AmqpErrorException(AmqpError.DECODE_ERROR, "Unknown message section at position %d", start);
             }
-
-            if(s instanceof Footer)
+            else if(section == BODY)
             {
-                sections.add(s);
+                bodyFound = true;
             }
-
-
-            for(QpidByteBuffer buf : fragments)
+            else if(section > last)
             {
-                encodedSections.add(buf.duplicate());
+                sectionBounds[2 * section] = start;
+                sectionBounds[2 * section + 1] = src.position();
+                last = section;
+                end = src.position();
             }
+        }
+        return bodyFound || complete ? end : -1;
+    }
 
-            return sections;
+    /**
+     * Validates the value of a section decoded on demand, which must be the list or map its section constructor
+     * expects, as any other value would be decoded as a missing section.
+     */
+    private static void validateSection(final QpidByteBuffer src, final int section) throws AmqpErrorException
+    {
+        if(!src.hasRemaining())
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR, "Insufficient data - expected section value");
         }
-        catch (AmqpErrorException e)
+        final byte formatCode = src.get(src.position());
+        final boolean valid;
+        if(section == HEADER || section == PROPERTIES)
         {
-            _logger.error("Decoding read section error", e);
-            throw new IllegalArgumentException(e);
+            valid = formatCode == LIST0 || formatCode == LIST8 || formatCode == LIST32;
         }
-        finally
+        else
         {
-            src.dispose();
+            valid = formatCode == MAP8 || formatCode == MAP32;
+        }
+        if(!valid)
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR,
+                                         "Unexpected format code 0x%02x for message section at position %d",
+                                         formatCode, src.position());
+        }
+        VALUE_HANDLER.validate(src);
+    }
+
+    private static QpidByteBuffer sliceOrNull(final QpidByteBuffer src, final int end)
+    {
+        if(end == 0)
+        {
+            return null;
         }
+        QpidByteBuffer duplicate = src.duplicate();
+        duplicate.position(0);
+        duplicate.limit(end);
+        QpidByteBuffer slice = duplicate.slice();
+        duplicate.dispose();
+        return slice;
     }
 
 
@@ -365,7 +551,8 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
     public boolean isPersistent()
     {
-        return _header != null && Boolean.TRUE.equals(_header.getDurable());
+        Header header = getHeaderSection();
+        return header != null && Boolean.TRUE.equals(header.getDurable());
     }
 
     public MessageHeader_1_0 getMessageHeader()
@@ -381,8 +568,16 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
             bin.dispose();
         }
         _encodedSections = null;
-        _encoded.dispose();
-        _encoded = null;
+        if(_encodedMetaData != null)
+        {
+            _encodedMetaData.dispose();
+            _encodedMetaData = null;
+        }
+        if(_encoded != null)
+        {
+            _encoded.dispose();
+            _encoded = null;
+        }
     }
 
     @Override
@@ -393,45 +588,26 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
     private static class MetaDataFactory implements MessageMetaDataType.Factory<MessageMetaData_1_0>
     {
-        private final AMQPDescribedTypeRegistry _typeRegistry = AMQPDescribedTypeRegistry.newInstance();
-
-        private MetaDataFactory()
-        {
-            _typeRegistry.registerTransportLayer();
-            _typeRegistry.registerMessagingLayer();
-            _typeRegistry.registerTransactionLayer();
-            _typeRegistry.registerSecurityLayer();
-        }
-
         public MessageMetaData_1_0 createMetaData(QpidByteBuffer buf)
         {
-            ValueHandler valueHandler = new ValueHandler(_typeRegistry);
-
-            ArrayList<Section> sections = new ArrayList<Section>(3);
-            ArrayList<QpidByteBuffer> encodedSections = new ArrayList<>(3);
-
-            while(buf.hasRemaining())
+            int[] sectionBounds = newSectionBounds();
+            QpidByteBuffer encoded = buf.slice();
+            try
             {
-                try
-                {
-                    int start = buf.position();
-                    QpidByteBuffer encodedBuf = buf.slice();
-                    Object parse = valueHandler.parse(buf);
-                    sections.add((Section) parse);
-                    encodedBuf.limit(buf.position()-start);
-                    encodedSections.add(encodedBuf);
-
-                }
-                catch (AmqpErrorException e)
-                {
-                    //TODO
-                    throw new ConnectionScopedRuntimeException(e);
-                }
+                QpidByteBuffer encodedMetaData = sliceOrNull(encoded, locateSections(encoded, sectionBounds, true, false));
+                encoded.position(0);
+                buf.position(buf.limit());
 
+                ArrayList<QpidByteBuffer> encodedSections = new ArrayList<>(1);
+                encodedSections.add(encoded);
+                return new MessageMetaData_1_0(encodedSections, encodedMetaData, sectionBounds);
+            }
+            catch (AmqpErrorException e)
+            {
+                encoded.dispose();
+                //TODO
+                throw new ConnectionScopedRuntimeException(e);
             }
-
-            return new MessageMetaData_1_0(sections,encodedSections);
-
         }
     }
 
@@ -440,13 +616,14 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
         public String getCorrelationId()
         {
-            if(_properties == null || _properties.getCorrelationId() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getCorrelationId() == null)
             {
                 return null;
             }
             else
             {
-                return _properties.getCorrelationId().toString();
+                return properties.getCorrelationId().toString();
             }
         }
 
@@ -457,26 +634,27 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
         public String getMessageId()
         {
-            if(_properties == null || _properties.getMessageId() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getMessageId() == null)
             {
                 return null;
             }
             else
             {
-                return _properties.getMessageId().toString();
+                return properties.getMessageId().toString();
             }
         }
 
         public String getMimeType()
         {
-
-            if(_properties == null || _properties.getContentType() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getContentType() == null)
             {
                 return null;
             }
             else
             {
-                return _properties.getContentType().toString();
+                return properties.getContentType().toString();
             }
         }
 
@@ -487,25 +665,27 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
         public byte getPriority()
         {
-            if(_header == null || _header.getPriority() == null)
+            Header header = getHeaderSection();
+            if(header == null || header.getPriority() == null)
             {
                 return 4; //javax.jms.Message.DEFAULT_PRIORITY;
             }
             else
             {
-                return _header.getPriority().byteValue();
+                return header.getPriority().byteValue();
             }
         }
 
         public long getTimestamp()
         {
-            if(_properties == null || _properties.getCreationTime() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getCreationTime() == null)
             {
                 return 0L;
             }
             else
             {
-                return _properties.getCreationTime().getTime();
+                return properties.getCreationTime().getTime();
             }
 
         }
@@ -514,9 +694,10 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
         @Override
         public long getNotValidBefore()
         {
+            Map messageAnnotations = getMessageAnnotations();
             long notValidBefore;
             Object annotation;
-            if(_messageAnnotations != null && (annotation = _messageAnnotations.get(Symbol.valueOf("x-qpid-not-valid-before"))) instanceof Number)
+            if(messageAnnotations != null && (annotation = messageAnnotations.get(Symbol.valueOf("x-qpid-not-valid-before"))) instanceof Number)
             {
                 notValidBefore = ((Number)annotation).longValue();
             }
@@ -536,25 +717,27 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
             }
 
             // Use legacy annotation if present and there was no subject
-            if(_messageAnnotations == null || _messageAnnotations.get(JMS_TYPE) == null)
+            Map messageAnnotations = getMessageAnnotations();
+            if(messageAnnotations == null || messageAnnotations.get(JMS_TYPE) == null)
             {
                 return null;
             }
             else
             {
-                return _messageAnnotations.get(JMS_TYPE).toString();
+                return messageAnnotations.get(JMS_TYPE).toString();
             }
         }
 
         public String getReplyTo()
         {
-            if(_properties == null || _properties.getReplyTo() == null)
+            Properties properties = getPropertiesSection();
+            if(properties == null || properties.getReplyTo() == null)
             {
                 return null;
             }
             else
             {
-                return _properties.getReplyTo();
+                return properties.getReplyTo();
             }
         }
 
@@ -572,19 +755,21 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
 
         public Object getHeader(final String name)
         {
-            return _appProperties == null ? null : _appProperties.get(name);
+            Map appProperties = getApplicationProperties();
+            return appProperties == null ? null : appProperties.get(name);
         }
 
         public boolean containsHeaders(final Set<String> names)
         {
-            if(_appProperties == null)
+            Map appProperties = getApplicationProperties();
+            if(appProperties == null)
             {
                 return false;
             }
 
             for(String key : names)
             {
-                if(!_appProperties.containsKey(key))
+                if(!appProperties.containsKey(key))
                 {
                     return false;
                 }
@@ -595,31 +780,36 @@ public class MessageMetaData_1_0 implements StorableMessageMetaData
         @Override
         public Collection<String> getHeaderNames()
         {
-            if(_appProperties == null)
+            Map appProperties = getApplicationProperties();
+            if(appProperties == null)
             {
                 return Collections.emptySet();
             }
-            return Collections.unmodifiableCollection(_appProperties.keySet());
+            return Collections.unmodifiableCollection(appProperties.keySet());
         }
 
         public boolean containsHeader(final String name)
         {
-            return _appProperties != null && _appProperties.containsKey(name);
+            Map appProperties = getApplicationProperties();
+            return appProperties != null && appProperties.containsKey(name);
         }
 
         public String getSubject()
         {
-            return _properties == null ? null : _properties.getSubject();
+            Properties properties = getPropertiesSection();
+            return properties == null ? null : properties.getSubject();
         }
 
         public String getTo()
         {
-            return _properties == null ? null : _properties.getTo();
+            Properties properties = getPropertiesSection();
+            return properties == null ? null : properties.getTo();
         }
 
         public Map<String, Object> getHeadersAsMap()
         {
-            return _appProperties == null ? new HashMap<String,Object>() : new HashMap<String,Object>(_appProperties);
+            Map appProperties = getApplicationProperties();
+            return appProperties == null ? new HashMap<String,Object>() : new HashMap<String,Object>(appProperties);
         }
     }
 
@@ -28,7 +28,6 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.qpid.server.model.NamedAddressSpace;
-import org.apache.qpid.server.protocol.v1_0.messaging.SectionDecoderImpl;
 import org.apache.qpid.server.protocol.v1_0.type.Binary;
 import org.apache.qpid.server.protocol.v1_0.type.DeliveryState;
 import org.apache.qpid.server.protocol.v1_0.type.Outcome;
@@ -53,7 +52,6 @@ public class ReceivingLink_1_0 implements ReceivingLinkListener, Link_1_0, Deliv
     private NamedAddressSpace _addressSpace;
 
     private ReceivingDestination _destination;
-    private SectionDecoderImpl _sectionDecoder;
     private volatile ReceivingLinkAttachment _attachment;
 
 
@@ -78,8 +76,6 @@ public class ReceivingLink_1_0 implements ReceivingLinkListener, Link_1_0, Deliv
 
         _durability = ((Target)receivingLinkAttachment.getTarget()).getDurable();
 
-        _sectionDecoder = new SectionDecoderImpl(receivingLinkAttachment.getEndpoint().getSession().getConnection().getDescribedTypeRegistry());
-
 
     }
 
@@ -152,7 +148,6 @@ public class ReceivingLink_1_0 implements ReceivingLinkListener, Link_1_0, Deliv
             MessageMetaData_1_0 mmd = null;
             List<QpidByteBuffer> immutableSections = new ArrayList<>(3);
             mmd = new MessageMetaData_1_0(fragments.toArray(new QpidByteBuffer[fragments.size()]),
-                    _sectionDecoder,
                     immutableSections);
             MessageHandle<MessageMetaData_1_0> handle = _addressSpace.getMessageStore().addMessage(mmd);
 
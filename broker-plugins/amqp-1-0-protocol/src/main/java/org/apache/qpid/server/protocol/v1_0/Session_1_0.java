@@ -150,8 +150,10 @@ public class Session_1_0 implements AMQSessionModel<Session_1_0>, LogSubject
     private SequenceNumber _nextIncomingTransferId;
     private SequenceNumber _nextOutgoingTransferId = new SequenceNumber(_initialOutgoingId.intValue());
 
-    private LinkedHashMap<UnsignedInteger,Delivery> _outgoingUnsettled = new LinkedHashMap<>(DEFAULT_SESSION_BUFFER_SIZE);
-    private LinkedHashMap<UnsignedInteger,Delivery> _incomingUnsettled = new LinkedHashMap<>(DEFAULT_SESSION_BUFFER_SIZE);
+    private final UnsettledDeliveries _outgoingUnsettled = new UnsettledDeliveries(DEFAULT_SESSION_BUFFER_SIZE,
+                                                                                   DEFAULT_SESSION_BUFFER_SIZE);
+    private final UnsettledDeliveries _incomingUnsettled = new UnsettledDeliveries(DEFAULT_SESSION_BUFFER_SIZE,
+                                                                                   DEFAULT_SESSION_BUFFER_SIZE);
 
     private int _availableIncomingCredit = DEFAULT_SESSION_BUFFER_SIZE;
     private int _availableOutgoingCredit = DEFAULT_SESSION_BUFFER_SIZE;
@@ -281,18 +283,11 @@ public class Session_1_0 implements AMQSessionModel<Session_1_0>, LogSubject
         {
             if(role == Role.RECEIVER)
             {
-                SequenceNumber pos = new SequenceNumber(first.intValue());
-                SequenceNumber end = new SequenceNumber(last.intValue());
-                while(pos.compareTo(end)<=0)
-                {
-                    Delivery d = _incomingUnsettled.remove(new UnsignedInteger(pos.intValue()));
-
-/*
-                    _availableIncomingCredit += d.getTransfers().size();
-*/
-
-                    pos.incr();
-                }
+                _incomingUnsettled.removeRange(first.intValue(), last.intValue());
+            }
+            else
+            {
+                _outgoingUnsettled.removeRange(first.intValue(), last.intValue());
             }
         }
 
@@ -330,10 +325,10 @@ public class Session_1_0 implements AMQSessionModel<Session_1_0>, LogSubject
         if(!Boolean.TRUE.equals(xfr.getSettled()))
         {
             Delivery delivery;
-            if((delivery = _outgoingUnsettled.get(deliveryId))== null)
+            if((delivery = _outgoingUnsettled.get(deliveryId.intValue()))== null)
             {
                 delivery = new Delivery(xfr, endpoint);
-                _outgoingUnsettled.put(deliveryId, delivery);
+                _outgoingUnsettled.put(deliveryId.intValue(), delivery);
 
             }
             else
@@ -474,7 +469,7 @@ public class Session_1_0 implements AMQSessionModel<Session_1_0>, LogSubject
     {
         Role dispositionRole = disposition.getRole();
 
-        LinkedHashMap<UnsignedInteger, Delivery> unsettledTransfers;
+        UnsettledDeliveries unsettledTransfers;
 
         if(dispositionRole == Role.RECEIVER)
         {
@@ -486,28 +481,27 @@ public class Session_1_0 implements AMQSessionModel<Session_1_0>, LogSubject
 
         }
 
-        UnsignedInteger deliveryId = disposition.getFirst();
-        UnsignedInteger last = disposition.getLast();
-        if(last == null)
-        {
-            last = deliveryId;
-        }
+        int first = disposition.getFirst().intValue();
+        int last = disposition.getLast() == null ? first : disposition.getLast().intValue();
 
-
-        while(deliveryId.compareTo(last)<=0)
+        unsettledTransfers.visit(first, last, new UnsettledDeliveries.Visitor()
         {
-
-            Delivery delivery = unsettledTransfers.get(deliveryId);
-            if(delivery != null)
+            @Override
+            public void visit(final Delivery delivery)
             {
                 delivery.getLinkEndpoint().receiveDeliveryState(delivery,
-                                                           disposition.getState(),
-                                                           disposition.getSettled());
+                                                                disposition.getState(),
+                                                                disposition.getSettled());
             }
-            deliveryId = deliveryId.add(UnsignedInteger.ONE);
-        }
-        if(disposition.getSettled())
+        });
+
+        if(Boolean.TRUE.equals(disposition.getSettled()))
         {
+            if(dispositionRole == Role.RECEIVER)
+            {
+                // once the receiver has settled there is nothing further to hear of the delivery
+                _outgoingUnsettled.removeRange(first, last);
+            }
             //TODO - check send flow
         }
 
@@ -645,11 +639,11 @@ public class Session_1_0 implements AMQSessionModel<Session_1_0>, LogSubject
                 deliveryId = endpoint.getLastDeliveryId();
             }
 
-            Delivery delivery = _incomingUnsettled.get(deliveryId);
+            Delivery delivery = _incomingUnsettled.get(deliveryId.intValue());
             if (delivery == null)
             {
                 delivery = new Delivery(transfer, endpoint);
-                _incomingUnsettled.put(deliveryId, delivery);
+                _incomingUnsettled.put(deliveryId.intValue(), delivery);
 
                 if (Boolean.TRUE.equals(transfer.getMore()))
                 {
@@ -689,7 +683,7 @@ public class Session_1_0 implements AMQSessionModel<Session_1_0>, LogSubject
 
             if ((delivery.isComplete() && delivery.isSettled() || Boolean.TRUE.equals(transfer.getAborted())))
             {
-                _incomingUnsettled.remove(deliveryId);
+                _incomingUnsettled.remove(deliveryId.intValue());
             }
         }
     }
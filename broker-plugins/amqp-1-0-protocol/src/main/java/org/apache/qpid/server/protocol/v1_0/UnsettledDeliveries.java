@@ -0,0 +1,305 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The unsettled deliveries of one direction of a session, indexed by delivery id.
+ * <p>
+ * Delivery ids are assigned in sequence, so the deliveries held normally lie within a window of ids running from
+ * the oldest unsettled delivery to the newest. The window is kept in a ring whose capacity is grown to a power of two
+ * large enough to span it, so that a delivery is found by masking its id. Ids are compared as serial numbers, as
+ * {@link SequenceNumber} does, so the window may wrap past the largest id.
+ * <p>
+ * The ring never grows beyond the given maximum capacity, normally the session window. Deliveries which fall out of
+ * the ring, such as an old delivery the peer never settles, or which arrive too far behind it, are held in a sorted
+ * map instead, so a stuck or outlying delivery id cannot force a large allocation.
+ * <p>
+ * Instances are not thread safe.
+ */
+final class UnsettledDeliveries
+{
+    interface Visitor
+    {
+        void visit(Delivery delivery);
+    }
+
+    private static final Comparator<Integer> SERIAL_NUMBER_ORDER = new Comparator<Integer>()
+    {
+        @Override
+        public int compare(final Integer id1, final Integer id2)
+        {
+            final int difference = id1 - id2;
+            return difference < 0 ? -1 : difference == 0 ? 0 : 1;
+        }
+    };
+
+    private final int _maximumCapacity;
+    /** deliveries with ids before the head of the ring */
+    private final NavigableMap<Integer, Delivery> _outliers = new TreeMap<>(SERIAL_NUMBER_ORDER);
+    private Delivery[] _deliveries;
+    private int _mask;
+    private int _head;
+    private int _tail;
+    private int _size;
+
+    UnsettledDeliveries(final int initialCapacity, final int maximumCapacity)
+    {
+        _maximumCapacity = capacityFor(maximumCapacity);
+        int capacity = Math.min(capacityFor(initialCapacity), _maximumCapacity);
+        _deliveries = new Delivery[capacity];
+        _mask = capacity - 1;
+    }
+
+    int size()
+    {
+        return _size + _outliers.size();
+    }
+
+    boolean isEmpty()
+    {
+        return _size == 0 && _outliers.isEmpty();
+    }
+
+    Delivery get(final int deliveryId)
+    {
+        if(contains(deliveryId))
+        {
+            return _deliveries[deliveryId & _mask];
+        }
+        return _outliers.isEmpty() ? null : _outliers.get(deliveryId);
+    }
+
+    void put(final int deliveryId, final Delivery delivery)
+    {
+        if(!_outliers.isEmpty() && deliveryId - _outliers.lastKey() <= 0)
+        {
+            _outliers.put(deliveryId, delivery);
+            return;
+        }
+
+        if(_size == 0)
+        {
+            _head = deliveryId;
+            _tail = deliveryId + 1;
+        }
+        else if(deliveryId - _head < 0)
+        {
+            if(_tail - deliveryId > _maximumCapacity)
+            {
+                _outliers.put(deliveryId, delivery);
+                return;
+            }
+            ensureCapacity(_tail - deliveryId);
+            _head = deliveryId;
+        }
+        else if(deliveryId - _tail >= 0)
+        {
+            if(deliveryId + 1 - _head > _maximumCapacity)
+            {
+                evictBefore(deliveryId + 1 - _maximumCapacity);
+            }
+            if(_size == 0)
+            {
+                _head = deliveryId;
+            }
+            else
+            {
+                ensureCapacity(deliveryId + 1 - _head);
+            }
+            _tail = deliveryId + 1;
+        }
+
+        final int index = deliveryId & _mask;
+        if(_deliveries[index] == null)
+        {
+            _size++;
+        }
+        _deliveries[index] = delivery;
+    }
+
+    Delivery remove(final int deliveryId)
+    {
+        if(!contains(deliveryId))
+        {
+            return _outliers.isEmpty() ? null : _outliers.remove(deliveryId);
+        }
+        final int index = deliveryId & _mask;
+        final Delivery delivery = _deliveries[index];
+        if(delivery != null)
+        {
+            _deliveries[index] = null;
+            _size--;
+            trim();
+        }
+        return delivery;
+    }
+
+    /**
+     * Removes the deliveries with ids from first to last inclusive. Only the part of the range which overlaps the
+     * window is visited, however wide the range.
+     */
+    void removeRange(final int first, final int last)
+    {
+        if(!_outliers.isEmpty() && last - first >= 0)
+        {
+            _outliers.subMap(first, true, last, true).clear();
+        }
+        if(_size != 0)
+        {
+            final int end = clampedEnd(last);
+            for(int deliveryId = clampedStart(first); deliveryId - end <= 0; deliveryId++)
+            {
+                final int index = deliveryId & _mask;
+                if(_deliveries[index] != null)
+                {
+                    _deliveries[index] = null;
+                    _size--;
+                }
+            }
+            trim();
+        }
+    }
+
+    /**
+     * Visits, in order of id, the deliveries with ids from first to last inclusive. The visitor may remove deliveries
+     * as it goes.
+     */
+    void visit(final int first, final int last, final Visitor visitor)
+    {
+        if(!_outliers.isEmpty() && last - first >= 0)
+        {
+            final List<Integer> outlierIds = new ArrayList<>(_outliers.subMap(first, true, last, true).keySet());
+            for(Integer deliveryId : outlierIds)
+            {
+                final Delivery delivery = _outliers.get(deliveryId);
+                if(delivery != null)
+                {
+                    visitor.visit(delivery);
+                }
+            }
+        }
+        if(_size != 0)
+        {
+            final int end = clampedEnd(last);
+            for(int deliveryId = clampedStart(first); deliveryId - end <= 0; deliveryId++)
+            {
+                final Delivery delivery = contains(deliveryId) ? _deliveries[deliveryId & _mask] : null;
+                if(delivery != null)
+                {
+                    visitor.visit(delivery);
+                }
+            }
+        }
+    }
+
+    private boolean contains(final int deliveryId)
+    {
+        return _size != 0 && deliveryId - _head >= 0 && deliveryId - _tail < 0;
+    }
+
+    private int clampedStart(final int first)
+    {
+        return first - _head < 0 ? _head : first;
+    }
+
+    private int clampedEnd(final int last)
+    {
+        return last - _tail >= 0 ? _tail - 1 : last;
+    }
+
+    private void trim()
+    {
+        if(_size == 0)
+        {
+            _head = _tail;
+        }
+        else
+        {
+            while(_deliveries[_head & _mask] == null)
+            {
+                _head++;
+            }
+            while(_deliveries[(_tail - 1) & _mask] == null)
+            {
+                _tail--;
+            }
+        }
+    }
+
+    /**
+     * Moves the deliveries in the ring with ids before the given id to the outliers.
+     */
+    private void evictBefore(final int deliveryId)
+    {
+        while(_size != 0 && _head - deliveryId < 0)
+        {
+            final int index = _head & _mask;
+            final Delivery delivery = _deliveries[index];
+            if(delivery != null)
+            {
+                _outliers.put(_head, delivery);
+                _deliveries[index] = null;
+                _size--;
+            }
+            _head++;
+        }
+        trim();
+    }
+
+    private void ensureCapacity(final int span)
+    {
+        if(span > _deliveries.length)
+        {
+            int capacity = capacityFor(span);
+            Delivery[] deliveries = new Delivery[capacity];
+            int newMask = capacity - 1;
+            for(int deliveryId = _head; deliveryId - _tail < 0; deliveryId++)
+            {
+                deliveries[deliveryId & newMask] = _deliveries[deliveryId & _mask];
+            }
+            _deliveries = deliveries;
+            _mask = newMask;
+        }
+    }
+
+    private static int capacityFor(final int required)
+    {
+        return Integer.highestOneBit(Math.max(required, 2) - 1) << 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "UnsettledDeliveries{head=" + _head + ", tail=" + _tail + ", size=" + _size
+               + ", outliers=" + _outliers.size() + ", capacity=" + _deliveries.length + "}";
+    }
+
+    int capacity()
+    {
+        return _deliveries.length;
+    }
+}
@@ -124,10 +124,13 @@ public abstract class AbstractDescribedTypeWriter<V> implements ValueWriter<V>
             _delegate = descriptorWriter;
         }
         length += descriptorWriter.writeToBuffer(buffer);
+        // the descriptor writer may be handed out again by the registry once complete, so test it before the
+        // described writer is created
+        final boolean descriptorComplete = descriptorWriter.isComplete();
 
         ValueWriter describedWriter = createDescribedWriter();
 
-        if(descriptorWriter.isComplete())
+        if(descriptorComplete)
         {
             state = State.DESCRIBED;
             _delegate = describedWriter;
@@ -183,6 +186,6 @@ public abstract class AbstractDescribedTypeWriter<V> implements ValueWriter<V>
 
     public boolean isCacheable()
     {
-        return false;
+        return true;
     }
 }
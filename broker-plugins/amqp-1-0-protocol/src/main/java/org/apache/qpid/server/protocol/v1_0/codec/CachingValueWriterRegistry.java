@@ -0,0 +1,82 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.server.protocol.v1_0.codec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A registry which hands out the writers of an underlying registry, reusing the cacheable writer last handed out
+ * for a value of the same class once that writer has completed. Writers nested within those handed out are obtained
+ * from this registry too, so the elements of lists, maps and described types are encoded by reused writers as well.
+ * <p>
+ * Instances are not thread safe and are intended to be confined to the encoding of one frame at a time.
+ */
+public final class CachingValueWriterRegistry implements ValueWriter.Registry
+{
+    private final ValueWriter.Registry _registry;
+    private final Map<Class, ValueWriter> _cache = new HashMap<>();
+
+    public CachingValueWriterRegistry(final ValueWriter.Registry registry)
+    {
+        _registry = registry;
+    }
+
+    @Override
+    public <V> ValueWriter<V> getValueWriter(final V value)
+    {
+        final Class<?> clazz = value == null ? Void.TYPE : value.getClass();
+        ValueWriter<V> writer = _cache.get(clazz);
+        if (writer != null && writer.isComplete())
+        {
+            writer.setValue(value);
+        }
+        else
+        {
+            writer = _registry.getValueWriter(value, this);
+            // arrays are written by a writer for a list view of the array, which cannot be given another array
+            if (writer != null && writer.isCacheable() && !clazz.isArray())
+            {
+                _cache.put(clazz, writer);
+            }
+        }
+        return writer;
+    }
+
+    @Override
+    public <V> ValueWriter<V> getValueWriter(final V value, final Map<Class, ValueWriter> localCache)
+    {
+        return getValueWriter(value);
+    }
+
+    @Override
+    public <V> ValueWriter<V> getValueWriter(final V value, final ValueWriter.Registry owner)
+    {
+        return _registry.getValueWriter(value, owner);
+    }
+
+    @Override
+    public <V> ValueWriter<V> register(final Class<V> clazz, final ValueWriter.Factory<V> writer)
+    {
+        return _registry.register(clazz, writer);
+    }
+}
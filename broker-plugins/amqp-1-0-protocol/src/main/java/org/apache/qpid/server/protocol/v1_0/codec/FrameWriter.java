@@ -25,37 +25,32 @@ import org.apache.qpid.server.protocol.v1_0.framing.AMQFrame;
 import org.apache.qpid.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.transport.ByteBufferSender;
 
+/**
+ * Writes frames to the sender. Frame bodies are encoded once into a buffer retained by the writer, using writers
+ * which are reused from one frame to the next, and then copied into the outgoing buffer.
+ */
 public class FrameWriter
 {
+    private static final int INITIAL_ENCODING_BUFFER_SIZE = 512;
+
     private final ByteBufferSender _sender;
     private final ValueWriter.Registry _registry;
-    private static final byte[] EMPTY_BYTE_ARRAY = new byte[] {};
+    private QpidByteBuffer _encodingBuffer = QpidByteBuffer.wrap(new byte[INITIAL_ENCODING_BUFFER_SIZE]);
 
     public FrameWriter(final ValueWriter.Registry registry, final ByteBufferSender sender)
     {
-        _registry = registry;
+        _registry = new CachingValueWriterRegistry(registry);
         _sender = sender;
     }
 
-    public <T> int send(AMQFrame<T> frame)
+    public synchronized <T> int send(AMQFrame<T> frame)
     {
         final QpidByteBuffer payload = frame.getPayload() == null ? null : frame.getPayload().duplicate();
 
         final int payloadLength = payload == null ? 0 : payload.remaining();
         final T frameBody = frame.getFrameBody();
 
-        final ValueWriter<T> typeWriter = frameBody == null ? null : _registry.getValueWriter(frameBody);
-        int bodySize;
-        if (typeWriter == null)
-        {
-            bodySize = 8;
-        }
-        else
-        {
-            typeWriter.setValue(frame.getFrameBody());
-            QpidByteBuffer qpidByteBuffer = QpidByteBuffer.wrap(EMPTY_BYTE_ARRAY);
-            bodySize = typeWriter.writeToBuffer(qpidByteBuffer) + 8;
-        }
+        final int bodySize = (frameBody == null ? 0 : encode(frameBody)) + 8;
 
         QpidByteBuffer body = QpidByteBuffer.allocate(_sender.isDirectBufferPreferred(), bodySize);
         final int totalSize = bodySize + payloadLength;
@@ -63,9 +58,10 @@ public class FrameWriter
         body.put((byte)2); // DOFF
         body.put(frame.getFrameType()); // AMQP Frame Type
         body.putShort(frame.getChannel());
-        if(typeWriter != null)
+        if(frameBody != null)
         {
-            typeWriter.writeToBuffer(body);
+            _encodingBuffer.flip();
+            body.put(_encodingBuffer);
         }
         body.flip();
 
@@ -79,4 +75,35 @@ public class FrameWriter
         return totalSize;
     }
 
+    /**
+     * @return the number of bytes the given frame body occupies when encoded
+     */
+    public synchronized int getEncodedSize(Object frameBody)
+    {
+        return encode(frameBody);
+    }
+
+    private int encode(final Object frameBody)
+    {
+        _encodingBuffer.clear();
+        ValueWriter<Object> writer = _registry.getValueWriter(frameBody);
+        if (writer == null)
+        {
+            _encodingBuffer.limit(0);
+            return 0;
+        }
+
+        int size = writer.writeToBuffer(_encodingBuffer);
+        if (!writer.isComplete())
+        {
+            // the size is known from the first attempt, so a second attempt with a larger buffer will complete
+            final int capacity = Math.max(size, 2 * _encodingBuffer.capacity());
+            _encodingBuffer.dispose();
+            _encodingBuffer = QpidByteBuffer.wrap(new byte[capacity]);
+            writer = _registry.getValueWriter(frameBody);
+            size = writer.writeToBuffer(_encodingBuffer);
+        }
+        return size;
+    }
+
 }
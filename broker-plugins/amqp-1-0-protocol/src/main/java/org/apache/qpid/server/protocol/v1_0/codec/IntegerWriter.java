@@ -86,7 +86,7 @@ public class IntegerWriter implements ValueWriter<Integer>
 
     public boolean isCacheable()
     {
-        return false;
+        return true;
     }
 
 
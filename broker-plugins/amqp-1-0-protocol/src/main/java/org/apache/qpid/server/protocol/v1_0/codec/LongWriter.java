@@ -88,7 +88,7 @@ public class LongWriter implements ValueWriter<Long>
 
     public boolean isCacheable()
     {
-        return false;
+        return true;
     }
 
 
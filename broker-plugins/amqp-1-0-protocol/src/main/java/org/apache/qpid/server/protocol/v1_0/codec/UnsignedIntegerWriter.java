@@ -127,7 +127,7 @@ public class UnsignedIntegerWriter implements ValueWriter<UnsignedInteger>
 
     public boolean isCacheable()
     {
-        return false;
+        return true;
     }
 
 
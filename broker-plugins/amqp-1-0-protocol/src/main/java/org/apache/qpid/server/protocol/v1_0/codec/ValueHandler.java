@@ -91,6 +91,246 @@ public class ValueHandler implements DescribedTypeConstructorRegistry.Source
         return constructor.construct(in, this);
     }
 
+    /**
+     * Advances the buffer past the next encoded value without constructing it. Every AMQP type is either of a width
+     * implied by its format code or preceded by its size, so only the constructors need to be read.
+     */
+    public void skip(final QpidByteBuffer in) throws AmqpErrorException
+    {
+        byte formatCode = readFormatCode(in);
+
+        if(formatCode == DESCRIBED_TYPE)
+        {
+            skip(in);
+            skip(in);
+            return;
+        }
+
+        advance(in, readWidth(in, formatCode));
+    }
+
+    /**
+     * Advances the buffer past the next encoded value as {@link #skip(QpidByteBuffer)} does, but also walks every
+     * value nested within it, so that an encoding which {@link #parse(QpidByteBuffer)} would fail on is detected
+     * without the value being constructed. Duplicate map keys are detected by comparing their encoded form, so keys
+     * which are equal but encoded with different widths are left to be rejected when the map is parsed.
+     */
+    public void validate(final QpidByteBuffer in) throws AmqpErrorException
+    {
+        byte formatCode = readFormatCode(in);
+
+        if(formatCode == DESCRIBED_TYPE)
+        {
+            validate(in);
+            validate(in);
+        }
+        else
+        {
+            validateBody(in, formatCode);
+        }
+    }
+
+    private void validateBody(final QpidByteBuffer in, final byte formatCode) throws AmqpErrorException
+    {
+        int subCategory = (formatCode >> 4) & 0x0F;
+        long width = readWidth(in, formatCode);
+        if(subCategory < 0xc)
+        {
+            advance(in, width);
+            return;
+        }
+
+        if(in.remaining() < width)
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR,
+                                         "Insufficient data - expected %d bytes, only %d remaining",
+                                         width, in.remaining());
+        }
+        QpidByteBuffer content = in.slice();
+        try
+        {
+            content.limit((int) width);
+            in.position(in.position() + (int) width);
+
+            long count = readSize(content, subCategory == 0xc || subCategory == 0xe ? 1 : 4);
+            if(subCategory == 0xe || subCategory == 0xf)
+            {
+                byte elementFormatCode = readFormatCode(content);
+                while(elementFormatCode == DESCRIBED_TYPE)
+                {
+                    validate(content);
+                    elementFormatCode = readFormatCode(content);
+                }
+                for(long i = 0; i < count; i++)
+                {
+                    validateBody(content, elementFormatCode);
+                }
+            }
+            else if((formatCode & 0x0F) == 1)
+            {
+                validateMapEntries(content, count);
+            }
+            else
+            {
+                for(long i = 0; i < count; i++)
+                {
+                    validate(content);
+                }
+            }
+
+            if(content.hasRemaining())
+            {
+                throw new AmqpErrorException(AmqpError.DECODE_ERROR,
+                                             "Compound value incorrectly encoded, %d bytes remaining after %d elements",
+                                             content.remaining(), count);
+            }
+        }
+        finally
+        {
+            content.dispose();
+        }
+    }
+
+    private void validateMapEntries(final QpidByteBuffer in, final long count) throws AmqpErrorException
+    {
+        if((count & 0x1) == 1)
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR, "map cannot have odd number of elements: %d", count);
+        }
+        if(count > in.remaining())
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR,
+                                         "Insufficient data - expected %d elements, only %d bytes remaining",
+                                         count, in.remaining());
+        }
+        if(count == 0)
+        {
+            return;
+        }
+
+        // the positions of the keys are held in an open addressing table indexed by the hash of their encoded form
+        final int entries = (int) (count / 2);
+        final int[] keyPositions = new int[Integer.highestOneBit(2 * entries - 1) << 1];
+        final int mask = keyPositions.length - 1;
+        for(int i = 0; i < entries; i++)
+        {
+            final int keyStart = in.position();
+            validate(in);
+            final int keyEnd = in.position();
+
+            int slot = hashBytes(in, keyStart, keyEnd) & mask;
+            while(keyPositions[slot] != 0)
+            {
+                final int otherStart = keyPositions[slot] - 1;
+                in.position(otherStart);
+                skip(in);
+                if(equalBytes(in, otherStart, in.position(), keyStart, keyEnd))
+                {
+                    in.position(keyStart);
+                    throw new AmqpErrorException(AmqpError.DECODE_ERROR,
+                                                 "map cannot have duplicate keys: %s", parse(in));
+                }
+                slot = (slot + 1) & mask;
+            }
+            keyPositions[slot] = keyStart + 1;
+            in.position(keyEnd);
+
+            validate(in);
+        }
+    }
+
+    private static int hashBytes(final QpidByteBuffer in, final int start, final int end)
+    {
+        int hash = 0;
+        for(int i = start; i < end; i++)
+        {
+            hash = 31 * hash + in.get(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalBytes(final QpidByteBuffer in,
+                                      final int start1, final int end1,
+                                      final int start2, final int end2)
+    {
+        if(end1 - start1 != end2 - start2)
+        {
+            return false;
+        }
+        for(int i = 0; i < end1 - start1; i++)
+        {
+            if(in.get(start1 + i) != in.get(start2 + i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte readFormatCode(final QpidByteBuffer in) throws AmqpErrorException
+    {
+        if(!in.hasRemaining())
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR, "Insufficient data - expected type, no data remaining");
+        }
+        return in.get();
+    }
+
+    /**
+     * Reads the size which follows a variable width format code, returning the width of the value which follows.
+     */
+    private static long readWidth(final QpidByteBuffer in, final byte formatCode) throws AmqpErrorException
+    {
+        int subCategory = (formatCode >> 4) & 0x0F;
+        int subtype = formatCode & 0x0F;
+        if(subtype >= TYPE_CONSTRUCTORS[subCategory].length || TYPE_CONSTRUCTORS[subCategory][subtype] == null)
+        {
+            throw new AmqpErrorException(ConnectionError.FRAMING_ERROR,"Unknown type format-code 0x%02x", formatCode);
+        }
+
+        switch(subCategory)
+        {
+            case 0x4:
+                return 0;
+            case 0x5:
+                return 1;
+            case 0x6:
+                return 2;
+            case 0x7:
+                return 4;
+            case 0x8:
+                return 8;
+            case 0x9:
+                return 16;
+            case 0xa:
+            case 0xc:
+            case 0xe:
+                return readSize(in, 1);
+            default:
+                return readSize(in, 4);
+        }
+    }
+
+    private static void advance(final QpidByteBuffer in, final long width) throws AmqpErrorException
+    {
+        if(in.remaining() < width)
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR,
+                                         "Insufficient data - expected %d bytes, only %d remaining",
+                                         width, in.remaining());
+        }
+        in.position(in.position() + (int) width);
+    }
+
+    private static long readSize(final QpidByteBuffer in, final int sizeWidth) throws AmqpErrorException
+    {
+        if(in.remaining() < sizeWidth)
+        {
+            throw new AmqpErrorException(AmqpError.DECODE_ERROR, "Insufficient data - expected size, no data remaining");
+        }
+        return sizeWidth == 1 ? ((int) in.get()) & 0xFF : ((long) in.getInt()) & 0xFFFFFFFFL;
+    }
+
 
     public TypeConstructor readConstructor(QpidByteBuffer in) throws AmqpErrorException
     {
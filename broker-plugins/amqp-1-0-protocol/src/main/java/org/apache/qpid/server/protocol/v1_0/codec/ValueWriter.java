@@ -44,6 +44,11 @@ public interface ValueWriter<T extends Object>
 
         <V extends Object> ValueWriter<V> getValueWriter(V value);
         <V extends Object> ValueWriter<V> getValueWriter(V value, Map<Class, ValueWriter> localCache);
+
+        /**
+         * Creates a writer for the value whose nested writers are obtained from the given registry.
+         */
+        <V extends Object> ValueWriter<V> getValueWriter(V value, Registry owner);
         <V extends Object> ValueWriter<V> register(Class<V> clazz, ValueWriter.Factory<V> writer);
 
     }
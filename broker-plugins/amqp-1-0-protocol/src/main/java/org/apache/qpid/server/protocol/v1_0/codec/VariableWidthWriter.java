@@ -129,8 +129,9 @@ public abstract class VariableWidthWriter<V> implements ValueWriter<V>
                     }
                     else if(buffer.hasRemaining())
                     {
-                        written += buffer.remaining();
-                        writeBytes(buffer, written-5, buffer.remaining());
+                        final int partial = buffer.remaining();
+                        writeBytes(buffer, written-5, partial);
+                        written += partial;
                     }
 
             }
@@ -26,6 +26,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.qpid.server.protocol.v1_0.codec.*;
 import org.apache.qpid.server.protocol.v1_0.type.RestrictedType;
@@ -295,7 +297,7 @@ public class AMQPDescribedTypeRegistry implements DescribedTypeConstructorRegist
     }
 
 
-    private final Map<Class, ValueWriter.Factory> _writerMap = new HashMap<Class, ValueWriter.Factory>();
+    private final ConcurrentMap<Class, ValueWriter.Factory> _writerMap = new ConcurrentHashMap<Class, ValueWriter.Factory>();
 
     public <V extends Object> ValueWriter<V> getValueWriter(V value, Map<Class, ValueWriter> localCache)
     {
@@ -305,32 +307,19 @@ public class AMQPDescribedTypeRegistry implements DescribedTypeConstructorRegist
 
 
     public <V extends Object> ValueWriter<V> getValueWriter(V value)
+    {
+        return getValueWriter(value, this);
+    }
+
+    public <V extends Object> ValueWriter<V> getValueWriter(V value, ValueWriter.Registry owner)
     {
         ValueWriter writer;
 
-        Class<? extends Object> clazz = value == null ? Void.TYPE : value.getClass();
-
-        ValueWriter.Factory<V> factory = (ValueWriter.Factory<V>) (_writerMap.get(clazz));
+        ValueWriter.Factory<V> factory = getValueWriterFactory(value);
 
         if(factory == null)
         {
-            if(value instanceof List)
-            {
-                factory = _writerMap.get(List.class);
-                _writerMap.put(value.getClass(), factory);
-                writer = factory.newInstance(this);
-                writer.setValue(value);
-
-            }
-            else if(value instanceof Map)
-            {
-                factory = _writerMap.get(Map.class);
-                _writerMap.put(value.getClass(), factory);
-                writer = factory.newInstance(this);
-                writer.setValue(value);
-
-            }
-            else if(value.getClass().isArray())
+            if(value != null && value.getClass().isArray())
             {
                 if(RestrictedType.class.isAssignableFrom(value.getClass().getComponentType()))
                 {
@@ -341,11 +330,11 @@ public class AMQPDescribedTypeRegistry implements DescribedTypeConstructorRegist
                     {
                         newVals[i] = restrictedTypes[i].getValue();
                     }
-                    return (ValueWriter<V>) getValueWriter(newVals);
+                    return (ValueWriter<V>) owner.getValueWriter(newVals);
                 }
                 // TODO primitive array types
                 factory = _writerMap.get(List.class);
-                writer = factory.newInstance(this);
+                writer = factory.newInstance(owner);
                 writer.setValue(Arrays.asList((Object[])value));
 
             }
@@ -356,7 +345,7 @@ public class AMQPDescribedTypeRegistry implements DescribedTypeConstructorRegist
         }
         else
         {
-            writer = factory.newInstance(this);
+            writer = factory.newInstance(owner);
             writer.setValue(value);
         }
 
@@ -365,6 +354,28 @@ public class AMQPDescribedTypeRegistry implements DescribedTypeConstructorRegist
 
     }
 
+    private <V extends Object> ValueWriter.Factory<V> getValueWriterFactory(V value)
+    {
+        Class<? extends Object> clazz = value == null ? Void.TYPE : value.getClass();
+
+        ValueWriter.Factory<V> factory = (ValueWriter.Factory<V>) (_writerMap.get(clazz));
+
+        if(factory == null)
+        {
+            if(value instanceof List)
+            {
+                factory = _writerMap.get(List.class);
+                _writerMap.putIfAbsent(value.getClass(), factory);
+            }
+            else if(value instanceof Map)
+            {
+                factory = _writerMap.get(Map.class);
+                _writerMap.putIfAbsent(value.getClass(), factory);
+            }
+        }
+        return factory;
+    }
+
     public <V extends Object> ValueWriter<V> register(Class<V> clazz, ValueWriter.Factory<V> writer)
     {
         return (ValueWriter<V>) _writerMap.put(clazz, writer);
@@ -0,0 +1,218 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.protocol.v1_0.messaging.SectionEncoderImpl;
+import org.apache.qpid.server.protocol.v1_0.type.Binary;
+import org.apache.qpid.server.protocol.v1_0.type.Section;
+import org.apache.qpid.server.protocol.v1_0.type.Symbol;
+import org.apache.qpid.server.protocol.v1_0.type.UnsignedByte;
+import org.apache.qpid.server.protocol.v1_0.type.codec.AMQPDescribedTypeRegistry;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.ApplicationProperties;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Data;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.DeliveryAnnotations;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Footer;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Header;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.MessageAnnotations;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Properties;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class MessageMetaData_1_0Test extends QpidTestCase
+{
+    private static final byte[] DATA_SECTION = {0x00, 0x53, 0x75, (byte) 0xa0, 0x01, 'x'};
+
+    private byte[] _encodedMessage;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        AMQPDescribedTypeRegistry registry = AMQPDescribedTypeRegistry.newInstance()
+                .registerTransportLayer()
+                .registerMessagingLayer()
+                .registerTransactionLayer()
+                .registerSecurityLayer();
+
+        Header header = new Header();
+        header.setDurable(true);
+        header.setPriority(UnsignedByte.valueOf((byte) 7));
+
+        Map<Symbol, Object> messageAnnotations = new HashMap<>();
+        messageAnnotations.put(MessageMetaData_1_0.JMS_TYPE, "jmsType");
+
+        Properties properties = new Properties();
+        properties.setMessageId("messageId");
+        properties.setTo("address");
+
+        Map<String, Object> applicationProperties = new HashMap<>();
+        applicationProperties.put("key", "value");
+
+        List<Section> sections = Arrays.<Section>asList(header,
+                                                        new DeliveryAnnotations(Collections.emptyMap()),
+                                                        new MessageAnnotations(messageAnnotations),
+                                                        properties,
+                                                        new ApplicationProperties(applicationProperties),
+                                                        new Data(new Binary(new byte[1024])),
+                                                        new Footer(Collections.emptyMap()));
+        MessageMetaData_1_0 metaData = new MessageMetaData_1_0(sections, new SectionEncoderImpl(registry));
+        QpidByteBuffer buf = QpidByteBuffer.allocate(metaData.getStorableSize());
+        metaData.writeToBuffer(buf);
+        buf.flip();
+        _encodedMessage = new byte[buf.remaining()];
+        buf.get(_encodedMessage);
+        buf.dispose();
+    }
+
+    public void testSectionsDecodedFromSingleFragment()
+    {
+        MessageMetaData_1_0 metaData =
+                new MessageMetaData_1_0(new QpidByteBuffer[]{QpidByteBuffer.wrap(_encodedMessage)});
+        assertSections(metaData);
+    }
+
+    public void testSectionsDecodedFromFragmentsSplitWithinSections()
+    {
+        for (int split = 1; split < 100; split++)
+        {
+            QpidByteBuffer[] fragments = {
+                    QpidByteBuffer.wrap(Arrays.copyOfRange(_encodedMessage, 0, split)),
+                    QpidByteBuffer.wrap(Arrays.copyOfRange(_encodedMessage, split, _encodedMessage.length))
+            };
+            assertSections(new MessageMetaData_1_0(fragments));
+        }
+    }
+
+    public void testSectionsDecodedFromStoredMetaData()
+    {
+        MessageMetaData_1_0 metaData =
+                MessageMetaData_1_0.FACTORY.createMetaData(QpidByteBuffer.wrap(_encodedMessage));
+        assertEquals("Unexpected storable size", _encodedMessage.length, metaData.getStorableSize());
+        assertSections(metaData);
+    }
+
+    public void testMalformedMessageRejected()
+    {
+        try
+        {
+            new MessageMetaData_1_0(new QpidByteBuffer[]{QpidByteBuffer.wrap(new byte[]{0x40})});
+            fail("Exception not thrown");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // pass
+        }
+    }
+
+    public void testValidNestedValuesAccepted()
+    {
+        MessageMetaData_1_0 metaData = new MessageMetaData_1_0(new QpidByteBuffer[]{QpidByteBuffer.wrap(
+                concat(new byte[]{0x00, 0x53, 0x72,
+                               (byte) 0xc1, 0x0a, 0x02,
+                               (byte) 0xa3, 0x01, 'a',
+                               (byte) 0xe0, 0x04, 0x02, 0x54, 0x01, 0x02},
+                       DATA_SECTION))});
+        assertFalse("Message should not be persistent", metaData.isPersistent());
+        assertNull("Unexpected type", metaData.getMessageHeader().getType());
+    }
+
+    public void testMalformedHeaderRejected()
+    {
+        assertRejected(new byte[]{0x00, 0x53, 0x70, (byte) 0xa1, 0x01, 'x'});
+    }
+
+    public void testMalformedPropertiesRejected()
+    {
+        assertRejected(new byte[]{0x00, 0x53, 0x73, (byte) 0xc0, 0x02, 0x01, 0x01});
+    }
+
+    public void testApplicationPropertiesWithOddNumberOfElementsRejected()
+    {
+        assertRejected(new byte[]{0x00, 0x53, 0x74, (byte) 0xc1, 0x04, 0x01, (byte) 0xa1, 0x01, 'k'});
+    }
+
+    public void testApplicationPropertiesWithDuplicateKeysRejected()
+    {
+        assertRejected(new byte[]{0x00, 0x53, 0x74, (byte) 0xc1, 0x0d, 0x04,
+                                  (byte) 0xa1, 0x01, 'k', (byte) 0xa1, 0x01, 'v',
+                                  (byte) 0xa1, 0x01, 'k', (byte) 0xa1, 0x01, 'w'});
+    }
+
+    public void testApplicationPropertiesWithIncorrectlySizedValueRejected()
+    {
+        assertRejected(new byte[]{0x00, 0x53, 0x74, (byte) 0xc1, 0x0a, 0x02,
+                                  (byte) 0xa1, 0x01, 'k',
+                                  (byte) 0xc0, 0x02, 0x01, (byte) 0xa1, 0x01, 'v'});
+    }
+
+    private void assertRejected(final byte[] section)
+    {
+        byte[] encoded = concat(section, DATA_SECTION);
+        try
+        {
+            new MessageMetaData_1_0(new QpidByteBuffer[]{QpidByteBuffer.wrap(encoded)});
+            fail("Exception not thrown");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // pass
+        }
+
+        QpidByteBuffer[] fragments = {
+                QpidByteBuffer.wrap(Arrays.copyOfRange(encoded, 0, section.length - 1)),
+                QpidByteBuffer.wrap(Arrays.copyOfRange(encoded, section.length - 1, encoded.length))
+        };
+        try
+        {
+            new MessageMetaData_1_0(fragments);
+            fail("Exception not thrown for fragmented message");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // pass
+        }
+    }
+
+    private static byte[] concat(final byte[] first, final byte[] second)
+    {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private void assertSections(final MessageMetaData_1_0 metaData)
+    {
+        MessageMetaData_1_0.MessageHeader_1_0 header = metaData.getMessageHeader();
+        assertTrue("Message should be persistent", metaData.isPersistent());
+        assertEquals("Unexpected priority", 7, header.getPriority());
+        assertEquals("Unexpected type", "jmsType", header.getType());
+        assertEquals("Unexpected message id", "messageId", header.getMessageId());
+        assertEquals("Unexpected to", "address", header.getTo());
+        assertEquals("Unexpected header", "value", header.getHeader("key"));
+        assertEquals("Unexpected header names", 1, header.getHeaderNames().size());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class UnsettledDeliveriesTest extends QpidTestCase
+{
+    private static final int MAXIMUM_CAPACITY = 32;
+
+    private UnsettledDeliveries _deliveries = new UnsettledDeliveries(4, MAXIMUM_CAPACITY);
+
+    public void testPutGetAndRemove()
+    {
+        Delivery first = mock(Delivery.class);
+        Delivery second = mock(Delivery.class);
+        _deliveries.put(10, first);
+        _deliveries.put(11, second);
+
+        assertEquals("Unexpected size", 2, _deliveries.size());
+        assertSame("Unexpected delivery", first, _deliveries.get(10));
+        assertSame("Unexpected delivery", second, _deliveries.get(11));
+        assertNull("Unexpected delivery outside window", _deliveries.get(10 + _deliveries.capacity()));
+
+        assertSame("Unexpected removed delivery", first, _deliveries.remove(10));
+        assertNull("Delivery should have been removed", _deliveries.get(10));
+        assertNull("Delivery should not be removed twice", _deliveries.remove(10));
+        assertSame("Unexpected removed delivery", second, _deliveries.remove(11));
+        assertTrue("Deliveries should be empty", _deliveries.isEmpty());
+    }
+
+    public void testGrowsToSpanWindow()
+    {
+        Delivery[] delivered = putDeliveries(100, 20);
+
+        assertTrue("Capacity should span window", _deliveries.capacity() >= 20);
+        for (int i = 0; i < delivered.length; i++)
+        {
+            assertSame("Unexpected delivery " + i, delivered[i], _deliveries.get(100 + i));
+        }
+    }
+
+    public void testWindowWrapsPastLargestId()
+    {
+        int firstId = Integer.MAX_VALUE - 2;
+        Delivery[] delivered = putDeliveries(firstId, 6);
+
+        for (int i = 0; i < delivered.length; i++)
+        {
+            assertSame("Unexpected delivery " + i, delivered[i], _deliveries.get(firstId + i));
+        }
+
+        _deliveries.removeRange(firstId, Integer.MIN_VALUE);
+        assertEquals("Unexpected size", 2, _deliveries.size());
+        assertNull("Delivery should have been removed", _deliveries.get(Integer.MAX_VALUE));
+        assertSame("Unexpected delivery", delivered[4], _deliveries.get(Integer.MIN_VALUE + 1));
+    }
+
+    public void testSettledDeliveriesDoNotGrowRing()
+    {
+        int capacity = _deliveries.capacity();
+        for (int deliveryId = 0; deliveryId < 1000; deliveryId++)
+        {
+            _deliveries.put(deliveryId, mock(Delivery.class));
+            _deliveries.remove(deliveryId);
+        }
+        assertEquals("Unexpected capacity", capacity, _deliveries.capacity());
+    }
+
+    public void testRemoveRangeWiderThanWindow()
+    {
+        putDeliveries(50, 3);
+
+        _deliveries.removeRange(0, Integer.MAX_VALUE);
+
+        assertTrue("Deliveries should be empty", _deliveries.isEmpty());
+    }
+
+    public void testVisitInIdOrderAllowingRemoval()
+    {
+        final Delivery[] delivered = putDeliveries(7, 5);
+        _deliveries.remove(9);
+
+        final List<Delivery> visited = new ArrayList<>();
+        _deliveries.visit(5, 10, new UnsettledDeliveries.Visitor()
+        {
+            @Override
+            public void visit(final Delivery delivery)
+            {
+                visited.add(delivery);
+                if (delivery == delivered[1])
+                {
+                    _deliveries.remove(10);
+                }
+            }
+        });
+
+        assertEquals("Unexpected visited deliveries", 2, visited.size());
+        assertSame("Unexpected delivery", delivered[0], visited.get(0));
+        assertSame("Unexpected delivery", delivered[1], visited.get(1));
+        assertEquals("Unexpected size", 3, _deliveries.size());
+    }
+
+    public void testStuckOldestDeliveryDoesNotGrowRingBeyondMaximum()
+    {
+        Delivery stuck = mock(Delivery.class);
+        _deliveries.put(0, stuck);
+        for (int deliveryId = 1; deliveryId < 10000; deliveryId++)
+        {
+            _deliveries.put(deliveryId, mock(Delivery.class));
+            _deliveries.remove(deliveryId);
+        }
+        Delivery latest = mock(Delivery.class);
+        _deliveries.put(10000, latest);
+
+        assertTrue("Ring grew beyond its maximum capacity", _deliveries.capacity() <= MAXIMUM_CAPACITY);
+        assertEquals("Unexpected size", 2, _deliveries.size());
+        assertSame("Stuck delivery should still be held", stuck, _deliveries.get(0));
+        assertSame("Unexpected delivery", latest, _deliveries.get(10000));
+
+        final List<Delivery> visited = new ArrayList<>();
+        _deliveries.visit(0, 10000, new UnsettledDeliveries.Visitor()
+        {
+            @Override
+            public void visit(final Delivery delivery)
+            {
+                visited.add(delivery);
+            }
+        });
+        assertEquals("Unexpected visited deliveries", 2, visited.size());
+        assertSame("Stuck delivery should be visited first", stuck, visited.get(0));
+
+        assertSame("Unexpected removed delivery", stuck, _deliveries.remove(0));
+        assertEquals("Unexpected size", 1, _deliveries.size());
+        _deliveries.removeRange(0, 10000);
+        assertTrue("Deliveries should be empty", _deliveries.isEmpty());
+    }
+
+    public void testDistantDeliveryIdsDoNotForceLargeRing()
+    {
+        Delivery first = mock(Delivery.class);
+        Delivery distant = mock(Delivery.class);
+        Delivery behind = mock(Delivery.class);
+        _deliveries.put(5, first);
+        _deliveries.put(5 + (1 << 30), distant);
+        _deliveries.put(4, behind);
+
+        assertTrue("Ring grew beyond its maximum capacity", _deliveries.capacity() <= MAXIMUM_CAPACITY);
+        assertEquals("Unexpected size", 3, _deliveries.size());
+        assertSame("Unexpected delivery", first, _deliveries.get(5));
+        assertSame("Unexpected delivery", distant, _deliveries.get(5 + (1 << 30)));
+        assertSame("Unexpected delivery", behind, _deliveries.get(4));
+
+        _deliveries.removeRange(0, 10);
+        assertEquals("Unexpected size", 1, _deliveries.size());
+        assertSame("Unexpected delivery", distant, _deliveries.get(5 + (1 << 30)));
+    }
+
+    private Delivery[] putDeliveries(final int firstId, final int count)
+    {
+        Delivery[] delivered = new Delivery[count];
+        for (int i = 0; i < count; i++)
+        {
+            delivered[i] = mock(Delivery.class);
+            _deliveries.put(firstId + i, delivered[i]);
+        }
+        return delivered;
+    }
+}
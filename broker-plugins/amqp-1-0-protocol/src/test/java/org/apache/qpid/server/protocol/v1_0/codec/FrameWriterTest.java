@@ -0,0 +1,153 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0.codec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.protocol.v1_0.framing.AMQFrame;
+import org.apache.qpid.server.protocol.v1_0.type.Binary;
+import org.apache.qpid.server.protocol.v1_0.type.FrameBody;
+import org.apache.qpid.server.protocol.v1_0.type.Symbol;
+import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
+import org.apache.qpid.server.protocol.v1_0.type.codec.AMQPDescribedTypeRegistry;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Accepted;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Source;
+import org.apache.qpid.server.protocol.v1_0.type.transport.Attach;
+import org.apache.qpid.server.protocol.v1_0.type.transport.Disposition;
+import org.apache.qpid.server.protocol.v1_0.type.transport.Role;
+import org.apache.qpid.server.protocol.v1_0.type.transport.Transfer;
+import org.apache.qpid.test.utils.QpidTestCase;
+import org.apache.qpid.transport.ByteBufferSender;
+
+public class FrameWriterTest extends QpidTestCase
+{
+    private AMQPDescribedTypeRegistry _registry;
+    private List<byte[]> _sent;
+    private FrameWriter _frameWriter;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _registry = AMQPDescribedTypeRegistry.newInstance()
+                .registerTransportLayer()
+                .registerMessagingLayer()
+                .registerTransactionLayer()
+                .registerSecurityLayer();
+        _sent = new ArrayList<>();
+        _frameWriter = new FrameWriter(_registry, new ByteBufferSender()
+        {
+            @Override
+            public boolean isDirectBufferPreferred()
+            {
+                return false;
+            }
+
+            @Override
+            public void send(final QpidByteBuffer msg)
+            {
+                byte[] data = new byte[msg.remaining()];
+                msg.duplicate().get(data);
+                _sent.add(data);
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        });
+    }
+
+    public void testRepeatedFramesEncodedAsByFreshWriters()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            Transfer transfer = new Transfer();
+            transfer.setHandle(UnsignedInteger.valueOf(i % 3));
+            transfer.setDeliveryId(UnsignedInteger.valueOf(i * 1000));
+            transfer.setDeliveryTag(new Binary(("tag" + i).getBytes()));
+            transfer.setMessageFormat(UnsignedInteger.ZERO);
+            transfer.setSettled(i % 2 == 0);
+            if (i % 7 == 0)
+            {
+                transfer.setState(new Accepted());
+            }
+            assertFrameEncoding(transfer);
+
+            Disposition disposition = new Disposition();
+            disposition.setRole(Role.RECEIVER);
+            disposition.setFirst(UnsignedInteger.valueOf(i));
+            disposition.setLast(UnsignedInteger.valueOf(i + 300));
+            disposition.setSettled(true);
+            disposition.setState(new Accepted());
+            assertFrameEncoding(disposition);
+        }
+    }
+
+    public void testFrameLargerThanEncodingBuffer()
+    {
+        char[] name = new char[2000];
+        Arrays.fill(name, 'x');
+        Attach attach = new Attach();
+        attach.setName(new String(name));
+        attach.setHandle(UnsignedInteger.ONE);
+        attach.setRole(Role.SENDER);
+        Source source = new Source();
+        source.setAddress("queue");
+        source.setOutcomes(new Symbol[]{Symbol.valueOf("amqp:accepted:list"), Symbol.valueOf("amqp:rejected:list")});
+        attach.setSource(source);
+        attach.setProperties(Collections.singletonMap(Symbol.valueOf("key"), (Object) "value"));
+
+        assertFrameEncoding(attach);
+        assertFrameEncoding(attach);
+    }
+
+    private void assertFrameEncoding(final FrameBody body)
+    {
+        byte[] expected = encode(body);
+        assertEquals("Unexpected encoded size", expected.length, _frameWriter.getEncodedSize(body));
+
+        _sent.clear();
+        int frameSize = _frameWriter.send(AMQFrame.createAMQFrame((short) 1, body));
+        assertEquals("Unexpected frame size", expected.length + 8, frameSize);
+        assertEquals("Unexpected number of buffers sent", 1, _sent.size());
+
+        byte[] frame = _sent.get(0);
+        assertTrue("Unexpected frame body", Arrays.equals(expected, Arrays.copyOfRange(frame, 8, frame.length)));
+    }
+
+    private byte[] encode(final Object value)
+    {
+        ValueWriter<Object> writer = _registry.getValueWriter(value);
+        byte[] encoded = new byte[writer.writeToBuffer(QpidByteBuffer.wrap(new byte[0]))];
+        writer.writeToBuffer(QpidByteBuffer.wrap(encoded));
+        return encoded;
+    }
+}
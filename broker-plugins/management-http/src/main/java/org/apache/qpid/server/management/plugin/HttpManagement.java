@@ -86,6 +86,7 @@ import org.apache.qpid.server.management.plugin.servlet.rest.BrokerQueryServlet;
 import org.apache.qpid.server.management.plugin.servlet.rest.JsonValueServlet;
 import org.apache.qpid.server.management.plugin.servlet.rest.LogoutServlet;
 import org.apache.qpid.server.management.plugin.servlet.rest.MetaDataServlet;
+import org.apache.qpid.server.management.plugin.servlet.rest.MetricsServlet;
 import org.apache.qpid.server.management.plugin.servlet.rest.QueueReportServlet;
 import org.apache.qpid.server.management.plugin.servlet.rest.RestServlet;
 import org.apache.qpid.server.management.plugin.servlet.rest.SaslServlet;
@@ -368,6 +369,7 @@ public class HttpManagement extends AbstractPluginAdapter<HttpManagement> implem
         root.addServlet(new ServletHolder(new QueueReportServlet()), "/service/queuereport/*");
 
         root.addServlet(new ServletHolder(new MetaDataServlet(getModel())), "/service/metadata");
+        root.addServlet(new ServletHolder(new MetricsServlet()), "/service/metrics");
 
         root.addServlet(new ServletHolder(new SaslServlet()), "/service/sasl");
 
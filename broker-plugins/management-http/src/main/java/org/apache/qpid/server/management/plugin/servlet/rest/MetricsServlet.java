@@ -0,0 +1,336 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.server.management.plugin.servlet.rest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectStatistic;
+import org.apache.qpid.server.model.ConfiguredObjectTypeRegistry;
+import org.apache.qpid.server.model.Model;
+import org.apache.qpid.server.model.StatisticType;
+
+/**
+ * Exposes the statistics of the broker's configured objects in the Prometheus text exposition format.
+ * <p>
+ * The optional request parameters <code>category</code> and <code>name</code> restrict the output to the given
+ * object categories (e.g. <code>queue</code>) and statistic names (e.g. <code>queueDepthBytes</code>). Both
+ * may be repeated.
+ */
+public class MetricsServlet extends AbstractServlet
+{
+    public static final String CATEGORY_PARAM = "category";
+    public static final String NAME_PARAM = "name";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String METRIC_PREFIX = "qpid_";
+
+    public MetricsServlet()
+    {
+        super();
+    }
+
+    @Override
+    protected void doGetWithSubjectAndActor(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        final Model model = getBroker().getModel();
+        final Set<Class<? extends ConfiguredObject>> requestedCategories;
+        try
+        {
+            requestedCategories = getRequestedCategories(model, request.getParameterValues(CATEGORY_PARAM));
+        }
+        catch (IllegalArgumentException e)
+        {
+            sendJsonErrorResponse(request, response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        final Set<String> requestedNames = getRequestedNames(request.getParameterValues(NAME_PARAM));
+
+        final Set<Class<? extends ConfiguredObject>> categoriesToVisit = new HashSet<>(requestedCategories);
+        for (Class<? extends ConfiguredObject> category : requestedCategories)
+        {
+            categoriesToVisit.addAll(model.getAncestorCategories(category));
+        }
+
+        final Map<Class<? extends ConfiguredObject>, List<ConfiguredObject<?>>> objectsByCategory = new LinkedHashMap<>();
+        collectObjects(getBroker(),
+                       model,
+                       requestedCategories,
+                       categoriesToVisit,
+                       objectsByCategory,
+                       Collections.newSetFromMap(new IdentityHashMap<ConfiguredObject<?>, Boolean>()));
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        sendCachingHeadersOnResponse(response);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(getOutputStream(request, response),
+                                                                      StandardCharsets.UTF_8)))
+        {
+            for (Map.Entry<Class<? extends ConfiguredObject>, List<ConfiguredObject<?>>> entry : objectsByCategory.entrySet())
+            {
+                writeCategoryMetrics(writer, model, entry.getKey(), entry.getValue(), requestedNames);
+            }
+        }
+    }
+
+    private void collectObjects(final ConfiguredObject<?> object,
+                                final Model model,
+                                final Set<Class<? extends ConfiguredObject>> requestedCategories,
+                                final Set<Class<? extends ConfiguredObject>> categoriesToVisit,
+                                final Map<Class<? extends ConfiguredObject>, List<ConfiguredObject<?>>> objectsByCategory,
+                                final Set<ConfiguredObject<?>> visited)
+    {
+        if (!visited.add(object))
+        {
+            return;
+        }
+
+        Class<? extends ConfiguredObject> category = object.getCategoryClass();
+        if (requestedCategories.isEmpty() || requestedCategories.contains(category))
+        {
+            List<ConfiguredObject<?>> objects = objectsByCategory.get(category);
+            if (objects == null)
+            {
+                objects = new ArrayList<>();
+                objectsByCategory.put(category, objects);
+            }
+            objects.add(object);
+        }
+
+        for (Class<? extends ConfiguredObject> childCategory : model.getChildTypes(category))
+        {
+            if (requestedCategories.isEmpty() || categoriesToVisit.contains(childCategory))
+            {
+                Collection<? extends ConfiguredObject> children = object.getChildren(childCategory);
+                if (children != null)
+                {
+                    for (ConfiguredObject<?> child : children)
+                    {
+                        collectObjects(child, model, requestedCategories, categoriesToVisit, objectsByCategory, visited);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeCategoryMetrics(final Writer writer,
+                                      final Model model,
+                                      final Class<? extends ConfiguredObject> category,
+                                      final List<ConfiguredObject<?>> objects,
+                                      final Set<String> requestedNames) throws IOException
+    {
+        final ConfiguredObjectTypeRegistry typeRegistry = model.getTypeRegistry();
+        final Map<Class<? extends ConfiguredObject>, Map<String, ConfiguredObjectStatistic>> statisticsByType =
+                new HashMap<>();
+        final Map<String, ConfiguredObjectStatistic> categoryStatistics = new LinkedHashMap<>();
+        for (ConfiguredObject<?> object : objects)
+        {
+            Class<? extends ConfiguredObject> type = object.getTypeClass();
+            if (!statisticsByType.containsKey(type))
+            {
+                Map<String, ConfiguredObjectStatistic> statistics = new HashMap<>();
+                for (ConfiguredObjectStatistic statistic : typeRegistry.getStatistics(type))
+                {
+                    if (requestedNames.isEmpty() || requestedNames.contains(statistic.getName()))
+                    {
+                        statistics.put(statistic.getName(), statistic);
+                        if (!categoryStatistics.containsKey(statistic.getName()))
+                        {
+                            categoryStatistics.put(statistic.getName(), statistic);
+                        }
+                    }
+                }
+                statisticsByType.put(type, statistics);
+            }
+        }
+
+        final String categoryName = category.getSimpleName().toLowerCase(Locale.ENGLISH);
+        final Map<ConfiguredObject<?>, String> labels = new IdentityHashMap<>();
+        for (ConfiguredObject<?> object : objects)
+        {
+            labels.put(object, buildLabels(model, object));
+        }
+
+        for (ConfiguredObjectStatistic categoryStatistic : categoryStatistics.values())
+        {
+            final String statisticName = categoryStatistic.getName();
+            final String metricName = METRIC_PREFIX + categoryName + "_" + toSnakeCase(statisticName);
+
+            writer.write("# HELP ");
+            writer.write(metricName);
+            writer.write(' ');
+            writer.write(escapeHelp(categoryStatistic.getDescription()));
+            writer.write('\n');
+            writer.write("# TYPE ");
+            writer.write(metricName);
+            writer.write(categoryStatistic.getStatisticType() == StatisticType.CUMULATIVE ? " counter\n" : " gauge\n");
+
+            for (ConfiguredObject<?> object : objects)
+            {
+                ConfiguredObjectStatistic statistic = statisticsByType.get(object.getTypeClass()).get(statisticName);
+                if (statistic != null)
+                {
+                    Object value = statistic.getValue(object);
+                    if (value instanceof Date)
+                    {
+                        value = ((Date) value).getTime();
+                    }
+                    if (value instanceof Number)
+                    {
+                        writer.write(metricName);
+                        writer.write(labels.get(object));
+                        writer.write(' ');
+                        writer.write(value.toString());
+                        writer.write('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    private String buildLabels(final Model model, final ConfiguredObject<?> object)
+    {
+        List<ConfiguredObject<?>> path = new ArrayList<>();
+        ConfiguredObject<?> current = object;
+        while (current != null && current.getCategoryClass() != model.getRootCategory())
+        {
+            path.add(0, current);
+            Collection<Class<? extends ConfiguredObject>> parentTypes =
+                    model.getParentTypes(current.getCategoryClass());
+            current = parentTypes.isEmpty() ? null : current.getParent(parentTypes.iterator().next());
+        }
+
+        if (path.isEmpty())
+        {
+            return "";
+        }
+
+        StringBuilder labels = new StringBuilder("{");
+        boolean first = true;
+        for (ConfiguredObject<?> element : path)
+        {
+            if (!first)
+            {
+                labels.append(',');
+            }
+            first = false;
+            labels.append(element.getCategoryClass().getSimpleName().toLowerCase(Locale.ENGLISH))
+                  .append("=\"")
+                  .append(escapeLabelValue(element.getName()))
+                  .append('"');
+        }
+        return labels.append('}').toString();
+    }
+
+    private Set<Class<? extends ConfiguredObject>> getRequestedCategories(final Model model, final String[] values)
+    {
+        if (values == null || values.length == 0)
+        {
+            return Collections.emptySet();
+        }
+
+        Set<Class<? extends ConfiguredObject>> categories = new HashSet<>();
+        for (String value : values)
+        {
+            boolean found = false;
+            for (Class<? extends ConfiguredObject> category : model.getSupportedCategories())
+            {
+                if (category.getSimpleName().equalsIgnoreCase(value))
+                {
+                    categories.add(category);
+                    found = true;
+                    break;
+                }
+            }
+            if (!found)
+            {
+                throw new IllegalArgumentException(String.format("Unknown category '%s'", value));
+            }
+        }
+        return categories;
+    }
+
+    private Set<String> getRequestedNames(final String[] values)
+    {
+        if (values == null || values.length == 0)
+        {
+            return Collections.emptySet();
+        }
+        Set<String> names = new HashSet<>();
+        Collections.addAll(names, values);
+        return names;
+    }
+
+    static String toSnakeCase(final String name)
+    {
+        StringBuilder result = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++)
+        {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c))
+            {
+                if (i > 0)
+                {
+                    result.append('_');
+                }
+                result.append(Character.toLowerCase(c));
+            }
+            else if (Character.isLetterOrDigit(c))
+            {
+                result.append(c);
+            }
+            else
+            {
+                result.append('_');
+            }
+        }
+        return result.toString();
+    }
+
+    static String escapeLabelValue(final String value)
+    {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(final String value)
+    {
+        return value.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
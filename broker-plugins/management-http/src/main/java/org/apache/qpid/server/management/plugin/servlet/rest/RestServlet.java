@@ -36,6 +36,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -47,10 +49,14 @@ import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.configuration.IllegalConfigurationException;
+import org.apache.qpid.server.configuration.store.ConfigurationUpdateBatch;
+import org.apache.qpid.server.configuration.updater.Task;
+import org.apache.qpid.server.configuration.updater.TaskExecutor;
 import org.apache.qpid.server.management.plugin.HttpManagement;
 import org.apache.qpid.server.model.AbstractConfiguredObject;
 import org.apache.qpid.server.model.Broker;
@@ -98,6 +104,9 @@ public class RestServlet extends AbstractServlet
                                         INHERITED_ACTUALS_PARAM,
                                         CONTENT_DISPOSITION_ATTACHMENT_FILENAME_PARAM,
                                         EXCLUDE_INHERITED_CONTEXT_PARAM));
+    static final String BULK_RESULT_SUCCESS = "success";
+    static final String BULK_RESULT_ERROR_MESSAGE = "errorMessage";
+
     public static final int DEFAULT_DEPTH = 1;
     public static final int DEFAULT_OVERSIZE = 120;
 
@@ -568,7 +577,17 @@ public class RestServlet extends AbstractServlet
             {
                 List<String> names = requestInfo.getModelParts();
                 boolean isFullObjectURL = names.size() == _hierarchy.length;
-                Map<String, Object> providedObject = getRequestProvidedObject(request, requestInfo);
+                Object requestBody = getRequestProvidedObject(request, requestInfo, Object.class);
+                if (requestBody instanceof List && !isFullObjectURL && _hierarchy.length > 0)
+                {
+                    performBulkCreate(request, response, names, (List<?>) requestBody);
+                    return;
+                }
+                if (!(requestBody instanceof Map))
+                {
+                    throw new IllegalArgumentException("Cannot parse the request body as a json object");
+                }
+                Map<String, Object> providedObject = (Map<String, Object>) requestBody;
                 if (names.isEmpty() && _hierarchy.length == 0)
                 {
                     getBroker().setAttributes(providedObject);
@@ -637,6 +656,167 @@ public class RestServlet extends AbstractServlet
         }
     }
 
+    private void performBulkCreate(final HttpServletRequest request,
+                                   final HttpServletResponse response,
+                                   final List<String> names,
+                                   final List<?> providedObjects) throws IOException
+    {
+        final ConfiguredObject<?> theParent;
+        final ConfiguredObject[] otherParents;
+        if (_hierarchy.length > 1)
+        {
+            List<ConfiguredObject> parents = findAllObjectParents(names);
+            theParent = parents.remove(0);
+            otherParents = parents.toArray(new ConfiguredObject[parents.size()]);
+        }
+        else
+        {
+            theParent = getBroker();
+            otherParents = null;
+        }
+        final Class<? extends ConfiguredObject> objClass = getConfiguredClass();
+
+        // all children are created from a single task on the parent's configuration thread so that the
+        // resulting durable configuration changes are applied to the store in a single batch
+        final Map<UUID, RuntimeException> storeFailures = new HashMap<>();
+        List<ListenableFuture<? extends ConfiguredObject>> futures =
+                theParent.getTaskExecutor().run(new Task<List<ListenableFuture<? extends ConfiguredObject>>, RuntimeException>()
+                {
+                    @Override
+                    public List<ListenableFuture<? extends ConfiguredObject>> execute()
+                    {
+                        List<ListenableFuture<? extends ConfiguredObject>> futures = new ArrayList<>(providedObjects.size());
+                        try (ConfigurationUpdateBatch batch = ConfigurationUpdateBatch.begin())
+                        {
+                            for (Object providedObject : providedObjects)
+                            {
+                                if (providedObject instanceof Map)
+                                {
+                                    futures.add(theParent.createChildAsync(objClass,
+                                                                           (Map<String, Object>) providedObject,
+                                                                           otherParents));
+                                }
+                                else
+                                {
+                                    futures.add(null);
+                                }
+                            }
+                            storeFailures.putAll(batch.commitPartially());
+                        }
+                        if (!storeFailures.isEmpty())
+                        {
+                            deleteUnstoredChildren();
+                        }
+                        return futures;
+                    }
+
+                    private void deleteUnstoredChildren()
+                    {
+                        // the records of these children never reached the store, so only the children are
+                        // deleted and the resulting store changes are discarded
+                        try (ConfigurationUpdateBatch ignored = ConfigurationUpdateBatch.begin())
+                        {
+                            for (UUID id : storeFailures.keySet())
+                            {
+                                ConfiguredObject<?> child = theParent.getChildById(objClass, id);
+                                if (child != null)
+                                {
+                                    child.deleteAsync();
+                                }
+                            }
+                        }
+                    }
+
+                    @Override
+                    public String getObject()
+                    {
+                        return theParent.toString();
+                    }
+
+                    @Override
+                    public String getAction()
+                    {
+                        return "bulk create children";
+                    }
+
+                    @Override
+                    public String getArguments()
+                    {
+                        return "childClass=" + objClass.getSimpleName() + ", count=" + providedObjects.size();
+                    }
+                });
+
+        List<Map<String, Object>> results = new ArrayList<>(futures.size());
+        Iterator<?> providedObjectIterator = providedObjects.iterator();
+        for (ListenableFuture<? extends ConfiguredObject> future : futures)
+        {
+            Object providedObject = providedObjectIterator.next();
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (future == null)
+            {
+                result.put(BULK_RESULT_SUCCESS, false);
+                result.put(BULK_RESULT_ERROR_MESSAGE, "Object definition is not a json object");
+            }
+            else
+            {
+                result.put(ConfiguredObject.NAME, ((Map<String, Object>) providedObject).get(ConfiguredObject.NAME));
+                try
+                {
+                    ConfiguredObject<?> child = awaitBulkOperation(future);
+                    RuntimeException storeFailure = storeFailures.get(child.getId());
+                    if (storeFailure == null)
+                    {
+                        result.put(ConfiguredObject.ID, child.getId());
+                        result.put(BULK_RESULT_SUCCESS, true);
+                    }
+                    else
+                    {
+                        LOGGER.warn("Failed to store {} '{}' created as part of bulk request",
+                                    objClass.getSimpleName(), child.getName(), storeFailure);
+                        result.put(BULK_RESULT_SUCCESS, false);
+                        result.put(BULK_RESULT_ERROR_MESSAGE, storeFailure.getMessage());
+                    }
+                }
+                catch (IllegalArgumentException | IllegalConfigurationException | IllegalStateException | SecurityException
+                        | IntegrityViolationException | IllegalStateTransitionException e)
+                {
+                    LOGGER.debug("Failed to create {} as part of bulk request", objClass.getSimpleName(), e);
+                    result.put(BULK_RESULT_SUCCESS, false);
+                    result.put(BULK_RESULT_ERROR_MESSAGE, e.getMessage());
+                }
+            }
+            results.add(result);
+        }
+
+        sendJsonResponse(results, request, response, HttpServletResponse.SC_OK, false);
+    }
+
+    private <T> T awaitBulkOperation(final ListenableFuture<T> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ServerScopedRuntimeException(e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            else if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new ServerScopedRuntimeException(cause == null ? e : cause);
+        }
+    }
+
     private void doGetUserPreferences(final RequestInfo requestInfo,
                                       final HttpServletRequest request,
                                       final HttpServletResponse response) throws IOException, ServletException
@@ -1187,10 +1367,7 @@ public class RestServlet extends AbstractServlet
         {
             case MODEL_OBJECT:
             {
-                for (ConfiguredObject o : allObjects)
-                {
-                    o.delete();
-                }
+                deleteObjects(allObjects);
 
                 sendCachingHeadersOnResponse(response);
                 response.setStatus(HttpServletResponse.SC_OK);
@@ -1221,6 +1398,69 @@ public class RestServlet extends AbstractServlet
         }
     }
 
+    private void deleteObjects(final Collection<ConfiguredObject<?>> allObjects)
+    {
+        // objects sharing a configuration thread are deleted together so that their durable configuration
+        // records are removed from the store in a single batch
+        Map<TaskExecutor, List<ConfiguredObject<?>>> objectsByExecutor = new LinkedHashMap<>();
+        for (ConfiguredObject<?> o : allObjects)
+        {
+            List<ConfiguredObject<?>> objects = objectsByExecutor.get(o.getTaskExecutor());
+            if (objects == null)
+            {
+                objects = new ArrayList<>();
+                objectsByExecutor.put(o.getTaskExecutor(), objects);
+            }
+            objects.add(o);
+        }
+
+        List<ListenableFuture<Void>> futures = new ArrayList<>(allObjects.size());
+        for (Map.Entry<TaskExecutor, List<ConfiguredObject<?>>> entry : objectsByExecutor.entrySet())
+        {
+            final List<ConfiguredObject<?>> objects = entry.getValue();
+            futures.addAll(entry.getKey().run(new Task<List<ListenableFuture<Void>>, RuntimeException>()
+            {
+                @Override
+                public List<ListenableFuture<Void>> execute()
+                {
+                    List<ListenableFuture<Void>> futures = new ArrayList<>(objects.size());
+                    try (ConfigurationUpdateBatch batch = ConfigurationUpdateBatch.begin())
+                    {
+                        for (ConfiguredObject<?> o : objects)
+                        {
+                            futures.add(o.deleteAsync());
+                        }
+                        batch.commit();
+                    }
+                    return futures;
+                }
+
+                @Override
+                public String getObject()
+                {
+                    return objects.get(0).getCategoryClass().getSimpleName();
+                }
+
+                @Override
+                public String getAction()
+                {
+                    return "bulk delete";
+                }
+
+                @Override
+                public String getArguments()
+                {
+                    return "count=" + objects.size();
+                }
+            }));
+        }
+
+        for (ListenableFuture<Void> future : futures)
+        {
+            awaitBulkOperation(future);
+        }
+    }
+
     @Override
     protected void doPostWithSubjectAndActor(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
     {
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+
+package org.apache.qpid.server.management.plugin.servlet.rest;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.qpid.server.model.Broker;
+import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectStatistic;
+import org.apache.qpid.server.model.ConfiguredObjectStatisticAccessor;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.model.VirtualHostNode;
+import org.apache.qpid.server.plugin.ConfiguredObjectStatisticAccessors;
+import org.apache.qpid.server.plugin.QpidServiceLoader;
+import org.apache.qpid.server.queue.StandardQueue;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class MetricsServletTest extends QpidTestCase
+{
+    private static final String QUEUE_LABELS =
+            "{broker=\"broker\",virtualhostnode=\"node\",virtualhost=\"vhost\",queue=\"queue\"}";
+
+    private Broker<?> _broker;
+    private VirtualHost<?> _virtualHost;
+    private Queue<?> _queue;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+
+        _broker = mock(Broker.class);
+        VirtualHostNode<?> node = mock(VirtualHostNode.class);
+        _virtualHost = mock(VirtualHost.class);
+        _queue = mock(Queue.class);
+
+        configure(_broker, Broker.class, Broker.class, "broker", null, null);
+        configure(node, VirtualHostNode.class, VirtualHostNode.class, "node", Broker.class, _broker);
+        configure(_virtualHost, VirtualHost.class, VirtualHost.class, "vhost", VirtualHostNode.class, node);
+        configure(_queue, Queue.class, StandardQueue.class, "queue", VirtualHost.class, _virtualHost);
+        doReturn(BrokerModel.getInstance()).when(_broker).getModel();
+        doReturn(Collections.singletonList(node)).when(_broker).getChildren(VirtualHostNode.class);
+        doReturn(Collections.singletonList(_virtualHost)).when(node).getChildren(VirtualHost.class);
+        doReturn(Collections.singletonList(_queue)).when(_virtualHost).getChildren(Queue.class);
+
+        when(_queue.getQueueDepthMessages()).thenReturn(42);
+        when(_queue.getQueueDepthBytes()).thenReturn(4200L);
+        when(_virtualHost.getQueueCount()).thenReturn(1L);
+    }
+
+    public void testGeneratedStatisticAccessorsLoaded()
+    {
+        ConfiguredObjectStatisticAccessor queueDepthAccessor = null;
+        for (ConfiguredObjectStatisticAccessors accessors : new QpidServiceLoader().instancesOf(
+                ConfiguredObjectStatisticAccessors.class))
+        {
+            if (accessors.getConfiguredObjectClass() == Queue.class)
+            {
+                queueDepthAccessor = accessors.getAccessors().get("getQueueDepthMessages");
+            }
+        }
+        assertNotNull("Generated accessor for queue depth not loaded", queueDepthAccessor);
+        assertEquals("Unexpected value from generated accessor", 42, queueDepthAccessor.getValue(_queue));
+
+        ConfiguredObjectStatistic queueDepth = null;
+        for (ConfiguredObjectStatistic statistic : BrokerModel.getInstance()
+                                                              .getTypeRegistry()
+                                                              .getStatistics(StandardQueue.class))
+        {
+            if ("queueDepthMessages".equals(statistic.getName()))
+            {
+                queueDepth = statistic;
+            }
+        }
+        assertNotNull("Queue depth statistic not found by the type registry", queueDepth);
+        assertEquals("Unexpected statistic value", 42, queueDepth.getValue(_queue));
+    }
+
+    public void testMetricsForAllCategories() throws Exception
+    {
+        String metrics = getMetrics(null, null);
+
+        assertTrue("Queue depth help missing: " + metrics,
+                   metrics.contains("# HELP qpid_queue_queue_depth_messages "));
+        assertTrue("Queue depth type missing: " + metrics,
+                   metrics.contains("# TYPE qpid_queue_queue_depth_messages gauge\n"));
+        assertTrue("Queue depth missing: " + metrics,
+                   metrics.contains("\nqpid_queue_queue_depth_messages" + QUEUE_LABELS + " 42\n"));
+        assertTrue("Queue depth bytes missing: " + metrics,
+                   metrics.contains("\nqpid_queue_queue_depth_bytes" + QUEUE_LABELS + " 4200\n"));
+        assertTrue("Virtual host queue count missing: " + metrics,
+                   metrics.contains("\nqpid_virtualhost_queue_count"
+                                    + "{broker=\"broker\",virtualhostnode=\"node\",virtualhost=\"vhost\"} 1\n"));
+    }
+
+    public void testMetricsFilteredByCategory() throws Exception
+    {
+        String metrics = getMetrics(new String[]{"queue"}, null);
+
+        assertTrue("Queue depth missing: " + metrics,
+                   metrics.contains("\nqpid_queue_queue_depth_messages" + QUEUE_LABELS + " 42\n"));
+        assertFalse("Unexpected virtual host metrics: " + metrics, metrics.contains("qpid_virtualhost_"));
+        assertFalse("Unexpected broker metrics: " + metrics, metrics.contains("qpid_broker_"));
+    }
+
+    public void testMetricsFilteredByName() throws Exception
+    {
+        String metrics = getMetrics(new String[]{"queue", "virtualhost"}, new String[]{"queueDepthMessages"});
+
+        assertEquals("Unexpected metrics",
+                     "# HELP qpid_queue_queue_depth_messages "
+                     + getQueueDepthDescription() + "\n"
+                     + "# TYPE qpid_queue_queue_depth_messages gauge\n"
+                     + "qpid_queue_queue_depth_messages" + QUEUE_LABELS + " 42\n",
+                     metrics);
+    }
+
+    public void testUnknownCategoryRejected() throws Exception
+    {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        getMetrics(new String[]{"nonExistent"}, null, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+    }
+
+    public void testToSnakeCase()
+    {
+        assertEquals("queue_depth_bytes", MetricsServlet.toSnakeCase("queueDepthBytes"));
+        assertEquals("bytes_in", MetricsServlet.toSnakeCase("bytesIn"));
+        assertEquals("count", MetricsServlet.toSnakeCase("count"));
+        assertEquals("a_b", MetricsServlet.toSnakeCase("a.b"));
+    }
+
+    public void testEscapeLabelValue()
+    {
+        assertEquals("plain", MetricsServlet.escapeLabelValue("plain"));
+        assertEquals("a\\\"b\\\\c\\nd", MetricsServlet.escapeLabelValue("a\"b\\c\nd"));
+    }
+
+    private String getQueueDepthDescription()
+    {
+        for (ConfiguredObjectStatistic statistic : BrokerModel.getInstance()
+                                                              .getTypeRegistry()
+                                                              .getStatistics(StandardQueue.class))
+        {
+            if ("queueDepthMessages".equals(statistic.getName()))
+            {
+                return statistic.getDescription();
+            }
+        }
+        return null;
+    }
+
+    private String getMetrics(final String[] categories, final String[] names) throws Exception
+    {
+        return getMetrics(categories, names, mock(HttpServletResponse.class));
+    }
+
+    private String getMetrics(final String[] categories,
+                              final String[] names,
+                              final HttpServletResponse response) throws Exception
+    {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameterValues(MetricsServlet.CATEGORY_PARAM)).thenReturn(categories);
+        when(request.getParameterValues(MetricsServlet.NAME_PARAM)).thenReturn(names);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MetricsServlet servlet = new MetricsServlet()
+        {
+            @Override
+            protected Broker<?> getBroker()
+            {
+                return _broker;
+            }
+
+            @Override
+            public OutputStream getOutputStream(final HttpServletRequest request, final HttpServletResponse response)
+            {
+                return output;
+            }
+        };
+        servlet.doGetWithSubjectAndActor(request, response);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void configure(final ConfiguredObject<?> object,
+                                  final Class<? extends ConfiguredObject> category,
+                                  final Class<? extends ConfiguredObject> type,
+                                  final String name,
+                                  final Class<? extends ConfiguredObject> parentCategory,
+                                  final ConfiguredObject<?> parent)
+    {
+        doReturn(category).when(object).getCategoryClass();
+        doReturn(type).when(object).getTypeClass();
+        when(object.getName()).thenReturn(name);
+        if (parent != null)
+        {
+            doReturn(parent).when(object).getParent(parentCategory);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.server.management.plugin.servlet.rest;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.Futures;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.apache.qpid.server.configuration.IllegalConfigurationException;
+import org.apache.qpid.server.configuration.store.StoreConfigurationChangeListener;
+import org.apache.qpid.server.configuration.updater.CurrentThreadTaskExecutor;
+import org.apache.qpid.server.management.plugin.HttpManagementConfiguration;
+import org.apache.qpid.server.management.plugin.HttpManagementUtil;
+import org.apache.qpid.server.model.Broker;
+import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.IntegrityViolationException;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.model.VirtualHostNode;
+import org.apache.qpid.server.store.ConfiguredObjectRecord;
+import org.apache.qpid.server.store.DurableConfigurationStore;
+import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class RestServletTest extends QpidTestCase
+{
+    private static final String VIRTUALHOST_PATH = "/node/vhost";
+    private static final String INVALID_QUEUE_NAME = "invalid";
+
+    private Broker<?> _broker;
+    private VirtualHost<?> _virtualHost;
+    private CurrentThreadTaskExecutor _taskExecutor;
+    private DurableConfigurationStore _store;
+    private StoreConfigurationChangeListener _listener;
+    private final List<Queue<?>> _createdQueues = new ArrayList<>();
+    private ByteArrayOutputStream _output;
+    private RestServlet _servlet;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+
+        _taskExecutor = new CurrentThreadTaskExecutor();
+        _taskExecutor.start();
+        _store = mock(DurableConfigurationStore.class);
+        _listener = new StoreConfigurationChangeListener(_store);
+
+        _broker = mock(Broker.class);
+        VirtualHostNode<?> node = mock(VirtualHostNode.class);
+        _virtualHost = mock(VirtualHost.class);
+        doReturn(BrokerModel.getInstance()).when(_broker).getModel();
+        when(node.getName()).thenReturn("node");
+        when(_virtualHost.getName()).thenReturn("vhost");
+        when(_virtualHost.isDurable()).thenReturn(true);
+        when(_virtualHost.getTaskExecutor()).thenReturn(_taskExecutor);
+        doReturn(Collections.singletonList(node)).when(_broker).getChildren(VirtualHostNode.class);
+        doReturn(Collections.singletonList(_virtualHost)).when(node).getChildren(VirtualHost.class);
+        doAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(final InvocationOnMock invocation)
+            {
+                Map<?, ?> attributes = (Map<?, ?>) invocation.getArguments()[1];
+                Object name = attributes.get(ConfiguredObject.NAME);
+                if (INVALID_QUEUE_NAME.equals(name))
+                {
+                    return Futures.immediateFailedFuture(new IllegalConfigurationException("Invalid queue " + name));
+                }
+                Queue<?> queue = createQueue((String) name);
+                _listener.childAdded(_virtualHost, queue);
+                return Futures.immediateFuture(queue);
+            }
+        }).when(_virtualHost).createChildAsync(any(Class.class), any(Map.class), Matchers.<ConfiguredObject>anyVararg());
+
+        _output = new ByteArrayOutputStream();
+        _servlet = new RestServlet(VirtualHostNode.class, VirtualHost.class, Queue.class)
+        {
+            @Override
+            public OutputStream getOutputStream(final HttpServletRequest request, final HttpServletResponse response)
+            {
+                return _output;
+            }
+        };
+
+        ServletContext servletContext = mock(ServletContext.class);
+        when(servletContext.getAttribute(HttpManagementUtil.ATTR_BROKER)).thenReturn(_broker);
+        when(servletContext.getAttribute(HttpManagementUtil.ATTR_MANAGEMENT_CONFIGURATION))
+                .thenReturn(mock(HttpManagementConfiguration.class));
+        ServletConfig servletConfig = mock(ServletConfig.class);
+        when(servletConfig.getServletContext()).thenReturn(servletContext);
+        _servlet.init(servletConfig);
+    }
+
+    public void testBulkCreateReportsResultForEachObject() throws Exception
+    {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        _servlet.doPutWithSubjectAndActor(createRequest("PUT", "[{\"name\":\"queue1\"},{\"name\":\"queue2\"}]"),
+                                          response);
+
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        List<Map<String, Object>> results = getResults();
+        assertEquals("Unexpected number of results", 2, results.size());
+        assertSuccess(results.get(0), "queue1");
+        assertSuccess(results.get(1), "queue2");
+    }
+
+    public void testBulkCreateReportsPartialFailure() throws Exception
+    {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        _servlet.doPutWithSubjectAndActor(createRequest("PUT",
+                                                        "[{\"name\":\"queue1\"},"
+                                                        + "{\"name\":\"" + INVALID_QUEUE_NAME + "\"},"
+                                                        + "\"notAnObject\","
+                                                        + "{\"name\":\"queue2\"}]"),
+                                          response);
+
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        List<Map<String, Object>> results = getResults();
+        assertEquals("Unexpected number of results", 4, results.size());
+        assertSuccess(results.get(0), "queue1");
+        assertEquals("Unexpected name", INVALID_QUEUE_NAME, results.get(1).get(ConfiguredObject.NAME));
+        assertEquals("Unexpected success", Boolean.FALSE, results.get(1).get(RestServlet.BULK_RESULT_SUCCESS));
+        assertEquals("Unexpected error",
+                     "Invalid queue " + INVALID_QUEUE_NAME,
+                     results.get(1).get(RestServlet.BULK_RESULT_ERROR_MESSAGE));
+        assertEquals("Unexpected success", Boolean.FALSE, results.get(2).get(RestServlet.BULK_RESULT_SUCCESS));
+        assertNotNull("Error expected for a definition which is not an object",
+                      results.get(2).get(RestServlet.BULK_RESULT_ERROR_MESSAGE));
+        assertSuccess(results.get(3), "queue2");
+    }
+
+    public void testBulkCreateUpdatesStoreOnce() throws Exception
+    {
+        _servlet.doPutWithSubjectAndActor(createRequest("PUT",
+                                                        "[{\"name\":\"queue1\"},"
+                                                        + "{\"name\":\"" + INVALID_QUEUE_NAME + "\"},"
+                                                        + "{\"name\":\"queue2\"}]"),
+                                          mock(HttpServletResponse.class));
+
+        List<Map<String, Object>> results = getResults();
+        ConfiguredObjectRecord record1 = getCreatedQueue(results.get(0)).asObjectRecord();
+        ConfiguredObjectRecord record2 = getCreatedQueue(results.get(2)).asObjectRecord();
+        verify(_store).update(true, record1, record2);
+        verifyNoMoreInteractions(_store);
+    }
+
+    public void testBulkCreateStoresObjectsSeparatelyWhenBatchFails() throws Exception
+    {
+        doAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(final InvocationOnMock invocation)
+            {
+                Object[] arguments = invocation.getArguments();
+                if (arguments.length > 2)
+                {
+                    throw new StoreException("Batch failed");
+                }
+                if (getQueue(((ConfiguredObjectRecord) arguments[1]).getId()).getName().equals("queue2"))
+                {
+                    throw new StoreException("Cannot store queue2");
+                }
+                return null;
+            }
+        }).when(_store).update(eq(true), Matchers.<ConfiguredObjectRecord>anyVararg());
+        doAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(final InvocationOnMock invocation)
+            {
+                return getQueue((UUID) invocation.getArguments()[1]);
+            }
+        }).when(_virtualHost).getChildById(eq(Queue.class), any(UUID.class));
+
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        _servlet.doPutWithSubjectAndActor(createRequest("PUT", "[{\"name\":\"queue1\"},{\"name\":\"queue2\"}]"),
+                                          response);
+
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        List<Map<String, Object>> results = getResults();
+        assertEquals("Unexpected number of results", 2, results.size());
+        assertSuccess(results.get(0), "queue1");
+        assertEquals("Unexpected name", "queue2", results.get(1).get(ConfiguredObject.NAME));
+        assertEquals("Unexpected success", Boolean.FALSE, results.get(1).get(RestServlet.BULK_RESULT_SUCCESS));
+        assertEquals("Unexpected error", "Cannot store queue2", results.get(1).get(RestServlet.BULK_RESULT_ERROR_MESSAGE));
+
+        Queue<?> queue1 = getCreatedQueue(results.get(0));
+        Queue<?> queue2 = _createdQueues.get(1);
+        ConfiguredObjectRecord record1 = queue1.asObjectRecord();
+        ConfiguredObjectRecord record2 = queue2.asObjectRecord();
+        verify(_store).update(true, record1, record2);
+        verify(_store).update(true, record1);
+        verify(_store).update(true, record2);
+        verifyNoMoreInteractions(_store);
+        verify(queue1, never()).deleteAsync();
+        verify(queue2).deleteAsync();
+    }
+
+    public void testDeleteRemovesRecordsFromStoreOnce() throws Exception
+    {
+        Queue<?> queue1 = createQueue("queue1");
+        Queue<?> queue2 = createQueue("queue2");
+        ConfiguredObjectRecord record1 = queue1.asObjectRecord();
+        ConfiguredObjectRecord record2 = queue2.asObjectRecord();
+        mockDeletion(queue1);
+        mockDeletion(queue2);
+        doReturn(Arrays.asList(queue1, queue2)).when(_virtualHost).getChildren(Queue.class);
+
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        _servlet.doDeleteWithSubjectAndActor(createRequest("DELETE", null), response);
+
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        verify(queue1).deleteAsync();
+        verify(queue2).deleteAsync();
+        verify(_store).remove(record1, record2);
+        verifyNoMoreInteractions(_store);
+    }
+
+    public void testDeleteFailureDoesNotPreventOtherDeletions() throws Exception
+    {
+        Queue<?> queue1 = createQueue("queue1");
+        Queue<?> queue2 = createQueue("queue2");
+        Queue<?> queue3 = createQueue("queue3");
+        ConfiguredObjectRecord record1 = queue1.asObjectRecord();
+        ConfiguredObjectRecord record3 = queue3.asObjectRecord();
+        mockDeletion(queue1);
+        when(queue2.deleteAsync()).thenReturn(Futures.<Void>immediateFailedFuture(
+                new IntegrityViolationException("Queue in use")));
+        mockDeletion(queue3);
+        doReturn(Arrays.asList(queue1, queue2, queue3)).when(_virtualHost).getChildren(Queue.class);
+
+        try
+        {
+            _servlet.doDeleteWithSubjectAndActor(createRequest("DELETE", null), mock(HttpServletResponse.class));
+            fail("Exception not thrown");
+        }
+        catch (IntegrityViolationException e)
+        {
+            assertEquals("Unexpected exception message", "Queue in use", e.getMessage());
+        }
+
+        verify(queue3).deleteAsync();
+        verify(_store).remove(record1, record3);
+        verifyNoMoreInteractions(_store);
+    }
+
+    private void assertSuccess(final Map<String, Object> result, final String name)
+    {
+        assertEquals("Unexpected name", name, result.get(ConfiguredObject.NAME));
+        assertEquals("Unexpected success for " + name, Boolean.TRUE, result.get(RestServlet.BULK_RESULT_SUCCESS));
+        assertNotNull("Id expected for " + name, result.get(ConfiguredObject.ID));
+        assertNull("Unexpected error for " + name, result.get(RestServlet.BULK_RESULT_ERROR_MESSAGE));
+    }
+
+    private Queue<?> getCreatedQueue(final Map<String, Object> result)
+    {
+        Queue<?> queue = getQueue(UUID.fromString((String) result.get(ConfiguredObject.ID)));
+        assertNotNull("Queue " + result.get(ConfiguredObject.NAME) + " not created", queue);
+        return queue;
+    }
+
+    private Queue<?> getQueue(final UUID id)
+    {
+        for (Queue<?> queue : _createdQueues)
+        {
+            if (queue.getId().equals(id))
+            {
+                return queue;
+            }
+        }
+        return null;
+    }
+
+    private Queue<?> createQueue(final String name)
+    {
+        UUID id = UUID.randomUUID();
+        ConfiguredObjectRecord record = mock(ConfiguredObjectRecord.class);
+        when(record.getId()).thenReturn(id);
+
+        Queue<?> queue = mock(Queue.class);
+        doReturn(Queue.class).when(queue).getCategoryClass();
+        doReturn(BrokerModel.getInstance()).when(queue).getModel();
+        when(queue.getId()).thenReturn(id);
+        when(queue.getName()).thenReturn(name);
+        when(queue.isDurable()).thenReturn(true);
+        when(queue.asObjectRecord()).thenReturn(record);
+        when(queue.getTaskExecutor()).thenReturn(_taskExecutor);
+        _createdQueues.add(queue);
+        return queue;
+    }
+
+    private void mockDeletion(final Queue<?> queue)
+    {
+        when(queue.deleteAsync()).thenAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(final InvocationOnMock invocation)
+            {
+                _listener.childRemoved(_virtualHost, queue);
+                return Futures.immediateFuture(null);
+            }
+        });
+    }
+
+    private HttpServletRequest createRequest(final String method, final String body) throws IOException
+    {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getServletPath()).thenReturn("/api/latest/queue");
+        when(request.getPathInfo()).thenReturn(VIRTUALHOST_PATH);
+        when(request.getHeaderNames()).thenReturn(Collections.enumeration(Collections.<String>emptyList()));
+        when(request.getParameterNames()).thenReturn(Collections.enumeration(Collections.<String>emptyList()));
+        if (body != null)
+        {
+            final ByteArrayInputStream input = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+            when(request.getInputStream()).thenReturn(new ServletInputStream()
+            {
+                @Override
+                public int read()
+                {
+                    return input.read();
+                }
+            });
+        }
+        return request;
+    }
+
+    private List<Map<String, Object>> getResults() throws IOException
+    {
+        return new ObjectMapper().readValue(_output.toByteArray(), List.class);
+    }
+}
@@ -57,6 +57,12 @@ public final class AMQShortString implements Comparable<AMQShortString>
 
     public static final AMQShortString EMPTY_STRING = new AMQShortString((String)null);
 
+    public static final String INTERN_CACHE_SIZE_PROPERTY_NAME = "qpid.amqShortString.internCacheSize";
+    public static final int DEFAULT_INTERN_CACHE_SIZE = 4096;
+
+    private static final AMQShortStringCache INTERN_CACHE =
+            new AMQShortStringCache(Integer.getInteger(INTERN_CACHE_SIZE_PROPERTY_NAME, DEFAULT_INTERN_CACHE_SIZE));
+
     public AMQShortString(byte[] data)
     {
         if (data == null)
@@ -151,6 +157,21 @@ public final class AMQShortString implements Comparable<AMQShortString>
     }
 
 
+    /**
+     * Reads a short string as {@link #readAMQShortString(QpidByteBuffer)} does, sharing the instance with earlier
+     * reads of the same string. Intended for strings which recur, such as exchange names and routing keys, rather
+     * than those which are usually unique, such as message ids.
+     */
+    public static AMQShortString readInternedAMQShortString(QpidByteBuffer buffer)
+    {
+        return INTERN_CACHE.read(buffer);
+    }
+
+    public static AMQShortStringCache getInternCache()
+    {
+        return INTERN_CACHE;
+    }
+
     public AMQShortString(byte[] data, final int offset, final int length)
     {
         if (length > MAX_LENGTH)
@@ -298,6 +319,35 @@ public final class AMQShortString implements Comparable<AMQShortString>
         return hash;
     }
 
+    /**
+     * Computes the hash code of the short string held in the buffer at the given position, without reading it.
+     */
+    static int hashCode(QpidByteBuffer buffer, int position, int length)
+    {
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+        {
+            hash = (31 * hash) + buffer.get(position + i);
+        }
+        return hash;
+    }
+
+    boolean contentEquals(QpidByteBuffer buffer, int position, int length)
+    {
+        if (length != _length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (_data[_offset + i] != buffer.get(position + i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString()
     {
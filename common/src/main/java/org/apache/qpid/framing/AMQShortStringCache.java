@@ -0,0 +1,115 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.framing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+
+/**
+ * A bounded cache of the short strings read from buffers, so that strings which recur from one frame to the next,
+ * such as exchange names and routing keys, are shared rather than recreated each time they are decoded.
+ * <p>
+ * The cache is a fixed size table indexed by the hash of a string's bytes, computed in the buffer without
+ * allocation. A string read on a miss replaces the string held in its slot, so the memory held by the cache is
+ * bounded by the table size. The table is read and written without locking: a reader racing with a replacement may
+ * miss, which costs no more than reading the string without the cache.
+ */
+public final class AMQShortStringCache
+{
+    private final AMQShortString[] _strings;
+    private final int _mask;
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+
+    public AMQShortStringCache(final int size)
+    {
+        if (size < 1)
+        {
+            throw new IllegalArgumentException("Cache size must be positive: " + size);
+        }
+        final int capacity = size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        _strings = new AMQShortString[capacity];
+        _mask = capacity - 1;
+    }
+
+    /**
+     * Reads a length prefixed short string from the buffer as {@link AMQShortString#readAMQShortString(QpidByteBuffer)}
+     * does, returning the cached instance if an equal string has been read before.
+     */
+    public AMQShortString read(final QpidByteBuffer buffer)
+    {
+        final int length = ((int) buffer.get()) & 0xff;
+        if (length == 0)
+        {
+            return null;
+        }
+        if (length > buffer.remaining())
+        {
+            throw new IllegalArgumentException("Cannot create AMQShortString with length "
+                                               + length + " from a ByteBuffer with only "
+                                               + buffer.remaining()
+                                               + " bytes.");
+        }
+
+        final int position = buffer.position();
+        final int hash = AMQShortString.hashCode(buffer, position, length);
+        final int index = (hash ^ (hash >>> 16)) & _mask;
+
+        final AMQShortString cached = _strings[index];
+        if (cached != null && cached.hashCode() == hash && cached.contentEquals(buffer, position, length))
+        {
+            buffer.position(position + length);
+            _hits.incrementAndGet();
+            return cached;
+        }
+
+        final byte[] data = new byte[length];
+        buffer.get(data);
+        final AMQShortString string = new AMQShortString(data, 0, length);
+        _strings[index] = string;
+        _misses.incrementAndGet();
+        return string;
+    }
+
+    public int getSize()
+    {
+        return _strings.length;
+    }
+
+    public long getHitCount()
+    {
+        return _hits.get();
+    }
+
+    public long getMissCount()
+    {
+        return _misses.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AMQShortStringCache[size=" + _strings.length
+               + ", hits=" + _hits.get()
+               + ", misses=" + _misses.get() + "]";
+    }
+}
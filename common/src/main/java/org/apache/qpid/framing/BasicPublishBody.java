@@ -144,8 +144,8 @@ public class BasicPublishBody extends AMQMethodBodyImpl implements EncodableAMQD
     {
 
         int ticket = buffer.getUnsignedShort();
-        AMQShortString exchange = AMQShortString.readAMQShortString(buffer);
-        AMQShortString routingKey = AMQShortString.readAMQShortString(buffer);
+        AMQShortString exchange = AMQShortString.readInternedAMQShortString(buffer);
+        AMQShortString routingKey = AMQShortString.readInternedAMQShortString(buffer);
         byte bitfield = buffer.get();
 
         boolean mandatory = (bitfield & 0x01) != 0;
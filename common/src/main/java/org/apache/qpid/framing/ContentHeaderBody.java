@@ -37,6 +37,13 @@ public class ContentHeaderBody implements AMQBody
     /** must never be null */
     private final BasicContentHeaderProperties _properties;
 
+    /**
+     * The complete encoded header, kept once the header has been written so that a message delivered to many
+     * consumers is encoded only once. It is held on the heap as it lives as long as the message does. The
+     * properties must not be changed once the header has been written unless the encoded form is cleared.
+     */
+    private QpidByteBuffer _encodedForm;
+
     public ContentHeaderBody(QpidByteBuffer buffer, long size) throws AMQFrameDecodingException
     {
         buffer.getUnsignedShort();
@@ -87,17 +94,20 @@ public class ContentHeaderBody implements AMQBody
     }
 
     @Override
-    public long writePayload(final ByteBufferSender sender)
+    public synchronized long writePayload(final ByteBufferSender sender)
     {
-        QpidByteBuffer data = QpidByteBuffer.allocate(sender.isDirectBufferPreferred(), HEADER_SIZE);
-        data.putUnsignedShort(CLASS_ID);
-        data.putUnsignedShort(0);
-        data.putLong(_bodySize);
-        data.putUnsignedShort(_properties.getPropertyFlags());
-        data.flip();
-        sender.send(data);
-        data.dispose();
-        return HEADER_SIZE + _properties.writePropertyListPayload(sender);
+        if(_encodedForm == null)
+        {
+            final int size = getSize();
+            QpidByteBuffer data = QpidByteBuffer.allocate(false, size);
+            writePayload(data);
+            data.flip();
+            _encodedForm = data;
+        }
+        final QpidByteBuffer duplicate = _encodedForm.duplicate();
+        sender.send(duplicate);
+        duplicate.dispose();
+        return _encodedForm.remaining();
     }
 
     public long writePayload(final QpidByteBuffer buf)
@@ -156,9 +166,10 @@ public class ContentHeaderBody implements AMQBody
         return _bodySize;
     }
 
-    public void setBodySize(long bodySize)
+    public synchronized void setBodySize(long bodySize)
     {
         _bodySize = bodySize;
+        nullEncodedForm();
     }
 
     public static void process(final QpidByteBuffer buffer,
@@ -186,13 +197,24 @@ public class ContentHeaderBody implements AMQBody
         }
     }
 
-    public void dispose()
+    public synchronized void dispose()
     {
+        nullEncodedForm();
         _properties.dispose();
     }
 
-    public void clearEncodedForm()
+    public synchronized void clearEncodedForm()
     {
+        nullEncodedForm();
         _properties.clearEncodedForm();
     }
+
+    private void nullEncodedForm()
+    {
+        if(_encodedForm != null)
+        {
+            _encodedForm.dispose();
+            _encodedForm = null;
+        }
+    }
 }
@@ -47,7 +47,12 @@ public class FieldTable
     private QpidByteBuffer _encodedForm;
     private Map<AMQShortString, AMQTypedValue> _properties = null;
     private long _encodedSize;
+    private int _encodedLookups;
     private static final int INITIAL_HASHMAP_CAPACITY = 16;
+    /** Number of lookups answered by scanning the encoded form before the table is fully decoded */
+    private static final int MAX_ENCODED_LOOKUPS = 8;
+    private static final int NOT_FOUND = -1;
+    private static final int UNKNOWN_ENCODING = -2;
     private final boolean _strictAMQP;
 
     public FieldTable()
@@ -105,10 +110,16 @@ public class FieldTable
                 {
                     return null;
                 }
-                else
+                else if (_encodedLookups < MAX_ENCODED_LOOKUPS)
                 {
-                    populateFromBuffer();
+                    _encodedLookups++;
+                    final int valueOffset = findValueOffset(string);
+                    if (valueOffset != UNKNOWN_ENCODING)
+                    {
+                        return valueOffset == NOT_FOUND ? null : readValueAt(valueOffset);
+                    }
                 }
+                populateFromBuffer();
             }
         }
 
@@ -122,6 +133,93 @@ public class FieldTable
         }
     }
 
+    /**
+     * Finds the value for the given key by scanning the encoded form, without decoding the other entries.
+     * Where the key occurs more than once the last value is used, as it is when the table is fully decoded.
+     *
+     * @return the absolute offset of the value's type in the encoded form, {@link #NOT_FOUND}, or
+     * {@link #UNKNOWN_ENCODING} if the encoded form holds a value whose length can't be determined without
+     * decoding it
+     */
+    private int findValueOffset(final AMQShortString key)
+    {
+        final int start = _encodedForm.position();
+        final int end = start + _encodedForm.remaining();
+        final int keyLength = key.length();
+        int valueOffset = NOT_FOUND;
+        int offset = start;
+        while (offset < end)
+        {
+            final int entryKeyLength = _encodedForm.get(offset++) & 0xff;
+            boolean matches = entryKeyLength == keyLength;
+            for (int i = 0; matches && i < keyLength; i++)
+            {
+                matches = _encodedForm.get(offset + i) == (byte) key.charAt(i);
+            }
+            offset += entryKeyLength;
+            if (matches)
+            {
+                valueOffset = offset;
+            }
+            offset = skipValue(offset);
+            if (offset < 0)
+            {
+                return UNKNOWN_ENCODING;
+            }
+        }
+        return valueOffset;
+    }
+
+    private int skipValue(final int offset)
+    {
+        final int valueOffset = offset + 1;
+        switch (_encodedForm.get(offset))
+        {
+            case 'V':
+                return valueOffset;
+            case 't':
+            case 'k':
+            case 'b':
+                return valueOffset + 1;
+            case 's':
+                return valueOffset + 2;
+            case 'i':
+            case 'I':
+            case 'f':
+                return valueOffset + 4;
+            case 'D':
+                return valueOffset + 5;
+            case 'T':
+            case 'l':
+            case 'd':
+                return valueOffset + 8;
+            case 'S':
+            case 'c':
+            case 'C':
+            case 'x':
+            case 'F':
+            case 'A':
+                final long length = _encodedForm.getInt(valueOffset) & 0xFFFFFFFFL;
+                return length > Integer.MAX_VALUE - valueOffset - 4 ? UNKNOWN_ENCODING : (int) (valueOffset + 4 + length);
+            default:
+                return UNKNOWN_ENCODING;
+        }
+    }
+
+    private AMQTypedValue readValueAt(final int valueOffset)
+    {
+        final int start = _encodedForm.position();
+        final QpidByteBuffer valueBuffer = _encodedForm.view(valueOffset - start, _encodedForm.remaining() - (valueOffset - start));
+        try
+        {
+            return AMQTypedValue.readFromBuffer(valueBuffer);
+        }
+        finally
+        {
+            valueBuffer.dispose();
+        }
+    }
+
     private void populateFromBuffer()
     {
         try
@@ -750,9 +848,7 @@ public class FieldTable
     public boolean itemExists(AMQShortString propertyName)
     {
         checkPropertyName(propertyName);
-        initMapIfNecessary();
-
-        return _properties.containsKey(propertyName);
+        return containsKey(propertyName);
     }
 
     public boolean itemExists(String string)
@@ -1001,6 +1097,18 @@ public class FieldTable
 
     public boolean containsKey(AMQShortString key)
     {
+        synchronized (this)
+        {
+            if (_properties == null && _encodedForm != null && _encodedLookups < MAX_ENCODED_LOOKUPS)
+            {
+                _encodedLookups++;
+                final int valueOffset = findValueOffset(key);
+                if (valueOffset != UNKNOWN_ENCODING)
+                {
+                    return valueOffset != NOT_FOUND;
+                }
+            }
+        }
         initMapIfNecessary();
 
         return _properties.containsKey(key);
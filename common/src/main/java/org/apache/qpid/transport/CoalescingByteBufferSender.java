@@ -0,0 +1,176 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+
+/**
+ * A sender which packs small buffers, such as frame headers and the method and header frames of small messages,
+ * into a larger buffer which is passed to the underlying sender when it fills, when a large buffer is sent, or when
+ * the sender is flushed. Large buffers are passed on as they are so that message content is not copied.
+ * <p>
+ * The coalescing buffer is released once its bytes have been passed on by a flush, so an idle connection does not
+ * keep it, and the pooled chunk it was allocated from, until the next frames are sent.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class CoalescingByteBufferSender implements ByteBufferSender
+{
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_COPY_THRESHOLD = 1024;
+
+    private final ByteBufferSender _delegate;
+    private final int _bufferSize;
+    private final int _copyThreshold;
+
+    private QpidByteBuffer _buffer;
+    private int _unsentStart;
+
+    private long _buffersSent;
+    private long _buffersWritten;
+    private boolean _disposed;
+
+    public CoalescingByteBufferSender(final ByteBufferSender delegate)
+    {
+        this(delegate, DEFAULT_BUFFER_SIZE, DEFAULT_COPY_THRESHOLD);
+    }
+
+    public CoalescingByteBufferSender(final ByteBufferSender delegate, final int bufferSize, final int copyThreshold)
+    {
+        if (copyThreshold > bufferSize)
+        {
+            throw new IllegalArgumentException("Copy threshold " + copyThreshold
+                                               + " must not exceed buffer size " + bufferSize);
+        }
+        _delegate = delegate;
+        _bufferSize = bufferSize;
+        _copyThreshold = copyThreshold;
+    }
+
+    @Override
+    public boolean isDirectBufferPreferred()
+    {
+        return _delegate.isDirectBufferPreferred();
+    }
+
+    @Override
+    public void send(final QpidByteBuffer msg)
+    {
+        final int remaining = msg.remaining();
+        if (remaining == 0)
+        {
+            return;
+        }
+
+        _buffersSent++;
+        if (remaining < _copyThreshold && !_disposed)
+        {
+            if (_buffer == null || _buffer.remaining() < remaining)
+            {
+                writeUnsent();
+                disposeBuffer();
+                _buffer = QpidByteBuffer.allocate(_delegate.isDirectBufferPreferred(), _bufferSize);
+            }
+            _buffer.putCopyOf(msg);
+            msg.position(msg.limit());
+        }
+        else
+        {
+            writeUnsent();
+            _delegate.send(msg);
+            _buffersWritten++;
+        }
+    }
+
+    @Override
+    public void flush()
+    {
+        writeUnsent();
+        disposeBuffer();
+        _delegate.flush();
+    }
+
+    @Override
+    public void close()
+    {
+        writeUnsent();
+        disposeBuffer();
+        _delegate.close();
+    }
+
+    /**
+     * Releases the coalescing buffer, discarding any bytes not yet passed to the underlying sender. Buffers sent
+     * afterwards are passed on without being copied.
+     */
+    public void dispose()
+    {
+        _disposed = true;
+        disposeBuffer();
+    }
+
+    /**
+     * Returns the number of non-empty buffers passed to this sender.
+     */
+    public long getBuffersSent()
+    {
+        return _buffersSent;
+    }
+
+    /**
+     * Returns the number of buffers this sender has passed to the underlying sender.
+     */
+    public long getBuffersWritten()
+    {
+        return _buffersWritten;
+    }
+
+    private void writeUnsent()
+    {
+        if (_buffer != null && _buffer.position() > _unsentStart)
+        {
+            final QpidByteBuffer unsent = _buffer.duplicate();
+            unsent.flip();
+            unsent.position(_unsentStart);
+            _unsentStart = _buffer.position();
+            _delegate.send(unsent);
+            unsent.dispose();
+            _buffersWritten++;
+        }
+    }
+
+    private void disposeBuffer()
+    {
+        if (_buffer != null)
+        {
+            _buffer.dispose();
+            _buffer = null;
+            _unsentStart = 0;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CoalescingByteBufferSender[delegate=" + _delegate
+               + ", buffersSent=" + _buffersSent
+               + ", buffersWritten=" + _buffersWritten + "]";
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport;
+
+import static org.apache.qpid.util.Serial.ge;
+import static org.apache.qpid.util.Serial.le;
+import static org.apache.qpid.util.Serial.lt;
+import static org.apache.qpid.util.Serial.max;
+import static org.apache.qpid.util.Serial.min;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A range set holding each range packed into a single long, the lower bound in the high word and the upper bound in
+ * the low word, in an array ordered by serial number comparison. Adding and subtracting ranges merges or splits them
+ * in place, so no objects are created other than the {@link Range} instances handed out by the iterator and by
+ * {@link #getFirst()} and {@link #getLast()}.
+ */
+public class PackedRangeSet implements RangeSet
+{
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private long[] _ranges;
+    private int _size;
+
+    public PackedRangeSet()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PackedRangeSet(int capacity)
+    {
+        _ranges = new long[Math.max(capacity, 1)];
+    }
+
+    private PackedRangeSet(PackedRangeSet copy)
+    {
+        _ranges = Arrays.copyOf(copy._ranges, Math.max(copy._size, DEFAULT_CAPACITY));
+        _size = copy._size;
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public Iterator<Range> iterator()
+    {
+        return new Iterator<Range>()
+        {
+            private int _index;
+
+            @Override
+            public boolean hasNext()
+            {
+                return _index < _size;
+            }
+
+            @Override
+            public Range next()
+            {
+                if (_index >= _size)
+                {
+                    throw new NoSuchElementException();
+                }
+                return getRange(_index++);
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    public Range getFirst()
+    {
+        return getRange(0);
+    }
+
+    public Range getLast()
+    {
+        return getRange(_size - 1);
+    }
+
+    public boolean includes(Range range)
+    {
+        int index = indexOfFirstEndingAtOrAfter(range.getLower());
+        return index < _size
+               && le(lower(_ranges[index]), range.getLower())
+               && ge(upper(_ranges[index]), range.getUpper());
+    }
+
+    public boolean includes(int n)
+    {
+        int index = indexOfFirstEndingAtOrAfter(n);
+        return index < _size && le(lower(_ranges[index]), n);
+    }
+
+    public void add(Range range)
+    {
+        add(range.getLower(), range.getUpper());
+    }
+
+    public void add(int lower, int upper)
+    {
+        // the ranges from start up to end touch the range being added, and are replaced by a range spanning them
+        int start = indexOfFirstEndingAtOrAfter(lower - 1);
+        int end = start;
+        int newLower = lower;
+        int newUpper = upper;
+        while (end < _size && le(lower(_ranges[end]), upper + 1))
+        {
+            newLower = min(newLower, lower(_ranges[end]));
+            newUpper = max(newUpper, upper(_ranges[end]));
+            end++;
+        }
+        replace(start, end, 1);
+        _ranges[start] = pack(newLower, newUpper);
+    }
+
+    public void add(int value)
+    {
+        add(value, value);
+    }
+
+    public void subtract(final RangeSet other)
+    {
+        if (other instanceof PackedRangeSet)
+        {
+            PackedRangeSet packed = (PackedRangeSet) other;
+            for (int i = 0; i < packed._size; i++)
+            {
+                remove(lower(packed._ranges[i]), upper(packed._ranges[i]));
+            }
+        }
+        else
+        {
+            for (Range range : other)
+            {
+                remove(range.getLower(), range.getUpper());
+            }
+        }
+    }
+
+    public void clear()
+    {
+        _size = 0;
+    }
+
+    public RangeSet copy()
+    {
+        return new PackedRangeSet(this);
+    }
+
+    private void remove(int lower, int upper)
+    {
+        int start = indexOfFirstEndingAtOrAfter(lower);
+        int end = start;
+        while (end < _size && le(lower(_ranges[end]), upper))
+        {
+            end++;
+        }
+        if (end == start)
+        {
+            return;
+        }
+
+        long first = _ranges[start];
+        long last = _ranges[end - 1];
+        boolean keepBelow = lt(lower(first), lower);
+        boolean keepAbove = lt(upper, upper(last));
+
+        replace(start, end, (keepBelow ? 1 : 0) + (keepAbove ? 1 : 0));
+        if (keepBelow)
+        {
+            _ranges[start++] = pack(lower(first), lower - 1);
+        }
+        if (keepAbove)
+        {
+            _ranges[start] = pack(upper + 1, upper(last));
+        }
+    }
+
+    /**
+     * Resizes the run of ranges from start up to end to hold count ranges, moving those which follow it.
+     */
+    private void replace(int start, int end, int count)
+    {
+        int newSize = _size + count - (end - start);
+        if (newSize > _ranges.length)
+        {
+            _ranges = Arrays.copyOf(_ranges, Math.max(newSize, _ranges.length * 2));
+        }
+        System.arraycopy(_ranges, end, _ranges, start + count, _size - end);
+        _size = newSize;
+    }
+
+    private int indexOfFirstEndingAtOrAfter(int value)
+    {
+        int low = 0;
+        int high = _size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (lt(upper(_ranges[mid]), value))
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Range getRange(int index)
+    {
+        if (index < 0 || index >= _size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+        }
+        return Range.newInstance(lower(_ranges[index]), upper(_ranges[index]));
+    }
+
+    private static long pack(int lower, int upper)
+    {
+        return ((long) lower << 32) | (upper & 0xFFFFFFFFL);
+    }
+
+    private static int lower(long range)
+    {
+        return (int) (range >> 32);
+    }
+
+    private static int upper(long range)
+    {
+        return (int) range;
+    }
+
+    public String toString()
+    {
+        StringBuilder str = new StringBuilder();
+        str.append("{");
+        for (int i = 0; i < _size; i++)
+        {
+            if (i != 0)
+            {
+                str.append(", ");
+            }
+            str.append(getRange(i));
+        }
+        str.append("}");
+        return str.toString();
+    }
+}
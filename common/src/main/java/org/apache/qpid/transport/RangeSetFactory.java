@@ -28,11 +28,11 @@ public class RangeSetFactory
 
     public static RangeSet createRangeSet()
     {
-        return new RangeSetImpl();
+        return new PackedRangeSet();
     }
 
     public static RangeSet createRangeSet(int size)
     {
-        return new RangeSetImpl(size);
+        return new PackedRangeSet(size);
     }
 }
@@ -127,7 +127,7 @@ public class RangeSetImpl implements RangeSet
 
             case 1:
                 Range first = ranges.get(0);
-                if(first.getUpper() + 1 >= lower && upper >= first.getUpper())
+                if(first.getUpper() + 1 >= lower && upper >= first.getUpper() && lower >= first.getLower())
                 {
                     ranges.set(0, Range.newInstance(first.getLower(), upper));
                     break;
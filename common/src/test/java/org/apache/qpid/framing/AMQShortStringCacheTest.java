@@ -0,0 +1,95 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.framing;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class AMQShortStringCacheTest extends QpidTestCase
+{
+    public void testRepeatedStringShared()
+    {
+        AMQShortStringCache cache = new AMQShortStringCache(16);
+        QpidByteBuffer buffer = encode("routingKey", "exchange", "routingKey");
+
+        AMQShortString first = cache.read(buffer);
+        AMQShortString exchange = cache.read(buffer);
+        AMQShortString second = cache.read(buffer);
+
+        assertEquals("Unexpected string", "routingKey", first.toString());
+        assertEquals("Unexpected string", "exchange", exchange.toString());
+        assertSame("Repeated string should be shared", first, second);
+        assertEquals("Buffer should be consumed", 0, buffer.remaining());
+        assertEquals("Unexpected hit count", 1, cache.getHitCount());
+        assertEquals("Unexpected miss count", 2, cache.getMissCount());
+        buffer.dispose();
+    }
+
+    public void testCollidingStringReplaced()
+    {
+        AMQShortStringCache cache = new AMQShortStringCache(1);
+        QpidByteBuffer buffer = encode("a", "b", "b", "a");
+
+        AMQShortString a = cache.read(buffer);
+        AMQShortString b = cache.read(buffer);
+        assertSame("Repeated string should be shared", b, cache.read(buffer));
+        AMQShortString secondA = cache.read(buffer);
+
+        assertEquals("Unexpected string", a, secondA);
+        assertNotSame("Replaced string should be read again", a, secondA);
+        assertEquals("Unexpected hit count", 1, cache.getHitCount());
+        assertEquals("Unexpected miss count", 3, cache.getMissCount());
+        buffer.dispose();
+    }
+
+    public void testEmptyStringReadAsNull()
+    {
+        AMQShortStringCache cache = new AMQShortStringCache(16);
+        QpidByteBuffer buffer = QpidByteBuffer.wrap(new byte[]{0});
+
+        assertNull("Empty string should be read as null", cache.read(buffer));
+        assertEquals("Unexpected miss count", 0, cache.getMissCount());
+        buffer.dispose();
+    }
+
+    public void testSizeRoundedToPowerOfTwo()
+    {
+        assertEquals(1, new AMQShortStringCache(1).getSize());
+        assertEquals(8, new AMQShortStringCache(5).getSize());
+        assertEquals(4096, new AMQShortStringCache(4096).getSize());
+    }
+
+    private static QpidByteBuffer encode(String... strings)
+    {
+        int size = 0;
+        for (String string : strings)
+        {
+            size += EncodingUtils.encodedShortStringLength(string);
+        }
+        QpidByteBuffer buffer = QpidByteBuffer.allocate(size);
+        for (String string : strings)
+        {
+            EncodingUtils.writeShortStringBytes(buffer, AMQShortString.valueOf(string));
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
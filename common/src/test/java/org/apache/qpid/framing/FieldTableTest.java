@@ -21,6 +21,8 @@
 package org.apache.qpid.framing;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -929,6 +931,57 @@ public class FieldTableTest extends QpidTestCase
         assertTrue("unexpected property value", destinationTable.getBoolean(myBooleanTestProperty));
     }
 
+    public void testLookupOfEncodedValues() throws Exception
+    {
+        FieldTable nested = new FieldTable();
+        nested.setString("nestedString", "nested");
+
+        FieldTable encodeTable = new FieldTable();
+        encodeTable.setBoolean("boolean", true);
+        encodeTable.setByte("byte", Byte.MAX_VALUE);
+        encodeTable.setShort("short", Short.MIN_VALUE);
+        encodeTable.setChar("char", 'c');
+        encodeTable.setInteger("int", Integer.MAX_VALUE);
+        encodeTable.setLong("long", Long.MIN_VALUE);
+        encodeTable.setFloat("float", 1.5f);
+        encodeTable.setDouble("double", Double.MAX_VALUE);
+        encodeTable.setString("string", "value");
+        encodeTable.setBytes("bytes", new byte[]{1, 2, 3});
+        encodeTable.setFieldTable("table", nested);
+        encodeTable.setFieldArray("array", Arrays.asList("a", "b"));
+        encodeTable.setVoid(new AMQShortString("void"));
+        encodeTable.setTimestamp(new AMQShortString("timestamp"), 1234L);
+        encodeTable.setDecimal(new AMQShortString("decimal"), new BigDecimal(1234));
+        encodeTable.setString("last", "lastValue");
+
+        byte[] encoded = encodeTable.getDataAsBytes();
+        FieldTable table = new FieldTable(QpidByteBuffer.wrap(encoded));
+
+        assertEquals("lastValue", table.getString("last"));
+        assertEquals(Boolean.TRUE, table.getBoolean("boolean"));
+        assertEquals(Byte.valueOf(Byte.MAX_VALUE), table.getByte("byte"));
+        assertEquals(Short.valueOf(Short.MIN_VALUE), table.getShort("short"));
+        assertEquals(Character.valueOf('c'), table.getCharacter("char"));
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), table.getInteger("int"));
+        assertTrue("Expected key not found", table.containsKey("decimal"));
+        assertFalse("Unexpected key found", table.containsKey("missing"));
+        assertNull(table.getString("missing"));
+
+        assertEquals(Long.valueOf(Long.MIN_VALUE), table.getLong("long"));
+        assertEquals(1.5f, table.getFloat("float"));
+        assertEquals(Double.MAX_VALUE, table.getDouble("double"));
+        assertEquals("value", table.getString("string"));
+        assertBytesEqual(new byte[]{1, 2, 3}, table.getBytes("bytes"));
+        assertEquals("nested", table.getFieldTable("table").getString("nestedString"));
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<Object>((Collection<?>) table.get("array")));
+        assertTrue(table.isNullStringValue("void"));
+        assertEquals(Long.valueOf(1234L), table.getTimestamp(new AMQShortString("timestamp")));
+        assertEquals(new BigDecimal(1234), table.getDecimal(new AMQShortString("decimal")));
+
+        assertTrue("Lookups should not discard the encoded form", table.isClean());
+        assertBytesEqual(encoded, table.getDataAsBytes());
+    }
+
     private void assertBytesEqual(byte[] expected, byte[] actual)
     {
         Assert.assertEquals(expected.length, actual.length);
@@ -0,0 +1,161 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class CoalescingByteBufferSenderTest extends QpidTestCase
+{
+    private RecordingSender _delegate;
+    private CoalescingByteBufferSender _sender;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _delegate = new RecordingSender();
+        _sender = new CoalescingByteBufferSender(_delegate, 32, 8);
+    }
+
+    public void testSmallBuffersWrittenTogetherOnFlush()
+    {
+        send(1, 2, 3);
+        send(4, 5);
+        send(6);
+
+        assertEquals("Nothing should be written before flush", 0, _delegate._writes.size());
+
+        _sender.flush();
+
+        assertEquals("Unexpected number of writes", 1, _delegate._writes.size());
+        assertTrue("Unexpected bytes", Arrays.equals(bytes(1, 2, 3, 4, 5, 6), _delegate._writes.get(0)));
+        assertEquals("Unexpected buffers sent", 3, _sender.getBuffersSent());
+        assertEquals("Unexpected buffers written", 1, _sender.getBuffersWritten());
+
+        send(7, 8);
+        _sender.flush();
+
+        assertEquals("Unexpected number of writes", 2, _delegate._writes.size());
+        assertTrue("Only unsent bytes should be written", Arrays.equals(bytes(7, 8), _delegate._writes.get(1)));
+    }
+
+    public void testLargeBufferPassedOnAfterPendingBytes()
+    {
+        send(1, 2);
+        send(10, 11, 12, 13, 14, 15, 16, 17, 18);
+        send(3);
+        _sender.flush();
+
+        assertEquals("Unexpected number of writes", 3, _delegate._writes.size());
+        assertTrue("Unexpected bytes", Arrays.equals(bytes(1, 2), _delegate._writes.get(0)));
+        assertTrue("Unexpected bytes",
+                   Arrays.equals(bytes(10, 11, 12, 13, 14, 15, 16, 17, 18), _delegate._writes.get(1)));
+        assertTrue("Unexpected bytes", Arrays.equals(bytes(3), _delegate._writes.get(2)));
+    }
+
+    public void testFullBufferWrittenBeforeReplacement()
+    {
+        for (int i = 0; i < 5; i++)
+        {
+            send(i, i, i, i, i, i, i);
+        }
+        _sender.flush();
+
+        assertEquals("Unexpected number of writes", 2, _delegate._writes.size());
+        assertEquals("Unexpected size of first write", 28, _delegate._writes.get(0).length);
+        assertTrue("Unexpected bytes", Arrays.equals(bytes(4, 4, 4, 4, 4, 4, 4), _delegate._writes.get(1)));
+    }
+
+    public void testSentBufferConsumed()
+    {
+        QpidByteBuffer buffer = QpidByteBuffer.wrap(bytes(1, 2, 3));
+        _sender.send(buffer);
+
+        assertEquals("Buffer should be consumed", 0, buffer.remaining());
+        buffer.dispose();
+    }
+
+    public void testCloseWritesUnsentBytes()
+    {
+        send(1, 2);
+        _sender.close();
+
+        assertEquals("Unexpected number of writes", 1, _delegate._writes.size());
+        assertTrue("Delegate should be closed", _delegate._closed);
+    }
+
+    private void send(int... values)
+    {
+        QpidByteBuffer buffer = QpidByteBuffer.wrap(bytes(values));
+        _sender.send(buffer);
+        buffer.dispose();
+    }
+
+    private static byte[] bytes(int... values)
+    {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static class RecordingSender implements ByteBufferSender
+    {
+        private final List<byte[]> _writes = new ArrayList<>();
+        private boolean _closed;
+
+        @Override
+        public boolean isDirectBufferPreferred()
+        {
+            return false;
+        }
+
+        @Override
+        public void send(final QpidByteBuffer msg)
+        {
+            byte[] bytes = new byte[msg.remaining()];
+            QpidByteBuffer duplicate = msg.duplicate();
+            duplicate.get(bytes);
+            duplicate.dispose();
+            _writes.add(bytes);
+            msg.position(msg.limit());
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+            _closed = true;
+        }
+    }
+}
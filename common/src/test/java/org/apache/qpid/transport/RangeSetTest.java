@@ -26,9 +26,11 @@ import static org.apache.qpid.util.Serial.COMPARATOR;
 import static org.apache.qpid.util.Serial.eq;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 /**
  * RangeSetTest
@@ -325,6 +327,72 @@ public class RangeSetTest extends QpidTestCase
         checkRange(orig) ;
     }
     
+    public void testAddAcrossSerialNumberWrap()
+    {
+        RangeSet ranges = RangeSetFactory.createRangeSet();
+        ranges.add(Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+        ranges.add(Integer.MIN_VALUE + 2, Integer.MIN_VALUE + 3);
+        check(ranges);
+        checkRange(ranges, Integer.MAX_VALUE - 1, Integer.MAX_VALUE, Integer.MIN_VALUE + 2, Integer.MIN_VALUE + 3);
+
+        ranges.add(Integer.MIN_VALUE, Integer.MIN_VALUE + 1);
+        checkRange(ranges, Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 3);
+        assertTrue(ranges.includes(Integer.MIN_VALUE));
+        assertTrue(ranges.includes(Range.newInstance(Integer.MAX_VALUE, Integer.MIN_VALUE + 1)));
+        assertFalse(ranges.includes(Integer.MIN_VALUE + 4));
+
+        ranges.subtract(createRangeSet(Integer.MAX_VALUE, Integer.MIN_VALUE));
+        checkRange(ranges, Integer.MAX_VALUE - 1, Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 1, Integer.MIN_VALUE + 3);
+    }
+
+    public void testRandomAddAndSubtract()
+    {
+        Random random = new Random(0);
+        for (int run = 0; run < 100; run++)
+        {
+            BitSet expected = new BitSet();
+            RangeSet actual = RangeSetFactory.createRangeSet();
+            for (int op = 0; op < 50; op++)
+            {
+                int lower = random.nextInt(200);
+                int upper = lower + random.nextInt(10);
+                if (random.nextInt(4) == 0)
+                {
+                    expected.clear(lower, upper + 1);
+                    actual.subtract(createRangeSet(lower, upper));
+                }
+                else
+                {
+                    expected.set(lower, upper + 1);
+                    actual.add(lower, upper);
+                }
+                check(actual);
+                assertEquals("Unexpected ranges", toRangeSet(expected).toString(), actual.toString());
+                assertEquals("Unexpected copy", actual.toString(), actual.copy().toString());
+                int value = random.nextInt(220);
+                assertEquals("Unexpected inclusion of " + value, expected.get(value), actual.includes(value));
+            }
+        }
+    }
+
+    public void testAddToSingleRangeExtendingBelow()
+    {
+        RangeSet ranges = new RangeSetImpl();
+        ranges.add(5, 10);
+        ranges.add(3, 12);
+        checkRange(ranges, 3, 12);
+    }
+
+    private RangeSet toRangeSet(BitSet bits)
+    {
+        RangeSet set = new RangeSetImpl();
+        for (int lower = bits.nextSetBit(0); lower >= 0; lower = bits.nextSetBit(bits.nextClearBit(lower)))
+        {
+            set.add(lower, bits.nextClearBit(lower) - 1);
+        }
+        return set;
+    }
+
     private RangeSet createRangeSet(int ... bounds)
     {
         RangeSet set = RangeSetFactory.createRangeSet();